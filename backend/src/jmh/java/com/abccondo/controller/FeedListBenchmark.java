@@ -0,0 +1,80 @@
+package com.abccondo.controller;
+
+import com.abccondo.feed.FeedCache;
+import com.abccondo.feed.FeedEntry;
+import com.abccondo.feed.FeedSnapshot;
+import com.abccondo.repository.BlogFeedView;
+import com.abccondo.repository.BlogRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// What /api/blog/list costs as the blog grows: rebuilding the snapshot from the feed query's rows
+// (the periodic rebuild and startup), and cutting a page from it and writing it with Spring's Jackson
+// settings (a response cache miss). The rows come from a mocked repository, so no database time is
+// included. Pages should stay flat across sizes; the rebuild grows with the posts it holds.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FeedListBenchmark {
+
+    private static final int PAGE = FeedPage.DEFAULT_LIMIT;
+
+    @Param({"100", "10000", "100000"})
+    public int posts;
+
+    private FeedCache cache;
+    private FeedSnapshot snapshot;
+    private ObjectMapper objectMapper;
+    private LocalDateTime middleCreatedAt;
+    private long middleId;
+
+    @Setup
+    public void setup() {
+        List<BlogFeedView> rows = new ArrayList<>(posts);
+        LocalDateTime newest = LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(posts);
+        for (long id = posts; id >= 1; id--) {
+            long author = 1 + id % 100;
+            rows.add(new FeedEntry(id, "Post " + id, "/api/images/" + id + ".jpg", "Neighbourhood news ".repeat(40),
+                    newest.minusMinutes(posts - id), author, "User " + author, "/images/avatars/" + author + ".png", true));
+        }
+        BlogRepository repo = Mockito.mock(BlogRepository.class);
+        Mockito.when(repo.findFeedPage(Mockito.any(Pageable.class))).thenReturn(rows);
+        cache = new FeedCache(repo, posts);
+        cache.rebuild();
+        snapshot = cache.current();
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+        FeedEntry middle = snapshot.entries().get(posts / 2);
+        middleCreatedAt = middle.getCreatedAt();
+        middleId = middle.getId();
+    }
+
+    @Benchmark
+    public FeedSnapshot rebuildSnapshot() {
+        cache.rebuild();
+        return cache.current();
+    }
+
+    @Benchmark
+    public byte[] firstPageJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(FeedPage.of(snapshot.page(null, null, PAGE + 1), PAGE, FeedPage::toMap));
+    }
+
+    @Benchmark
+    public byte[] middlePageJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(
+                FeedPage.of(snapshot.page(middleCreatedAt, middleId, PAGE + 1), PAGE, FeedPage::toMap));
+    }
+}
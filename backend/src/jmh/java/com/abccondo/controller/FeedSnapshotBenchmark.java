@@ -0,0 +1,147 @@
+package com.abccondo.controller;
+
+import com.abccondo.cache.EncodedBody;
+import com.abccondo.cache.ResponseBodyCache;
+import com.abccondo.feed.FeedCache;
+import com.abccondo.feed.FeedEntry;
+import com.abccondo.feed.FeedSnapshot;
+import com.abccondo.repository.BlogFeedView;
+import com.abccondo.repository.BlogRepository;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// First and deep feed pages served by the keyset query versus the in-memory snapshot, and the
+// first page once its encoded bytes are cached. The query runs over JDBC against an in-process H2
+// database, so the database side carries no network hop and the real gap against MySQL is wider
+// than measured here. Add -prof gc to jmh.args for allocation per operation.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(4)
+public class FeedSnapshotBenchmark {
+
+    private static final int POSTS = 10_000;
+    private static final int PAGE = FeedPage.DEFAULT_LIMIT;
+
+    private static final String FEED_SQL = "SELECT b.blog_id, b.blog_title, b.blog_image, b.blog_content, "
+            + "b.blog_created_at, b.blog_author_id, u.name, u.picture, u.id IS NOT NULL "
+            + "FROM blog b LEFT JOIN users u ON u.id = b.blog_author_id ";
+    private static final String ORDER = "ORDER BY b.blog_created_at DESC, b.blog_id DESC LIMIT ?";
+
+    private Connection connection;
+    private FeedSnapshot snapshot;
+    private ResponseBodyCache responseCache;
+    private LocalDateTime deepCreatedAt;
+    private long deepId;
+
+    @Setup
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:feedbench;DB_CLOSE_DELAY=-1");
+        try (Statement st = connection.createStatement()) {
+            st.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, name VARCHAR(255), picture VARCHAR(255))");
+            st.execute("CREATE TABLE blog (blog_id BIGINT PRIMARY KEY, blog_title VARCHAR(255), "
+                    + "blog_image VARCHAR(255), blog_content CLOB, blog_created_at TIMESTAMP, blog_author_id BIGINT)");
+            st.execute("CREATE INDEX idx_blog_feed ON blog (blog_created_at, blog_id)");
+        }
+        try (PreparedStatement users = connection.prepareStatement("INSERT INTO users VALUES (?, ?, ?)");
+             PreparedStatement blogs = connection.prepareStatement("INSERT INTO blog VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (long id = 1; id <= 100; id++) {
+                users.setLong(1, id);
+                users.setString(2, "User " + id);
+                users.setString(3, "/images/avatars/" + id + ".png");
+                users.addBatch();
+            }
+            users.executeBatch();
+            LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+            for (long id = 1; id <= POSTS; id++) {
+                blogs.setLong(1, id);
+                blogs.setString(2, "Post " + id);
+                blogs.setString(3, "/images/blog/" + id + ".jpg");
+                blogs.setString(4, "Neighbourhood news ".repeat(40));
+                blogs.setTimestamp(5, Timestamp.valueOf(start.plusMinutes(id)));
+                blogs.setLong(6, 1 + id % 100);
+                blogs.addBatch();
+            }
+            blogs.executeBatch();
+        }
+
+        List<FeedEntry> all = query(POSTS + 1, null, 0);
+        BlogRepository repo = Mockito.mock(BlogRepository.class);
+        Mockito.when(repo.findFeedPage(Mockito.any(Pageable.class))).thenReturn(new ArrayList<BlogFeedView>(all));
+        FeedCache cache = new FeedCache(repo, POSTS);
+        cache.rebuild();
+        snapshot = cache.current();
+        responseCache = new ResponseBodyCache(Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build(),
+                TimeUnit.HOURS.toMillis(1), 100, System::currentTimeMillis);
+
+        FeedEntry deep = all.get(POSTS / 2);
+        deepCreatedAt = deep.getCreatedAt();
+        deepId = deep.getId();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    private List<FeedEntry> query(int limit, LocalDateTime createdAt, long id) throws SQLException {
+        String sql = createdAt == null ? FEED_SQL + ORDER
+                : FEED_SQL + "WHERE b.blog_created_at < ? OR (b.blog_created_at = ? AND b.blog_id < ?) " + ORDER;
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            int i = 1;
+            if (createdAt != null) {
+                ps.setTimestamp(i++, Timestamp.valueOf(createdAt));
+                ps.setTimestamp(i++, Timestamp.valueOf(createdAt));
+                ps.setLong(i++, id);
+            }
+            ps.setInt(i, limit);
+            List<FeedEntry> rows = new ArrayList<>(limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new FeedEntry(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                            rs.getTimestamp(5).toLocalDateTime(), rs.getLong(6), rs.getString(7),
+                            rs.getString(8), rs.getBoolean(9)));
+                }
+            }
+            return rows;
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> firstPageDatabase() throws SQLException {
+        return FeedPage.of(query(PAGE + 1, null, 0), PAGE, FeedPage::toMap);
+    }
+
+    @Benchmark
+    public Map<String, Object> firstPageSnapshot() {
+        return FeedPage.of(snapshot.page(null, null, PAGE + 1), PAGE, FeedPage::toMap);
+    }
+
+    @Benchmark
+    public Map<String, Object> deepPageDatabase() throws SQLException {
+        return FeedPage.of(query(PAGE + 1, deepCreatedAt, deepId), PAGE, FeedPage::toMap);
+    }
+
+    @Benchmark
+    public Map<String, Object> deepPageSnapshot() {
+        return FeedPage.of(snapshot.page(deepCreatedAt, deepId, PAGE + 1), PAGE, FeedPage::toMap);
+    }
+
+    @Benchmark
+    public byte[] firstPageEncoded() {
+        EncodedBody body = responseCache.feedPage(PAGE, snapshot.version(),
+                () -> FeedPage.of(snapshot.page(null, null, PAGE + 1), PAGE, FeedPage::toMap));
+        return body.gzip();
+    }
+}
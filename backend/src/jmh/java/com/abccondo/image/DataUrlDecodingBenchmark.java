@@ -0,0 +1,57 @@
+package com.abccondo.image;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// A blogImage data URL as the frontend posts it, at a thumbnail, a typical photo and a large upload.
+// toReference is the whole path a post save takes: decode, hash, and the existence check (the blob is
+// already on disk after the first call, as when the same image is saved again). decode is the base64
+// step on its own.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DataUrlDecodingBenchmark {
+
+    @Param({"16384", "262144", "2097152"})
+    public int bytes;
+
+    private Path dir;
+    private ImageStore store;
+    private String dataUrl;
+    private String payload;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("image-bench");
+        store = new ImageStore(dir.toString());
+        byte[] image = new byte[bytes];
+        new Random(42).nextBytes(image);
+        payload = Base64.getEncoder().encodeToString(image);
+        dataUrl = "data:image/jpeg;base64," + payload;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public String toReference() {
+        return store.toReference(dataUrl);
+    }
+
+    @Benchmark
+    public byte[] decode() {
+        return Base64.getMimeDecoder().decode(payload);
+    }
+}
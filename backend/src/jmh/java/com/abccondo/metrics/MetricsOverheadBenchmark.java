@@ -0,0 +1,89 @@
+package com.abccondo.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// A feed-page-sized request (one 20-row query) with and without the metrics added around it: the
+// route timer with its buckets, the per-request JDBC counts and the counting JDBC proxies. The query
+// runs against in-process H2, so there is no network hop and the overhead measured here is a larger
+// share of the request than it would be against MySQL.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MetricsOverheadBenchmark {
+
+    private static final int POSTS = 1_000;
+    private static final String PAGE_SQL =
+            "SELECT blog_id, blog_title, blog_content, blog_created_at FROM blog ORDER BY blog_id DESC LIMIT 20";
+
+    @Param({"false", "true"})
+    public boolean instrumented;
+
+    private SingleConnectionDataSource database;
+    private JdbcTemplate jdbc;
+    private PrometheusMeterRegistry registry;
+    private JdbcMetricsFilter filter;
+    private FilterChain handler;
+
+    @Setup
+    public void setup() {
+        database = new SingleConnectionDataSource("jdbc:h2:mem:metricsbench;DB_CLOSE_DELAY=-1", "sa", "", true);
+        JdbcTemplate setup = new JdbcTemplate(database);
+        setup.execute("CREATE TABLE IF NOT EXISTS blog (blog_id BIGINT PRIMARY KEY, blog_title VARCHAR(255), "
+                + "blog_content VARCHAR(2000), blog_created_at TIMESTAMP)");
+        setup.update("DELETE FROM blog");
+        for (int i = 1; i <= POSTS; i++) {
+            setup.update("INSERT INTO blog VALUES (?, ?, ?, CURRENT_TIMESTAMP)", i, "Post " + i, "Body of post " + i);
+        }
+        DataSource dataSource = instrumented ? JdbcCounting.wrap(database) : database;
+        jdbc = new JdbcTemplate(dataSource);
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        filter = new JdbcMetricsFilter(registry);
+        handler = (request, response) -> page();
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.destroy();
+    }
+
+    private List<String> page() {
+        return jdbc.query(PAGE_SQL, (rs, row) -> rs.getLong(1) + rs.getString(2) + rs.getString(3) + rs.getTimestamp(4));
+    }
+
+    @Benchmark
+    public Object feedPage() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/blog/list");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/blog/list");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        if (!instrumented) {
+            handler.doFilter(request, response);
+            return response;
+        }
+        // What the actuator's observation filter records, with the buckets from metrics.properties
+        Timer.Sample sample = Timer.start(registry);
+        filter.doFilter(request, response, handler);
+        sample.stop(Timer.builder("http.server.requests")
+                .tags("method", "GET", "uri", "/api/blog/list", "status", "200", "outcome", "SUCCESS",
+                        "exception", "none", "error", "none")
+                .serviceLevelObjectives(Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25),
+                        Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250),
+                        Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofMillis(2500),
+                        Duration.ofSeconds(5), Duration.ofSeconds(10))
+                .register(registry));
+        return response;
+    }
+}
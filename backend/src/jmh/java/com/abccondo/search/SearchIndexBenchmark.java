@@ -0,0 +1,123 @@
+package com.abccondo.search;
+
+import com.abccondo.repository.BlogRepository;
+import com.abccondo.repository.BlogTextView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Query latency at 1M posts. Posts are generated on the fly behind a mocked repository, so setup also
+// exercises the bulk loader. Words follow a Zipf distribution over a 50k vocabulary: the most common
+// word is in nearly every post, like "the", and the rarest in a handful.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SearchIndexBenchmark {
+
+    private static final int POSTS = 1_000_000;
+    private static final int VOCABULARY = 50_000;
+    private static final int TITLE_WORDS = 6;
+    private static final int CONTENT_WORDS = 40;
+
+    @Param({"rare", "common", "twoWords", "fourWords", "prefix"})
+    public String query;
+
+    private SearchIndex index;
+    private String text;
+
+    private record Row(Long id, String title, String content) implements BlogTextView {
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getTitle() {
+            return title;
+        }
+
+        @Override
+        public String getContent() {
+            return content;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String[] words = vocabulary();
+        double[] cumulative = new double[VOCABULARY];
+        double sum = 0;
+        for (int rank = 0; rank < VOCABULARY; rank++) {
+            sum += 1.0 / (rank + 1);
+            cumulative[rank] = sum;
+        }
+        double total = sum;
+
+        BlogRepository blogRepo = mock(BlogRepository.class);
+        when(blogRepo.findTextAfter(anyLong(), any(Pageable.class))).thenAnswer(inv -> {
+            long after = inv.getArgument(0);
+            int size = inv.<Pageable>getArgument(1).getPageSize();
+            List<Row> rows = new ArrayList<>(size);
+            for (long id = after + 1; id <= Math.min(after + size, POSTS); id++) {
+                Random random = new Random(id);
+                rows.add(new Row(id, sentence(words, cumulative, total, random, TITLE_WORDS),
+                        sentence(words, cumulative, total, random, CONTENT_WORDS)));
+            }
+            return rows;
+        });
+        index = new SearchIndex(blogRepo, new SimpleMeterRegistry(), 1000, 0);
+        long start = System.nanoTime();
+        index.rebuild();
+        System.out.printf("%nIndexed %d posts in %d ms%n", index.size(), (System.nanoTime() - start) / 1_000_000);
+
+        text = switch (query) {
+            case "rare" -> words[20_000];
+            case "common" -> words[0];
+            case "twoWords" -> words[40] + " " + words[2_000];
+            case "fourWords" -> words[3] + " " + words[150] + " " + words[900] + " " + words[7_000];
+            case "prefix" -> words[10].substring(0, 3) + "*";
+            default -> throw new IllegalArgumentException(query);
+        };
+    }
+
+    @Benchmark
+    public List<Long> search() {
+        return index.search(text, 20);
+    }
+
+    private static String[] vocabulary() {
+        Random random = new Random(42);
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < VOCABULARY) {
+            char[] word = new char[3 + random.nextInt(7)];
+            for (int i = 0; i < word.length; i++) {
+                word[i] = (char) ('a' + random.nextInt(26));
+            }
+            words.add(new String(word));
+        }
+        return words.toArray(new String[0]);
+    }
+
+    private static String sentence(String[] words, double[] cumulative, double total, Random random, int length) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            sentence.append(words[rank < 0 ? -rank - 1 : rank]).append(' ');
+        }
+        return sentence.toString();
+    }
+}
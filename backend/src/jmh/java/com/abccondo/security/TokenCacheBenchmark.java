@@ -0,0 +1,39 @@
+package com.abccondo.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Cached versus uncached verification of the same token, as the frontend sends it on every request
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(4)
+public class TokenCacheBenchmark {
+
+    private JwtUtil jwtUtil;
+    private VerifiedTokenCache tokenCache;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "benchmark-secret-benchmark-secret-benchmark-secret-0123456789");
+        jwtUtil.init();
+        tokenCache = new VerifiedTokenCache(jwtUtil, new SimpleMeterRegistry(), 10_000);
+        token = jwtUtil.generateToken(1L, "bench@example.com");
+    }
+
+    @Benchmark
+    public boolean uncachedValidateToken() {
+        return jwtUtil.validateToken(token);
+    }
+
+    @Benchmark
+    public Optional<JwtPrincipal> cachedVerify() {
+        return tokenCache.verify(token);
+    }
+}
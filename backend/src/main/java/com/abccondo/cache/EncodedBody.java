@@ -0,0 +1,174 @@
+package com.abccondo.cache;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+// A JSON response body serialized once, kept as UTF-8 bytes plus a gzip copy, together with the
+// source value it was built from so a cache can tell whether it is still current. Serving one
+// copies nothing: the chosen array is handed to the byte-array message converter as is.
+// Also home to the conditional GET rules the cached endpoints share: a strong ETag per tag and
+// content coding, and If-None-Match matching.
+public final class EncodedBody {
+    // Below this the gzip header and trailer eat most of the saving
+    static final int MIN_GZIP_BYTES = 256;
+    private static final String GZIP_SUFFIX = "-gz";
+    // Clients may keep the body but must revalidate it (If-None-Match) before every use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private final byte[] identity;
+    private final byte[] gzip;
+    private final Object source;
+    private volatile String contentTag;
+
+    private EncodedBody(byte[] identity, byte[] gzip, Object source) {
+        this.identity = identity;
+        this.gzip = gzip;
+        this.source = source;
+    }
+
+    public static EncodedBody of(byte[] json, Object source) {
+        byte[] gzip = json.length < MIN_GZIP_BYTES ? null : gzip(json);
+        if (gzip != null && gzip.length >= json.length) {
+            gzip = null;
+        }
+        return new EncodedBody(json, gzip, source);
+    }
+
+    public byte[] identity() {
+        return identity;
+    }
+
+    // Null when compressing would not make the body smaller
+    public byte[] gzip() {
+        return gzip;
+    }
+
+    public Object source() {
+        return source;
+    }
+
+    // Hash of the JSON bytes, for bodies that have no version of their own; computed on first use
+    public String contentTag() {
+        String tag = contentTag;
+        if (tag == null) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(identity);
+                tag = Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            contentTag = tag;
+        }
+        return tag;
+    }
+
+    // 200 with the smallest encoding the client accepts
+    public ResponseEntity<byte[]> toResponse(String acceptEncoding) {
+        return toResponse(acceptEncoding, null);
+    }
+
+    // Same, with a strong ETag for the given tag when it is not null
+    public ResponseEntity<byte[]> toResponse(String acceptEncoding, String tag) {
+        boolean gzipped = gzip != null && acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (tag != null) {
+            response.eTag(etag(tag, gzipped)).cacheControl(REVALIDATE);
+        }
+        if (gzipped) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzip);
+        }
+        return response.body(identity);
+    }
+
+    // 200 carrying the same validators, for bodies serialized per request rather than stored here
+    public static ResponseEntity.BodyBuilder okWithTag(String tag) {
+        return ResponseEntity.ok().eTag(etag(tag, false)).cacheControl(REVALIDATE);
+    }
+
+    // 304 when If-None-Match already names the tag, in either content coding (the JSON is the same);
+    // null when the client has to get the full response
+    public static ResponseEntity<byte[]> notModified(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null || tag == null) {
+            return null;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String etag = candidate.trim();
+            // Weak comparison, as RFC 9110 requires for If-None-Match; proxies that compress weaken ETags
+            if (etag.startsWith("W/")) {
+                etag = etag.substring(2);
+            }
+            boolean any = etag.equals("*");
+            if (any || etag.equals(etag(tag, false)) || etag.equals(etag(tag, true))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(any ? etag(tag, false) : etag)
+                        .cacheControl(REVALIDATE)
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                        .build();
+            }
+        }
+        return null;
+    }
+
+    // Strong ETags differ per content coding
+    static String etag(String tag, boolean gzipped) {
+        return '"' + tag + (gzipped ? GZIP_SUFFIX : "") + '"';
+    }
+
+    // Whether an Accept-Encoding header allows gzip, honouring q=0 and the * wildcard
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        boolean wildcard = false;
+        for (String coding : acceptEncoding.split(",")) {
+            int semicolon = coding.indexOf(';');
+            String name = (semicolon < 0 ? coding : coding.substring(0, semicolon)).trim();
+            boolean allowed = semicolon < 0 || qValue(coding.substring(semicolon + 1)) > 0;
+            if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip")) {
+                gzip = allowed;
+            } else if (name.equals("*")) {
+                wildcard = allowed;
+            }
+        }
+        return gzip != null ? gzip : wildcard;
+    }
+
+    private static double qValue(String params) {
+        for (String param : params.split(";")) {
+            String p = param.trim();
+            if (p.startsWith("q=") || p.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(p.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 32);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
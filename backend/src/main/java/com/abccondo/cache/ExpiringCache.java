@@ -0,0 +1,157 @@
+package com.abccondo.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Size-bounded cache with a per-entry expiry time.
+// Reads are a single ConcurrentHashMap lookup plus a volatile write of the access time, so they
+// never take a lock. When a put pushes the size past maxSize, whichever thread wins tryLock
+// sweeps out expired entries and then the least recently read ones down to 90% of maxSize;
+// other writers carry on without waiting. Eviction order is therefore approximate LRU.
+public class ExpiringCache<K, V> {
+    private static final double EVICT_TO = 0.9;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final LongSupplier clock;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public ExpiringCache(int maxSize) {
+        this(maxSize, System::currentTimeMillis);
+    }
+
+    // clock returns epoch milliseconds; tests pass a controllable one
+    public ExpiringCache(int maxSize, LongSupplier clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        long now = clock.getAsLong();
+        if (now >= entry.expiresAt) {
+            if (entries.remove(key, entry)) {
+                expirations.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        entry.lastAccess = now;
+        hits.increment();
+        return entry.value;
+    }
+
+    // expiresAt is epoch milliseconds; already-expired values are not stored
+    public void put(K key, V value, long expiresAt) {
+        long now = clock.getAsLong();
+        if (expiresAt <= now) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, expiresAt, now));
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public long expirationCount() {
+        return expirations.sum();
+    }
+
+    // Registers Micrometer's conventional cache meters under the given cache name
+    public void bindTo(MeterRegistry registry, String name) {
+        FunctionCounter.builder("cache.gets", this, ExpiringCache::hitCount)
+                .tag("cache", name).tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", this, ExpiringCache::missCount)
+                .tag("cache", name).tag("result", "miss").register(registry);
+        FunctionCounter.builder("cache.evictions", this, c -> c.evictionCount() + c.expirationCount())
+                .tag("cache", name).register(registry);
+        Gauge.builder("cache.size", this, ExpiringCache::size)
+                .tag("cache", name).register(registry);
+    }
+
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = clock.getAsLong();
+            entries.forEach((key, entry) -> {
+                if (now >= entry.expiresAt && entries.remove(key, entry)) {
+                    expirations.increment();
+                }
+            });
+
+            int excess = entries.size() - (int) (maxSize * EVICT_TO);
+            if (excess <= 0) {
+                return;
+            }
+            List<Map.Entry<K, Entry<V>>> byAccess = new ArrayList<>(entries.entrySet());
+            byAccess.sort((a, b) -> Long.compare(a.getValue().lastAccess, b.getValue().lastAccess));
+            for (int i = 0; i < excess && i < byAccess.size(); i++) {
+                Map.Entry<K, Entry<V>> victim = byAccess.get(i);
+                if (entries.remove(victim.getKey(), victim.getValue())) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+        volatile long lastAccess;
+
+        Entry(V value, long expiresAt, long lastAccess) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.abccondo.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Encoded JSON bodies for the hot GET endpoints (feed pages, profiles), so a repeat request is a
+// map lookup instead of building maps and running Jackson again. Each body remembers the source
+// it was built from (a feed snapshot version, a user's visible fields); a request whose source
+// differs re-serializes and replaces it, so bodies never need explicit invalidation. The TTL only
+// releases memory held for pages and profiles nobody asks for any more.
+@Component
+public class ResponseBodyCache {
+    private final ObjectMapper objectMapper;
+    private final ExpiringCache<Object, EncodedBody> feedPages;
+    private final ExpiringCache<Long, EncodedBody> profiles;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    @Autowired
+    public ResponseBodyCache(ObjectMapper objectMapper, MeterRegistry registry,
+                             @Value("${response.cache.ttl-seconds:600}") long ttlSeconds,
+                             @Value("${response.cache.max-size:2000}") int maxSize) {
+        this(objectMapper, TimeUnit.SECONDS.toMillis(ttlSeconds), maxSize, System::currentTimeMillis);
+        feedPages.bindTo(registry, "responses.feed");
+        profiles.bindTo(registry, "responses.profile");
+    }
+
+    public ResponseBodyCache(ObjectMapper objectMapper, long ttlMillis, int maxSize, LongSupplier clock) {
+        this.objectMapper = objectMapper;
+        this.feedPages = new ExpiringCache<>(maxSize, clock);
+        this.profiles = new ExpiringCache<>(maxSize, clock);
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    // pageKey identifies the page (cursor, size, view); feedVersion is the snapshot it was cut from
+    public EncodedBody feedPage(Object pageKey, long feedVersion, Supplier<?> body) {
+        return get(feedPages, pageKey, feedVersion, body);
+    }
+
+    // source holds every user field the profile body shows
+    public EncodedBody profile(Long userId, Object source, Supplier<?> body) {
+        return get(profiles, userId, source, body);
+    }
+
+    private <K> EncodedBody get(ExpiringCache<K, EncodedBody> cache, K key, Object source, Supplier<?> body) {
+        EncodedBody cached = cache.get(key);
+        if (cached != null && Objects.equals(cached.source(), source)) {
+            return cached;
+        }
+        EncodedBody encoded = EncodedBody.of(serialize(body.get()), source);
+        cache.put(key, encoded, clock.getAsLong() + ttlMillis);
+        return encoded;
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response body", e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.abccondo.cache;
+
+import com.abccondo.datasource.ReplicaLagMonitor;
+import com.abccondo.model.UserModel;
+import com.abccondo.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Read-through cache in front of UserRepository for the read paths (profile views, logins).
+// Users are indexed by id; the email index only maps to an id, so evicting a user by id also
+// retires every email spelling that pointed at it. Callers get copies and may not write them back:
+// writes go through UserRepository and must call evict() afterwards.
+// With a read replica a load can return the row as it was before a write for up to the replica's
+// lag tolerance; loads that soon after an evict are returned but not cached.
+@Component
+public class UserCache {
+    private final UserRepository userRepo;
+    private final ExpiringCache<Long, UserModel> byId;
+    private final ExpiringCache<String, Long> byEmail;
+    private final long ttlMillis;
+    private final long staleReadMillis;
+    private final LongSupplier clock;
+    // Bumped by every evict(); a load that started before it is not cached, so it cannot resurrect old data
+    private final AtomicLong epoch = new AtomicLong();
+    private volatile long cacheableAfter;
+
+    @Autowired
+    public UserCache(UserRepository userRepo, MeterRegistry registry,
+                     @Value("${user.cache.ttl-seconds:300}") long ttlSeconds,
+                     @Value("${user.cache.max-size:10000}") int maxSize,
+                     ObjectProvider<ReplicaLagMonitor> replicaLag) {
+        this(userRepo, TimeUnit.SECONDS.toMillis(ttlSeconds), maxSize,
+                replicaLag.stream().mapToLong(ReplicaLagMonitor::maxLagMillis).max().orElse(0),
+                System::currentTimeMillis);
+        byId.bindTo(registry, "users");
+        byEmail.bindTo(registry, "users.email");
+    }
+
+    public UserCache(UserRepository userRepo, long ttlMillis, int maxSize, LongSupplier clock) {
+        this(userRepo, ttlMillis, maxSize, 0, clock);
+    }
+
+    public UserCache(UserRepository userRepo, long ttlMillis, int maxSize, long staleReadMillis, LongSupplier clock) {
+        this.userRepo = userRepo;
+        this.byId = new ExpiringCache<>(maxSize, clock);
+        this.byEmail = new ExpiringCache<>(maxSize, clock);
+        this.ttlMillis = ttlMillis;
+        this.staleReadMillis = staleReadMillis;
+        this.clock = clock;
+    }
+
+    public Optional<UserModel> findById(Long id) {
+        UserModel cached = byId.get(id);
+        if (cached != null) {
+            return Optional.of(copy(cached));
+        }
+        long loadEpoch = epoch.get();
+        Optional<UserModel> loaded = userRepo.findById(id);
+        loaded.ifPresent(user -> store(user, null, loadEpoch));
+        return loaded.map(UserCache::copy);
+    }
+
+    public Optional<UserModel> findByEmail(String email) {
+        if (email == null) {
+            return userRepo.findByEmail(null);
+        }
+        Long id = byEmail.get(email);
+        if (id != null) {
+            UserModel cached = byId.get(id);
+            if (cached != null) {
+                return Optional.of(copy(cached));
+            }
+        }
+        long loadEpoch = epoch.get();
+        Optional<UserModel> loaded = userRepo.findByEmail(email);
+        loaded.ifPresent(user -> store(user, email, loadEpoch));
+        return loaded.map(UserCache::copy);
+    }
+
+    public boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    // Call after saving a user (created, updated or re-hashed)
+    public void evict(UserModel user) {
+        epoch.incrementAndGet();
+        cacheableAfter = clock.getAsLong() + staleReadMillis;
+        if (user.getId() != null) {
+            byId.invalidate(user.getId());
+        }
+        if (user.getEmail() != null) {
+            byEmail.invalidate(user.getEmail());
+        }
+    }
+
+    private void store(UserModel user, String email, long loadEpoch) {
+        long now = clock.getAsLong();
+        if (epoch.get() != loadEpoch || now < cacheableAfter) {
+            return;
+        }
+        long expiresAt = now + ttlMillis;
+        byId.put(user.getId(), copy(user), expiresAt);
+        if (user.getEmail() != null) {
+            byEmail.put(user.getEmail(), user.getId(), expiresAt);
+        }
+        if (email != null && !email.equals(user.getEmail())) {
+            byEmail.put(email, user.getId(), expiresAt);
+        }
+    }
+
+    private static UserModel copy(UserModel user) {
+        UserModel copy = new UserModel();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setEmail(user.getEmail());
+        copy.setPassword(user.getPassword());
+        copy.setProvider(user.getProvider());
+        copy.setPicture(user.getPicture());
+        return copy;
+    }
+}
@@ -1,20 +1,22 @@
 package com.abccondo.controller;
 
+import com.abccondo.cache.UserCache;
+import com.abccondo.datasource.ReadYourWrites;
 import com.abccondo.model.UserModel;
 import com.abccondo.repository.UserRepository;
 import com.abccondo.security.JwtUtil;
+import com.abccondo.security.PasswordHashingBusyException;
+import com.abccondo.social.FacebookClient;
+import com.abccondo.social.ProviderUnavailableException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import java.util.*;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
-import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.client.RestTemplate;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -23,16 +25,21 @@ public class AuthController {
 	@Autowired
 	private UserRepository userRepo;
 	@Autowired
+	private UserCache userCache;
+	@Autowired
 	private PasswordEncoder passwordEncoder;
 	@Autowired
 	private JwtUtil jwtUtil;
-
-	@Value("${google.client-id}")
-	private String googleClientId;
+	@Autowired
+	private GoogleIdTokenVerifier googleVerifier;
+	@Autowired
+	private FacebookClient facebookClient;
+	@Autowired
+	private ReadYourWrites readYourWrites;
 
 	@PostMapping("/register")
 	public Map<String, String> register(@RequestBody Map<String, String> body) {
-		if (userRepo.findByEmail(body.get("email")).isPresent()) {
+		if (userCache.findByEmail(body.get("email")).isPresent()) {
 			throw new RuntimeException("Email already registered");
 		}
 		UserModel user = new UserModel();
@@ -40,16 +47,28 @@ public class AuthController {
 		user.setEmail(body.get("email"));
 		user.setPassword(passwordEncoder.encode(body.get("password")));
 		userRepo.save(user);
+		userCache.evict(user);
+		readYourWrites.record(user.getId());
 		return Map.of("status", "registered");
 	}
 
 	@PostMapping("/login")
 	public Map<String, String> login(@RequestBody Map<String, String> body) {
-		UserModel user = userRepo.findByEmail(body.get("email"))
+		UserModel user = userCache.findByEmail(body.get("email"))
 				.orElseThrow(() -> new RuntimeException("User not found"));
 		if (!passwordEncoder.matches(body.get("password"), user.getPassword())) {
 			throw new RuntimeException("Invalid credentials");
 		}
+		// Re-hash at the current cost while we still have the plain password; best effort
+		if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+			try {
+				user.setPassword(passwordEncoder.encode(body.get("password")));
+				userRepo.save(user);
+				userCache.evict(user);
+			} catch (PasswordHashingBusyException e) {
+				// try again on a later login
+			}
+		}
 		String token = jwtUtil.generateToken(user.getId(), user.getEmail());
 		return Map.of("token", token);
 	}
@@ -63,11 +82,8 @@ public class AuthController {
 		}
 
 		try {
-			//verify the Google JWT Token
-			GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier.Builder(new NetHttpTransport(),
-					GsonFactory.getDefaultInstance()).setAudience(Collections.singletonList(googleClientId)).build();
-
-			GoogleIdToken idToken = verifier.verify(idTokenString);
+			//verify the Google JWT Token against the cached Google public keys
+			GoogleIdToken idToken = googleVerifier.verify(idTokenString);
 			if (idToken == null) {
 				return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("error", "Invalid ID token"));
 			}
@@ -78,7 +94,7 @@ public class AuthController {
 			String picture = (String) payload.get("picture");
 
 			// Find or create user in your DB
-			Optional<UserModel> optionalUser = userRepo.findByEmail(email);
+			Optional<UserModel> optionalUser = userCache.findByEmail(email);
 			UserModel user;
 			if (optionalUser.isPresent()) {
 				user = optionalUser.get();
@@ -90,6 +106,9 @@ public class AuthController {
 				user.setPicture(picture);
 				// You may want to generate a random password or leave blank
 				userRepo.save(user);
+				userCache.evict(user);
+				// The client reads the new profile right after this
+				readYourWrites.record(user.getId());
 			}
 
 			// Generate your own JWT/session token
@@ -111,9 +130,13 @@ public class AuthController {
 	    }
 
 	    try {
-	        String userInfoUrl = "https://graph.facebook.com/me?fields=id,name,email,picture&access_token=" + accessToken;
-	        RestTemplate restTemplate = new RestTemplate();
-	        Map<String, Object> fbUser = restTemplate.getForObject(userInfoUrl, Map.class);
+	        // Shared, time-bounded Graph API client; empty means Facebook rejected the token
+	        Optional<Map<String, Object>> me = facebookClient.me(accessToken);
+	        if (me.isEmpty()) {
+	            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+	                    .body(Map.of("error", "Invalid access token"));
+	        }
+	        Map<String, Object> fbUser = me.get();
 
 	        String id = (String) fbUser.get("id");
 	        String email = (String) fbUser.get("email");
@@ -139,7 +162,7 @@ public class AuthController {
 	        }
 
 	        // Find or create user in your DB
-	        Optional<UserModel> optionalUser = userRepo.findByEmail(email);
+	        Optional<UserModel> optionalUser = userCache.findByEmail(email);
 	        UserModel user;
 	        if (optionalUser.isPresent()) {
 	            user = optionalUser.get();
@@ -150,16 +173,30 @@ public class AuthController {
 	            user.setProvider("facebook");
 	            user.setPicture(picture);
 	            userRepo.save(user);
+	            userCache.evict(user);
+	            readYourWrites.record(user.getId());
 	        }
 
 	        // Generate your own JWT/session token
 	        String token = jwtUtil.generateToken(user.getId(), user.getEmail());
 
 	        return ResponseEntity.ok(Map.of("token", token));
+	    } catch (ProviderUnavailableException e) {
+	        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+	                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+	                .body(Map.of("error", "Facebook is unavailable, try again later"));
 	    } catch (Exception e) {
 	        e.printStackTrace();
 	        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
 	                .body(Map.of("error", "Facebook login failed"));
 	    }
 	}
+
+	// Hashing queue is full (login or sign-up burst): tell the client when to come back
+	@ExceptionHandler(PasswordHashingBusyException.class)
+	public ResponseEntity<?> passwordHashingBusy(PasswordHashingBusyException e) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+				.body(Map.of("error", "Server is busy, please try again shortly"));
+	}
 }
\ No newline at end of file
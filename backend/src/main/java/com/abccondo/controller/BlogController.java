@@ -1,14 +1,32 @@
 package com.abccondo.controller;
 
+import com.abccondo.cache.EncodedBody;
+import com.abccondo.cache.ResponseBodyCache;
+import com.abccondo.datasource.ReadYourWrites;
+import com.abccondo.feed.BlogChanges;
+import com.abccondo.feed.ChangesExpiredException;
+import com.abccondo.feed.FeedCache;
+import com.abccondo.feed.FeedEntry;
+import com.abccondo.feed.FeedEventHub;
+import com.abccondo.feed.FeedSnapshot;
+import com.abccondo.image.ImageStore;
+import com.abccondo.image.ImageVariant;
+import com.abccondo.image.ImageVariantService;
+import com.abccondo.image.InvalidImageException;
 import com.abccondo.model.BlogModel;
-import com.abccondo.model.UserModel;
+import com.abccondo.repository.BlogChangeView;
+import com.abccondo.repository.BlogFeedView;
 import com.abccondo.repository.BlogRepository;
-import com.abccondo.repository.UserRepository;
-import com.abccondo.security.JwtUtil;
+import com.abccondo.repository.BlogSummaryView;
+import com.abccondo.search.SearchIndex;
+import com.abccondo.security.CurrentUser;
+import com.abccondo.security.JwtPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import java.util.*;
 import java.time.LocalDateTime;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 
@@ -17,89 +35,194 @@ import org.springframework.http.HttpStatus;
 @CrossOrigin(origins = "*")
 public class BlogController {
 
-    @Autowired
-    private UserRepository userRepo;
     @Autowired
     private BlogRepository blogRepo;
     @Autowired
-    private JwtUtil jwtUtil;
+    private ImageStore imageStore;
+    @Autowired
+    private ImageVariantService imageVariants;
+    @Autowired
+    private FeedCache feedCache;
+    @Autowired
+    private ResponseBodyCache responseCache;
+    @Autowired
+    private BlogChanges blogChanges;
+    @Autowired
+    private FeedEventHub feedEvents;
+    @Autowired
+    private SearchIndex searchIndex;
+    @Autowired
+    private ReadYourWrites readYourWrites;
 
+    static final int CHANGES_DEFAULT_LIMIT = 100;
+    static final int CHANGES_MAX_LIMIT = 500;
+    static final int SEARCH_DEFAULT_LIMIT = 20;
+    static final int SEARCH_MAX_LIMIT = 50;
+
+    // Identifies one encoded page of the snapshot
+    private record PageKey(String after, int limit, boolean summary) {
+    }
+
+    // Read-only so a configured read replica can serve it
     @GetMapping("/blog/list")
-    public ResponseEntity<?> getBlogList(@RequestHeader("Authorization") String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body("Missing or invalid Authorization header");
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getBlogList(@RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) String after,
+                                         @RequestParam(required = false) String view,
+                                         @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                         String acceptEncoding,
+                                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                         String ifNoneMatch) {
+        FeedCursor cursor;
+        try {
+            cursor = FeedPage.cursor(after);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
         }
+        int pageSize = FeedPage.clampLimit(limit);
 
-        String token = authHeader.substring(7);
-        if (!jwtUtil.validateToken(token)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body("Invalid or expired JWT token");
+        // Served from the in-memory snapshot when it covers the page; no database access
+        FeedSnapshot snapshot = feedCache.current();
+        List<FeedEntry> cached = snapshot == null ? null : cursor == null
+                ? snapshot.page(null, null, pageSize + 1)
+                : snapshot.page(cursor.createdAt(), cursor.id(), pageSize + 1);
+        if (cached != null) {
+            // The snapshot version identifies every page cut from it; a client that has it gets a 304
+            String tag = FeedPage.feedTag(snapshot);
+            ResponseEntity<byte[]> notModified = EncodedBody.notModified(ifNoneMatch, tag);
+            if (notModified != null) {
+                return notModified;
+            }
+            // Encoded once per page and snapshot version, then sent as stored bytes
+            boolean summary = FeedPage.isSummary(view);
+            PageKey key = new PageKey(cursor == null ? null : after, pageSize, summary);
+            return responseCache.feedPage(key, snapshot.version(), () -> {
+                if (!summary) {
+                    return FeedPage.of(cached, pageSize, FeedPage::toMap);
+                }
+                List<BlogSummaryView> summaries = new ArrayList<>(cached.size());
+                for (FeedEntry entry : cached) {
+                    summaries.add(entry.summary());
+                }
+                return FeedPage.of(summaries, pageSize, FeedPage::toSummaryMap);
+            }).toResponse(acceptEncoding, tag);
         }
 
-        List<BlogModel> blogs = blogRepo.findAll();
-        List<Map<String, Object>> result = new ArrayList<>();
-
-        for (BlogModel blog : blogs) {
-            Map<String, Object> blogMap = new HashMap<>();
-            blogMap.put("id", blog.getBlogId());
-            blogMap.put("title", blog.getBlogTitle());
-            blogMap.put("image", blog.getBlogImage());
-            blogMap.put("content", blog.getBlogContent());
-            blogMap.put("createdAt", blog.getBlogCreatedAt());
-            blogMap.put("authorId", blog.getBlog_authorId());
+        if (FeedPage.isSummary(view)) {
+            List<BlogSummaryView> summaries = cursor == null
+                    ? blogRepo.findSummaryPage(FeedPage.probe(pageSize))
+                    : blogRepo.findSummaryPageAfter(cursor.createdAt(), cursor.id(), FeedPage.probe(pageSize));
+            return ResponseEntity.ok(FeedPage.of(summaries, pageSize, FeedPage::toSummaryMap));
+        }
 
-            Optional<UserModel> authorOpt = userRepo.findById(blog.getBlog_authorId());
-            blogMap.put("authorName", authorOpt.map(UserModel::getName).orElse("Unknown"));
-            blogMap.put("authorImage",authorOpt.map(UserModel::getPicture).orElse("Unknown"));
+        List<BlogFeedView> blogs = cursor == null
+                ? blogRepo.findFeedPage(FeedPage.probe(pageSize))
+                : blogRepo.findFeedPageAfter(cursor.createdAt(), cursor.id(), FeedPage.probe(pageSize));
+        return ResponseEntity.ok(FeedPage.of(blogs, pageSize, FeedPage::toMap));
+    }
 
-            result.add(blogMap);
+    // Delta sync: posts created or edited and ids deleted after version `since`, oldest first.
+    // Without `since` only the current version is returned; a client reads it before loading the
+    // feed, then keeps passing the version from each response. A `since` older than the tombstone
+    // retention gets 410, and the client starts over the same way.
+    @GetMapping("/blog/changes")
+    public ResponseEntity<?> getChanges(@RequestParam(required = false) Long since,
+                                        @RequestParam(required = false) Integer limit) {
+        Map<String, Object> result = new HashMap<>();
+        if (since == null) {
+            result.put("version", blogChanges.currentVersion());
+            result.put("posts", List.of());
+            result.put("deleted", List.of());
+            result.put("hasMore", false);
+            return ResponseEntity.ok(result);
+        }
+        if (since < 0) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid version");
         }
+        int pageSize = limit == null ? CHANGES_DEFAULT_LIMIT : Math.max(1, Math.min(limit, CHANGES_MAX_LIMIT));
 
+        BlogChanges.Changes changes = blogChanges.since(since, pageSize);
+        List<Map<String, Object>> posts = new ArrayList<>(changes.posts().size());
+        for (BlogChangeView post : changes.posts()) {
+            posts.add(FeedPage.toMap(post));
+        }
+        result.put("version", changes.version());
+        result.put("posts", posts);
+        result.put("deleted", changes.deleted());
+        result.put("hasMore", changes.hasMore());
         return ResponseEntity.ok(result);
     }
 
-    @PostMapping("/blog/post")
-    public ResponseEntity<?> postBlog(@RequestHeader("Authorization") String authHeader,
-                                      @RequestBody Map<String, String> body) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body("Missing or invalid Authorization header");
+    // Best matches for the words in q, best first; a word ending in * matches as a prefix
+    @GetMapping("/blog/search")
+    public ResponseEntity<?> search(@RequestParam(required = false) String q,
+                                    @RequestParam(required = false) Integer limit) {
+        if (q == null || q.isBlank()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Missing search query");
         }
-        String token = authHeader.substring(7);
-        if (!jwtUtil.validateToken(token)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body("Invalid or expired JWT token");
+        if (!searchIndex.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body("Search index is loading");
         }
+        int pageSize = limit == null ? SEARCH_DEFAULT_LIMIT : Math.max(1, Math.min(limit, SEARCH_MAX_LIMIT));
 
-        Long userId = jwtUtil.getUserIdFromToken(token);
+        List<Long> ids = searchIndex.search(q, pageSize);
+        List<Map<String, Object>> items = new ArrayList<>(ids.size());
+        if (!ids.isEmpty()) {
+            Map<Long, BlogFeedView> rows = new HashMap<>();
+            for (BlogFeedView row : blogRepo.findFeedEntries(ids)) {
+                rows.put(row.getId(), row);
+            }
+            for (Long id : ids) {
+                // Missing if it was deleted since the ids were read
+                BlogFeedView row = rows.get(id);
+                if (row != null) {
+                    items.add(FeedPage.toMap(row));
+                }
+            }
+        }
+        return ResponseEntity.ok(Map.of("items", items));
+    }
+
+    // Full post including content and image, for opening a post from a summary card
+    @GetMapping("/blog/{id}")
+    public ResponseEntity<?> getBlog(@PathVariable Long id) {
+        Optional<BlogFeedView> blogOpt = blogRepo.findFeedEntry(id);
+        if (blogOpt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Blog not found");
+        }
+        return ResponseEntity.ok(FeedPage.toMap(blogOpt.get(), ImageVariant.FULL));
+    }
+
+    @PostMapping("/blog/post")
+    public ResponseEntity<?> postBlog(@CurrentUser JwtPrincipal principal,
+                                      @RequestBody Map<String, String> body) {
+
+        Long userId = principal.userId();
 
         BlogModel blog = new BlogModel();
         blog.setBlogTitle(body.get("title"));
         blog.setBlogContent(body.get("content"));
-        blog.setBlogImage(body.get("image")); // Optional
+        blog.setBlogImage(imageStore.toReference(body.get("image"))); // Optional
         blog.setBlog_authorId(userId);
         blog.setBlogCreatedAt(LocalDateTime.now());
 
-        blogRepo.save(blog);
+        blogChanges.save(blog);
+        readYourWrites.record(userId);
+        feedCache.upsert(blog.getBlogId())
+                .ifPresent(entry -> feedEvents.publish("post", blog.getBlogVersion(), FeedPage.toMap(entry)));
+        searchIndex.index(blog.getBlogId(), blog.getBlogTitle(), blog.getBlogContent());
+        imageVariants.submit(blog.getBlogImage());
 
         return ResponseEntity.ok(Map.of("status", "Blog posted successfully"));
     }
 
     @PutMapping("/blog/{id}")
-    public ResponseEntity<?> editBlog(@RequestHeader("Authorization") String authHeader,
+    public ResponseEntity<?> editBlog(@CurrentUser JwtPrincipal principal,
                                       @PathVariable Long id,
                                       @RequestBody Map<String, String> body) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body("Missing or invalid Authorization header");
-        }
-        String token = authHeader.substring(7);
-        if (!jwtUtil.validateToken(token)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body("Invalid or expired JWT token");
-        }
-        Long userId = jwtUtil.getUserIdFromToken(token);
+        Long userId = principal.userId();
 
         Optional<BlogModel> blogOpt = blogRepo.findById(id);
         if (blogOpt.isEmpty()) {
@@ -114,26 +237,22 @@ public class BlogController {
 
         blog.setBlogTitle(body.get("title"));
         blog.setBlogContent(body.get("content"));
-        blog.setBlogImage(body.get("image")); // Optional
+        blog.setBlogImage(imageStore.toReference(body.get("image"))); // Optional
 
-        blogRepo.save(blog);
+        blogChanges.save(blog);
+        readYourWrites.record(userId);
+        feedCache.upsert(blog.getBlogId())
+                .ifPresent(entry -> feedEvents.publish("post", blog.getBlogVersion(), FeedPage.toMap(entry)));
+        searchIndex.index(blog.getBlogId(), blog.getBlogTitle(), blog.getBlogContent());
+        imageVariants.submit(blog.getBlogImage());
 
         return ResponseEntity.ok(Map.of("status", "Blog updated successfully"));
     }
 
     @DeleteMapping("/blog/{id}")
-    public ResponseEntity<?> deleteBlog(@RequestHeader("Authorization") String authHeader,
+    public ResponseEntity<?> deleteBlog(@CurrentUser JwtPrincipal principal,
                                         @PathVariable Long id) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body("Missing or invalid Authorization header");
-        }
-        String token = authHeader.substring(7);
-        if (!jwtUtil.validateToken(token)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body("Invalid or expired JWT token");
-        }
-        Long userId = jwtUtil.getUserIdFromToken(token);
+        Long userId = principal.userId();
 
         Optional<BlogModel> blogOpt = blogRepo.findById(id);
         if (blogOpt.isEmpty()) {
@@ -146,7 +265,23 @@ public class BlogController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("You can only delete your own blog posts");
         }
 
-        blogRepo.deleteById(id);
+        long version = blogChanges.delete(id);
+        readYourWrites.record(userId);
+        feedCache.remove(id);
+        searchIndex.remove(id);
+        feedEvents.publish("delete", version, Map.of("id", id));
         return ResponseEntity.ok(Map.of("status", "Blog deleted successfully"));
     }
+
+    // Deletes after that version may have been pruned: the client reloads the feed
+    @ExceptionHandler(ChangesExpiredException.class)
+    public ResponseEntity<?> changesExpired(ChangesExpiredException e) {
+        return ResponseEntity.status(HttpStatus.GONE).body(e.getMessage());
+    }
+
+    // Image over the upload limit or not valid base64: nothing was saved
+    @ExceptionHandler(InvalidImageException.class)
+    public ResponseEntity<?> invalidImage(InvalidImageException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    }
 }
\ No newline at end of file
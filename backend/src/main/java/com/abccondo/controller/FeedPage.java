@@ -0,0 +1,107 @@
+package com.abccondo.controller;
+
+import com.abccondo.feed.FeedSnapshot;
+import com.abccondo.image.ImageVariant;
+import com.abccondo.repository.BlogFeedKey;
+import com.abccondo.repository.BlogFeedView;
+import com.abccondo.repository.BlogSummaryView;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import java.util.*;
+import java.util.function.Function;
+
+// Shared response shape for the paginated blog list endpoints
+final class FeedPage {
+    static final int DEFAULT_LIMIT = 20;
+    static final int MAX_LIMIT = 100;
+
+    // ?view=summary returns feed cards without full content or inline images
+    static final String SUMMARY_VIEW = "summary";
+
+    private FeedPage() {
+    }
+
+    static int clampLimit(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    static boolean isSummary(String view) {
+        return SUMMARY_VIEW.equalsIgnoreCase(view);
+    }
+
+    // Returns null when no cursor was supplied; throws IllegalArgumentException when it is malformed
+    static FeedCursor cursor(String after) {
+        if (after == null || after.isEmpty()) {
+            return null;
+        }
+        return FeedCursor.decode(after);
+    }
+
+    // ETag tag for lists served from a feed snapshot
+    static String feedTag(FeedSnapshot snapshot) {
+        return "feed-" + snapshot.tag();
+    }
+
+    // Asks for one extra row so we know whether a next page exists without a count query
+    static Pageable probe(int limit) {
+        return PageRequest.of(0, limit + 1);
+    }
+
+    static <T extends BlogFeedKey> Map<String, Object> of(List<T> rows, int limit,
+                                                          Function<T, Map<String, Object>> toMap) {
+        boolean hasMore = rows.size() > limit;
+        List<T> page = hasMore ? rows.subList(0, limit) : rows;
+
+        List<Map<String, Object>> items = new ArrayList<>(page.size());
+        for (T blog : page) {
+            items.add(toMap.apply(blog));
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("items", items);
+        if (hasMore) {
+            T last = page.get(page.size() - 1);
+            result.put("nextCursor", new FeedCursor(last.getCreatedAt(), last.getId()).encode());
+        } else {
+            result.put("nextCursor", null);
+        }
+        return result;
+    }
+
+    // List rows point at the card-sized rendition of the post image
+    static Map<String, Object> toMap(BlogFeedView blog) {
+        return toMap(blog, ImageVariant.CARD);
+    }
+
+    static Map<String, Object> toMap(BlogFeedView blog, ImageVariant imageVariant) {
+        Map<String, Object> blogMap = new HashMap<>();
+        blogMap.put("id", blog.getId());
+        blogMap.put("title", blog.getTitle());
+        blogMap.put("image", imageVariant.url(blog.getImage()));
+        blogMap.put("content", blog.getContent());
+        blogMap.put("createdAt", blog.getCreatedAt());
+        blogMap.put("authorId", blog.getAuthorId());
+        boolean authorFound = Boolean.TRUE.equals(blog.getAuthorFound());
+        blogMap.put("authorName", authorFound ? blog.getAuthorName() : "Unknown");
+        blogMap.put("authorImage", authorFound ? ImageVariant.THUMB.url(blog.getAuthorImage()) : "Unknown");
+        return blogMap;
+    }
+
+    static Map<String, Object> toSummaryMap(BlogSummaryView blog) {
+        Map<String, Object> blogMap = new HashMap<>();
+        blogMap.put("id", blog.getId());
+        blogMap.put("title", blog.getTitle());
+        blogMap.put("excerpt", blog.getExcerpt());
+        blogMap.put("image", ImageVariant.CARD.url(blog.getThumbnail()));
+        blogMap.put("hasImage", Boolean.TRUE.equals(blog.getHasImage()));
+        blogMap.put("createdAt", blog.getCreatedAt());
+        blogMap.put("authorId", blog.getAuthorId());
+        boolean authorFound = Boolean.TRUE.equals(blog.getAuthorFound());
+        blogMap.put("authorName", authorFound ? blog.getAuthorName() : "Unknown");
+        blogMap.put("authorImage", authorFound ? ImageVariant.THUMB.url(blog.getAuthorImage()) : "Unknown");
+        return blogMap;
+    }
+}
@@ -0,0 +1,26 @@
+package com.abccondo.controller;
+
+import com.abccondo.feed.FeedEventHub;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+// Live feed updates as Server-Sent Events: "post" events carry a post as the feed lists it, "delete"
+// events its id. Event ids are change versions, so a client that reconnects fetches what it missed from
+// /api/blog/changes?since=<last event id> before relying on the stream again.
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "*")
+public class FeedStreamController {
+
+    @Autowired
+    private FeedEventHub feedEvents;
+
+    @GetMapping(value = "/blog/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() throws IOException {
+        return feedEvents.subscribe();
+    }
+}
@@ -0,0 +1,84 @@
+package com.abccondo.controller;
+
+import com.abccondo.image.ImageStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/images")
+@CrossOrigin(origins = "*")
+public class ImageController {
+    // Tomcat's NIO connector hands files named in these attributes to sendfile(2) after the servlet returns
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @GetMapping("/{name:.+}")
+    public void getImage(@PathVariable String name,
+                         @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        Optional<Path> file = imageStore.find(name);
+        if (file.isEmpty()) {
+            // A resized variant that is still being generated: serve the original, but only
+            // until the variant exists, so it must not be cached as the final content
+            Optional<Path> source = imageStore.findVariantSource(name);
+            if (source.isEmpty()) {
+                response.sendError(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            response.setHeader("X-Content-Type-Options", "nosniff");
+            send(source.get(), request, response);
+            return;
+        }
+
+        // The name is the content hash, so a stored blob can never change under the same URL
+        String etag = "\"" + name + "\"";
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if (etag.equals(ifNoneMatch)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+        send(file.get(), request, response);
+    }
+
+    private void send(Path path, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            response.setContentType(ImageStore.mediaType(path.getFileName().toString()));
+            response.setContentLengthLong(size);
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, path.toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, size);
+                return;
+            }
+
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        }
+    }
+}
@@ -1,13 +1,29 @@
 package com.abccondo.controller;
 
+import com.abccondo.cache.EncodedBody;
+import com.abccondo.cache.ResponseBodyCache;
+import com.abccondo.cache.UserCache;
+import com.abccondo.datasource.ReadYourWrites;
+import com.abccondo.feed.BlogChanges;
+import com.abccondo.feed.FeedCache;
+import com.abccondo.feed.FeedEntry;
+import com.abccondo.feed.FeedSnapshot;
+import com.abccondo.image.ImageStore;
+import com.abccondo.image.ImageVariant;
+import com.abccondo.image.ImageVariantService;
+import com.abccondo.image.InvalidImageException;
 import com.abccondo.model.UserModel;
-import com.abccondo.model.BlogModel;
 import com.abccondo.repository.UserRepository;
+import com.abccondo.repository.BlogFeedView;
 import com.abccondo.repository.BlogRepository;
-import com.abccondo.security.JwtUtil;
+import com.abccondo.repository.BlogSummaryView;
+import com.abccondo.security.CurrentUser;
+import com.abccondo.security.JwtPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import java.util.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 
@@ -19,49 +35,71 @@ public class ProfileController {
     @Autowired
     private UserRepository userRepo;
     @Autowired
+    private UserCache userCache;
+    @Autowired
     private BlogRepository blogRepo;
     @Autowired
-    private JwtUtil jwtUtil;
+    private ImageStore imageStore;
+    @Autowired
+    private ImageVariantService imageVariants;
+    @Autowired
+    private FeedCache feedCache;
+    @Autowired
+    private ResponseBodyCache responseCache;
+    @Autowired
+    private BlogChanges blogChanges;
+    @Autowired
+    private ReadYourWrites readYourWrites;
 
-    // Get Profile by ID (for viewing profile)
+    // Everything the public profile body shows; a different value means the cached body is stale
+    private record ProfileSource(String name, String email, String picture) {
+    }
+
+    // Get Profile by ID (for viewing profile); read-only so a configured read replica can serve it
     @GetMapping("/{id}")
-    public ResponseEntity<?> getProfile(@PathVariable Long id, @RequestHeader(value = "Authorization", required = false) String authHeader) {
-        Optional<UserModel> userOpt = userRepo.findById(id);
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getProfile(@PathVariable Long id,
+                                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                        String acceptEncoding,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                        String ifNoneMatch) {
+        Optional<UserModel> userOpt = userCache.findById(id);
         if (userOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
         }
         UserModel user = userOpt.get();
-        // You may omit sensitive fields here
-        Map<String, Object> profile = new HashMap<>();
-        profile.put("id", user.getId());
-        profile.put("name", user.getName());
-        profile.put("email", user.getEmail());
-        profile.put("image", user.getPicture());
-        // add more fields as needed
-        return ResponseEntity.ok(profile);
+        ProfileSource source = new ProfileSource(user.getName(), user.getEmail(), user.getPicture());
+        EncodedBody body = responseCache.profile(user.getId(), source, () -> {
+            // You may omit sensitive fields here
+            Map<String, Object> profile = new HashMap<>();
+            profile.put("id", user.getId());
+            profile.put("name", user.getName());
+            profile.put("email", user.getEmail());
+            profile.put("image", ImageVariant.THUMB.url(user.getPicture()));
+            // add more fields as needed
+            return profile;
+        });
+        // Tagged by content: unchanged profile, unchanged tag
+        ResponseEntity<byte[]> notModified = EncodedBody.notModified(ifNoneMatch, body.contentTag());
+        if (notModified != null) {
+            return notModified;
+        }
+        return body.toResponse(acceptEncoding, body.contentTag());
     }
 
     // Update Profile (only by the user themselves)
     @PutMapping("/{id}")
     public ResponseEntity<?> updateProfile(@PathVariable Long id,
-                                           @RequestHeader("Authorization") String authHeader,
+                                           @CurrentUser JwtPrincipal principal,
                                            @RequestBody Map<String, Object> body) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body("Missing or invalid Authorization header");
-        }
-        String token = authHeader.substring(7);
-        if (!jwtUtil.validateToken(token)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body("Invalid or expired JWT token");
-        }
-        Long userId = jwtUtil.getUserIdFromToken(token);
+        Long userId = principal.userId();
 
         if (!userId.equals(id)) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN)
                     .body("You can only update your own profile");
         }
 
+        // Read-modify-write goes to the database, not the cache
         Optional<UserModel> userOpt = userRepo.findById(id);
         if (userOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
@@ -69,52 +107,89 @@ public class ProfileController {
         UserModel user = userOpt.get();
 
         if (body.containsKey("name")) user.setName((String) body.get("name"));
-        if (body.containsKey("image")) user.setPicture((String) body.get("image"));
+        if (body.containsKey("image")) user.setPicture(imageStore.toReference((String) body.get("image")));
         // Email should not be changed except by a dedicated endpoint/flow
         // if (body.containsKey("email")) user.setEmail((String) body.get("email"));
 
         userRepo.save(user);
+        userCache.evict(user);
+        readYourWrites.record(user.getId());
+        feedCache.updateAuthor(user.getId(), user.getName(), user.getPicture());
+        if (body.containsKey("name") || body.containsKey("image")) {
+            blogChanges.authorChanged(user.getId());
+        }
+        imageVariants.submit(user.getPicture());
 
         Map<String, Object> profile = new HashMap<>();
         profile.put("id", user.getId());
         profile.put("name", user.getName());
         profile.put("email", user.getEmail());
-        profile.put("image", user.getPicture());
+        profile.put("image", ImageVariant.THUMB.url(user.getPicture()));
         return ResponseEntity.ok(profile);
     }
 
-    // List all blogs for a user (adjusted for BlogModel fields)
+    // List a user's blogs, newest first, one keyset page at a time
     @GetMapping("/blog/list/{id}")
+    @Transactional(readOnly = true)
     public ResponseEntity<?> getUserBlogList(@PathVariable Long id,
-                                             @RequestHeader("Authorization") String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body("Missing or invalid Authorization header");
+                                             @RequestParam(required = false) Integer limit,
+                                             @RequestParam(required = false) String after,
+                                             @RequestParam(required = false) String view,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                             String ifNoneMatch) {
+        FeedCursor cursor;
+        try {
+            cursor = FeedPage.cursor(after);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid cursor");
         }
-        String token = authHeader.substring(7);
-        if (!jwtUtil.validateToken(token)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body("Invalid or expired JWT token");
+        int pageSize = FeedPage.clampLimit(limit);
+
+        // A complete feed snapshot holds every post, so the page is cut from it and its version also
+        // versions each author's list. The tag goes only on this path: a database page may come from
+        // a lagging replica and must not carry the tag of content it does not have yet.
+        FeedSnapshot snapshot = feedCache.current();
+        if (snapshot != null && snapshot.isComplete()) {
+            String tag = FeedPage.feedTag(snapshot);
+            ResponseEntity<byte[]> notModified = EncodedBody.notModified(ifNoneMatch, tag);
+            if (notModified != null) {
+                return notModified;
+            }
+            if (!userCache.existsById(id)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
+            }
+            List<FeedEntry> cached = cursor == null
+                    ? snapshot.authorPage(id, null, null, pageSize + 1)
+                    : snapshot.authorPage(id, cursor.createdAt(), cursor.id(), pageSize + 1);
+            if (!FeedPage.isSummary(view)) {
+                return EncodedBody.okWithTag(tag).body(FeedPage.of(cached, pageSize, FeedPage::toMap));
+            }
+            List<BlogSummaryView> summaries = new ArrayList<>(cached.size());
+            for (FeedEntry entry : cached) {
+                summaries.add(entry.summary());
+            }
+            return EncodedBody.okWithTag(tag).body(FeedPage.of(summaries, pageSize, FeedPage::toSummaryMap));
         }
-        Optional<UserModel> userOpt = userRepo.findById(id);
-        if (userOpt.isEmpty()) {
+
+        if (!userCache.existsById(id)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
         }
-        List<BlogModel> blogs = blogRepo.findByBlogAuthorId(id);
-        List<Map<String, Object>> result = new ArrayList<>();
-
-        for (BlogModel blog : blogs) {
-            Map<String, Object> blogMap = new HashMap<>();
-            blogMap.put("id", blog.getBlogId());
-            blogMap.put("title", blog.getBlogTitle());
-            blogMap.put("image", blog.getBlogImage());
-            blogMap.put("content", blog.getBlogContent());
-            blogMap.put("createdAt", blog.getBlogCreatedAt());
-            blogMap.put("authorId", blog.getBlog_authorId());
-            blogMap.put("authorName", userOpt.get().getName());
-            blogMap.put("authorImage", userOpt.get().getPicture());
-            result.add(blogMap);
+        if (FeedPage.isSummary(view)) {
+            List<BlogSummaryView> summaries = cursor == null
+                    ? blogRepo.findAuthorSummaryPage(id, FeedPage.probe(pageSize))
+                    : blogRepo.findAuthorSummaryPageAfter(id, cursor.createdAt(), cursor.id(), FeedPage.probe(pageSize));
+            return ResponseEntity.ok(FeedPage.of(summaries, pageSize, FeedPage::toSummaryMap));
         }
-        return ResponseEntity.ok(result);
+
+        List<BlogFeedView> blogs = cursor == null
+                ? blogRepo.findAuthorFeedPage(id, FeedPage.probe(pageSize))
+                : blogRepo.findAuthorFeedPageAfter(id, cursor.createdAt(), cursor.id(), FeedPage.probe(pageSize));
+        return ResponseEntity.ok(FeedPage.of(blogs, pageSize, FeedPage::toMap));
+    }
+
+    // Image over the upload limit or not valid base64: nothing was saved
+    @ExceptionHandler(InvalidImageException.class)
+    public ResponseEntity<?> invalidImage(InvalidImageException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package com.abccondo.datasource;
+
+import com.abccondo.cache.ExpiringCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.LongSupplier;
+
+// Users who wrote within the last few seconds. Their reads stay on the primary until the replica
+// has had time to apply the write, so they always see their own post or profile change.
+// Held per instance: it only covers requests that reach the instance that took the write.
+@Component
+public class ReadYourWrites {
+    private static final int MAX_USERS = 100_000;
+
+    private final ExpiringCache<Long, Boolean> recentWriters;
+    private final long windowMillis;
+    private final LongSupplier clock;
+
+    @Autowired
+    public ReadYourWrites(@Value("${datasource.routing.read-your-writes-ms:5000}") long windowMillis) {
+        this(windowMillis, System::currentTimeMillis);
+    }
+
+    ReadYourWrites(long windowMillis, LongSupplier clock) {
+        this.recentWriters = new ExpiringCache<>(MAX_USERS, clock);
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+    }
+
+    // Call after the user's write has committed
+    public void record(Long userId) {
+        if (userId != null) {
+            recentWriters.put(userId, Boolean.TRUE, clock.getAsLong() + windowMillis);
+        }
+    }
+
+    public boolean isRecent(Long userId) {
+        return userId != null && recentWriters.get(userId) != null;
+    }
+}
@@ -0,0 +1,163 @@
+package com.abccondo.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Estimates how far the replica is behind by reading the blog change version on both databases.
+// Each probe notes when the primary was first seen at a new version; the replica is behind by the
+// age of the oldest of those versions it has not reached yet. That is only as precise as the probe
+// interval, and writes that do not bump the version (sign-ups) are not measured at all.
+// Until the first probe, after a failed one, or once probes stop arriving, the replica counts as
+// too far behind, and a replica found behind on the first probe stays so until it catches up.
+public class ReplicaLagMonitor {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+    private static final String VERSION_QUERY =
+            "SELECT current_version FROM change_versions WHERE counter_name = 'blog'";
+    private static final long UNKNOWN = Long.MAX_VALUE;
+    // While the replica is stuck every probe may add a version; past this the newest one is raised instead
+    private static final int MAX_TRACKED = 1024;
+
+    private record Seen(long version, long at) {
+    }
+
+    private final LongSupplier primaryVersion;
+    private final LongSupplier replicaVersion;
+    private final LongSupplier clock;
+    private final long maxLagMillis;
+    private final long staleAfterMillis;
+    private final long probeIntervalMillis;
+    private final ScheduledExecutorService prober;
+
+    private final ReentrantLock probeLock = new ReentrantLock();
+    // Primary versions the replica had not reached at the last probe, oldest first
+    private final ArrayDeque<Seen> ahead = new ArrayDeque<>();
+    private long lastPrimaryVersion = -1;
+    private volatile long lagMillis = UNKNOWN;
+    private volatile long probedAt;
+    private volatile boolean failing;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, MeterRegistry registry,
+                             long maxLagMillis, long probeIntervalMillis) {
+        this(versionOf(primary), versionOf(replica), System::currentTimeMillis, maxLagMillis,
+                probeIntervalMillis, 3 * probeIntervalMillis);
+        Gauge.builder("datasource.replica.lag", this,
+                        m -> m.lagMillis == UNKNOWN ? Double.NaN : m.lagMillis / 1000.0)
+                .baseUnit("seconds")
+                .description("Estimated replication lag; NaN when the replica cannot be probed")
+                .register(registry);
+    }
+
+    // Tests pass their own version readers and clock and call probe() themselves instead of startProbing()
+    ReplicaLagMonitor(LongSupplier primaryVersion, LongSupplier replicaVersion, LongSupplier clock,
+                      long maxLagMillis, long probeIntervalMillis, long staleAfterMillis) {
+        this.primaryVersion = primaryVersion;
+        this.replicaVersion = replicaVersion;
+        this.clock = clock;
+        this.maxLagMillis = maxLagMillis;
+        this.probeIntervalMillis = probeIntervalMillis;
+        this.staleAfterMillis = staleAfterMillis;
+        this.prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Probing starts once the schema has been migrated; until then reads stay on the primary
+    @EventListener(ApplicationReadyEvent.class)
+    public void startProbing() {
+        prober.scheduleWithFixedDelay(this::probe, 0, probeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isWithinTolerance() {
+        return lagMillis <= maxLagMillis && clock.getAsLong() - probedAt <= staleAfterMillis;
+    }
+
+    public long maxLagMillis() {
+        return maxLagMillis;
+    }
+
+    // Estimated lag in milliseconds, or Long.MAX_VALUE when it is not known
+    public long lagMillis() {
+        return lagMillis;
+    }
+
+    void probe() {
+        probeLock.lock();
+        try {
+            long now = clock.getAsLong();
+            long replica;
+            long primary;
+            try {
+                // Replica first, so the primary read can only make the replica look further behind
+                replica = replicaVersion.getAsLong();
+                primary = primaryVersion.getAsLong();
+            } catch (RuntimeException e) {
+                if (!failing) {
+                    log.warn("Replica lag probe failed; reads go to the primary until it succeeds", e);
+                }
+                failing = true;
+                lagMillis = UNKNOWN;
+                probedAt = now;
+                return;
+            }
+            if (failing) {
+                log.info("Replica lag probe succeeded again");
+                failing = false;
+            }
+
+            if (primary < lastPrimaryVersion) {
+                // Counter went backwards (restored database); start over
+                ahead.clear();
+                lastPrimaryVersion = -1;
+            }
+            if (primary > lastPrimaryVersion) {
+                // On the first probe there is no telling how long the replica has been behind
+                long at = lastPrimaryVersion < 0 && replica < primary ? UNKNOWN : now;
+                if (ahead.size() < MAX_TRACKED) {
+                    ahead.addLast(new Seen(primary, at));
+                } else {
+                    // Keeping the older time can only overstate the lag
+                    ahead.addLast(new Seen(primary, ahead.removeLast().at()));
+                }
+                lastPrimaryVersion = primary;
+            }
+            while (!ahead.isEmpty() && ahead.peekFirst().version() <= replica) {
+                ahead.removeFirst();
+            }
+            Seen oldest = ahead.peekFirst();
+            lagMillis = oldest == null ? 0 : oldest.at() == UNKNOWN ? UNKNOWN : Math.max(0, now - oldest.at());
+            probedAt = now;
+        } finally {
+            probeLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        prober.shutdownNow();
+    }
+
+    private static LongSupplier versionOf(DataSource dataSource) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.setQueryTimeout(5);
+        return () -> {
+            Long version = jdbc.queryForObject(VERSION_QUERY, Long.class);
+            return version == null ? 0 : version;
+        };
+    }
+}
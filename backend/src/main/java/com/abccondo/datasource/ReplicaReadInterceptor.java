@@ -0,0 +1,45 @@
+package com.abccondo.datasource;
+
+import com.abccondo.security.JwtPrincipal;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+// Lets GET and HEAD requests read from the replica, unless the caller wrote recently.
+// Writes, the reads that lead up to them, and background work never leave the primary.
+class ReplicaReadInterceptor implements AsyncHandlerInterceptor {
+    private final ReadYourWrites readYourWrites;
+
+    ReplicaReadInterceptor(ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String method = request.getMethod();
+        if (("GET".equals(method) || "HEAD".equals(method)) && !readYourWrites.isRecent(currentUserId())) {
+            ReplicaRoutingDataSource.allowReplicaReads();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        ReplicaRoutingDataSource.clearReplicaReads();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        ReplicaRoutingDataSource.clearReplicaReads();
+    }
+
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof JwtPrincipal principal
+                ? principal.userId() : null;
+    }
+}
@@ -0,0 +1,61 @@
+package com.abccondo.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// Hands out a replica connection when it is opened for a read-only transaction, on a thread that
+// may read from the replica (see ReplicaReadInterceptor), while the replica is within the lag
+// tolerance. Everything else, including work outside a transaction, gets a primary connection.
+// Must sit behind a LazyConnectionDataSourceProxy: the transaction manager opens the connection
+// before it marks the transaction read-only, and the proxy defers the choice to the first statement.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private static final ThreadLocal<Boolean> REPLICA_READS = new ThreadLocal<>();
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final Counter toPrimary;
+    private final Counter toReplica;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                    MeterRegistry registry) {
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+        this.toPrimary = Counter.builder("datasource.routing.connections").tag("target", PRIMARY).register(registry);
+        this.toReplica = Counter.builder("datasource.routing.connections").tag("target", REPLICA).register(registry);
+    }
+
+    // Read-only transactions on the calling thread may use the replica until clearReplicaReads()
+    static void allowReplicaReads() {
+        REPLICA_READS.set(Boolean.TRUE);
+    }
+
+    static void clearReplicaReads() {
+        REPLICA_READS.remove();
+    }
+
+    static boolean replicaReadsAllowed() {
+        return REPLICA_READS.get() != null;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicaReadsAllowed()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && lagMonitor.isWithinTolerance()) {
+            toReplica.increment();
+            return REPLICA;
+        }
+        toPrimary.increment();
+        return PRIMARY;
+    }
+}
@@ -0,0 +1,154 @@
+package com.abccondo.feed;
+
+import com.abccondo.model.BlogModel;
+import com.abccondo.model.BlogTombstone;
+import com.abccondo.repository.BlogChangeView;
+import com.abccondo.repository.BlogRepository;
+import com.abccondo.repository.BlogTombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Blog writes that stamp a change version, and the delta query behind GET /api/blog/changes.
+// Every create, edit and delete gets the next version in the same transaction as the write;
+// deletes leave a tombstone carrying theirs. A client that remembers the version it last synced to
+// downloads only what changed since, however large the feed is. Tombstones are kept for
+// blog.tombstones.retention-days; a client last synced before the pruned ones has to reload the feed.
+@Service
+public class BlogChanges {
+    private static final Logger log = LoggerFactory.getLogger(BlogChanges.class);
+    static final int DEFAULT_TOMBSTONE_RETENTION_DAYS = 30;
+
+    private final BlogRepository blogRepo;
+    private final BlogTombstoneRepository tombstoneRepo;
+    private final ChangeVersions versions;
+    private final int tombstoneRetentionDays;
+
+    @Autowired
+    public BlogChanges(BlogRepository blogRepo, BlogTombstoneRepository tombstoneRepo, ChangeVersions versions,
+                       @Value("${blog.tombstones.retention-days:30}") int tombstoneRetentionDays) {
+        this.blogRepo = blogRepo;
+        this.tombstoneRepo = tombstoneRepo;
+        this.versions = versions;
+        this.tombstoneRetentionDays = tombstoneRetentionDays;
+    }
+
+    public BlogChanges(BlogRepository blogRepo, BlogTombstoneRepository tombstoneRepo, ChangeVersions versions) {
+        this(blogRepo, tombstoneRepo, versions, DEFAULT_TOMBSTONE_RETENTION_DAYS);
+    }
+
+    // Posts and deletions after a version, oldest first. version is what the client passes as since
+    // next time; hasMore means it should do so straight away.
+    public record Changes(List<BlogChangeView> posts, List<Long> deleted, long version, boolean hasMore) {
+    }
+
+    @Transactional
+    public BlogModel save(BlogModel blog) {
+        blog.setBlogVersion(versions.next());
+        return blogRepo.save(blog);
+    }
+
+    // Returns the version of the tombstone
+    @Transactional
+    public long delete(Long blogId) {
+        blogRepo.deleteById(blogId);
+        long version = versions.next();
+        tombstoneRepo.save(new BlogTombstone(blogId, version, LocalDateTime.now()));
+        return version;
+    }
+
+    // After an author's name or picture changed: their posts render differently
+    @Transactional
+    public void authorChanged(Long authorId) {
+        blogRepo.stampAuthorPosts(authorId, versions.next());
+    }
+
+    // Deletes every tombstone up to the newest one older than the retention period, and raises the
+    // version below which since() throws ChangesExpiredException. Safe to run on several instances.
+    @Scheduled(initialDelayString = "${blog.tombstones.prune-ms:3600000}",
+            fixedDelayString = "${blog.tombstones.prune-ms:3600000}")
+    @Transactional
+    public int pruneTombstones() {
+        Long newest = tombstoneRepo.findNewestVersionBefore(LocalDateTime.now().minusDays(tombstoneRetentionDays));
+        if (newest == null) {
+            return 0;
+        }
+        versions.markPruned(newest);
+        int pruned = tombstoneRepo.deleteThroughVersion(newest);
+        log.info("Pruned {} blog tombstones through version {}", pruned, newest);
+        return pruned;
+    }
+
+    // Where a new client starts: load the feed, then sync from this version
+    public long currentVersion() {
+        return versions.current();
+    }
+
+    @Transactional(readOnly = true)
+    public Changes since(long since, int limit) {
+        PageRequest probe = PageRequest.of(0, limit + 1);
+        List<BlogChangeView> posts = blogRepo.findChangesSince(since, probe);
+        List<BlogTombstone> tombstones = tombstoneRepo.findByVersionGreaterThanOrderByVersion(since, probe);
+        // Read after the tombstones: a prune that committed before that query has moved the mark by now
+        if (since < versions.prunedThrough()) {
+            throw new ChangesExpiredException(since);
+        }
+
+        // Each list holds limit + 1 rows, so the first limit + 1 merged changes are the true ones
+        List<Object> merged = new ArrayList<>(posts.size() + tombstones.size());
+        int p = 0;
+        int t = 0;
+        while (p < posts.size() || t < tombstones.size()) {
+            if (t == tombstones.size()
+                    || (p < posts.size() && posts.get(p).getVersion() <= tombstones.get(t).getVersion())) {
+                merged.add(posts.get(p++));
+            } else {
+                merged.add(tombstones.get(t++));
+            }
+        }
+        if (merged.size() <= limit) {
+            return page(merged, merged.size(), since, false);
+        }
+
+        // Never split one version across pages: the client resumes after the last version it got
+        int cut = limit;
+        while (cut > 0 && versionOf(merged.get(cut)) == versionOf(merged.get(cut - 1))) {
+            cut--;
+        }
+        if (cut == 0) {
+            // A single author update larger than the page; send all of it
+            long version = versionOf(merged.get(0));
+            return new Changes(blogRepo.findChangesAt(version), List.of(), version, true);
+        }
+        return page(merged, cut, since, true);
+    }
+
+    private static Changes page(List<Object> merged, int count, long since, boolean hasMore) {
+        List<BlogChangeView> posts = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        long version = since;
+        for (int i = 0; i < count; i++) {
+            Object change = merged.get(i);
+            if (change instanceof BlogChangeView post) {
+                posts.add(post);
+            } else {
+                deleted.add(((BlogTombstone) change).getBlogId());
+            }
+            version = versionOf(change);
+        }
+        return new Changes(posts, deleted, version, hasMore);
+    }
+
+    private static long versionOf(Object change) {
+        return change instanceof BlogChangeView post ? post.getVersion() : ((BlogTombstone) change).getVersion();
+    }
+}
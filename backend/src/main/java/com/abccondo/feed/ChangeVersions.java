@@ -0,0 +1,72 @@
+package com.abccondo.feed;
+
+import com.abccondo.model.ChangeVersion;
+import com.abccondo.repository.ChangeVersionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// Monotonically increasing blog change versions, shared by every instance through one counter row.
+// next() locks the row until the caller's transaction commits, so writers are serialised and their
+// versions become visible in order: a reader that sees version N has also seen everything below N,
+// and "changes since N" never skips a write that committed late.
+@Component
+public class ChangeVersions {
+    private static final Logger log = LoggerFactory.getLogger(ChangeVersions.class);
+    static final String BLOG_COUNTER = "blog";
+    // Not a counter: the newest tombstone version that BlogChanges has pruned
+    static final String TOMBSTONES_PRUNED = "blog_tombstones_pruned";
+
+    private final ChangeVersionRepository versionRepo;
+
+    public ChangeVersions(ChangeVersionRepository versionRepo) {
+        this.versionRepo = versionRepo;
+    }
+
+    // Creates the counter row on an empty database, before any request can race to do it.
+    // Another instance starting at the same time may win the insert, which is fine.
+    @PostConstruct
+    public void ensureCounter() {
+        if (versionRepo.existsById(BLOG_COUNTER)) {
+            return;
+        }
+        try {
+            versionRepo.saveAndFlush(new ChangeVersion(BLOG_COUNTER, 0));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Change version counter was created concurrently", e);
+        }
+    }
+
+    // Must run inside the transaction that writes the change
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long next() {
+        ChangeVersion counter = versionRepo.findForUpdate(BLOG_COUNTER)
+                .orElseThrow(() -> new IllegalStateException("Change version counter row is missing"));
+        counter.setCurrentVersion(counter.getCurrentVersion() + 1);
+        return counter.getCurrentVersion();
+    }
+
+    // Highest committed version; 0 before the first change
+    @Transactional(readOnly = true)
+    public long current() {
+        return versionRepo.findById(BLOG_COUNTER).map(ChangeVersion::getCurrentVersion).orElse(0L);
+    }
+
+    // Deletes at or below this version may have lost their tombstones; 0 before the first prune
+    @Transactional(readOnly = true)
+    public long prunedThrough() {
+        return versionRepo.findVersion(TOMBSTONES_PRUNED).orElse(0L);
+    }
+
+    // Must run inside the transaction that deletes the tombstones; never moves the mark backwards
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void markPruned(long version) {
+        ChangeVersion mark = versionRepo.findForUpdate(TOMBSTONES_PRUNED)
+                .orElseGet(() -> versionRepo.save(new ChangeVersion(TOMBSTONES_PRUNED, 0)));
+        mark.setCurrentVersion(Math.max(mark.getCurrentVersion(), version));
+    }
+}
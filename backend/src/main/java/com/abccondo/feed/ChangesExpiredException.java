@@ -0,0 +1,10 @@
+package com.abccondo.feed;
+
+// Deletes after the requested version may already have been pruned, so a delta from it could miss
+// some; the client has to reload the feed and sync from the current version. Controllers answer 410.
+public class ChangesExpiredException extends RuntimeException {
+
+    public ChangesExpiredException(long since) {
+        super("Changes since version " + since + " are no longer kept; reload the feed");
+    }
+}
@@ -0,0 +1,162 @@
+package com.abccondo.feed;
+
+import com.abccondo.repository.BlogFeedView;
+import com.abccondo.repository.BlogRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+// Holds the current FeedSnapshot. Reads are a single volatile load; BlogController serves
+// /api/blog/list from it without touching the database. Writes made through the controllers are
+// applied incrementally right after they are saved, and a periodic rebuild from the database
+// repairs anything that changed behind our back (other instances, manual SQL, migrations).
+@Component
+public class FeedCache {
+    private static final Logger log = LoggerFactory.getLogger(FeedCache.class);
+
+    private final BlogRepository blogRepo;
+    private final int maxEntries;
+    // Tells this cache's snapshot versions apart from those of earlier boots and other instances
+    private final long epoch = new SecureRandom().nextLong();
+    private final AtomicReference<FeedSnapshot> snapshot = new AtomicReference<>();
+
+    // Serialises snapshot updates; readers never take it
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Updates made while a rebuild is reading the database, replayed onto its result (guarded by writeLock)
+    private List<UnaryOperator<FeedSnapshot>> pending;
+
+    @Autowired
+    public FeedCache(BlogRepository blogRepo, MeterRegistry registry,
+                     @Value("${feed.cache.max-entries:10000}") int maxEntries) {
+        this(blogRepo, maxEntries);
+        Gauge.builder("feed.cache.entries", this, c -> c.current() == null ? 0 : c.current().entries().size())
+                .register(registry);
+        Gauge.builder("feed.cache.version", this, c -> c.current() == null ? 0 : c.current().version())
+                .register(registry);
+    }
+
+    public FeedCache(BlogRepository blogRepo, int maxEntries) {
+        this.blogRepo = blogRepo;
+        this.maxEntries = maxEntries;
+    }
+
+    // Null until the first build has finished; callers then fall back to the database
+    public FeedSnapshot current() {
+        return snapshot.get();
+    }
+
+    // After a post was created or edited; returns the post as the feed now shows it, or empty if it is gone
+    public Optional<FeedEntry> upsert(Long blogId) {
+        Optional<BlogFeedView> row = blogRepo.findFeedEntry(blogId);
+        if (row.isEmpty()) {
+            remove(blogId);
+            return Optional.empty();
+        }
+        FeedEntry entry = FeedEntry.of(row.get());
+        apply(s -> s.upsert(entry, maxEntries));
+        return Optional.of(entry);
+    }
+
+    // After a post was deleted
+    public void remove(Long blogId) {
+        apply(s -> s.remove(blogId));
+    }
+
+    // After an author changed their name or picture
+    public void updateAuthor(Long authorId, String name, String picture) {
+        apply(s -> s.updateAuthor(authorId, name, picture));
+    }
+
+    private void apply(UnaryOperator<FeedSnapshot> change) {
+        writeLock.lock();
+        try {
+            FeedSnapshot current = snapshot.get();
+            if (current != null) {
+                snapshot.set(change.apply(current));
+            }
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Reloads the newest maxEntries posts. The result only replaces the current snapshot (and bumps the
+    // version) if something differs; updates that raced with the reload are replayed on top of it.
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${feed.cache.rebuild-ms:60000}", fixedDelayString = "${feed.cache.rebuild-ms:60000}")
+    public void rebuild() {
+        if (!rebuildLock.tryLock()) {
+            return;
+        }
+        try {
+            writeLock.lock();
+            try {
+                pending = new ArrayList<>();
+            } finally {
+                writeLock.unlock();
+            }
+
+            List<FeedEntry> loaded;
+            try {
+                List<BlogFeedView> rows = blogRepo.findFeedPage(PageRequest.of(0, maxEntries + 1));
+                loaded = new ArrayList<>(rows.size());
+                for (BlogFeedView row : rows) {
+                    loaded.add(FeedEntry.of(row));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Feed snapshot rebuild failed, keeping the current one", e);
+                writeLock.lock();
+                try {
+                    pending = null;
+                } finally {
+                    writeLock.unlock();
+                }
+                return;
+            }
+            boolean complete = loaded.size() <= maxEntries;
+            if (!complete) {
+                loaded.remove(loaded.size() - 1);
+            }
+
+            writeLock.lock();
+            try {
+                FeedSnapshot current = snapshot.get();
+                FeedSnapshot fresh = new FeedSnapshot(loaded, complete, epoch, current == null ? 1 : current.version() + 1);
+                for (UnaryOperator<FeedSnapshot> change : pending) {
+                    fresh = change.apply(fresh);
+                }
+                pending = null;
+                if (current == null || current.isComplete() != fresh.isComplete()
+                        || !current.entries().equals(fresh.entries())) {
+                    if (current != null) {
+                        log.info("Feed snapshot was out of date and has been rebuilt");
+                    }
+                    snapshot.set(fresh);
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+}
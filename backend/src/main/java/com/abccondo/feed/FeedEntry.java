@@ -0,0 +1,179 @@
+package com.abccondo.feed;
+
+import com.abccondo.repository.BlogFeedView;
+import com.abccondo.repository.BlogRepository;
+import com.abccondo.repository.BlogSummaryView;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Immutable copy of one feed row, shared by every reader of a snapshot. It carries the same fields
+// as the feed query and derives the summary card the way BlogRepository.SUMMARY_SELECT does.
+public final class FeedEntry implements BlogFeedView {
+    private final Long id;
+    private final String title;
+    private final String image;
+    private final String content;
+    private final LocalDateTime createdAt;
+    private final Long authorId;
+    private final String authorName;
+    private final String authorImage;
+    private final boolean authorFound;
+    private final Summary summary;
+
+    public FeedEntry(Long id, String title, String image, String content, LocalDateTime createdAt,
+                     Long authorId, String authorName, String authorImage, boolean authorFound) {
+        this.id = id;
+        this.title = title;
+        this.image = image;
+        this.content = content;
+        this.createdAt = createdAt;
+        this.authorId = authorId;
+        this.authorName = authorName;
+        this.authorImage = authorImage;
+        this.authorFound = authorFound;
+        this.summary = new Summary();
+    }
+
+    public static FeedEntry of(BlogFeedView view) {
+        return new FeedEntry(view.getId(), view.getTitle(), view.getImage(), view.getContent(), view.getCreatedAt(),
+                view.getAuthorId(), view.getAuthorName(), view.getAuthorImage(), Boolean.TRUE.equals(view.getAuthorFound()));
+    }
+
+    // Same post with the author's current display fields
+    FeedEntry withAuthor(String name, String picture) {
+        return new FeedEntry(id, title, image, content, createdAt, authorId, name, picture, true);
+    }
+
+    public BlogSummaryView summary() {
+        return summary;
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String getTitle() {
+        return title;
+    }
+
+    @Override
+    public String getImage() {
+        return image;
+    }
+
+    @Override
+    public String getContent() {
+        return content;
+    }
+
+    @Override
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    @Override
+    public String getAuthorName() {
+        return authorName;
+    }
+
+    @Override
+    public String getAuthorImage() {
+        return authorImage;
+    }
+
+    @Override
+    public Boolean getAuthorFound() {
+        return authorFound;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FeedEntry other)) {
+            return false;
+        }
+        return authorFound == other.authorFound
+                && Objects.equals(id, other.id)
+                && Objects.equals(title, other.title)
+                && Objects.equals(image, other.image)
+                && Objects.equals(content, other.content)
+                && Objects.equals(createdAt, other.createdAt)
+                && Objects.equals(authorId, other.authorId)
+                && Objects.equals(authorName, other.authorName)
+                && Objects.equals(authorImage, other.authorImage);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, title, image, content, createdAt, authorId, authorName, authorImage, authorFound);
+    }
+
+    private static String unlessInline(String image) {
+        return image != null && image.startsWith("data:") ? null : image;
+    }
+
+    private final class Summary implements BlogSummaryView {
+        private final String excerpt = content == null || content.length() <= BlogRepository.EXCERPT_LENGTH
+                ? content : content.substring(0, BlogRepository.EXCERPT_LENGTH);
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        @Override
+        public String getTitle() {
+            return title;
+        }
+
+        @Override
+        public String getExcerpt() {
+            return excerpt;
+        }
+
+        @Override
+        public String getThumbnail() {
+            return unlessInline(image);
+        }
+
+        @Override
+        public Boolean getHasImage() {
+            return image != null && !image.isEmpty();
+        }
+
+        @Override
+        public Long getAuthorId() {
+            return authorId;
+        }
+
+        @Override
+        public String getAuthorName() {
+            return authorName;
+        }
+
+        @Override
+        public String getAuthorImage() {
+            return unlessInline(authorImage);
+        }
+
+        @Override
+        public Boolean getAuthorFound() {
+            return authorFound;
+        }
+    }
+}
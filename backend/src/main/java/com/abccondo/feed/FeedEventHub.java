@@ -0,0 +1,270 @@
+package com.abccondo.feed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Fan-out of feed changes to Server-Sent Events subscribers (GET /api/blog/stream).
+// Subscribers are async requests, so an idle one holds a socket but no Tomcat thread. publish()
+// encodes the event once and only appends it to each subscriber's bounded queue; a small sender
+// pool drains the queues, one drain per subscriber at a time, so neither the publishing request
+// nor the other subscribers wait on a slow client. A subscriber whose queue overflows cannot keep
+// up and is disconnected; the client reconnects and catches up through
+// /api/blog/changes from the last event id it saw (event ids are change versions).
+// Event ids only ever increase on a stream. Versions are committed in order but published afterwards
+// from the writing request threads, so a write can reach publish() after a later one already went
+// out; it is then sent as a "resync" event without an id, whose data {"since": n} tells the client
+// to fetch /api/blog/changes?since=n before trusting its last event id again.
+// A sender writing to a stalled socket blocks until Tomcat's write timeout
+// (server.tomcat.connection-timeout), which is why the pool has more threads than it needs to be busy.
+@Component
+public class FeedEventHub {
+    private static final Logger log = LoggerFactory.getLogger(FeedEventHub.class);
+    // Comment line; keeps proxies from closing idle streams and surfaces dead connections
+    private static final long RECONNECT_MILLIS = 3000;
+    private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("keepalive").build();
+
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeats;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Held while an event is appended to every queue, so all subscribers get events in the same order
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private long lastVersion;  // guarded by publishLock
+
+    private final Counter published;
+    private final Counter resyncs;
+    private final Counter droppedSlow;
+    private final Counter droppedError;
+
+    @Autowired
+    public FeedEventHub(ObjectMapper objectMapper, MeterRegistry registry,
+                        @Value("${feed.stream.buffer-size:64}") int bufferSize,
+                        @Value("${feed.stream.sender-threads:16}") int senderThreads,
+                        @Value("${feed.stream.heartbeat-seconds:25}") long heartbeatSeconds,
+                        @Value("${feed.stream.timeout-minutes:30}") long timeoutMinutes) {
+        this(objectMapper, registry, bufferSize, new ThreadPoolExecutor(senderThreads, senderThreads, 0L,
+                        TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threads("feed-stream-sender-")),
+                TimeUnit.MINUTES.toMillis(timeoutMinutes));
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    // Tests pass their own sender pool and drive heartbeat() themselves
+    FeedEventHub(ObjectMapper objectMapper, MeterRegistry registry, int bufferSize, ExecutorService senders,
+                 long timeoutMillis) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.senders = senders;
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(threads("feed-stream-heartbeat-"));
+        Gauge.builder("feed.stream.subscribers", subscribers, Set::size).register(registry);
+        this.published = Counter.builder("feed.stream.events").register(registry);
+        this.resyncs = Counter.builder("feed.stream.resyncs")
+                .description("Events published after a later version and sent as a resync instead")
+                .register(registry);
+        this.droppedSlow = Counter.builder("feed.stream.dropped")
+                .description("Subscribers disconnected because their buffer overflowed")
+                .tag("reason", "slow").register(registry);
+        this.droppedError = Counter.builder("feed.stream.dropped")
+                .tag("reason", "error").register(registry);
+    }
+
+    // Where one subscriber's events are written; an SseEmitter outside of tests
+    interface EventSink {
+        void send(Set<DataWithMediaType> event) throws IOException;
+
+        void close();
+    }
+
+    // New stream for the calling request; it ends after the configured timeout and the client reconnects
+    public SseEmitter subscribe() throws IOException {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        // Spring holds the response headers back until the first write; this opens the stream right away
+        // and tells the client how long to wait before reconnecting
+        emitter.send(SseEmitter.event().reconnectTime(RECONNECT_MILLIS));
+        Subscriber subscriber = register(new EventSink() {
+            @Override
+            public void send(Set<DataWithMediaType> event) throws IOException {
+                emitter.send(event);
+            }
+
+            @Override
+            public void close() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        return emitter;
+    }
+
+    Subscriber register(EventSink sink) {
+        Subscriber subscriber = new Subscriber(sink);
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    // Queues one event (named, with the change version as its id) for every subscriber, or a resync
+    // when a later version has already been published
+    public void publish(String name, long version, Object data) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize feed event", e);
+        }
+        Set<DataWithMediaType> event = SseEmitter.event()
+                .id(Long.toString(version))
+                .name(name)
+                .data(json, MediaType.APPLICATION_JSON)
+                .build();
+        publishLock.lock();
+        try {
+            if (version > lastVersion) {
+                lastVersion = version;
+                published.increment();
+            } else {
+                event = SseEmitter.event()
+                        .name("resync")
+                        .data("{\"since\":" + (version - 1) + "}", MediaType.APPLICATION_JSON)
+                        .build();
+                resyncs.increment();
+            }
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(event);
+            }
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(HEARTBEAT);
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.remove(subscriber);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeats.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            remove(subscriber);
+            subscriber.sink.close();
+        }
+        senders.shutdownNow();
+    }
+
+    final class Subscriber implements Runnable {
+        private final EventSink sink;
+        private final ArrayBlockingQueue<Set<DataWithMediaType>> queue = new ArrayBlockingQueue<>(bufferSize);
+        // True while a drain is queued or running; only that drain calls sink.send
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(EventSink sink) {
+            this.sink = sink;
+        }
+
+        void offer(Set<DataWithMediaType> event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                droppedSlow.increment();
+                log.debug("Dropping feed stream subscriber that fell {} events behind", bufferSize);
+                drop();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                    draining.set(false);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Set<DataWithMediaType> event;
+                while (!closed && (event = queue.poll()) != null) {
+                    sink.send(event);
+                }
+            } catch (IOException | RuntimeException e) {
+                // Client went away, or the emitter was already completed
+                droppedError.increment();
+                drop();
+            } finally {
+                draining.set(false);
+            }
+            // An event offered after the last poll but before the flag was cleared would otherwise wait
+            if (!closed && !queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        private void drop() {
+            remove(this);
+            queue.clear();
+            sink.close();
+        }
+    }
+
+    private static ThreadFactory threads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,145 @@
+package com.abccondo.feed;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+// One immutable version of the blog feed, newest first, in the same (createdAt, id) order as
+// BlogRepository.FEED_ORDER. Changes produce a new snapshot (copy-on-write), so readers can page
+// through whichever one they picked up without locks. When the feed is larger than the cache
+// allows, the snapshot holds its newest posts only and is marked incomplete.
+public final class FeedSnapshot {
+    // Newest first; rows without a date sort last, as they do under MySQL's DESC ordering
+    static final Comparator<FeedEntry> FEED_ORDER = Comparator
+            .comparing(FeedEntry::getCreatedAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(FeedEntry::getId, Comparator.nullsFirst(Comparator.<Long>naturalOrder()))
+            .reversed();
+
+    private final List<FeedEntry> entries;
+    private final boolean complete;
+    private final long epoch;
+    private final long version;
+
+    // entries must already be in FEED_ORDER
+    FeedSnapshot(List<FeedEntry> entries, boolean complete, long epoch, long version) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.complete = complete;
+        this.epoch = epoch;
+        this.version = version;
+    }
+
+    public List<FeedEntry> entries() {
+        return entries;
+    }
+
+    // False when older posts were left out to respect the size cap
+    public boolean isComplete() {
+        return complete;
+    }
+
+    // Changes whenever the feed content changes. Counts from 1 in each FeedCache, so it only
+    // identifies content within one process; use tag() for anything a client keeps.
+    public long version() {
+        return version;
+    }
+
+    // Version qualified by the FeedCache's random epoch, so a restarted or different instance never
+    // hands out a tag another one used for different content
+    public String tag() {
+        return Long.toHexString(epoch) + "-" + version;
+    }
+
+    // Up to `count` entries after the cursor (from the top when createdAt and id are null), or null
+    // when this snapshot cannot answer because the page reaches past a truncated tail.
+    public List<FeedEntry> page(LocalDateTime createdAt, Long id, int count) {
+        int start = id == null ? 0 : firstAfter(createdAt, id);
+        int end = Math.min(entries.size(), start + count);
+        if (!complete && end - start < count) {
+            return null;
+        }
+        return entries.subList(start, end);
+    }
+
+    // Up to `count` of one author's entries after the cursor, or null when this snapshot is
+    // incomplete, since any of the author's older posts may sit past the truncated tail
+    public List<FeedEntry> authorPage(Long authorId, LocalDateTime createdAt, Long id, int count) {
+        if (!complete) {
+            return null;
+        }
+        List<FeedEntry> page = new ArrayList<>();
+        for (int i = id == null ? 0 : firstAfter(createdAt, id); i < entries.size() && page.size() < count; i++) {
+            FeedEntry entry = entries.get(i);
+            if (Objects.equals(entry.getAuthorId(), authorId)) {
+                page.add(entry);
+            }
+        }
+        return page;
+    }
+
+    // Index of the first entry that comes after (createdAt, id) in feed order
+    private int firstAfter(LocalDateTime createdAt, Long id) {
+        FeedEntry key = new FeedEntry(id, null, null, null, createdAt, null, null, null, false);
+        int lo = 0;
+        int hi = entries.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (FEED_ORDER.compare(entries.get(mid), key) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Adds the entry, or replaces the one with the same id, keeping at most maxEntries
+    FeedSnapshot upsert(FeedEntry entry, int maxEntries) {
+        List<FeedEntry> next = new ArrayList<>(entries.size() + 1);
+        for (FeedEntry e : entries) {
+            if (!Objects.equals(e.getId(), entry.getId())) {
+                next.add(e);
+            }
+        }
+        int at = Collections.binarySearch(next, entry, FEED_ORDER);
+        at = at < 0 ? -at - 1 : at;
+        // Past the tail of a truncated snapshot the entry is outside the cached window
+        if (complete || at < next.size()) {
+            next.add(at, entry);
+        }
+        boolean nextComplete = complete;
+        while (next.size() > maxEntries) {
+            next.remove(next.size() - 1);
+            nextComplete = false;
+        }
+        return new FeedSnapshot(next, nextComplete, epoch, version + 1);
+    }
+
+    FeedSnapshot remove(Long id) {
+        List<FeedEntry> next = new ArrayList<>(entries.size());
+        for (FeedEntry e : entries) {
+            if (!Objects.equals(e.getId(), id)) {
+                next.add(e);
+            }
+        }
+        return next.size() == entries.size() ? this : new FeedSnapshot(next, complete, epoch, version + 1);
+    }
+
+    // Applies a profile change to every post by that author
+    FeedSnapshot updateAuthor(Long authorId, String name, String picture) {
+        List<FeedEntry> next = new ArrayList<>(entries.size());
+        boolean changed = false;
+        for (FeedEntry e : entries) {
+            if (Objects.equals(e.getAuthorId(), authorId)) {
+                FeedEntry updated = e.withAuthor(name, picture);
+                changed |= !updated.equals(e);
+                next.add(updated);
+            } else {
+                next.add(e);
+            }
+        }
+        return changed ? new FeedSnapshot(next, complete, epoch, version + 1) : this;
+    }
+}
@@ -0,0 +1,124 @@
+package com.abccondo.image;
+
+import com.abccondo.cache.UserCache;
+import com.abccondo.feed.BlogChanges;
+import com.abccondo.feed.FeedCache;
+import com.abccondo.model.BlogModel;
+import com.abccondo.model.UserModel;
+import com.abccondo.repository.BlogRepository;
+import com.abccondo.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One-off conversion of rows that still hold inline data-URL images into image store references.
+// Enable with image.migration.enabled=true; it walks each table by id in fixed-size batches so
+// only one batch of multi-megabyte rows is in memory at a time, and is safe to re-run.
+// Each row is written the way the edit and profile endpoints write it: a new change version for
+// /api/blog/changes, the user cache evicted and the feed snapshot updated, so clients stop being
+// served the inline data URL. A row whose image cannot be stored (malformed or over the upload
+// limit) is logged and left as it is, and one the store does not take (e.g. SVG) is not touched.
+@Component
+@ConditionalOnProperty(name = "image.migration.enabled", havingValue = "true")
+public class ImageMigrationJob implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(ImageMigrationJob.class);
+
+    @Autowired
+    private BlogRepository blogRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private ImageStore imageStore;
+    @Autowired
+    private ImageVariantService imageVariants;
+    @Autowired
+    private BlogChanges blogChanges;
+    @Autowired
+    private FeedCache feedCache;
+    @Autowired
+    private UserCache userCache;
+
+    @Value("${image.migration.batch-size:50}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Migrated {} blog images and {} profile pictures to the image store",
+                migrateBlogs(), migrateUsers());
+    }
+
+    int migrateBlogs() {
+        int migrated = 0;
+        long lastId = 0;
+        List<BlogModel> batch;
+        do {
+            batch = blogRepo.findInlineImagesAfter(lastId, PageRequest.of(0, batchSize));
+            for (BlogModel blog : batch) {
+                lastId = blog.getBlogId();
+                String reference;
+                try {
+                    reference = imageStore.toReference(blog.getBlogImage());
+                } catch (InvalidImageException e) {
+                    log.warn("Left the inline image of blog {} in place: {}", blog.getBlogId(), e.getMessage());
+                    continue;
+                }
+                // Data URLs the store does not take (SVG, not base64) come back as they are; saving
+                // them would give the post a new change version on every run
+                if (reference.equals(blog.getBlogImage())) {
+                    continue;
+                }
+                blog.setBlogImage(reference);
+                blogChanges.save(blog);
+                feedCache.upsert(blog.getBlogId());
+                imageVariants.submit(blog.getBlogImage());
+                migrated++;
+            }
+        } while (batch.size() == batchSize);
+        return migrated;
+    }
+
+    int migrateUsers() {
+        int migrated = 0;
+        long lastId = 0;
+        List<UserModel> batch;
+        do {
+            batch = userRepo.findInlinePicturesAfter(lastId, PageRequest.of(0, batchSize));
+            List<UserModel> converted = new ArrayList<>(batch.size());
+            for (UserModel user : batch) {
+                lastId = user.getId();
+                String reference;
+                try {
+                    reference = imageStore.toReference(user.getPicture());
+                } catch (InvalidImageException e) {
+                    log.warn("Left the inline picture of user {} in place: {}", user.getId(), e.getMessage());
+                    continue;
+                }
+                if (!reference.equals(user.getPicture())) {
+                    user.setPicture(reference);
+                    converted.add(user);
+                }
+            }
+            if (!converted.isEmpty()) {
+                userRepo.saveAll(converted);
+            }
+            for (UserModel user : converted) {
+                userCache.evict(user);
+                feedCache.updateAuthor(user.getId(), user.getName(), user.getPicture());
+                // Their posts show the new picture URL
+                blogChanges.authorChanged(user.getId());
+                imageVariants.submit(user.getPicture());
+            }
+            migrated += converted.size();
+        } while (batch.size() == batchSize);
+        return migrated;
+    }
+}
@@ -0,0 +1,187 @@
+package com.abccondo.image;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Content-addressed blob store: data-URL images are written once under their SHA-256 and
+// the entity keeps only the short "/api/images/{hash}.{ext}" reference
+@Component
+public class ImageStore {
+    public static final String URL_PREFIX = "/api/images/";
+
+    // Raster types only; anything else (e.g. SVG, which can carry script) stays as it was sent
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/png", "png",
+            "image/jpeg", "jpg",
+            "image/jpg", "jpg",
+            "image/gif", "gif",
+            "image/webp", "webp");
+
+    private static final Map<String, String> MEDIA_TYPES = Map.of(
+            "png", "image/png",
+            "jpg", "image/jpeg",
+            "gif", "image/gif",
+            "webp", "image/webp");
+
+    // {sha256}.{ext} for originals, {sha256}_{variant}.jpg for resized copies
+    private static final Pattern NAME = Pattern.compile("([0-9a-f]{64})(?:_([a-z]+))?\\.([a-z]{3,4})");
+
+    static final long DEFAULT_MAX_BYTES = 10 * 1024 * 1024;
+
+    private final Path root;
+    private final long maxBytes;
+
+    @Autowired
+    public ImageStore(@Value("${image.store.dir:images}") String dir,
+                      @Value("${image.upload.max-bytes:10485760}") long maxBytes) {
+        this.root = Paths.get(dir).toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+    }
+
+    public ImageStore(String dir) {
+        this(dir, DEFAULT_MAX_BYTES);
+    }
+
+    public static boolean isDataUrl(String image) {
+        return image != null && image.startsWith("data:");
+    }
+
+    public static boolean isReference(String image) {
+        return image != null && image.startsWith(URL_PREFIX);
+    }
+
+    // Blob name of an image store reference, or null for any other value
+    public static String nameOf(String reference) {
+        return isReference(reference) ? reference.substring(URL_PREFIX.length()) : null;
+    }
+
+    // Returns the stored reference for a base64 data URL; any other value (plain URLs, existing
+    // references, null) is returned unchanged. Throws InvalidImageException for a data URL over
+    // image.upload.max-bytes or with a payload that is not base64.
+    public String toReference(String image) {
+        if (isReference(image)) {
+            return canonical(image);
+        }
+        if (!isDataUrl(image)) {
+            return image;
+        }
+        int comma = image.indexOf(',');
+        if (comma < 0) {
+            return image;
+        }
+        String meta = image.substring(5, comma);
+        if (!meta.endsWith(";base64")) {
+            return image;
+        }
+        String ext = EXTENSIONS.get(meta.substring(0, meta.length() - ";base64".length()).toLowerCase());
+        if (ext == null) {
+            return image;
+        }
+
+        // Checked on the encoded length, before decoding allocates the bytes
+        long encoded = image.length() - comma - 1L;
+        if (encoded / 4 * 3 > maxBytes) {
+            throw new InvalidImageException("Image is larger than " + maxBytes + " bytes");
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getMimeDecoder().decode(image.substring(comma + 1));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidImageException("Image data is not valid base64", e);
+        }
+        String name = sha256(bytes) + "." + ext;
+        write(name, bytes);
+        return URL_PREFIX + name;
+    }
+
+    // Writes the blob if no blob with that name exists yet; same name means same bytes
+    public void write(String name, byte[] bytes) {
+        Path target = pathFor(name);
+        if (Files.exists(target)) {
+            return;
+        }
+        try {
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), name, ".tmp");
+            try {
+                Files.write(tmp, bytes);
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // A concurrent writer stored the same content first
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store image " + name, e);
+        }
+    }
+
+    // Resolves a blob name to its file, rejecting anything that is not a well-formed name
+    public Optional<Path> find(String name) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            return Optional.empty();
+        }
+        Path path = pathFor(name);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    // Clients echo back the variant URLs they were shown; map those to the original they came from
+    private String canonical(String reference) {
+        Matcher m = NAME.matcher(nameOf(reference));
+        if (!m.matches() || m.group(2) == null) {
+            return reference;
+        }
+        return findOriginal(m.group(1)).map(p -> URL_PREFIX + p.getFileName()).orElse(reference);
+    }
+
+    // For a variant name whose resized copy has not been produced yet, the original it derives from
+    public Optional<Path> findVariantSource(String name) {
+        Matcher m = name == null ? null : NAME.matcher(name);
+        if (m == null || !m.matches() || m.group(2) == null) {
+            return Optional.empty();
+        }
+        return findOriginal(m.group(1));
+    }
+
+    // Original blob for a content hash, whatever extension it was stored with
+    public Optional<Path> findOriginal(String hash) {
+        for (String ext : MEDIA_TYPES.keySet()) {
+            Optional<Path> path = find(hash + "." + ext);
+            if (path.isPresent()) {
+                return path;
+            }
+        }
+        return Optional.empty();
+    }
+
+    public static String mediaType(String name) {
+        String ext = name.substring(name.lastIndexOf('.') + 1);
+        return MEDIA_TYPES.getOrDefault(ext, "application/octet-stream");
+    }
+
+    // Blobs are sharded by the first two hex digits to keep directories small
+    private Path pathFor(String name) {
+        return root.resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.abccondo.image;
+
+import java.util.Locale;
+
+// Fixed-size JPEG renditions produced for every stored image; sizes bound the longest edge
+public enum ImageVariant {
+    THUMB(160),  // avatars, rendered at 50-80px
+    CARD(640),   // feed cards
+    FULL(1280);  // single-post view
+
+    private final int maxEdge;
+
+    ImageVariant(int maxEdge) {
+        this.maxEdge = maxEdge;
+    }
+
+    public int maxEdge() {
+        return maxEdge;
+    }
+
+    public String nameFor(String hash) {
+        return hash + "_" + name().toLowerCase(Locale.ROOT) + ".jpg";
+    }
+
+    // Variant URL for an image store reference; external URLs, data URLs and null pass through
+    public String url(String reference) {
+        String name = ImageStore.nameOf(reference);
+        if (name == null || name.indexOf('_') >= 0) {
+            return reference;
+        }
+        return ImageStore.URL_PREFIX + nameFor(name.substring(0, name.indexOf('.')));
+    }
+}
@@ -0,0 +1,226 @@
+package com.abccondo.image;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Produces the THUMB/CARD/FULL renditions of stored images on a bounded background pool.
+// submit() never blocks: when the queue is full the job is dropped and the image keeps being
+// served in its original size until it is saved again or re-submitted. Originals above
+// image.variants.max-pixels are never decoded, since a small compressed file can expand to
+// gigabytes of raster; they too are only served as uploaded.
+@Component
+public class ImageVariantService {
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantService.class);
+    private static final float JPEG_QUALITY = 0.85f;
+    static final long DEFAULT_MAX_PIXELS = 40_000_000;
+
+    private final ImageStore imageStore;
+    private final ThreadPoolExecutor executor;
+    private final long maxPixels;
+    // Hashes queued or in progress, so repeated saves of the same image do not pile up
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private final Timer latency;
+    private final Counter rejected;
+    private final Counter failed;
+
+    @Autowired
+    public ImageVariantService(ImageStore imageStore, MeterRegistry registry,
+                               @Value("${image.variants.threads:2}") int threads,
+                               @Value("${image.variants.queue-capacity:200}") int queueCapacity,
+                               @Value("${image.variants.max-pixels:40000000}") long maxPixels) {
+        this(imageStore, registry, new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), workerThreads(), new ThreadPoolExecutor.AbortPolicy()),
+                maxPixels);
+    }
+
+    ImageVariantService(ImageStore imageStore, MeterRegistry registry, ThreadPoolExecutor executor) {
+        this(imageStore, registry, executor, DEFAULT_MAX_PIXELS);
+    }
+
+    ImageVariantService(ImageStore imageStore, MeterRegistry registry, ThreadPoolExecutor executor,
+                        long maxPixels) {
+        this.imageStore = imageStore;
+        this.executor = executor;
+        this.maxPixels = maxPixels;
+        Gauge.builder("image.variants.queue.depth", executor, e -> e.getQueue().size())
+                .description("Images waiting for variant generation")
+                .register(registry);
+        Gauge.builder("image.variants.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(registry);
+        this.latency = Timer.builder("image.variants.latency")
+                .description("Time from submission until all variants of an image are stored")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        this.rejected = Counter.builder("image.variants.rejected")
+                .description("Submissions dropped because the queue was full")
+                .register(registry);
+        this.failed = Counter.builder("image.variants.failed").register(registry);
+    }
+
+    // Queues variant generation for an image store reference; returns false if nothing was queued
+    public boolean submit(String reference) {
+        String name = ImageStore.nameOf(reference);
+        if (name == null || name.indexOf('_') >= 0) {
+            return false;
+        }
+        String hash = name.substring(0, name.indexOf('.'));
+        if (!pending.add(hash)) {
+            return false;
+        }
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(name);
+                } catch (Exception e) {
+                    failed.increment();
+                    log.warn("Could not generate variants for {}", name, e);
+                } finally {
+                    pending.remove(hash);
+                    latency.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            pending.remove(hash);
+            rejected.increment();
+            return false;
+        }
+    }
+
+    // Writes every missing variant of one original blob
+    void generate(String name) throws IOException {
+        String hash = name.substring(0, name.indexOf('.'));
+        Optional<Path> original = imageStore.find(name);
+        if (original.isEmpty()) {
+            return;
+        }
+        BufferedImage source = null;
+        for (ImageVariant variant : ImageVariant.values()) {
+            String variantName = variant.nameFor(hash);
+            if (imageStore.find(variantName).isPresent()) {
+                continue;
+            }
+            if (source == null) {
+                source = decode(original.get());
+                if (source == null) {
+                    // No ImageIO reader for this format (e.g. WebP), or too many pixels; the original
+                    // keeps being served
+                    return;
+                }
+            }
+            imageStore.write(variantName, encodeJpeg(resize(source, variant.maxEdge())));
+        }
+    }
+
+    // Reads the dimensions from the header and only decodes the raster when they are within maxPixels
+    private BufferedImage decode(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Not generating variants for {}: {} pixels is over the limit of {}",
+                            file.getFileName(), pixels, maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    static BufferedImage resize(BufferedImage source, int maxEdge) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        // Halve in steps first; a single bilinear pass over a large factor aliases badly
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        return draw(current, targetWidth, targetHeight);
+    }
+
+    // Always lands on an opaque RGB canvas since JPEG has no alpha
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static ThreadFactory workerThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "image-variants-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,14 @@
+package com.abccondo.image;
+
+// An uploaded data-URL image that is over the size limit or is not valid base64. The client has to
+// send something else, so controllers answer 400 rather than 500.
+public class InvalidImageException extends IllegalArgumentException {
+
+    public InvalidImageException(String message) {
+        super(message);
+    }
+
+    public InvalidImageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
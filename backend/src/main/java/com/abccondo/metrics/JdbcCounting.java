@@ -0,0 +1,161 @@
+package com.abccondo.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Counts the JDBC statements run and rows read on the current thread while a request is being measured
+// (see JdbcMetricsFilter). Connections from the wrapped DataSource are JDK proxies, and so are the
+// statements and result sets made from them during a measured request. A statement is one execute call
+// (a whole batch counts once) and a row is a ResultSet.next() that returned true.
+public final class JdbcCounting {
+    private static final ThreadLocal<Counts> CURRENT = new ThreadLocal<>();
+
+    public static final class Counts {
+        private long statements;
+        private long rows;
+
+        public long statements() {
+            return statements;
+        }
+
+        public long rows() {
+            return rows;
+        }
+    }
+
+    private JdbcCounting() {
+    }
+
+    // Starts counting on this thread; the caller must call stop() when done
+    public static Counts start() {
+        Counts counts = new Counts();
+        CURRENT.set(counts);
+        return counts;
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    // The counts being kept on this thread, or null outside a measured request
+    public static Counts current() {
+        return CURRENT.get();
+    }
+
+    public static DataSource wrap(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return proxy(Connection.class, super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return proxy(Connection.class, super.getConnection(username, password));
+            }
+        };
+    }
+
+    private static <T> T proxy(Class<T> type, T target) {
+        InvocationHandler handler = type == ResultSet.class ? new CountingRows(target) : new Counting(target);
+        try {
+            return type.cast(PROXY_CONSTRUCTORS.get(type).newInstance(handler));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Proxy.newProxyInstance looks the proxy class up on every call; several are made per query
+    private static final ClassValue<Constructor<?>> PROXY_CONSTRUCTORS = new ClassValue<>() {
+        @Override
+        protected Constructor<?> computeValue(Class<?> type) {
+            try {
+                return Proxy.newProxyInstance(JdbcCounting.class.getClassLoader(), new Class<?>[]{type},
+                        (proxy, method, args) -> null).getClass().getConstructor(InvocationHandler.class);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Connections and statements
+    private record Counting(Object target) implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("equals") && args != null && args.length == 1) {
+                // One proxy per object, so identity is enough
+                return proxy == args[0];
+            }
+            Object result = call(target, method, args);
+            switch (method.getName()) {
+                case "createStatement", "prepareStatement", "prepareCall" -> {
+                    // Statements made outside a measured request (background jobs) are left bare
+                    return CURRENT.get() == null ? result : statement((Statement) result);
+                }
+                case "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch",
+                     "executeLargeBatch" -> {
+                    Counts counts = CURRENT.get();
+                    if (counts != null) {
+                        counts.statements++;
+                    }
+                    return result instanceof ResultSet resultSet ? proxy(ResultSet.class, resultSet) : result;
+                }
+                case "getResultSet", "getGeneratedKeys" -> {
+                    return result == null ? null : proxy(ResultSet.class, (ResultSet) result);
+                }
+                default -> {
+                    return result;
+                }
+            }
+        }
+
+        private static Statement statement(Statement statement) {
+            if (statement instanceof CallableStatement callable) {
+                return proxy(CallableStatement.class, callable);
+            }
+            if (statement instanceof PreparedStatement prepared) {
+                return proxy(PreparedStatement.class, prepared);
+            }
+            return proxy(Statement.class, statement);
+        }
+    }
+
+    // Every column read goes through here, so it does no more than it has to
+    private record CountingRows(Object target) implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (args == null && method.getName().equals("next")) {
+                Object result = call(target, method, null);
+                Counts counts = CURRENT.get();
+                if (counts != null && (Boolean) result) {
+                    counts.rows++;
+                }
+                return result;
+            }
+            if (args != null && args.length == 1 && method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            return call(target, method, args);
+        }
+    }
+}
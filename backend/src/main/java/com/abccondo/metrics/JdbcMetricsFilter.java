@@ -0,0 +1,56 @@
+package com.abccondo.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Records how many JDBC statements each request ran and how many rows it read, with the same method
+// and uri tags as http.server.requests. Only the thread that handles the request is counted; work it
+// hands to other threads (password hashing, the feed stream once it has gone async) is not.
+public class JdbcMetricsFilter extends OncePerRequestFilter {
+    private final MeterRegistry registry;
+    // Per method and route, so the hot path is one map lookup rather than two meter registrations
+    private final ConcurrentMap<String, DistributionSummary[]> summaries = new ConcurrentHashMap<>();
+
+    public JdbcMetricsFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        JdbcCounting.Counts counts = JdbcCounting.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            JdbcCounting.stop();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            // Unmatched requests share one tag so probes for random paths cannot blow up the series count
+            String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+            String method = request.getMethod();
+            DistributionSummary[] route = summaries.computeIfAbsent(method + " " + uri, key -> new DistributionSummary[]{
+                    summary("http.server.requests.jdbc.statements", method, uri),
+                    summary("http.server.requests.jdbc.rows", method, uri)});
+            route[0].record(counts.statements());
+            route[1].record(counts.rows());
+        }
+    }
+
+    // Buckets like the route latency ones, so an N+1 query shows up as a shift between them
+    private DistributionSummary summary(String name, String method, String uri) {
+        return DistributionSummary.builder(name)
+                .tag("method", method)
+                .tag("uri", uri)
+                .serviceLevelObjectives(1, 2, 5, 10, 20, 50, 100, 1000)
+                .register(registry);
+    }
+}
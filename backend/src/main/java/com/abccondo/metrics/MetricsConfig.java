@@ -0,0 +1,48 @@
+package com.abccondo.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+// Prometheus scrape endpoint, route latency percentiles and per-request JDBC counts. The actuator's
+// own http.server.requests timer covers every controller route and Spring Boot binds the Hikari pool
+// gauges (hikaricp.connections.pending is the saturation one); metrics.properties sets their
+// percentiles and what is exposed. Password hashing, JWT parsing and the social providers time
+// themselves where the work happens.
+@Configuration
+@PropertySource("classpath:metrics.properties")
+public class MetricsConfig {
+
+    // Static, so wrapping the DataSource does not pull this configuration in early.
+    // metrics.jdbc.enabled=false drops the JDBC proxies and the per-request counts with them.
+    @Bean
+    @ConditionalOnProperty(name = "metrics.jdbc.enabled", matchIfMissing = true)
+    static BeanPostProcessor jdbcCountingDataSource() {
+        return new BeanPostProcessor() {
+            // "dataSource" is the application DataSource: Spring Boot's pool, or the replica router.
+            // The pools behind the router are not wrapped, so nothing is counted twice.
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && beanName.equals("dataSource")
+                        ? JdbcCounting.wrap(dataSource) : bean;
+            }
+        };
+    }
+
+    // Runs right after Spring's own request observation filter, so security filters are counted too
+    @Bean
+    @ConditionalOnProperty(name = "metrics.jdbc.enabled", matchIfMissing = true)
+    public FilterRegistrationBean<JdbcMetricsFilter> jdbcMetricsFilter(MeterRegistry registry) {
+        FilterRegistrationBean<JdbcMetricsFilter> registration =
+                new FilterRegistrationBean<>(new JdbcMetricsFilter(registry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
@@ -4,7 +4,11 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "blogs")
+@Table(name = "blogs", indexes = {
+        @Index(name = "idx_blogs_version", columnList = "blog_version"),
+        @Index(name = "idx_blogs_author_created", columnList = "blog_author_id, blog_created_at"),
+        @Index(name = "idx_blogs_created_id", columnList = "blog_created_at, blog_id")
+})
 public class BlogModel {
 
     @Id
@@ -27,6 +31,10 @@ public class BlogModel {
     @Column(name = "blog_created_at")
     private LocalDateTime blogCreatedAt;
 
+    // Change version of the last create or edit (see ChangeVersions); null for posts written before versioning
+    @Column(name = "blog_version")
+    private Long blogVersion;
+
     public Long getBlogId() {
         return blogId;
     }
@@ -74,4 +82,12 @@ public class BlogModel {
     public void setBlogCreatedAt(LocalDateTime blogCreatedAt) {
         this.blogCreatedAt = blogCreatedAt;
     }
-}
\ No newline at end of file
+
+    public Long getBlogVersion() {
+        return blogVersion;
+    }
+
+    public void setBlogVersion(Long blogVersion) {
+        this.blogVersion = blogVersion;
+    }
+}
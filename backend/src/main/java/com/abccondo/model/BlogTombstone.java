@@ -0,0 +1,54 @@
+package com.abccondo.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Record of a deleted post, so clients syncing with /api/blog/changes can drop it
+@Entity
+@Table(name = "blog_tombstones", indexes = @Index(name = "idx_blog_tombstones_version", columnList = "tombstone_version"))
+public class BlogTombstone {
+
+    @Id
+    @Column(name = "blog_id")
+    private Long blogId;
+
+    @Column(name = "tombstone_version", nullable = false)
+    private Long version;
+
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
+    // No-args constructor (required by JPA)
+    public BlogTombstone() {
+    }
+
+    public BlogTombstone(Long blogId, Long version, LocalDateTime deletedAt) {
+        this.blogId = blogId;
+        this.version = version;
+        this.deletedAt = deletedAt;
+    }
+
+    public Long getBlogId() {
+        return blogId;
+    }
+
+    public void setBlogId(Long blogId) {
+        this.blogId = blogId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+}
@@ -0,0 +1,41 @@
+package com.abccondo.model;
+
+import jakarta.persistence.*;
+
+// Named counter row handing out change versions; see ChangeVersions
+@Entity
+@Table(name = "change_versions")
+public class ChangeVersion {
+
+    @Id
+    @Column(name = "counter_name")
+    private String name;
+
+    @Column(name = "current_version", nullable = false)
+    private long currentVersion;
+
+    // No-args constructor (required by JPA)
+    public ChangeVersion() {
+    }
+
+    public ChangeVersion(String name, long currentVersion) {
+        this.name = name;
+        this.currentVersion = currentVersion;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+
+    public void setCurrentVersion(long currentVersion) {
+        this.currentVersion = currentVersion;
+    }
+}
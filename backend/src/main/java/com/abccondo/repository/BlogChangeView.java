@@ -0,0 +1,6 @@
+package com.abccondo.repository;
+
+// Feed row plus the change version it was last written at
+public interface BlogChangeView extends BlogFeedView {
+    Long getVersion();
+}
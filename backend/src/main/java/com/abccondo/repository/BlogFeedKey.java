@@ -0,0 +1,10 @@
+package com.abccondo.repository;
+
+import java.time.LocalDateTime;
+
+// Columns every feed projection carries; (createdAt, id) is the pagination keyset
+public interface BlogFeedKey {
+    Long getId();
+
+    LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,19 @@
+package com.abccondo.repository;
+
+// Read-only projection of a blog post joined with its author's display fields
+public interface BlogFeedView extends BlogFeedKey {
+    String getTitle();
+
+    String getImage();
+
+    String getContent();
+
+    Long getAuthorId();
+
+    String getAuthorName();
+
+    String getAuthorImage();
+
+    // False when the LEFT JOIN found no user for the author id
+    Boolean getAuthorFound();
+}
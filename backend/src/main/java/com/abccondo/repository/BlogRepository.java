@@ -1,10 +1,107 @@
 package com.abccondo.repository;
 
 import com.abccondo.model.BlogModel;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
 public interface BlogRepository extends JpaRepository<BlogModel, Long> {
+    // Feed rows with author name/picture resolved in the same round trip
+    String FEED_COLUMNS = "b.blogId AS id, b.blogTitle AS title, b.blogImage AS image, b.blogContent AS content, "
+            + "b.blogCreatedAt AS createdAt, b.blogAuthorId AS authorId, u.name AS authorName, u.picture AS authorImage, "
+            + "CASE WHEN u.id IS NULL THEN false ELSE true END AS authorFound ";
+
+    String FEED_FROM = "FROM BlogModel b LEFT JOIN UserModel u ON u.id = b.blogAuthorId ";
+
+    String FEED_SELECT = "SELECT " + FEED_COLUMNS + FEED_FROM;
+
+    String CHANGE_SELECT = "SELECT " + FEED_COLUMNS + ", b.blogVersion AS version " + FEED_FROM;
+
+    int EXCERPT_LENGTH = 200;
+
+    // Only the columns a feed card needs; TEXT content is cut server-side and data URLs never leave the DB
+    String SUMMARY_SELECT = "SELECT b.blogId AS id, b.blogTitle AS title, "
+            + "SUBSTRING(b.blogContent, 1, " + EXCERPT_LENGTH + ") AS excerpt, "
+            + "CASE WHEN b.blogImage LIKE 'data:%' THEN NULL ELSE b.blogImage END AS thumbnail, "
+            + "CASE WHEN b.blogImage IS NULL OR b.blogImage = '' THEN false ELSE true END AS hasImage, "
+            + "b.blogCreatedAt AS createdAt, b.blogAuthorId AS authorId, u.name AS authorName, "
+            + "CASE WHEN u.picture LIKE 'data:%' THEN NULL ELSE u.picture END AS authorImage, "
+            + "CASE WHEN u.id IS NULL THEN false ELSE true END AS authorFound "
+            + "FROM BlogModel b LEFT JOIN UserModel u ON u.id = b.blogAuthorId ";
+
+    // Newest first; (createdAt, id) is the keyset so every page is an index range scan, not an OFFSET
+    String FEED_ORDER = "ORDER BY b.blogCreatedAt DESC, b.blogId DESC";
+
+    String AFTER_CURSOR = "(b.blogCreatedAt < :createdAt OR (b.blogCreatedAt = :createdAt AND b.blogId < :id)) ";
+
     List<BlogModel> findByBlogAuthorId(Long authorId);
-}
\ No newline at end of file
+
+    // Posts still holding an inline data-URL image, in id order for batched migration
+    @Query("SELECT b FROM BlogModel b WHERE b.blogId > :afterId AND b.blogImage LIKE 'data:%' ORDER BY b.blogId")
+    List<BlogModel> findInlineImagesAfter(@Param("afterId") Long afterId, Pageable page);
+
+    @Query(FEED_SELECT + FEED_ORDER)
+    List<BlogFeedView> findFeedPage(Pageable page);
+
+    @Query(FEED_SELECT + "WHERE " + AFTER_CURSOR + FEED_ORDER)
+    List<BlogFeedView> findFeedPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id,
+                                         Pageable page);
+
+    @Query(FEED_SELECT + "WHERE b.blogId = :id")
+    Optional<BlogFeedView> findFeedEntry(@Param("id") Long id);
+
+    // Feed rows for search hits; the caller puts them back in rank order
+    @Query(FEED_SELECT + "WHERE b.blogId IN :ids")
+    List<BlogFeedView> findFeedEntries(@Param("ids") Collection<Long> ids);
+
+    // Search index bulk load, keyset-paged on the primary key
+    @Query("SELECT b.blogId AS id, b.blogTitle AS title, b.blogContent AS content FROM BlogModel b "
+            + "WHERE b.blogId > :afterId ORDER BY b.blogId")
+    List<BlogTextView> findTextAfter(@Param("afterId") Long afterId, Pageable page);
+
+    @Query(FEED_SELECT + "WHERE b.blogAuthorId = :authorId " + FEED_ORDER)
+    List<BlogFeedView> findAuthorFeedPage(@Param("authorId") Long authorId, Pageable page);
+
+    @Query(FEED_SELECT + "WHERE b.blogAuthorId = :authorId AND " + AFTER_CURSOR + FEED_ORDER)
+    List<BlogFeedView> findAuthorFeedPageAfter(@Param("authorId") Long authorId,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Pageable page);
+
+    // Posts created or edited after a change version, oldest change first; served off idx_blogs_version
+    @Query(CHANGE_SELECT + "WHERE b.blogVersion > :since ORDER BY b.blogVersion, b.blogId")
+    List<BlogChangeView> findChangesSince(@Param("since") Long since, Pageable page);
+
+    // Every post written at one version (an author update stamps all their posts at once)
+    @Query(CHANGE_SELECT + "WHERE b.blogVersion = :version ORDER BY b.blogId")
+    List<BlogChangeView> findChangesAt(@Param("version") Long version);
+
+    // Marks an author's posts changed, so synced clients pick up a new name or picture
+    @Modifying
+    @Query("UPDATE BlogModel b SET b.blogVersion = :version WHERE b.blogAuthorId = :authorId")
+    int stampAuthorPosts(@Param("authorId") Long authorId, @Param("version") Long version);
+
+    @Query(SUMMARY_SELECT + FEED_ORDER)
+    List<BlogSummaryView> findSummaryPage(Pageable page);
+
+    @Query(SUMMARY_SELECT + "WHERE " + AFTER_CURSOR + FEED_ORDER)
+    List<BlogSummaryView> findSummaryPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Pageable page);
+
+    @Query(SUMMARY_SELECT + "WHERE b.blogAuthorId = :authorId " + FEED_ORDER)
+    List<BlogSummaryView> findAuthorSummaryPage(@Param("authorId") Long authorId, Pageable page);
+
+    @Query(SUMMARY_SELECT + "WHERE b.blogAuthorId = :authorId AND " + AFTER_CURSOR + FEED_ORDER)
+    List<BlogSummaryView> findAuthorSummaryPageAfter(@Param("authorId") Long authorId,
+                                                     @Param("createdAt") LocalDateTime createdAt,
+                                                     @Param("id") Long id,
+                                                     Pageable page);
+}
@@ -0,0 +1,21 @@
+package com.abccondo.repository;
+
+// Feed card projection: small columns only, a content excerpt, and no inline data-URL images
+public interface BlogSummaryView extends BlogFeedKey {
+    String getTitle();
+
+    String getExcerpt();
+
+    // Image URL, or null when there is no image or it is stored inline as a data URL
+    String getThumbnail();
+
+    Boolean getHasImage();
+
+    Long getAuthorId();
+
+    String getAuthorName();
+
+    String getAuthorImage();
+
+    Boolean getAuthorFound();
+}
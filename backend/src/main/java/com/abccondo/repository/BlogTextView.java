@@ -0,0 +1,10 @@
+package com.abccondo.repository;
+
+// The searchable text of a post, read in id order when the search index is rebuilt
+public interface BlogTextView {
+    Long getId();
+
+    String getTitle();
+
+    String getContent();
+}
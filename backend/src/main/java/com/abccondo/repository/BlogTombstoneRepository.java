@@ -0,0 +1,23 @@
+package com.abccondo.repository;
+
+import com.abccondo.model.BlogTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BlogTombstoneRepository extends JpaRepository<BlogTombstone, Long> {
+    // Deletions after a change version, oldest first
+    List<BlogTombstone> findByVersionGreaterThanOrderByVersion(Long since, Pageable page);
+
+    // Version of the newest tombstone written before the cutoff, or null if there is none
+    @Query("SELECT MAX(t.version) FROM BlogTombstone t WHERE t.deletedAt < :cutoff")
+    Long findNewestVersionBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("DELETE FROM BlogTombstone t WHERE t.version <= :version")
+    int deleteThroughVersion(@Param("version") Long version);
+}
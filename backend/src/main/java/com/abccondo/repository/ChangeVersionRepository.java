@@ -0,0 +1,20 @@
+package com.abccondo.repository;
+
+import com.abccondo.model.ChangeVersion;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Optional;
+
+public interface ChangeVersionRepository extends JpaRepository<ChangeVersion, String> {
+    // SELECT ... FOR UPDATE: the row stays locked until the surrounding transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ChangeVersion c WHERE c.name = :name")
+    Optional<ChangeVersion> findForUpdate(@Param("name") String name);
+
+    // The value alone, without loading the entity into the persistence context
+    @Query("SELECT c.currentVersion FROM ChangeVersion c WHERE c.name = :name")
+    Optional<Long> findVersion(@Param("name") String name);
+}
@@ -0,0 +1,21 @@
+package com.abccondo.repository;
+
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// The schema is owned by the Flyway migrations in db/migration, applied on startup before JPA starts;
+// Hibernate's ddl-auto should be left at validate or none. Databases that ddl-auto created before
+// that have no migration history: they are baselined at V1, the schema it produced, and migrated
+// from there.
+@Configuration
+public class SchemaMigrationConfig {
+
+    @Bean
+    public FlywayConfigurationCustomizer baselineExistingSchema() {
+        return configuration -> configuration
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .baselineDescription("Schema created by Hibernate ddl-auto");
+    }
+}
@@ -1,9 +1,17 @@
 package com.abccondo.repository;
 
 import com.abccondo.model.UserModel;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<UserModel, Long> {
     Optional<UserModel> findByEmail(String email);
+
+    // Users whose picture is still an inline data URL, in id order for batched migration
+    @Query("SELECT u FROM UserModel u WHERE u.id > :afterId AND u.picture LIKE 'data:%' ORDER BY u.id")
+    List<UserModel> findInlinePicturesAfter(@Param("afterId") Long afterId, Pageable page);
 }
\ No newline at end of file
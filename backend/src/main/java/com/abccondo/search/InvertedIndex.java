@@ -0,0 +1,465 @@
+package com.abccondo.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+
+// Term -> postings index over post titles and content, ranked with BM25. Every post gets an internal
+// doc number when it is added; an edit removes the old one and appends a new one, so each postings
+// list stays sorted by doc number and can be removed from with a binary search. Once removed docs
+// leave more numbers unused than in use, the live ones are renumbered densely in the same order.
+// Queries are a sequential pass over each matching postings list.
+// Not thread-safe: SearchIndex guards it with a read-write lock.
+final class InvertedIndex {
+    // BM25 saturation and length normalisation, at the usual defaults
+    static final float K1 = 1.2f;
+    static final float B = 0.75f;
+    // A title word counts as this many content words, in term frequency and in document length
+    static final int TITLE_WEIGHT = 3;
+    // "ca*" matches at most this many distinct words, the most common ones first
+    static final int MAX_PREFIX_EXPANSIONS = 64;
+    static final int MIN_PREFIX_LENGTH = 2;
+    // Documents up to this many (weighted) words long get their length norm from a per-query table
+    private static final int NORM_CACHE_SIZE = 1024;
+    // Queries are CPU-bound, so about this many run at once; more than that allocate and drop their own
+    private static final int SPARE_SCORES = Runtime.getRuntime().availableProcessors();
+    // Fewer unused doc numbers than this are never worth a renumbering pass
+    static final int MIN_DEAD_SLOTS = 1024;
+
+    // Sorted, so a prefix is a contiguous key range
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Doc> docs = new HashMap<>();
+    // Indexed by doc number; entries of removed docs are left behind unused until compact()
+    private long[] blogIds = new long[1024];
+    private int[] lengths = new int[1024];
+    private int nextDoc;
+    private long totalLength;
+    // Zeroed score accumulators shared by queries. Not a ThreadLocal: with a virtual thread per request
+    // that would be a fresh array as long as the index for every query.
+    private final ArrayBlockingQueue<float[]> spareScores = new ArrayBlockingQueue<>(SPARE_SCORES);
+
+    // Weighted term frequencies of one post. Built without touching the index, so the bulk loader
+    // can tokenize on several threads and only the insert runs under the write lock.
+    record Analyzed(long blogId, String[] terms, int[] freqs, int length) {
+    }
+
+    private record Doc(int doc, Postings[] postings) {
+    }
+
+    static Analyzed analyze(long blogId, String title, String content) {
+        Map<String, int[]> freqs = new HashMap<>();
+        int length = 0;
+        for (String term : Tokenizer.tokens(title)) {
+            freqs.computeIfAbsent(term, t -> new int[1])[0] += TITLE_WEIGHT;
+            length += TITLE_WEIGHT;
+        }
+        for (String term : Tokenizer.tokens(content)) {
+            freqs.computeIfAbsent(term, t -> new int[1])[0]++;
+            length++;
+        }
+        String[] termArray = new String[freqs.size()];
+        int[] freqArray = new int[freqs.size()];
+        int i = 0;
+        for (Map.Entry<String, int[]> entry : freqs.entrySet()) {
+            termArray[i] = entry.getKey();
+            freqArray[i] = entry.getValue()[0];
+            i++;
+        }
+        return new Analyzed(blogId, termArray, freqArray, length);
+    }
+
+    // Adds a post, replacing what was indexed for it before
+    void add(Analyzed post) {
+        remove(post.blogId());
+        if (post.terms().length == 0) {
+            return;
+        }
+        int doc = nextDoc++;
+        if (doc == blogIds.length) {
+            blogIds = Arrays.copyOf(blogIds, doc * 2);
+            lengths = Arrays.copyOf(lengths, doc * 2);
+        }
+        blogIds[doc] = post.blogId();
+        lengths[doc] = post.length();
+        totalLength += post.length();
+
+        Postings[] postings = new Postings[post.terms().length];
+        for (int i = 0; i < postings.length; i++) {
+            postings[i] = terms.computeIfAbsent(post.terms()[i], Postings::new);
+            postings[i].add(doc, post.freqs()[i]);
+        }
+        docs.put(post.blogId(), new Doc(doc, postings));
+    }
+
+    boolean remove(long blogId) {
+        Doc removed = docs.remove(blogId);
+        if (removed == null) {
+            return false;
+        }
+        for (Postings postings : removed.postings()) {
+            postings.remove(removed.doc());
+            if (postings.size == 0) {
+                terms.remove(postings.term);
+            }
+        }
+        totalLength -= lengths[removed.doc()];
+        int dead = nextDoc - docs.size();
+        if (dead >= MIN_DEAD_SLOTS && dead > docs.size()) {
+            compact();
+        }
+        return true;
+    }
+
+    // Renumbers the live docs 0..size-1, keeping their order, so postings stay sorted and ties still
+    // go to the more recently written post. Costs one pass over the postings, and only runs after at
+    // least as many removals as there are posts left.
+    private void compact() {
+        int[] renumbered = new int[nextDoc];
+        Arrays.fill(renumbered, -1);
+        for (Doc doc : docs.values()) {
+            renumbered[doc.doc()] = 0;
+        }
+        int live = 0;
+        for (int doc = 0; doc < nextDoc; doc++) {
+            if (renumbered[doc] == 0) {
+                renumbered[doc] = live++;
+            }
+        }
+        long[] compactIds = new long[Math.max(1024, live * 2)];
+        int[] compactLengths = new int[compactIds.length];
+        for (int doc = 0; doc < nextDoc; doc++) {
+            if (renumbered[doc] >= 0) {
+                compactIds[renumbered[doc]] = blogIds[doc];
+                compactLengths[renumbered[doc]] = lengths[doc];
+            }
+        }
+        for (Postings postings : terms.values()) {
+            for (int i = 0; i < postings.size; i++) {
+                postings.docs[i] = renumbered[postings.docs[i]];
+            }
+        }
+        docs.replaceAll((blogId, doc) -> new Doc(renumbered[doc.doc()], doc.postings()));
+        blogIds = compactIds;
+        lengths = compactLengths;
+        nextDoc = live;
+        // Sized for the old numbering; queries allocate ones that fit
+        spareScores.clear();
+    }
+
+    int size() {
+        return docs.size();
+    }
+
+    // Doc numbers handed out and not reclaimed yet, live or not
+    int docSlots() {
+        return nextDoc;
+    }
+
+    int termCount() {
+        return terms.size();
+    }
+
+    // Blog ids of the best matches, best first. Words are OR-ed, so posts matching more of them
+    // rank higher; a word ending in * matches as a prefix. Equal scores go to the more recently
+    // written post.
+    List<Long> search(String query, int limit) {
+        List<Postings> lists = new ArrayList<>();
+        for (String part : query.trim().split("\\s+")) {
+            boolean prefix = part.endsWith("*");
+            List<String> words = Tokenizer.tokens(part);
+            for (int i = 0; i < words.size(); i++) {
+                String word = words.get(i);
+                if (prefix && i == words.size() - 1 && word.length() >= MIN_PREFIX_LENGTH) {
+                    expand(word, lists);
+                } else {
+                    Postings postings = terms.get(word);
+                    if (postings != null && !lists.contains(postings)) {
+                        lists.add(postings);
+                    }
+                }
+            }
+        }
+        if (lists.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        int count = docs.size();
+        float averageLength = (float) totalLength / count;
+        // BM25 length normalisation for the common lengths, tabulated once when there are enough postings
+        int postingCount = 0;
+        for (Postings postings : lists) {
+            postingCount += postings.size;
+        }
+        float[] norms = new float[postingCount > NORM_CACHE_SIZE ? NORM_CACHE_SIZE : 0];
+        for (int length = 0; length < norms.length; length++) {
+            norms[length] = lengthNorm(length, averageLength);
+        }
+
+        TopDocs top = new TopDocs(limit);
+        if (lists.size() == 1) {
+            rankOne(lists.get(0), count, averageLength, norms, top);
+        } else {
+            rankMany(lists, count, averageLength, norms, top);
+        }
+
+        int[] ranked = top.docsBestFirst();
+        List<Long> ids = new ArrayList<>(ranked.length);
+        for (int doc : ranked) {
+            ids.add(blogIds[doc]);
+        }
+        return ids;
+    }
+
+    // One word: rank straight off its postings, no accumulator needed. Newest first, so a post with
+    // the same score as one already kept never displaces it.
+    private void rankOne(Postings postings, int count, float averageLength, float[] norms, TopDocs top) {
+        float weight = idf(postings, count) * (K1 + 1);
+        int[] listDocs = postings.docs;
+        int[] freqs = postings.freqs;
+        // Lowest score still in the running; weight * tf / (tf + norm) > threshold without dividing
+        float threshold = -1;
+        for (int i = postings.size - 1; i >= 0; i--) {
+            int doc = listDocs[i];
+            int tf = freqs[i];
+            int length = lengths[doc];
+            float norm = length < norms.length ? norms[length] : lengthNorm(length, averageLength);
+            if (tf * (weight - threshold) > threshold * norm) {
+                threshold = top.offer(doc, weight * tf / (tf + norm));
+            }
+        }
+    }
+
+    // Term at a time, rarest word first, adding into per-doc scores. Common words have a low idf, so once
+    // the k-th best score so far is more than every remaining list could add, no post that only they
+    // contain can make the top k: those lists are then only searched for the candidates still in
+    // reach, instead of being scanned (the MaxScore optimisation).
+    private void rankMany(List<Postings> lists, int count, float averageLength, float[] norms, TopDocs top) {
+        int n = lists.size();
+        Postings[] sorted = lists.toArray(new Postings[0]);
+        Arrays.sort(sorted, Comparator.comparingInt((Postings p) -> p.size));
+        float[] weights = new float[n];
+        // remaining[j]: the most lists j.. can add to any doc, as a term scores below its weight
+        float[] remaining = new float[n + 1];
+        for (int j = n - 1; j >= 0; j--) {
+            weights[j] = idf(sorted[j], count) * (K1 + 1);
+            remaining[j] = remaining[j + 1] + weights[j];
+        }
+
+        float[] scores = scratchScores();
+        int[] candidates = new int[Math.max(16, sorted[0].size)];
+        int candidateCount = 0;
+        int scanned = 0;
+        float threshold = -1;
+        for (; scanned < n; scanned++) {
+            Postings postings = sorted[scanned];
+            // Only worth checking when searching for the candidates is cheaper than a scan
+            if (scanned > 0 && postings.size > candidateCount) {
+                threshold = kthBest(scores, candidates, candidateCount, top.capacity());
+                if (threshold >= remaining[scanned]) {
+                    break;
+                }
+            }
+            float weight = weights[scanned];
+            int[] listDocs = postings.docs;
+            int[] freqs = postings.freqs;
+            for (int i = 0; i < postings.size; i++) {
+                int doc = listDocs[i];
+                if (scores[doc] == 0) {
+                    if (candidateCount == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                    }
+                    candidates[candidateCount++] = doc;
+                }
+                scores[doc] += termScore(weight, freqs[i], lengths[doc], norms, averageLength);
+            }
+        }
+
+        for (int c = 0; c < candidateCount; c++) {
+            int doc = candidates[c];
+            float score = scores[doc];
+            // Leaves the array zeroed for the next query that takes it
+            scores[doc] = 0;
+            if (scanned < n) {
+                if (score + remaining[scanned] < threshold) {
+                    continue;
+                }
+                for (int j = scanned; j < n; j++) {
+                    int i = Arrays.binarySearch(sorted[j].docs, 0, sorted[j].size, doc);
+                    if (i >= 0) {
+                        score += termScore(weights[j], sorted[j].freqs[i], lengths[doc], norms, averageLength);
+                    }
+                }
+            }
+            top.offer(doc, score);
+        }
+        spareScores.offer(scores);
+    }
+
+    // The score the limit-th best candidate has so far, or -1 if there are fewer candidates than that
+    private static float kthBest(float[] scores, int[] candidates, int candidateCount, int limit) {
+        TopDocs best = new TopDocs(limit);
+        float threshold = -1;
+        for (int c = 0; c < candidateCount; c++) {
+            threshold = best.offer(candidates[c], scores[candidates[c]]);
+        }
+        return threshold;
+    }
+
+    private float termScore(float weight, int tf, int length, float[] norms, float averageLength) {
+        return weight * tf / (tf + (length < norms.length ? norms[length] : lengthNorm(length, averageLength)));
+    }
+
+    private static float idf(Postings postings, int count) {
+        return (float) Math.log(1 + (count - postings.size + 0.5) / (postings.size + 0.5));
+    }
+
+    private static float lengthNorm(int length, float averageLength) {
+        return K1 * (1 - B + B * length / averageLength);
+    }
+
+    // Zeroed score accumulator, one slot per doc number, for the caller alone until it is offered back
+    private float[] scratchScores() {
+        float[] scores = spareScores.poll();
+        if (scores == null || scores.length < nextDoc) {
+            scores = new float[scores == null ? nextDoc : Math.max(nextDoc, scores.length * 2)];
+        }
+        return scores;
+    }
+
+    // Adds the postings of the most common words starting with prefix
+    private void expand(String prefix, List<Postings> lists) {
+        List<Postings> matches = new ArrayList<>(
+                terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values());
+        if (matches.size() > MAX_PREFIX_EXPANSIONS) {
+            matches.sort(Comparator.comparingInt((Postings p) -> p.size).reversed());
+            matches = matches.subList(0, MAX_PREFIX_EXPANSIONS);
+        }
+        for (Postings postings : matches) {
+            if (!lists.contains(postings)) {
+                lists.add(postings);
+            }
+        }
+    }
+
+    // The `limit` best (score, doc) pairs seen, as a min-heap in two arrays so offers allocate nothing.
+    // Equal scores go to the higher doc number, i.e. the more recently written post.
+    private static final class TopDocs {
+        private final int[] docs;
+        private final float[] scores;
+        private int size;
+
+        TopDocs(int limit) {
+            docs = new int[limit];
+            scores = new float[limit];
+        }
+
+        int capacity() {
+            return docs.length;
+        }
+
+        // Returns the score a doc must beat to get in from now on, -1 while there is room
+        float offer(int doc, float score) {
+            if (size < docs.length) {
+                docs[size] = doc;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (better(doc, score, 0)) {
+                docs[0] = doc;
+                scores[0] = score;
+                siftDown(0);
+            }
+            return size < docs.length ? -1 : scores[0];
+        }
+
+        int[] docsBestFirst() {
+            int[] best = new int[size];
+            while (size > 0) {
+                best[size - 1] = docs[0];
+                size--;
+                docs[0] = docs[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return best;
+        }
+
+        private boolean better(int doc, float score, int slot) {
+            return score > scores[slot] || (score == scores[slot] && doc > docs[slot]);
+        }
+
+        private void siftUp(int slot) {
+            while (slot > 0) {
+                int parent = (slot - 1) / 2;
+                if (!better(docs[parent], scores[parent], slot)) {
+                    return;
+                }
+                swap(slot, parent);
+                slot = parent;
+            }
+        }
+
+        private void siftDown(int slot) {
+            while (true) {
+                int child = 2 * slot + 1;
+                if (child >= size) {
+                    return;
+                }
+                if (child + 1 < size && better(docs[child], scores[child], child + 1)) {
+                    child++;
+                }
+                if (!better(docs[slot], scores[slot], child)) {
+                    return;
+                }
+                swap(slot, child);
+                slot = child;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int doc = docs[a];
+            docs[a] = docs[b];
+            docs[b] = doc;
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+
+    // Doc numbers containing one word, ascending, with the word's weighted frequency in each
+    private static final class Postings {
+        final String term;
+        int[] docs = new int[2];
+        int[] freqs = new int[2];
+        int size;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        // Doc numbers only grow, so appending keeps the list sorted
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+
+        void remove(int doc) {
+            int i = Arrays.binarySearch(docs, 0, size, doc);
+            if (i < 0) {
+                return;
+            }
+            System.arraycopy(docs, i + 1, docs, i, size - i - 1);
+            System.arraycopy(freqs, i + 1, freqs, i, size - i - 1);
+            size--;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.abccondo.search;
+
+import com.abccondo.repository.BlogRepository;
+import com.abccondo.repository.BlogTextView;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// Full-text search over post titles and content (GET /api/blog/search). The index lives in memory and
+// is loaded from the database on startup; until then isReady() is false. Posts written through
+// BlogController are indexed right after they are saved, and writes that race with a load are replayed
+// onto its result, the same way FeedCache handles a rebuild.
+@Component
+public class SearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(SearchIndex.class);
+
+    private final BlogRepository blogRepo;
+    private final int batchSize;
+    private final int loaderThreads;
+
+    // Queries share the read lock; index updates are short and take the write lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private InvertedIndex index = new InvertedIndex();
+    private boolean ready;
+    // Updates made while a load is reading the database (guarded by the write lock)
+    private List<Consumer<InvertedIndex>> pending;
+
+    private final Timer queries;
+
+    @Autowired
+    public SearchIndex(BlogRepository blogRepo, MeterRegistry registry,
+                       @Value("${search.index.batch-size:1000}") int batchSize,
+                       @Value("${search.index.loader-threads:0}") int loaderThreads) {
+        this.blogRepo = blogRepo;
+        this.batchSize = batchSize;
+        this.loaderThreads = loaderThreads > 0 ? loaderThreads : Runtime.getRuntime().availableProcessors();
+        Gauge.builder("search.index.posts", this, SearchIndex::size).register(registry);
+        this.queries = Timer.builder("search.queries")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+
+    // Loads in the background so startup does not wait for a large table
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        threads("search-index-load-").newThread(this::rebuild).start();
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Blog ids of the best matches for a query, best first
+    public List<Long> search(String query, int limit) {
+        return queries.record(() -> {
+            lock.readLock().lock();
+            try {
+                return index.search(query, limit);
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    // After a post was created or edited
+    public void index(Long blogId, String title, String content) {
+        // Tokenized before taking the lock, so queries only wait for the postings update
+        InvertedIndex.Analyzed post = InvertedIndex.analyze(blogId, title, content);
+        apply(i -> i.add(post));
+    }
+
+    // After a post was deleted
+    public void remove(Long blogId) {
+        apply(i -> i.remove(blogId));
+    }
+
+    private void apply(Consumer<InvertedIndex> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Builds a fresh index from the database and swaps it in; the current one keeps serving meanwhile
+    public void rebuild() {
+        if (!rebuildLock.tryLock()) {
+            return;
+        }
+        try {
+            setPending(new ArrayList<>());
+            long start = System.nanoTime();
+            InvertedIndex fresh;
+            try {
+                fresh = load();
+            } catch (RuntimeException | ExecutionException e) {
+                log.warn("Search index load failed, keeping the current index", e);
+                setPending(null);
+                return;
+            } catch (InterruptedException e) {
+                setPending(null);
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (Consumer<InvertedIndex> change : pending) {
+                    change.accept(fresh);
+                }
+                pending = null;
+                index = fresh;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Search index loaded {} posts ({} words) in {} ms", fresh.size(), fresh.termCount(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // Reads pages in id order while loaderThreads tokenize the pages already read; inserts happen on
+    // this thread in page order, a bounded number of pages behind the reads
+    private InvertedIndex load() throws InterruptedException, ExecutionException {
+        InvertedIndex fresh = new InvertedIndex();
+        ExecutorService workers = Executors.newFixedThreadPool(loaderThreads, threads("search-index-tokenizer-"));
+        try {
+            Deque<Future<List<InvertedIndex.Analyzed>>> inFlight = new ArrayDeque<>();
+            long afterId = 0;
+            while (true) {
+                List<BlogTextView> page = blogRepo.findTextAfter(afterId, PageRequest.of(0, batchSize));
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).getId();
+                    inFlight.add(workers.submit(() -> analyze(page)));
+                }
+                if (inFlight.size() > 2 * loaderThreads) {
+                    insert(fresh, inFlight.poll().get());
+                }
+                if (page.size() < batchSize) {
+                    break;
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                insert(fresh, inFlight.poll().get());
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        return fresh;
+    }
+
+    private static List<InvertedIndex.Analyzed> analyze(List<BlogTextView> page) {
+        List<InvertedIndex.Analyzed> posts = new ArrayList<>(page.size());
+        for (BlogTextView row : page) {
+            posts.add(InvertedIndex.analyze(row.getId(), row.getTitle(), row.getContent()));
+        }
+        return posts;
+    }
+
+    private static void insert(InvertedIndex index, List<InvertedIndex.Analyzed> posts) {
+        for (InvertedIndex.Analyzed post : posts) {
+            index.add(post);
+        }
+    }
+
+    private void setPending(List<Consumer<InvertedIndex>> value) {
+        lock.writeLock().lock();
+        try {
+            pending = value;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static ThreadFactory threads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package com.abccondo.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Splits text into the words the search index stores: runs of letters and digits, lower-cased, with
+// accents folded so "café" matches "cafe" and apostrophes dropped so "don't" matches "dont".
+// Words longer than MAX_TOKEN_LENGTH are skipped; in post content they are pasted links or encoded data.
+final class Tokenizer {
+    static final int MAX_TOKEN_LENGTH = 40;
+
+    private Tokenizer() {
+    }
+
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        if (!isAscii(text)) {
+            // Decomposed form puts accents in separate combining marks, which the loop below skips
+            text = Normalizer.normalize(text, Normalizer.Form.NFD);
+        }
+        StringBuilder word = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.isLetterOrDigit(cp)) {
+                word.appendCodePoint(Character.toLowerCase(cp));
+            } else if (Character.getType(cp) == Character.NON_SPACING_MARK
+                    || (word.length() > 0 && (cp == '\'' || cp == '’'))) {
+                // Part of the current word
+            } else {
+                flush(word, tokens);
+            }
+        }
+        flush(word, tokens);
+        return tokens;
+    }
+
+    private static void flush(StringBuilder word, List<String> tokens) {
+        if (word.length() > 0 && word.length() <= MAX_TOKEN_LENGTH) {
+            tokens.add(word.toString());
+        }
+        word.setLength(0);
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7f) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
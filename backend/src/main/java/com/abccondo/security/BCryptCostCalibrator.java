@@ -0,0 +1,50 @@
+package com.abccondo.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+
+// Picks the BCrypt cost whose hash time on this machine is closest to, without exceeding, a target.
+// Each cost step doubles the work, so one measurement at the base cost is enough to extrapolate.
+final class BCryptCostCalibrator {
+    private static final Logger log = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+    // Never go below the library default, whatever the hardware
+    static final int MIN_COST = 10;
+    static final int MAX_COST = 16;
+    private static final int SAMPLES = 3;
+
+    private BCryptCostCalibrator() {}
+
+    static int calibrate(long targetMillis) {
+        return calibrate(targetMillis, BCryptCostCalibrator::measureNanos);
+    }
+
+    // measure returns the hash time in nanoseconds for a given cost
+    static int calibrate(long targetMillis, IntToLongFunction measure) {
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = measure.applyAsLong(MIN_COST);
+        }
+        Arrays.sort(samples);
+        long baseNanos = Math.max(1, samples[SAMPLES / 2]);
+        long targetNanos = targetMillis * 1_000_000;
+
+        int cost = MIN_COST;
+        while (cost < MAX_COST && baseNanos << (cost + 1 - MIN_COST) <= targetNanos) {
+            cost++;
+        }
+        log.info("BCrypt cost {} chosen for a {} ms target (cost {} took {} ms)",
+                cost, targetMillis, MIN_COST, baseNanos / 1_000_000);
+        return cost;
+    }
+
+    private static long measureNanos(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        long start = System.nanoTime();
+        encoder.encode("calibration-password");
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,101 @@
+package com.abccondo.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs the delegate's encode/matches on a small CPU-sized pool instead of on request threads, so a
+// burst of logins or sign-ups can use at most `threads` cores. Once the queue is full further calls
+// fail fast with PasswordHashingBusyException rather than queueing without bound.
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    static final long RETRY_AFTER_SECONDS = 1;
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejected;
+    private final Timer encodes;
+    private final Timer matches;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, MeterRegistry registry, int threads, int queueCapacity) {
+        this(delegate, registry, new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), hashingThreads(), new ThreadPoolExecutor.AbortPolicy()));
+    }
+
+    BoundedPasswordEncoder(PasswordEncoder delegate, MeterRegistry registry, ThreadPoolExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+        Gauge.builder("password.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(registry);
+        this.rejected = Counter.builder("password.hashing.rejected")
+                .description("Hash or verify calls turned away because the queue was full")
+                .register(registry);
+        // Time spent hashing on the pool, not waiting for it (queue depth shows that)
+        this.encodes = hashingTimer(registry, "encode");
+        this.matches = hashingTimer(registry, "matches");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> encodes.record(() -> delegate.encode(rawPassword)));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> matches.record(() -> delegate.matches(rawPassword, encodedPassword)));
+    }
+
+    // Cheap (it only reads the cost from the hash), so it stays on the caller's thread
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException(RETRY_AFTER_SECONDS);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Called by Spring on context close (inferred destroy method)
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static Timer hashingTimer(MeterRegistry registry, String operation) {
+        return Timer.builder("password.hashing")
+                .description("BCrypt hash and verify calls")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    private static ThreadFactory hashingThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
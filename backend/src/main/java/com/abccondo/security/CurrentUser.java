@@ -0,0 +1,10 @@
+package com.abccondo.security;
+
+import java.lang.annotation.*;
+
+// Injects the JwtPrincipal that JwtRequestFilter verified for this request
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+}
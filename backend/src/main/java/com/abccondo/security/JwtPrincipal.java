@@ -0,0 +1,7 @@
+package com.abccondo.security;
+
+import java.time.Instant;
+
+// Verified claims of the request's bearer token, stored as the Authentication principal
+public record JwtPrincipal(Long userId, String email, Instant expiresAt) {
+}
@@ -19,7 +19,7 @@ import java.util.Collections;
 public class JwtRequestFilter extends OncePerRequestFilter {
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private VerifiedTokenCache tokenCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -30,20 +30,19 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
-            if (jwtUtil.validateToken(token)) {
-                // Extract userId from the token
-                Long userId = jwtUtil.getUserIdFromToken(token);
-
+            // The token is verified at most once here (and not at all while it is cached);
+            // controllers read the claims via @CurrentUser
+            tokenCache.verify(token).ifPresent(principal -> {
                 // You can add more authorities or roles as needed
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
-                                userId, // principal: userId (or you can use a custom UserDetails object)
+                                principal,
                                 null,
                                 Collections.singletonList(new SimpleGrantedAuthority("USER"))
                         );
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-            }
+            });
         }
 
         filterChain.doFilter(request, response);
@@ -1,10 +1,15 @@
 package com.abccondo.security;
 
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.io.Serializer;
+import io.jsonwebtoken.jackson.io.JacksonSerializer;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 
@@ -13,39 +18,52 @@ public class JwtUtil {
     @Value("${jwt.secret}")
     private String secret;
 
-    // Helper to get signing key
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    // Both are immutable and thread-safe, so they are built once instead of per call
+    private Key signingKey;
+    private JwtParser parser;
+    // Without one the builder looks up a JSON serializer with a ServiceLoader on every token, reading
+    // jar entries under ZipFile locks (which also pins a virtual thread to its carrier)
+    private final Serializer<Map<String, ?>> serializer = new JacksonSerializer<>();
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+            .setSigningKey(signingKey)
+            .build();
     }
 
     public String generateToken(Long userId, String email) {
         return Jwts.builder()
+            .serializeToJsonWith(serializer)
             .claim("userId", userId)
             .claim("email", email)
             .setIssuedAt(new Date())
             .setExpiration(new Date(System.currentTimeMillis() + 86400000))
-            .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+            .signWith(signingKey, SignatureAlgorithm.HS256)
             .compact();
     }
 
-    public boolean validateToken(String token) {
+    // Verifies the signature and expiry once and returns the claims, or empty if the token is not valid
+    public Optional<JwtPrincipal> parse(String token) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token);
-            return true;
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            Date expiration = claims.getExpiration();
+            return Optional.of(new JwtPrincipal(
+                claims.get("userId", Long.class),
+                claims.get("email", String.class),
+                expiration == null ? null : expiration.toInstant()));
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return Optional.empty();
         }
     }
 
+    public boolean validateToken(String token) {
+        return parse(token).isPresent();
+    }
+
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-            .setSigningKey(getSigningKey())
-            .build()
-            .parseClaimsJws(token)
-            .getBody();
+        Claims claims = parser.parseClaimsJws(token).getBody();
         return claims.get("userId", Long.class);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,168 @@
+package com.abccondo.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Throttles POST /api/auth/login before it reaches AuthController: one token bucket per client
+// address and one per email, and an attempt needs a token from both. Rejected attempts get 429 with
+// Retry-After and never touch the database or the password encoder.
+@Component
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+    static final String LOGIN_PATH = "/api/auth/login";
+    // Login bodies are an email and a password; anything larger is not a login
+    private static final int MAX_BODY_BYTES = 8 * 1024;
+
+    private final TokenBucketLimiter byAddress;
+    private final TokenBucketLimiter byEmail;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    public LoginRateLimitFilter(@Value("${login.rate-limit.ip.capacity:20}") int ipCapacity,
+                                @Value("${login.rate-limit.ip.per-minute:10}") int ipPerMinute,
+                                @Value("${login.rate-limit.email.capacity:5}") int emailCapacity,
+                                @Value("${login.rate-limit.email.per-minute:5}") int emailPerMinute,
+                                @Value("${login.rate-limit.max-entries:100000}") int maxEntries) {
+        this(new TokenBucketLimiter(ipCapacity, ipPerMinute, maxEntries, System::nanoTime),
+                new TokenBucketLimiter(emailCapacity, emailPerMinute, maxEntries, System::nanoTime));
+    }
+
+    LoginRateLimitFilter(TokenBucketLimiter byAddress, TokenBucketLimiter byEmail) {
+        this.byAddress = byAddress;
+        this.byEmail = byEmail;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !LOGIN_PATH.equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            return;
+        }
+
+        long waitNanos = byAddress.tryAcquire(request.getRemoteAddr());
+        if (waitNanos == 0) {
+            String email = emailOf(body);
+            if (email != null) {
+                waitNanos = byEmail.tryAcquire(email);
+            }
+        }
+        if (waitNanos > 0) {
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Too many login attempts, please try again later\"}");
+            return;
+        }
+
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    // Normalised so case and whitespace variants share one bucket; null if the body has no email
+    private String emailOf(byte[] body) {
+        try {
+            JsonNode email = mapper.readTree(body).get("email");
+            return email != null && email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // The body was consumed to read the email, so it is replayed for the controller
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The whole body is already in memory, so it is all available at once
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.abccondo.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -15,22 +19,38 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @Configuration
 public class SecurityConfig {
 
+    // BCrypt on its own CPU-sized pool; the cost is calibrated at startup unless password.bcrypt.cost is set
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry registry,
+                                           @Value("${password.bcrypt.cost:0}") int cost,
+                                           @Value("${password.bcrypt.target-ms:250}") long targetMs,
+                                           @Value("${password.hashing.queue-capacity:64}") int queueCapacity) {
+        int strength = cost > 0 ? cost : BCryptCostCalibrator.calibrate(targetMs);
+        int threads = Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), registry, threads, queueCapacity);
     }
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http, JwtRequestFilter jwtRequestFilter) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtRequestFilter jwtRequestFilter,
+                                           LoginRateLimitFilter loginRateLimitFilter) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
             .cors(cors -> {}) // You can customize CORS if needed
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // The dispatch that finishes an async request (the feed stream) was authorized when it
+                // started; the bearer token is not re-read for it
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
+                // Images are loaded by <img> tags, which cannot send the bearer token
+                .requestMatchers(HttpMethod.GET, "/api/images/**").permitAll()
+                // Load balancer health checks and the Prometheus scraper; nothing else is exposed
+                .requestMatchers(HttpMethod.GET, "/actuator/health/**", "/actuator/prometheus").permitAll()
                 .anyRequest().authenticated()
             )
-            .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class)
+            // Login throttling runs first so rejected attempts cost no token parsing, query or hash
+            .addFilterBefore(loginRateLimitFilter, JwtRequestFilter.class);
         return http.build();
     }
 }
\ No newline at end of file
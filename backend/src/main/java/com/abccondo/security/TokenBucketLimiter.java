@@ -0,0 +1,122 @@
+package com.abccondo.security;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// One token bucket per key. Taking a token is a lock-free CAS on the bucket's state; the map is a
+// ConcurrentHashMap, so different keys never contend. Buckets that have refilled completely are
+// indistinguishable from new ones and are swept, and a hard cap keeps memory bounded when keys churn
+// (e.g. an attacker rotating addresses).
+public class TokenBucketLimiter {
+    // Sweep idle buckets every this many acquisitions even when under the cap
+    private static final int SWEEP_EVERY = 4096;
+
+    private final int capacity;
+    private final double tokensPerNano;
+    private final long fullRefillNanos;
+    private final int maxEntries;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private final AtomicInteger sinceSweep = new AtomicInteger();
+
+    public TokenBucketLimiter(int capacity, int refillPerMinute, int maxEntries, LongSupplier nanoClock) {
+        this.capacity = capacity;
+        this.tokensPerNano = refillPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.fullRefillNanos = (long) Math.ceil(capacity / tokensPerNano);
+        this.maxEntries = maxEntries;
+        this.nanoClock = nanoClock;
+    }
+
+    // Takes one token for the key. Returns 0 if it was granted, otherwise the nanoseconds until one will be.
+    public long tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxEntries) {
+                sweep(now, true);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(capacity, now));
+        }
+        if (sinceSweep.incrementAndGet() >= SWEEP_EVERY) {
+            sweep(now, false);
+        }
+        return bucket.take(now);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    // Drops full buckets, then, if still at the cap, the ones closest to full until 90% of it is left.
+    // At the cap callers wait for the sweep, so the map cannot outgrow it by more than the number of
+    // concurrent callers, and shrinking below it keeps sweeps rare while keys churn.
+    private void sweep(long now, boolean overCap) {
+        if (overCap) {
+            sweepLock.lock();
+        } else if (!sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            if (overCap && buckets.size() < maxEntries) {
+                return;  // another caller just swept
+            }
+            sinceSweep.set(0);
+            // A caller holding a bucket we remove loses at most the token it takes, from a full bucket
+            buckets.entrySet().removeIf(e -> e.getValue().isFull(now));
+            int excess = buckets.size() - maxEntries * 9 / 10;
+            if (overCap && excess > 0) {
+                List<Map.Entry<String, Bucket>> entries = new ArrayList<>(buckets.entrySet());
+                entries.sort(Comparator.comparingDouble((Map.Entry<String, Bucket> e) -> e.getValue().tokens(now)).reversed());
+                for (int i = 0; i < excess && i < entries.size(); i++) {
+                    buckets.remove(entries.get(i).getKey(), entries.get(i).getValue());
+                }
+            }
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private final class Bucket {
+        private final AtomicReference<State> state;
+
+        Bucket(int capacity, long now) {
+            state = new AtomicReference<>(new State(capacity, now));
+        }
+
+        long take(long now) {
+            while (true) {
+                State current = state.get();
+                double tokens = refill(current, now);
+                if (tokens < 1) {
+                    return (long) Math.ceil((1 - tokens) / tokensPerNano);
+                }
+                if (state.compareAndSet(current, new State(tokens - 1, Math.max(now, current.updatedAt())))) {
+                    return 0;
+                }
+            }
+        }
+
+        double tokens(long now) {
+            return refill(state.get(), now);
+        }
+
+        boolean isFull(long now) {
+            return now - state.get().updatedAt() >= fullRefillNanos || tokens(now) >= capacity;
+        }
+    }
+
+    private record State(double tokens, long updatedAt) {}
+
+    private double refill(State state, long now) {
+        return Math.min(capacity, state.tokens() + Math.max(0, now - state.updatedAt()) * tokensPerNano);
+    }
+}
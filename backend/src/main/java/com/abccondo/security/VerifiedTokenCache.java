@@ -0,0 +1,70 @@
+package com.abccondo.security;
+
+import com.abccondo.cache.ExpiringCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Optional;
+
+// Remembers tokens that already passed verification until their exp, so the 24-hour token the
+// frontend sends on every call is parsed and HMAC-checked once instead of on every request.
+// Entries are keyed by the token's SHA-256, so raw bearer tokens are not kept in memory, and
+// only successfully verified tokens are cached.
+@Component
+public class VerifiedTokenCache {
+    private final JwtUtil jwtUtil;
+    private final ExpiringCache<String, JwtPrincipal> cache;
+    private final Timer parses;
+
+    @Autowired
+    public VerifiedTokenCache(JwtUtil jwtUtil, MeterRegistry registry,
+                              @Value("${jwt.cache.max-size:10000}") int maxSize) {
+        this(jwtUtil, registry, new ExpiringCache<>(maxSize));
+        cache.bindTo(registry, "jwt.verified");
+    }
+
+    VerifiedTokenCache(JwtUtil jwtUtil, MeterRegistry registry, ExpiringCache<String, JwtPrincipal> cache) {
+        this.jwtUtil = jwtUtil;
+        this.cache = cache;
+        // Cache misses only: hits skip parsing altogether
+        this.parses = Timer.builder("jwt.parse")
+                .description("Bearer token signature and expiry checks")
+                .register(registry);
+    }
+
+    public Optional<JwtPrincipal> verify(String token) {
+        String key = digest(token);
+        JwtPrincipal cached = cache.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<JwtPrincipal> principal = parses.record(() -> jwtUtil.parse(token));
+        principal.filter(p -> p.expiresAt() != null)
+                .ifPresent(p -> cache.put(key, p, p.expiresAt().toEpochMilli()));
+        return principal;
+    }
+
+    public long hitCount() {
+        return cache.hitCount();
+    }
+
+    public long missCount() {
+        return cache.missCount();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
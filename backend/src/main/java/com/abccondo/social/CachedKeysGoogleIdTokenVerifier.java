@@ -0,0 +1,58 @@
+package com.abccondo.social;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.util.Map;
+
+// GoogleIdTokenVerifier that checks signatures against GooglePublicKeyCache instead of the library's
+// key manager, which blocks callers on the network whenever its keys expire and has no stale fallback.
+// Audience, issuer and expiry checks are still the library's.
+public class CachedKeysGoogleIdTokenVerifier extends GoogleIdTokenVerifier {
+    private final GooglePublicKeyCache keyCache;
+    private final ProviderCallTimers calls;
+
+    public CachedKeysGoogleIdTokenVerifier(GoogleIdTokenVerifier.Builder builder, GooglePublicKeyCache keyCache,
+                                           MeterRegistry registry) {
+        super(builder);
+        this.keyCache = keyCache;
+        this.calls = new ProviderCallTimers(registry, "google", "success", "rejected_token", "error");
+    }
+
+    // Timed like the Facebook Graph calls (social.provider.calls), parsing included
+    @Override
+    public GoogleIdToken verify(String idTokenString) throws GeneralSecurityException, IOException {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            GoogleIdToken idToken = super.verify(idTokenString);
+            outcome = idToken == null ? "rejected_token" : "success";
+            return idToken;
+        } finally {
+            calls.record(outcome, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean verify(GoogleIdToken idToken) throws GeneralSecurityException, IOException {
+        if (!verifyPayload(idToken)) {
+            return false;
+        }
+        Map<String, PublicKey> keys = keyCache.getPublicKeys();
+        PublicKey byId = idToken.getHeader().getKeyId() == null ? null : keys.get(idToken.getHeader().getKeyId());
+        if (byId != null) {
+            return idToken.verifySignature(byId);
+        }
+        // Unknown or missing kid: try every current key, as the library does
+        for (PublicKey key : keys.values()) {
+            if (idToken.verifySignature(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,117 @@
+package com.abccondo.social;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.function.LongSupplier;
+
+// Graph API calls for Facebook login. Each call is bounded three ways so a slow Graph API cannot
+// tie up request threads: a read timeout, a cap on concurrent calls (bulkhead), and a circuit
+// breaker that fails fast once the provider keeps erroring.
+@Component
+public class FacebookClient {
+    private static final String FIELDS = "id,name,email,picture";
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON_OBJECT = new ParameterizedTypeReference<>() {};
+
+    private final RestClient restClient;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker breaker;
+    private final ProviderCallTimers calls;
+
+    @Autowired
+    public FacebookClient(HttpClient socialHttpClient, MeterRegistry registry,
+                          @Value("${facebook.graph-url:https://graph.facebook.com}") String graphUrl,
+                          @Value("${facebook.read-timeout-ms:3000}") long readTimeoutMs,
+                          @Value("${facebook.max-concurrent-calls:16}") int maxConcurrentCalls,
+                          @Value("${facebook.breaker.failure-threshold:5}") int failureThreshold,
+                          @Value("${facebook.breaker.open-ms:30000}") long openMs) {
+        this(socialHttpClient, registry, graphUrl, readTimeoutMs, maxConcurrentCalls,
+                new CircuitBreaker(failureThreshold, openMs, System::currentTimeMillis));
+    }
+
+    FacebookClient(HttpClient httpClient, MeterRegistry registry, String graphUrl, long readTimeoutMs,
+                   int maxConcurrentCalls, CircuitBreaker breaker) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        this.restClient = RestClient.builder()
+                .baseUrl(graphUrl)
+                .requestFactory(requestFactory)
+                .build();
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.breaker = breaker;
+        this.calls = new ProviderCallTimers(registry, "facebook",
+                "success", "rejected_token", "error", "rejected", "open");
+        Gauge.builder("social.provider.breaker.open", breaker, b -> b.state() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .tag("provider", "facebook")
+                .register(registry);
+    }
+
+    // The user's id, name, email and picture, or empty if Facebook rejected the access token.
+    // Throws ProviderUnavailableException when the call was shed, timed out or Facebook failed.
+    public Optional<Map<String, Object>> me(String accessToken) {
+        if (!bulkhead.tryAcquire()) {
+            record("rejected", 0);
+            throw new ProviderUnavailableException("Too many concurrent Facebook calls", 1);
+        }
+        try {
+            if (!breaker.tryAcquire()) {
+                record("open", 0);
+                throw new ProviderUnavailableException("Facebook circuit is open", breaker.retryAfterSeconds());
+            }
+            long start = System.nanoTime();
+            try {
+                Map<String, Object> user = restClient.get()
+                        .uri(uri -> uri.path("/me")
+                                .queryParam("fields", FIELDS)
+                                .queryParam("access_token", "{token}")
+                                .build(accessToken))
+                        .retrieve()
+                        .body(JSON_OBJECT);
+                breaker.onSuccess();
+                record("success", System.nanoTime() - start);
+                return Optional.ofNullable(user);
+            } catch (HttpClientErrorException e) {
+                if (e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                    breaker.onFailure();
+                    record("error", System.nanoTime() - start);
+                    throw new ProviderUnavailableException("Facebook is rate limiting us", breaker.retryAfterSeconds(), e);
+                }
+                // Any other 4xx means the token was rejected; the provider itself is healthy
+                breaker.onSuccess();
+                record("rejected_token", System.nanoTime() - start);
+                return Optional.empty();
+            } catch (RestClientException | CancellationException e) {
+                // 5xx, read timeouts and connection failures. On Java 21 a read timeout cancels the
+                // exchange and the request factory lets the CancellationException through unwrapped.
+                breaker.onFailure();
+                record("error", System.nanoTime() - start);
+                throw new ProviderUnavailableException("Facebook call failed", breaker.retryAfterSeconds(), e);
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    CircuitBreaker breaker() {
+        return breaker;
+    }
+
+    private void record(String outcome, long nanos) {
+        calls.record(outcome, nanos);
+    }
+}
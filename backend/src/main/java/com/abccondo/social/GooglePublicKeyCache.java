@@ -0,0 +1,194 @@
+package com.abccondo.social;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Google's ID token signing keys, fetched from its JWKS endpoint and kept for as long as the
+// response's Cache-Control max-age allows. A background refresh replaces them before they expire,
+// and while Google cannot be reached the last keys keep being served for up to max-stale.
+@Component
+public class GooglePublicKeyCache {
+    private static final Logger log = LoggerFactory.getLogger(GooglePublicKeyCache.class);
+    private static final Pattern MAX_AGE = Pattern.compile("max-age\\s*=\\s*(\\d+)");
+    // Used when the response carries no max-age
+    static final long DEFAULT_MAX_AGE_MS = TimeUnit.HOURS.toMillis(1);
+    // Refresh once this share of the max-age has passed
+    static final double REFRESH_AHEAD = 0.8;
+    static final long MIN_REFRESH_DELAY_MS = 1_000;
+    static final long RETRY_DELAY_MS = 30_000;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+
+    private final URI certsUri;
+    private final HttpClient http;
+    private final long maxStaleMs;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService refresher;
+    private final ObjectMapper mapper = new ObjectMapper();
+    // Only one fetch at a time, whether from a caller or the background refresh
+    private final ReentrantLock fetchLock = new ReentrantLock();
+
+    private volatile Keys keys;
+    private ScheduledFuture<?> nextRefresh;
+
+    // staleUntil is the hard limit for serving these keys while refreshes keep failing
+    record Keys(Map<String, PublicKey> byId, long expiresAt, long staleUntil) {}
+
+    @Autowired
+    public GooglePublicKeyCache(HttpClient socialHttpClient,
+                                @Value("${google.certs-url:https://www.googleapis.com/oauth2/v3/certs}") String certsUrl,
+                                @Value("${google.keys.max-stale-seconds:21600}") long maxStaleSeconds) {
+        this(URI.create(certsUrl), socialHttpClient, TimeUnit.SECONDS.toMillis(maxStaleSeconds),
+                System::currentTimeMillis, refresherThread());
+    }
+
+    GooglePublicKeyCache(URI certsUri, HttpClient http, long maxStaleMs, LongSupplier clock,
+                         ScheduledExecutorService refresher) {
+        this.certsUri = certsUri;
+        this.http = http;
+        this.maxStaleMs = maxStaleMs;
+        this.clock = clock;
+        this.refresher = refresher;
+    }
+
+    // Keys by key id. Only the first call (or one after the background refresh fell behind) goes to the network.
+    public Map<String, PublicKey> getPublicKeys() throws IOException, GeneralSecurityException {
+        Keys current = keys;
+        if (current != null && clock.getAsLong() < current.expiresAt()) {
+            return current.byId();
+        }
+        fetchLock.lock();
+        try {
+            current = keys;
+            if (current != null && clock.getAsLong() < current.expiresAt()) {
+                return current.byId();
+            }
+            return refresh().byId();
+        } finally {
+            fetchLock.unlock();
+        }
+    }
+
+    // Fetches new keys, or falls back to the stale ones for a retry interval when that fails. Caller holds fetchLock.
+    private Keys refresh() throws IOException, GeneralSecurityException {
+        long now = clock.getAsLong();
+        Keys current = keys;
+        try {
+            Keys fresh = fetch(now);
+            keys = fresh;
+            long lifetime = fresh.expiresAt() - now;
+            schedule(Math.max((long) (lifetime * REFRESH_AHEAD), MIN_REFRESH_DELAY_MS));
+            return fresh;
+        } catch (IOException | GeneralSecurityException e) {
+            if (current == null || now >= current.staleUntil()) {
+                throw e;
+            }
+            log.warn("Could not refresh Google public keys, serving the previous set: {}", e.toString());
+            Keys stale = new Keys(current.byId(), Math.min(now + RETRY_DELAY_MS, current.staleUntil()), current.staleUntil());
+            keys = stale;
+            schedule(RETRY_DELAY_MS);
+            return stale;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching Google public keys", e);
+        }
+    }
+
+    // Runs on the refresher thread ahead of expiry, so callers never wait on Google
+    void refreshInBackground() {
+        fetchLock.lock();
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("Could not refresh Google public keys", e);
+            schedule(RETRY_DELAY_MS);
+        } finally {
+            fetchLock.unlock();
+        }
+    }
+
+    private void schedule(long delayMs) {
+        if (nextRefresh != null) {
+            nextRefresh.cancel(false);
+        }
+        nextRefresh = refresher.schedule(this::refreshInBackground, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private Keys fetch(long now) throws IOException, InterruptedException, GeneralSecurityException {
+        HttpRequest request = HttpRequest.newBuilder(certsUri).timeout(REQUEST_TIMEOUT).GET().build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Google certs endpoint returned " + response.statusCode());
+        }
+        Map<String, PublicKey> byId = parseJwks(mapper.readTree(response.body()));
+        if (byId.isEmpty()) {
+            throw new IOException("Google certs endpoint returned no RSA keys");
+        }
+        long maxAge = response.headers().firstValue("Cache-Control")
+                .map(GooglePublicKeyCache::maxAgeMillis)
+                .orElse(DEFAULT_MAX_AGE_MS);
+        long expiresAt = now + maxAge;
+        return new Keys(Map.copyOf(byId), expiresAt, expiresAt + maxStaleMs);
+    }
+
+    static Map<String, PublicKey> parseJwks(JsonNode jwks) throws GeneralSecurityException {
+        KeyFactory rsa = KeyFactory.getInstance("RSA");
+        Base64.Decoder base64 = Base64.getUrlDecoder();
+        Map<String, PublicKey> byId = new LinkedHashMap<>();
+        for (JsonNode key : jwks.path("keys")) {
+            if (!"RSA".equals(key.path("kty").asText()) || !key.hasNonNull("kid")) {
+                continue;
+            }
+            BigInteger modulus = new BigInteger(1, base64.decode(key.path("n").asText()));
+            BigInteger exponent = new BigInteger(1, base64.decode(key.path("e").asText()));
+            byId.put(key.get("kid").asText(), rsa.generatePublic(new RSAPublicKeySpec(modulus, exponent)));
+        }
+        return byId;
+    }
+
+    static long maxAgeMillis(String cacheControl) {
+        Matcher m = MAX_AGE.matcher(cacheControl);
+        return m.find() ? TimeUnit.SECONDS.toMillis(Long.parseLong(m.group(1))) : DEFAULT_MAX_AGE_MS;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private static ScheduledExecutorService refresherThread() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "google-keys-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
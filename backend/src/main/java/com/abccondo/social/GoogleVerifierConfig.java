@@ -0,0 +1,25 @@
+package com.abccondo.social;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collections;
+
+@Configuration
+public class GoogleVerifierConfig {
+
+    // One verifier for the whole application; it is thread-safe and the keys behind it are shared
+    @Bean
+    public GoogleIdTokenVerifier googleIdTokenVerifier(GooglePublicKeyCache keyCache, MeterRegistry registry,
+                                                       @Value("${google.client-id}") String googleClientId) {
+        // The transport is only there to satisfy the builder; keys come from keyCache
+        GoogleIdTokenVerifier.Builder builder = new GoogleIdTokenVerifier.Builder(new NetHttpTransport(),
+                GsonFactory.getDefaultInstance()).setAudience(Collections.singletonList(googleClientId));
+        return new CachedKeysGoogleIdTokenVerifier(builder, keyCache, registry);
+    }
+}
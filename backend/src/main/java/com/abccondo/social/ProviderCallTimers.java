@@ -0,0 +1,32 @@
+package com.abccondo.social;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The social.provider.calls timers of one provider, one per outcome. Registered up front so recording
+// a call is a map lookup instead of a builder and a registry lookup, and every outcome is exported
+// from the start rather than after it first happens.
+final class ProviderCallTimers {
+    private final Map<String, Timer> byOutcome = new HashMap<>();
+
+    ProviderCallTimers(MeterRegistry registry, String provider, String... outcomes) {
+        for (String outcome : outcomes) {
+            byOutcome.put(outcome, Timer.builder("social.provider.calls")
+                    .tag("provider", provider)
+                    .tag("outcome", outcome)
+                    .register(registry));
+        }
+    }
+
+    void record(String outcome, long nanos) {
+        Timer timer = byOutcome.get(outcome);
+        if (timer == null) {
+            throw new IllegalArgumentException("Unknown provider call outcome: " + outcome);
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,20 @@
+package com.abccondo.social;
+
+// The provider is degraded or we are shedding load for it; the caller should answer 503 with Retry-After
+public class ProviderUnavailableException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ProviderUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public ProviderUnavailableException(String message, long retryAfterSeconds, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,28 @@
+package com.abccondo.social;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class SocialHttpConfig {
+
+    // Shared by every social-provider call so connections (and their TLS sessions) are kept alive and reused.
+    // In virtual-thread mode the client's response handling runs on virtual threads too, instead of a
+    // cached pool that grows a platform thread per call in flight.
+    @Bean
+    public HttpClient socialHttpClient(@Value("${social.http.connect-timeout-ms:2000}") long connectTimeoutMs,
+                                       @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        if (virtualThreads) {
+            builder.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,23 @@
+-- The schema Hibernate's ddl-auto created before migrations were introduced. Databases that already
+-- have it are baselined at this version (see SchemaMigrationConfig) and start from V2.
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255),
+    email VARCHAR(255),
+    password VARCHAR(255),
+    provider VARCHAR(255),
+    picture TEXT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE blogs (
+    blog_id BIGINT NOT NULL AUTO_INCREMENT,
+    blog_title VARCHAR(255),
+    blog_image VARCHAR(255),
+    blog_content TEXT,
+    blog_author_id BIGINT,
+    blog_created_at DATETIME(6),
+    PRIMARY KEY (blog_id)
+);
@@ -0,0 +1,20 @@
+-- Change versions for delta sync (GET /api/blog/changes): every write stamps the next version of the
+-- "blog" counter on the post, and deletes leave a tombstone at theirs.
+
+ALTER TABLE blogs ADD COLUMN blog_version BIGINT;
+CREATE INDEX idx_blogs_version ON blogs (blog_version);
+
+CREATE TABLE blog_tombstones (
+    blog_id BIGINT NOT NULL,
+    tombstone_version BIGINT NOT NULL,
+    deleted_at DATETIME(6),
+    PRIMARY KEY (blog_id)
+);
+CREATE INDEX idx_blog_tombstones_version ON blog_tombstones (tombstone_version);
+
+CREATE TABLE change_versions (
+    counter_name VARCHAR(255) NOT NULL,
+    current_version BIGINT NOT NULL,
+    PRIMARY KEY (counter_name)
+);
+INSERT INTO change_versions (counter_name, current_version) VALUES ('blog', 0);
@@ -0,0 +1,8 @@
+-- InnoDB appends the primary key to every secondary index, so both of these also end in blog_id and
+-- cover the (created_at, id) keyset the feed pages by.
+
+-- A user's posts, newest first: profile pages and findByBlogAuthorId
+CREATE INDEX idx_blogs_author_created ON blogs (blog_author_id, blog_created_at);
+
+-- The feed: ORDER BY blog_created_at DESC, blog_id DESC, read backwards without a sort
+CREATE INDEX idx_blogs_created_id ON blogs (blog_created_at, blog_id);
@@ -0,0 +1,4 @@
+-- Tombstones older than blog.tombstones.retention-days are pruned. This row records the newest pruned
+-- version, so /api/blog/changes can tell a client that synced before it to reload the feed.
+
+INSERT INTO change_versions (counter_name, current_version) VALUES ('blog_tombstones_pruned', 0);
@@ -0,0 +1,100 @@
+package com.abccondo.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncodedBodyTest {
+
+    private static final byte[] LARGE = ("{\"items\":[" + "{\"title\":\"Neighbourhood news\"},".repeat(50) + "{}]}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void gzipCopy_decompressesToIdentity() throws IOException {
+        EncodedBody body = EncodedBody.of(LARGE, null);
+
+        assertNotNull(body.gzip());
+        assertTrue(body.gzip().length < LARGE.length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body.gzip()))) {
+            assertArrayEquals(LARGE, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void smallBody_isNotCompressed() {
+        EncodedBody body = EncodedBody.of("{\"id\":1}".getBytes(StandardCharsets.UTF_8), null);
+
+        assertNull(body.gzip());
+        ResponseEntity<byte[]> response = body.toResponse("gzip");
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertSame(body.identity(), response.getBody());
+    }
+
+    @Test
+    void toResponse_picksEncodingAndSetsHeaders() {
+        EncodedBody body = EncodedBody.of(LARGE, null);
+
+        ResponseEntity<byte[]> gzipped = body.toResponse("gzip, deflate, br");
+        ResponseEntity<byte[]> plain = body.toResponse(null);
+
+        assertSame(body.gzip(), gzipped.getBody());
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertSame(body.identity(), plain.getBody());
+        assertEquals(MediaType.APPLICATION_JSON, plain.getHeaders().getContentType());
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, plain.getHeaders().getFirst(HttpHeaders.VARY));
+    }
+
+    @Test
+    void acceptsGzip_followsQValuesAndWildcard() {
+        assertTrue(EncodedBody.acceptsGzip("gzip"));
+        assertTrue(EncodedBody.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(EncodedBody.acceptsGzip("*"));
+        assertTrue(EncodedBody.acceptsGzip("x-gzip"));
+        assertFalse(EncodedBody.acceptsGzip(null));
+        assertFalse(EncodedBody.acceptsGzip("identity"));
+        assertFalse(EncodedBody.acceptsGzip("gzip;q=0"));
+        assertFalse(EncodedBody.acceptsGzip("*, gzip;q=0"));
+        assertFalse(EncodedBody.acceptsGzip("deflate, *;q=0"));
+    }
+
+    @Test
+    void toResponse_withTag_setsCodingSpecificETag() {
+        EncodedBody body = EncodedBody.of(LARGE, null);
+
+        assertEquals("\"v1\"", body.toResponse(null, "v1").getHeaders().getETag());
+        assertEquals("\"v1-gz\"", body.toResponse("gzip", "v1").getHeaders().getETag());
+        assertEquals("no-cache, private", body.toResponse(null, "v1").getHeaders().getCacheControl());
+        assertNull(body.toResponse(null).getHeaders().getETag());
+    }
+
+    @Test
+    void notModified_matchesEitherCodingWeakOrListed() {
+        assertEquals(HttpStatus.NOT_MODIFIED, EncodedBody.notModified("\"v1\"", "v1").getStatusCode());
+        assertEquals("\"v1-gz\"", EncodedBody.notModified("\"v1-gz\"", "v1").getHeaders().getETag());
+        assertNotNull(EncodedBody.notModified("W/\"v1-gz\"", "v1"));
+        assertNotNull(EncodedBody.notModified("\"v0\", \"v1\"", "v1"));
+        assertNotNull(EncodedBody.notModified("*", "v1"));
+        assertNull(EncodedBody.notModified("\"v0\"", "v1"));
+        assertNull(EncodedBody.notModified(null, "v1"));
+        assertNull(EncodedBody.notModified("*", null));
+    }
+
+    @Test
+    void contentTag_followsContent() {
+        EncodedBody a = EncodedBody.of("{\"name\":\"a\"}".getBytes(StandardCharsets.UTF_8), null);
+        EncodedBody sameAsA = EncodedBody.of("{\"name\":\"a\"}".getBytes(StandardCharsets.UTF_8), "other");
+        EncodedBody b = EncodedBody.of("{\"name\":\"b\"}".getBytes(StandardCharsets.UTF_8), null);
+
+        assertEquals(a.contentTag(), sameAsA.contentTag());
+        assertNotEquals(a.contentTag(), b.contentTag());
+    }
+}
@@ -0,0 +1,94 @@
+package com.abccondo.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void get_beforeExpiry_hits() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, now::get);
+        cache.put("a", "A", 2_000);
+
+        assertEquals("A", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void get_atExpiry_removesEntry() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, now::get);
+        cache.put("a", "A", 2_000);
+
+        now.set(2_000);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.expirationCount());
+    }
+
+    @Test
+    void put_alreadyExpired_isIgnored() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, now::get);
+        cache.put("a", "A", 1_000);
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void put_overCapacity_evictsLeastRecentlyRead() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(10, now::get);
+        for (int i = 0; i < 10; i++) {
+            now.incrementAndGet();
+            cache.put(i, i, 100_000);
+        }
+        now.incrementAndGet();
+        cache.get(0);  // 0 is now the most recently read
+
+        now.incrementAndGet();
+        cache.put(10, 10, 100_000);
+
+        assertTrue(cache.size() <= 10);
+        assertEquals(0, cache.get(0));
+        assertNull(cache.get(1));
+        assertEquals(10, cache.get(10));
+        assertTrue(cache.evictionCount() > 0);
+    }
+
+    @Test
+    void put_overCapacity_dropsExpiredEntriesFirst() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(4, now::get);
+        cache.put(1, 1, 1_500);
+        cache.put(2, 2, 1_500);
+        cache.put(3, 3, 100_000);
+        cache.put(4, 4, 100_000);
+
+        now.set(1_600);
+        cache.put(5, 5, 100_000);
+
+        assertEquals(3, cache.size());
+        assertEquals(2, cache.expirationCount());
+        assertEquals(0, cache.evictionCount());
+    }
+
+    @Test
+    void bindTo_exposesCacheMeters() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, now::get);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry, "test");
+        cache.put("a", "A", 2_000);
+        cache.get("a");
+        cache.get("b");
+
+        assertEquals(1, registry.get("cache.gets").tag("cache", "test").tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tag("cache", "test").tag("result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.size").tag("cache", "test").gauge().value());
+    }
+}
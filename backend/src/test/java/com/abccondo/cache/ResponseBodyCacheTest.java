@@ -0,0 +1,74 @@
+package com.abccondo.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseBodyCacheTest {
+
+    // Configured like Spring Boot's ObjectMapper bean
+    private static final ObjectMapper JSON = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final AtomicInteger builds = new AtomicInteger();
+    private final ResponseBodyCache cache = new ResponseBodyCache(JSON, 10_000, 100, now::get);
+
+    private Map<String, Object> build(String name) {
+        builds.incrementAndGet();
+        return Map.of("name", name);
+    }
+
+    @Test
+    void sameSource_servesStoredBytesWithoutRebuilding() {
+        EncodedBody first = cache.profile(1L, "v1", () -> build("a"));
+        EncodedBody second = cache.profile(1L, "v1", () -> build("a"));
+
+        assertSame(first, second);
+        assertEquals(1, builds.get());
+        assertEquals("{\"name\":\"a\"}", new String(first.identity()));
+    }
+
+    @Test
+    void changedSource_rebuilds() {
+        cache.feedPage("first", 1, () -> build("a"));
+        EncodedBody next = cache.feedPage("first", 2, () -> build("b"));
+
+        assertEquals(2, builds.get());
+        assertEquals("{\"name\":\"b\"}", new String(next.identity()));
+    }
+
+    @Test
+    void expiredEntry_rebuilds() {
+        cache.profile(1L, "v1", () -> build("a"));
+        now.addAndGet(10_000);
+
+        cache.profile(1L, "v1", () -> build("a"));
+
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    void feedPagesAndProfilesDoNotCollide() {
+        cache.feedPage(1L, 1, () -> build("feed"));
+
+        EncodedBody profile = cache.profile(1L, 1L, () -> build("profile"));
+
+        assertEquals("{\"name\":\"profile\"}", new String(profile.identity()));
+    }
+
+    @Test
+    void datesUseIsoStrings() {
+        EncodedBody body = cache.profile(1L, "v1", () -> Map.of("at", LocalDateTime.of(2025, 1, 2, 3, 4, 5)));
+
+        assertEquals("{\"at\":\"2025-01-02T03:04:05\"}", new String(body.identity()));
+    }
+}
@@ -0,0 +1,142 @@
+package com.abccondo.cache;
+
+import com.abccondo.datasource.ReplicaLagMonitor;
+import com.abccondo.model.UserModel;
+import com.abccondo.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UserCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final UserRepository userRepo = mock(UserRepository.class);
+    private final UserCache cache = new UserCache(userRepo, 60_000, 100, now::get);
+
+    private static UserModel user(Long id, String email, String name) {
+        UserModel user = new UserModel();
+        user.setId(id);
+        user.setEmail(email);
+        user.setName(name);
+        return user;
+    }
+
+    @Test
+    void findById_readsThroughOnce() {
+        when(userRepo.findById(1L)).thenReturn(Optional.of(user(1L, "a@example.com", "A")));
+
+        assertEquals("A", cache.findById(1L).orElseThrow().getName());
+        assertEquals("A", cache.findById(1L).orElseThrow().getName());
+
+        verify(userRepo, times(1)).findById(1L);
+    }
+
+    @Test
+    void findByEmail_populatesIdIndexToo() {
+        when(userRepo.findByEmail("a@example.com")).thenReturn(Optional.of(user(1L, "a@example.com", "A")));
+
+        cache.findByEmail("a@example.com");
+        cache.findByEmail("a@example.com");
+        cache.findById(1L);
+
+        verify(userRepo, times(1)).findByEmail("a@example.com");
+        verify(userRepo, never()).findById(any());
+    }
+
+    @Test
+    void missingUser_isNotCached() {
+        when(userRepo.findById(9L)).thenReturn(Optional.empty());
+
+        assertFalse(cache.existsById(9L));
+        assertFalse(cache.existsById(9L));
+
+        verify(userRepo, times(2)).findById(9L);
+    }
+
+    @Test
+    void entries_expireAfterTtl() {
+        when(userRepo.findById(1L)).thenReturn(Optional.of(user(1L, "a@example.com", "A")));
+        cache.findById(1L);
+
+        now.addAndGet(60_000);
+        cache.findById(1L);
+
+        verify(userRepo, times(2)).findById(1L);
+    }
+
+    @Test
+    void evict_dropsBothIndexesIncludingOtherEmailSpellings() {
+        UserModel stored = user(1L, "a@example.com", "A");
+        when(userRepo.findByEmail("A@Example.com")).thenReturn(Optional.of(stored));
+        when(userRepo.findByEmail("a@example.com")).thenReturn(Optional.of(stored));
+        cache.findByEmail("A@Example.com");
+        cache.findByEmail("a@example.com");
+
+        cache.evict(stored);
+        cache.findByEmail("A@Example.com");
+
+        verify(userRepo, times(2)).findByEmail("A@Example.com");
+    }
+
+    @Test
+    void returnedUsers_areCopies() {
+        when(userRepo.findById(1L)).thenReturn(Optional.of(user(1L, "a@example.com", "A")));
+
+        cache.findById(1L).orElseThrow().setName("mutated");
+
+        assertEquals("A", cache.findById(1L).orElseThrow().getName());
+    }
+
+    @Test
+    void loadRacingWithEvict_isNotCached() {
+        UserModel stale = user(1L, "a@example.com", "Old");
+        when(userRepo.findById(1L)).thenAnswer(inv -> {
+            // An update commits and evicts while this read is in flight
+            cache.evict(stale);
+            return Optional.of(stale);
+        }).thenReturn(Optional.of(user(1L, "a@example.com", "New")));
+
+        assertEquals("Old", cache.findById(1L).orElseThrow().getName());
+        assertEquals("New", cache.findById(1L).orElseThrow().getName());
+    }
+
+    @Test
+    void loadSoonAfterEvict_withReplica_isNotCached() {
+        UserCache replicated = new UserCache(userRepo, 60_000, 100, 1_000, now::get);
+        when(userRepo.findById(1L)).thenReturn(Optional.of(user(1L, "a@example.com", "Old")));
+        replicated.evict(user(1L, "a@example.com", "New"));
+
+        // The replica may not have the new name yet, so these loads are not kept
+        replicated.findById(1L);
+        now.addAndGet(500);
+        replicated.findById(1L);
+        verify(userRepo, times(2)).findById(1L);
+
+        now.addAndGet(500);
+        replicated.findById(1L);
+        replicated.findById(1L);
+        verify(userRepo, times(3)).findById(1L);
+    }
+
+    @Test
+    void metrics_reportHitsAndMisses() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UserCache metered = new UserCache(userRepo, registry, 60, 100,
+                new DefaultListableBeanFactory().getBeanProvider(ReplicaLagMonitor.class));
+        when(userRepo.findById(1L)).thenReturn(Optional.of(user(1L, "a@example.com", "A")));
+
+        metered.findById(1L);
+        metered.findById(1L);
+
+        assertEquals(1, registry.get("cache.gets").tag("cache", "users").tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tag("cache", "users").tag("result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("cache.size").tag("cache", "users").gauge().value());
+    }
+}
@@ -1,5 +1,7 @@
 package com.abccondo.controller;
 
+import com.abccondo.cache.UserCache;
+import com.abccondo.datasource.ReadYourWrites;
 import com.abccondo.model.UserModel;
 import com.abccondo.repository.UserRepository;
 import com.abccondo.security.JwtUtil;
@@ -9,6 +11,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -32,9 +35,14 @@ public class AuthControllerRegisterTest {
     @Mock
     private JwtUtil jwtUtil;
 
+    @Mock
+    private ReadYourWrites readYourWrites;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(authController, "userCache",
+                new UserCache(userRepo, 60_000, 100, System::currentTimeMillis));
     }
 
     @Test
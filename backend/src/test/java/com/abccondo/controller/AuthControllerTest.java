@@ -1,16 +1,26 @@
 package com.abccondo.controller;
 
+import com.abccondo.cache.UserCache;
+import com.abccondo.datasource.ReadYourWrites;
 import com.abccondo.model.UserModel;
 import com.abccondo.repository.UserRepository;
 import com.abccondo.security.JwtUtil;
+import com.abccondo.security.PasswordHashingBusyException;
+import com.abccondo.social.FacebookClient;
+import com.abccondo.social.ProviderUnavailableException;
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
+import com.google.api.client.json.webtoken.JsonWebSignature;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
@@ -34,14 +44,26 @@ public class AuthControllerTest {
     @Mock
     private JwtUtil jwtUtil;
 
+    @Mock
+    private GoogleIdTokenVerifier googleVerifier;
+
+    @Mock
+    private FacebookClient facebookClient;
+
     @Mock
     private RestTemplate restTemplate;
 
+    @Mock
+    private ReadYourWrites readYourWrites;
+
     private UserModel testUser;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        // A real cache in front of the mocked repository, so repository calls are what reaches the database
+        ReflectionTestUtils.setField(authController, "userCache",
+                new UserCache(userRepo, 60_000, 100, System::currentTimeMillis));
         testUser = new UserModel();
         testUser.setId(1L);
         testUser.setEmail("test@example.com");
@@ -70,6 +92,82 @@ public class AuthControllerTest {
         verify(jwtUtil).generateToken(1L, "test@example.com");
     }
 
+    @Test
+    void testLoginRehashesOutdatedHash() {
+        // Arrange
+        Map<String, String> body = new HashMap<>();
+        body.put("email", "test@example.com");
+        body.put("password", "correctPassword");
+
+        when(userRepo.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("correctPassword", "encodedPassword")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("encodedPassword")).thenReturn(true);
+        when(passwordEncoder.encode("correctPassword")).thenReturn("strongerHash");
+        when(jwtUtil.generateToken(1L, "test@example.com")).thenReturn("jwtToken");
+
+        // Act
+        Map<String, String> response = authController.login(body);
+
+        // Assert
+        assertEquals("jwtToken", response.get("token"));
+        ArgumentCaptor<UserModel> saved = ArgumentCaptor.forClass(UserModel.class);
+        verify(userRepo).save(saved.capture());
+        assertEquals(1L, saved.getValue().getId());
+        assertEquals("strongerHash", saved.getValue().getPassword());
+    }
+
+    @Test
+    void testLoginSucceedsWhenRehashIsBusy() {
+        // Arrange
+        Map<String, String> body = new HashMap<>();
+        body.put("email", "test@example.com");
+        body.put("password", "correctPassword");
+
+        when(userRepo.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("correctPassword", "encodedPassword")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("encodedPassword")).thenReturn(true);
+        when(passwordEncoder.encode("correctPassword")).thenThrow(new PasswordHashingBusyException(1));
+        when(jwtUtil.generateToken(1L, "test@example.com")).thenReturn("jwtToken");
+
+        // Act
+        Map<String, String> response = authController.login(body);
+
+        // Assert
+        assertEquals("jwtToken", response.get("token"));
+        verify(userRepo, never()).save(any(UserModel.class));
+    }
+
+    @Test
+    void testPasswordHashingBusyReturns503() {
+        // Act
+        ResponseEntity<?> response = authController.passwordHashingBusy(new PasswordHashingBusyException(1));
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+    }
+
+    @Test
+    void testRepeatedLoginsLookUpUserOnce() {
+        // Arrange
+        Map<String, String> body = new HashMap<>();
+        body.put("email", "test@example.com");
+        body.put("password", "correctPassword");
+
+        when(userRepo.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("correctPassword", "encodedPassword")).thenReturn(true);
+        when(jwtUtil.generateToken(1L, "test@example.com")).thenReturn("jwtToken");
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            authController.login(body);
+        }
+
+        // Assert
+        verify(userRepo, times(1)).findByEmail("test@example.com");
+        verify(passwordEncoder, times(3)).matches("correctPassword", "encodedPassword");
+    }
+
     @Test
     void testLoginInvalidPassword() {
         // Arrange
@@ -89,7 +187,7 @@ public class AuthControllerTest {
     }
 
     @Test
-    void testGoogleLoginWithCorrectToken() {
+    void testGoogleLoginWithCorrectToken() throws Exception {
         // Arrange
         Map<String, String> body = new HashMap<>();
         body.put("idToken", "validGoogleToken");
@@ -97,14 +195,20 @@ public class AuthControllerTest {
         body.put("name", "Test User");
         body.put("picture", "http://example.com/picture.jpg");
 
+        GoogleIdToken.Payload payload = new GoogleIdToken.Payload();
+        payload.setEmail("test@example.com");
+        payload.set("name", "Test User");
+        payload.set("picture", "http://example.com/picture.jpg");
+        GoogleIdToken idToken = new GoogleIdToken(new JsonWebSignature.Header(), payload, new byte[0], new byte[0]);
+
+        when(googleVerifier.verify("validGoogleToken")).thenReturn(idToken);
         when(userRepo.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
         when(jwtUtil.generateToken(1L, "test@example.com")).thenReturn("jwtToken");
 
         // Act
         ResponseEntity<?> response = authController.googleLogin(body);
 
-        // Expect 500, this is because GoogleTokenVerifier cannot verify the Test token as it is a FAKE token
-        // Will leave expect 200 because if the verification works, it should perform actions as below
+        // The shared verifier bean is mocked, so the token is accepted without reaching Google
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(Map.of("token", "jwtToken"), response.getBody());
         verify(userRepo).findByEmail("test@example.com");
@@ -112,6 +216,22 @@ public class AuthControllerTest {
         verify(userRepo, never()).save(any(UserModel.class));
     }
 
+    @Test
+    void testGoogleLoginWithInvalidToken() throws Exception {
+        // Arrange
+        Map<String, String> body = new HashMap<>();
+        body.put("idToken", "forgedGoogleToken");
+
+        when(googleVerifier.verify("forgedGoogleToken")).thenReturn(null);
+
+        // Act
+        ResponseEntity<?> response = authController.googleLogin(body);
+
+        // Assert
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verify(userRepo, never()).findByEmail(anyString());
+    }
+
     @Test
     void testGoogleLoginWithNoToken() {
         // Arrange
@@ -136,14 +256,18 @@ public class AuthControllerTest {
         body.put("name", "Test User");
         body.put("picture", "http://example.com/picture.jpg");
 
+        when(facebookClient.me("validFacebookToken")).thenReturn(Optional.of(Map.of(
+                "id", "fb-1",
+                "name", "Test User",
+                "email", "test@example.com",
+                "picture", Map.of("data", Map.of("url", "http://example.com/picture.jpg")))));
         when(userRepo.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
         when(jwtUtil.generateToken(1L, "test@example.com")).thenReturn("jwtToken");
 
         // Act
         ResponseEntity<?> response = authController.facebookLogin(body);
 
-        // Expect 500, this is because FacebookTokenVerifier cannot verify the Test token as it is a FAKE token
-        // Will leave expect 200 because if the verification works, it should perform actions as below
+        // The Graph API client is mocked, so the token is accepted without reaching Facebook
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(Map.of("token", "jwtToken"), response.getBody());
         verify(userRepo).findByEmail("test@example.com");
@@ -152,6 +276,40 @@ public class AuthControllerTest {
         verify(restTemplate, never()).getForObject(anyString(), any());
     }
 
+    @Test
+    void testFacebookLoginWithRejectedToken() {
+        // Arrange
+        Map<String, String> body = new HashMap<>();
+        body.put("accessToken", "expiredFacebookToken");
+
+        when(facebookClient.me("expiredFacebookToken")).thenReturn(Optional.empty());
+
+        // Act
+        ResponseEntity<?> response = authController.facebookLogin(body);
+
+        // Assert
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verify(userRepo, never()).findByEmail(anyString());
+    }
+
+    @Test
+    void testFacebookLoginWhenFacebookUnavailable() {
+        // Arrange
+        Map<String, String> body = new HashMap<>();
+        body.put("accessToken", "validFacebookToken");
+
+        when(facebookClient.me("validFacebookToken"))
+                .thenThrow(new ProviderUnavailableException("Facebook circuit is open", 12));
+
+        // Act
+        ResponseEntity<?> response = authController.facebookLogin(body);
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("12", response.getHeaders().getFirst("Retry-After"));
+        verify(userRepo, never()).findByEmail(anyString());
+    }
+
     @Test
     void testFacebookLoginWithNoToken() {
         // Arrange
@@ -1,20 +1,56 @@
 package com.abccondo.controller;
 
+import com.abccondo.cache.ResponseBodyCache;
+import com.abccondo.datasource.ReadYourWrites;
+import com.abccondo.feed.BlogChanges;
+import com.abccondo.feed.ChangeVersions;
+import com.abccondo.feed.ChangesExpiredException;
+import com.abccondo.feed.FeedCache;
+import com.abccondo.feed.FeedEntry;
+import com.abccondo.feed.FeedEventHub;
+import com.abccondo.image.ImageStore;
+import com.abccondo.image.ImageVariantService;
+import com.abccondo.image.InvalidImageException;
 import com.abccondo.model.BlogModel;
-import com.abccondo.model.UserModel;
+import com.abccondo.model.BlogTombstone;
+import com.abccondo.model.ChangeVersion;
+import com.abccondo.repository.BlogChangeView;
+import com.abccondo.repository.BlogFeedView;
 import com.abccondo.repository.BlogRepository;
+import com.abccondo.repository.BlogSummaryView;
+import com.abccondo.repository.BlogTombstoneRepository;
+import com.abccondo.repository.ChangeVersionRepository;
 import com.abccondo.repository.UserRepository;
-import com.abccondo.security.JwtUtil;
+import com.abccondo.search.SearchIndex;
+import com.abccondo.security.JwtPrincipal;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.http.ResponseEntity;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class BlogControllerTest {
@@ -27,61 +63,217 @@ class BlogControllerTest {
     @Mock
     private BlogRepository blogRepo;
     @Mock
-    private JwtUtil jwtUtil;
+    private ImageStore imageStore;
+    @Mock
+    private ImageVariantService imageVariants;
+    // Mocked with no snapshot, so list requests take the database path unless a test installs a real one
+    @Mock
+    private FeedCache feedCache;
+    @Mock
+    private FeedEventHub feedEvents;
+    @Mock
+    private SearchIndex searchIndex;
+    @Mock
+    private ReadYourWrites readYourWrites;
+    @Mock
+    private BlogTombstoneRepository tombstoneRepo;
+    @Mock
+    private ChangeVersionRepository versionRepo;
+
+    private static final ProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+    private static final ObjectMapper JSON = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+    private ResponseBodyCache responseCache;
 
     private AutoCloseable closeable;
 
     @BeforeEach
     void setUp() {
         closeable = MockitoAnnotations.openMocks(this);
+        when(imageStore.toReference(any())).thenAnswer(inv -> inv.getArgument(0));
+        // Writes go through the real versioning service, over the mocked repositories
+        when(versionRepo.findForUpdate("blog")).thenReturn(Optional.of(new ChangeVersion("blog", 41)));
+        ReflectionTestUtils.setField(blogController, "blogChanges",
+                new BlogChanges(blogRepo, tombstoneRepo, new ChangeVersions(versionRepo)));
     }
 
     @Test
-    void getBlogList_validToken_returnsBlogList() {
+    void getBlogList_returnsBlogList() {
         // Arrange
-        String validToken = "valid.jwt.token";
-        String authHeader = "Bearer " + validToken;
 
-        BlogModel blog = new BlogModel();
-        blog.setBlogId(1L);
-        blog.setBlogTitle("Title");
-        blog.setBlogContent("Content");
-        blog.setBlogImage("img.png");
-        blog.setBlogCreatedAt(LocalDateTime.now());
-        blog.setBlog_authorId(100L);
-
-        UserModel author = new UserModel();
-        author.setId(100L);
-        author.setName("Alice");
-        author.setPicture("avatar.png");
-
-        when(jwtUtil.validateToken(validToken)).thenReturn(true);
-        when(blogRepo.findAll()).thenReturn(List.of(blog));
-        when(userRepo.findById(100L)).thenReturn(Optional.of(author));
+        BlogFeedView blog = feedRow(1L, 100L, "Alice", "avatar.png");
+
+        when(blogRepo.findFeedPage(any(Pageable.class))).thenReturn(List.of(blog));
 
         // Act
-        ResponseEntity<?> response = blogController.getBlogList(authHeader);
+        ResponseEntity<?> response = blogController.getBlogList(null, null, null, null, null);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        List<?> result = (List<?>) response.getBody();
+        List<?> result = items(response);
         assertEquals(1, result.size());
+        assertNull(((Map<?, ?>) response.getBody()).get("nextCursor"));
         Map<?, ?> blogMap = (Map<?, ?>) result.get(0);
         assertEquals("Title", blogMap.get("title"));
         assertEquals("Alice", blogMap.get("authorName"));
         assertEquals("avatar.png", blogMap.get("authorImage"));
 
         // Verify interactions
-        verify(jwtUtil).validateToken(validToken);
-        verify(blogRepo).findAll();
-        verify(userRepo).findById(100L);
-        verifyNoMoreInteractions(jwtUtil, blogRepo, userRepo);
+        verify(blogRepo).findFeedPage(PageRequest.of(0, 21));
+        verifyNoMoreInteractions(blogRepo, userRepo);
+    }
+
+    @Test
+    void getBlogList_missingAuthor_returnsUnknown() {
+
+        when(blogRepo.findFeedPage(any(Pageable.class))).thenReturn(List.of(feedRow(1L, 404L, null, null)));
+
+        ResponseEntity<?> response = blogController.getBlogList(null, null, null, null, null);
+
+        Map<?, ?> blogMap = (Map<?, ?>) items(response).get(0);
+        assertEquals("Unknown", blogMap.get("authorName"));
+        assertEquals("Unknown", blogMap.get("authorImage"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 50, 5000})
+    void getBlogList_queryCountIndependentOfPostCount(int postCount) {
+        List<BlogFeedView> rows = new ArrayList<>();
+        for (long i = 0; i < postCount; i++) {
+            rows.add(feedRow(i, i % 7, "Author" + (i % 7), "avatar.png"));
+        }
+
+        when(blogRepo.findFeedPage(any(Pageable.class))).thenAnswer(inv ->
+                rows.subList(0, Math.min(rows.size(), inv.<Pageable>getArgument(0).getPageSize())));
+
+        ResponseEntity<?> response = blogController.getBlogList(100, null, null, null, null);
+
+        assertEquals(Math.min(postCount, 100), items(response).size());
+        // One feed query regardless of how many posts there are, no per-author lookups
+        verify(blogRepo, times(1)).findFeedPage(any(Pageable.class));
+        verifyNoMoreInteractions(blogRepo);
+        verifyNoInteractions(userRepo);
+    }
+
+    @Test
+    void getBlogList_fullPage_returnsCursorForNextPage() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 2, 3, 4, 5);
+        List<BlogFeedView> rows = new ArrayList<>();
+        for (long i = 3; i > 0; i--) {
+            rows.add(feedRow(i, 1L, "Alice", "avatar.png", createdAt));
+        }
+
+        when(blogRepo.findFeedPage(PageRequest.of(0, 3))).thenReturn(rows);
+        when(blogRepo.findFeedPageAfter(createdAt, 2L, PageRequest.of(0, 3))).thenReturn(rows.subList(2, 3));
+
+        ResponseEntity<?> first = blogController.getBlogList(2, null, null, null, null);
+        assertEquals(2, items(first).size());
+        String cursor = (String) ((Map<?, ?>) first.getBody()).get("nextCursor");
+        assertNotNull(cursor);
+
+        // The cursor seeks past the last row of the previous page instead of counting an offset
+        ResponseEntity<?> second = blogController.getBlogList(2, cursor, null, null, null);
+        assertEquals(1, items(second).size());
+        assertNull(((Map<?, ?>) second.getBody()).get("nextCursor"));
+        verify(blogRepo).findFeedPageAfter(createdAt, 2L, PageRequest.of(0, 3));
+    }
+
+    @Test
+    void getBlogList_invalidCursor_returnsBadRequest() {
+
+        ResponseEntity<?> response = blogController.getBlogList(null, "not-a-cursor", null, null, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(blogRepo);
+    }
+
+    @Test
+    void getBlogList_summaryView_usesSummaryProjection() {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", 1L);
+        row.put("title", "Title");
+        row.put("excerpt", "Short");
+        row.put("thumbnail", null);
+        row.put("hasImage", true);
+        row.put("createdAt", LocalDateTime.now());
+        row.put("authorId", 100L);
+        row.put("authorName", "Alice");
+        row.put("authorImage", "avatar.png");
+        row.put("authorFound", true);
+        BlogSummaryView summary = PROJECTIONS.createProjection(BlogSummaryView.class, row);
+
+        when(blogRepo.findSummaryPage(PageRequest.of(0, 21))).thenReturn(List.of(summary));
+
+        ResponseEntity<?> response = blogController.getBlogList(null, null, "summary", null, null);
+
+        Map<?, ?> blogMap = (Map<?, ?>) items(response).get(0);
+        assertEquals("Short", blogMap.get("excerpt"));
+        assertEquals(true, blogMap.get("hasImage"));
+        assertNull(blogMap.get("image"));
+        assertFalse(blogMap.containsKey("content"));
+        verify(blogRepo).findSummaryPage(PageRequest.of(0, 21));
+        verifyNoMoreInteractions(blogRepo);
+    }
+
+    @Test
+    void getBlog_existingPost_returnsFullPost() {
+        when(blogRepo.findFeedEntry(1L)).thenReturn(Optional.of(feedRow(1L, 100L, "Alice", "avatar.png")));
+
+        ResponseEntity<?> response = blogController.getBlog(1L);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Map<?, ?> blogMap = (Map<?, ?>) response.getBody();
+        assertEquals("Content", blogMap.get("content"));
+        assertEquals("img.png", blogMap.get("image"));
+    }
+
+    @Test
+    void getBlog_missingPost_returnsNotFound() {
+        when(blogRepo.findFeedEntry(2L)).thenReturn(Optional.empty());
+
+        ResponseEntity<?> response = blogController.getBlog(2L);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    private static List<?> items(ResponseEntity<?> response) {
+        return (List<?>) body(response).get("items");
+    }
+
+    // Snapshot-served pages come back as encoded JSON bytes, database pages as maps
+    private static Map<?, ?> body(ResponseEntity<?> response) {
+        if (response.getBody() instanceof byte[] bytes) {
+            try {
+                return JSON.readValue(bytes, Map.class);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return (Map<?, ?>) response.getBody();
+    }
+
+    private static BlogFeedView feedRow(Long id, Long authorId, String authorName, String authorImage) {
+        return feedRow(id, authorId, authorName, authorImage, LocalDateTime.now());
+    }
+
+    private static BlogFeedView feedRow(Long id, Long authorId, String authorName, String authorImage,
+                                        LocalDateTime createdAt) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("title", "Title");
+        row.put("image", "img.png");
+        row.put("content", "Content");
+        row.put("createdAt", createdAt);
+        row.put("authorId", authorId);
+        row.put("authorName", authorName);
+        row.put("authorImage", authorImage);
+        row.put("authorFound", authorName != null);
+        return PROJECTIONS.createProjection(BlogFeedView.class, row);
     }
 
     @Test
     void editBlog_validAuthor_updatesBlog() {
-        String validToken = "valid.jwt.token";
-        String authHeader = "Bearer " + validToken;
         Long userId = 200L;
         Long blogId = 10L;
 
@@ -97,11 +289,12 @@ class BlogControllerTest {
         updateBody.put("content", "Updated Content");
         updateBody.put("image", "updated.png");
 
-        when(jwtUtil.validateToken(validToken)).thenReturn(true);
-        when(jwtUtil.getUserIdFromToken(validToken)).thenReturn(userId);
+        JwtPrincipal principal = new JwtPrincipal(userId, "user@example.com", null);
         when(blogRepo.findById(blogId)).thenReturn(Optional.of(blog));
+        FeedEntry entry = FeedEntry.of(feedRow(blogId, userId, "Alice", null));
+        when(feedCache.upsert(blogId)).thenReturn(Optional.of(entry));
 
-        ResponseEntity<?> response = blogController.editBlog(authHeader, blogId, updateBody);
+        ResponseEntity<?> response = blogController.editBlog(principal, blogId, updateBody);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         Map<?, ?> resp = (Map<?, ?>) response.getBody();
@@ -109,21 +302,71 @@ class BlogControllerTest {
         assertEquals("Updated Title", blog.getBlogTitle());
         assertEquals("Updated Content", blog.getBlogContent());
         assertEquals("updated.png", blog.getBlogImage());
+        assertEquals(42L, blog.getBlogVersion());
 
         // Verify interactions
-        verify(jwtUtil).validateToken(validToken);
-        verify(jwtUtil).getUserIdFromToken(validToken);
         verify(blogRepo).findById(blogId);
         verify(blogRepo).save(blog);
+        verify(feedCache).upsert(blogId);
+        verify(feedEvents).publish("post", 42L, FeedPage.toMap(entry));
+        verify(searchIndex).index(blogId, "Updated Title", "Updated Content");
+        verify(readYourWrites).record(userId);
         
         //ensure no unverified action on ()
-        verifyNoMoreInteractions(jwtUtil, blogRepo, userRepo);
+        verifyNoMoreInteractions(blogRepo, userRepo);
+    }
+
+    @Test
+    void postBlog_goneBeforeFeedUpdate_publishesNothing() {
+        JwtPrincipal principal = new JwtPrincipal(5L, "user@example.com", null);
+
+        ResponseEntity<?> response = blogController.postBlog(principal, Map.of("title", "T", "content", "C"));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verifyNoInteractions(feedEvents);
+    }
+
+    @Test
+    void postBlog_dataUrlImage_storesReferenceOnly() {
+        String dataUrl = "data:image/png;base64,AAAA";
+        Map<String, String> body = new HashMap<>();
+        body.put("title", "T");
+        body.put("content", "C");
+        body.put("image", dataUrl);
+
+        JwtPrincipal principal = new JwtPrincipal(5L, "user@example.com", null);
+        when(imageStore.toReference(dataUrl)).thenReturn("/api/images/abc.png");
+
+        ResponseEntity<?> response = blogController.postBlog(principal, body);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        ArgumentCaptor<BlogModel> saved = ArgumentCaptor.forClass(BlogModel.class);
+        verify(blogRepo).save(saved.capture());
+        assertEquals("/api/images/abc.png", saved.getValue().getBlogImage());
+        verify(readYourWrites).record(5L);
+    }
+
+    @Test
+    void postBlog_invalidImage_savesNothingAndAnswers400() {
+        Map<String, String> body = new HashMap<>();
+        body.put("title", "T");
+        body.put("image", "data:image/png;base64,QQ=Q");
+        JwtPrincipal principal = new JwtPrincipal(5L, "user@example.com", null);
+        InvalidImageException invalid = new InvalidImageException("Image data is not valid base64");
+        when(imageStore.toReference(body.get("image"))).thenThrow(invalid);
+
+        InvalidImageException thrown = assertThrows(InvalidImageException.class,
+                () -> blogController.postBlog(principal, body));
+
+        verify(blogRepo, never()).save(any());
+        verifyNoInteractions(feedEvents, readYourWrites);
+        ResponseEntity<?> response = blogController.invalidImage(thrown);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Image data is not valid base64", response.getBody());
     }
 
     @Test
     void deleteBlog_byAuthor_deletesBlog() {
-        String validToken = "valid.jwt.token";
-        String authHeader = "Bearer " + validToken;
         Long userId = 321L;
         Long blogId = 55L;
 
@@ -131,23 +374,233 @@ class BlogControllerTest {
         blog.setBlogId(blogId);
         blog.setBlog_authorId(userId);
 
-        when(jwtUtil.validateToken(validToken)).thenReturn(true);
-        when(jwtUtil.getUserIdFromToken(validToken)).thenReturn(userId);
+        JwtPrincipal principal = new JwtPrincipal(userId, "user@example.com", null);
         when(blogRepo.findById(blogId)).thenReturn(Optional.of(blog));
 
-        ResponseEntity<?> response = blogController.deleteBlog(authHeader, blogId);
+        ResponseEntity<?> response = blogController.deleteBlog(principal, blogId);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         Map<?, ?> resp = (Map<?, ?>) response.getBody();
         assertEquals("Blog deleted successfully", resp.get("status"));
 
         // Verify interactions
-        verify(jwtUtil).validateToken(validToken);
-        verify(jwtUtil).getUserIdFromToken(validToken);
         verify(blogRepo).findById(blogId);
         verify(blogRepo).deleteById(blogId);
+        verify(feedCache).remove(blogId);
+        ArgumentCaptor<BlogTombstone> tombstone = ArgumentCaptor.forClass(BlogTombstone.class);
+        verify(tombstoneRepo).save(tombstone.capture());
+        assertEquals(blogId, tombstone.getValue().getBlogId());
+        assertEquals(42L, tombstone.getValue().getVersion());
+        verify(feedEvents).publish("delete", 42L, Map.of("id", blogId));
+        verify(searchIndex).remove(blogId);
+        verify(readYourWrites).record(userId);
         
         //ensure no unverified action on ()
-        verifyNoMoreInteractions(jwtUtil, blogRepo, userRepo);
+        verifyNoMoreInteractions(blogRepo, userRepo);
+    }
+
+    @Test
+    void getBlogList_withSnapshot_readsNoDatabase() {
+        FeedCache realCache = installSnapshot(30);
+
+        ResponseEntity<?> first = blogController.getBlogList(null, null, null, null, null);
+        String next = (String) body(first).get("nextCursor");
+        ResponseEntity<?> second = blogController.getBlogList(null, next, "summary", null, null);
+
+        assertEquals(20, items(first).size());
+        assertEquals(30L, id(items(first).get(0)));
+        assertEquals(10, items(second).size());
+        assertEquals(10L, id(items(second).get(0)));
+        assertNull(body(second).get("nextCursor"));
+        assertNotNull(realCache.current());
+        verifyNoInteractions(blogRepo);
+    }
+
+    @Test
+    void getBlogList_withSnapshot_reusesEncodedBytesUntilFeedChanges() {
+        FeedCache realCache = installSnapshot(30);
+
+        ResponseEntity<?> first = blogController.getBlogList(null, null, null, null, null);
+        ResponseEntity<?> again = blogController.getBlogList(null, null, null, null, null);
+        realCache.remove(30L);
+        ResponseEntity<?> afterDelete = blogController.getBlogList(null, null, null, null, null);
+
+        assertSame(first.getBody(), again.getBody());
+        assertNotSame(first.getBody(), afterDelete.getBody());
+        assertEquals(29L, id(items(afterDelete).get(0)));
+    }
+
+    @Test
+    void getBlogList_withSnapshot_gzipWhenAccepted() throws Exception {
+        installSnapshot(30);
+
+        ResponseEntity<?> plain = blogController.getBlogList(null, null, null, null, null);
+        ResponseEntity<?> gzipped = blogController.getBlogList(null, null, null, "gzip, deflate, br", null);
+
+        assertNull(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, gzipped.getHeaders().getFirst(HttpHeaders.VARY));
+        byte[] compressed = (byte[]) gzipped.getBody();
+        assertTrue(compressed.length < ((byte[]) plain.getBody()).length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals((byte[]) plain.getBody(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void getBlogList_matchingETag_returns304WithoutQueryOrSerialization() {
+        installSnapshot(30);
+        ResponseEntity<?> first = blogController.getBlogList(null, null, null, "gzip", null);
+        String etag = first.getHeaders().getETag();
+        clearInvocations(responseCache);
+
+        ResponseEntity<?> response = blogController.getBlogList(null, null, null, "gzip", etag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(etag, response.getHeaders().getETag());
+        assertNull(response.getBody());
+        assertEquals("no-cache, private", response.getHeaders().getCacheControl());
+        verifyNoInteractions(blogRepo);
+        verifyNoInteractions(responseCache);
+    }
+
+    @Test
+    void getBlogList_staleETag_returnsNewPage() {
+        FeedCache realCache = installSnapshot(30);
+        String etag = blogController.getBlogList(null, null, null, null, null).getHeaders().getETag();
+        realCache.remove(30L);
+
+        ResponseEntity<?> response = blogController.getBlogList(null, null, null, null, etag);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotEquals(etag, response.getHeaders().getETag());
+        assertEquals(29L, id(items(response).get(0)));
+    }
+
+    @Test
+    void getChanges_withoutSince_returnsCurrentVersionOnly() {
+        when(versionRepo.findById("blog")).thenReturn(Optional.of(new ChangeVersion("blog", 41)));
+
+        ResponseEntity<?> response = blogController.getChanges(null, null);
+
+        Map<?, ?> body = (Map<?, ?>) response.getBody();
+        assertEquals(41L, body.get("version"));
+        assertEquals(List.of(), body.get("posts"));
+        verifyNoInteractions(blogRepo);
+    }
+
+    @Test
+    void getChanges_returnsPostsAndDeletionsSinceVersion() {
+        when(blogRepo.findChangesSince(eq(40L), any(Pageable.class)))
+                .thenReturn(List.of(changeRow(7L, 41L), changeRow(9L, 43L)));
+        when(tombstoneRepo.findByVersionGreaterThanOrderByVersion(eq(40L), any(Pageable.class)))
+                .thenReturn(List.of(new BlogTombstone(3L, 42L, null)));
+
+        ResponseEntity<?> response = blogController.getChanges(40L, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Map<?, ?> body = (Map<?, ?>) response.getBody();
+        assertEquals(43L, body.get("version"));
+        assertEquals(false, body.get("hasMore"));
+        assertEquals(List.of(3L), body.get("deleted"));
+        List<?> posts = (List<?>) body.get("posts");
+        assertEquals(2, posts.size());
+        assertEquals(7L, ((Map<?, ?>) posts.get(0)).get("id"));
+        verify(blogRepo).findChangesSince(40L, PageRequest.of(0, BlogController.CHANGES_DEFAULT_LIMIT + 1));
+    }
+
+    @Test
+    void search_returnsPostsInRankOrder() {
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search("garden", 20)).thenReturn(List.of(3L, 9L, 1L));
+        // Post 9 was deleted after the index answered
+        when(blogRepo.findFeedEntries(List.of(3L, 9L, 1L)))
+                .thenReturn(List.of(feedRow(1L, 100L, "Alice", null), feedRow(3L, 100L, "Alice", null)));
+
+        ResponseEntity<?> response = blogController.search("garden", null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(3L, 1L), items(response).stream().map(BlogControllerTest::id).toList());
+    }
+
+    @Test
+    void search_clampsLimitAndSkipsDatabaseWithoutHits() {
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search(any(), anyInt())).thenReturn(List.of());
+
+        ResponseEntity<?> response = blogController.search("nothing", 500);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(items(response).isEmpty());
+        verify(searchIndex).search("nothing", BlogController.SEARCH_MAX_LIMIT);
+        verifyNoInteractions(blogRepo);
+    }
+
+    @Test
+    void search_blankQuery_returnsBadRequest() {
+        assertEquals(HttpStatus.BAD_REQUEST, blogController.search("  ", null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, blogController.search(null, null).getStatusCode());
+        verifyNoInteractions(searchIndex);
+    }
+
+    @Test
+    void search_indexStillLoading_returnsServiceUnavailable() {
+        ResponseEntity<?> response = blogController.search("garden", null);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("5", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verify(searchIndex, never()).search(any(), anyInt());
+    }
+
+    @Test
+    void getChanges_negativeSince_returnsBadRequest() {
+        ResponseEntity<?> response = blogController.getChanges(-1L, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(blogRepo, tombstoneRepo);
+    }
+
+    @Test
+    void getChanges_sinceBeforePrunedTombstones_answers410() {
+        when(versionRepo.findVersion("blog_tombstones_pruned")).thenReturn(Optional.of(40L));
+
+        ChangesExpiredException thrown = assertThrows(ChangesExpiredException.class,
+                () -> blogController.getChanges(12L, null));
+
+        ResponseEntity<?> response = blogController.changesExpired(thrown);
+        assertEquals(HttpStatus.GONE, response.getStatusCode());
+        assertEquals(thrown.getMessage(), response.getBody());
+    }
+
+    private static BlogChangeView changeRow(Long id, Long version) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("title", "Post " + id);
+        row.put("authorId", 1L);
+        row.put("authorName", "Alice");
+        row.put("authorFound", true);
+        row.put("version", version);
+        return PROJECTIONS.createProjection(BlogChangeView.class, row);
+    }
+
+    // Builds a real snapshot of `count` posts over the mocked repository and serves lists from it
+    private FeedCache installSnapshot(int count) {
+        List<BlogFeedView> rows = new ArrayList<>();
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 12, 0);
+        for (long i = count; i >= 1; i--) {
+            rows.add(feedRow(i, 1L, "Alice", "avatar.png", createdAt.plusMinutes(i)));
+        }
+        when(blogRepo.findFeedPage(any(Pageable.class))).thenReturn(rows);
+        FeedCache realCache = new FeedCache(blogRepo, 1_000);
+        realCache.rebuild();
+        ReflectionTestUtils.setField(blogController, "feedCache", realCache);
+        responseCache = spy(new ResponseBodyCache(JSON, 60_000, 100, System::currentTimeMillis));
+        ReflectionTestUtils.setField(blogController, "responseCache", responseCache);
+        clearInvocations(blogRepo);
+        return realCache;
+    }
+
+    private static long id(Object item) {
+        return ((Number) ((Map<?, ?>) item).get("id")).longValue();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package com.abccondo.controller;
+
+import com.abccondo.image.ImageStore;
+import com.abccondo.image.ImageVariant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageControllerTest {
+
+    @TempDir
+    Path dir;
+
+    private ImageController imageController;
+    private String name;
+    private final byte[] bytes = {(byte) 0x89, 'P', 'N', 'G', 1, 2, 3};
+
+    @BeforeEach
+    void setUp() {
+        ImageStore imageStore = new ImageStore(dir.toString());
+        imageController = new ImageController();
+        ReflectionTestUtils.setField(imageController, "imageStore", imageStore);
+        String ref = imageStore.toReference("data:image/png;base64," + Base64.getEncoder().encodeToString(bytes));
+        name = ref.substring(ImageStore.URL_PREFIX.length());
+    }
+
+    @Test
+    void getImage_streamsBlobWithImmutableCaching() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        imageController.getImage(name, null, new MockHttpServletRequest(), response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("image/png", response.getContentType());
+        assertArrayEquals(bytes, response.getContentAsByteArray());
+        assertEquals("public, max-age=31536000, immutable", response.getHeader("Cache-Control"));
+        assertEquals("\"" + name + "\"", response.getHeader("ETag"));
+    }
+
+    @Test
+    void getImage_sendfileSupported_delegatesToContainer() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(ImageController.SENDFILE_SUPPORT, Boolean.TRUE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        imageController.getImage(name, null, request, response);
+
+        assertNotNull(request.getAttribute(ImageController.SENDFILE_FILENAME));
+        assertEquals((long) bytes.length, request.getAttribute(ImageController.SENDFILE_END));
+        assertEquals(bytes.length, response.getContentLength());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void getImage_matchingEtag_returnsNotModified() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        imageController.getImage(name, "\"" + name + "\"", new MockHttpServletRequest(), response);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void getImage_variantNotYetGenerated_servesOriginalUncached() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        imageController.getImage(ImageVariant.CARD.nameFor(name.substring(0, 64)), null,
+                new MockHttpServletRequest(), response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("image/png", response.getContentType());
+        assertEquals("no-cache", response.getHeader("Cache-Control"));
+        assertArrayEquals(bytes, response.getContentAsByteArray());
+    }
+
+    @Test
+    void getImage_unknownBlob_returnsNotFound() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        imageController.getImage("f".repeat(64) + ".png", null, new MockHttpServletRequest(), response);
+
+        assertEquals(404, response.getStatus());
+    }
+}
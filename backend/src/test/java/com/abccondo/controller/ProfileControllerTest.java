@@ -1,20 +1,41 @@
 package com.abccondo.controller;
 
-import com.abccondo.model.BlogModel;
+import com.abccondo.cache.ResponseBodyCache;
+import com.abccondo.cache.UserCache;
+import com.abccondo.datasource.ReadYourWrites;
+import com.abccondo.feed.BlogChanges;
+import com.abccondo.feed.ChangeVersions;
+import com.abccondo.feed.FeedCache;
+import com.abccondo.image.ImageStore;
+import com.abccondo.image.ImageVariantService;
+import com.abccondo.model.ChangeVersion;
 import com.abccondo.model.UserModel;
+import com.abccondo.repository.BlogFeedView;
 import com.abccondo.repository.BlogRepository;
+import com.abccondo.repository.BlogTombstoneRepository;
+import com.abccondo.repository.ChangeVersionRepository;
 import com.abccondo.repository.UserRepository;
-import com.abccondo.security.JwtUtil;
+import com.abccondo.security.JwtPrincipal;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class ProfileControllerTest {
@@ -27,19 +48,39 @@ class ProfileControllerTest {
     @Mock
     protected BlogRepository blogRepo;
     @Mock
-    protected JwtUtil jwtUtil;
+    protected ImageStore imageStore;
+    @Mock
+    protected ImageVariantService imageVariants;
+    @Mock
+    protected FeedCache feedCache;
+    @Mock
+    protected BlogTombstoneRepository tombstoneRepo;
+    @Mock
+    protected ChangeVersionRepository versionRepo;
+    @Mock
+    protected ReadYourWrites readYourWrites;
+
+    private static final ObjectMapper JSON = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
 
     private AutoCloseable closeable;
 
     @BeforeEach
     void setUp() {
         closeable = MockitoAnnotations.openMocks(this);
+        when(imageStore.toReference(any())).thenAnswer(inv -> inv.getArgument(0));
+        // A real cache in front of the mocked repository, so repository calls are what reaches the database
+        ReflectionTestUtils.setField(profileController, "userCache",
+                new UserCache(userRepo, 60_000, 100, System::currentTimeMillis));
+        ReflectionTestUtils.setField(profileController, "responseCache",
+                new ResponseBodyCache(JSON, 60_000, 100, System::currentTimeMillis));
+        when(versionRepo.findForUpdate("blog")).thenReturn(Optional.of(new ChangeVersion("blog", 10)));
+        ReflectionTestUtils.setField(profileController, "blogChanges",
+                new BlogChanges(blogRepo, tombstoneRepo, new ChangeVersions(versionRepo)));
     }
 
     @Test
     void getUserBlogList_validRequest_returnsUserBlogs() {
-        String validToken = "valid.jwt.token";
-        String authHeader = "Bearer " + validToken;
         Long userId = 99L;
 
         UserModel user = new UserModel();
@@ -47,40 +88,50 @@ class ProfileControllerTest {
         user.setName("UserX");
         user.setPicture("picX.jpg");
 
-        BlogModel blog = new BlogModel();
-        blog.setBlogId(101L);
-        blog.setBlogTitle("BlogX");
-        blog.setBlogContent("ContentX");
-        blog.setBlogImage("imgX.jpg");
-        blog.setBlogCreatedAt(LocalDateTime.now());
-        blog.setBlog_authorId(userId);
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", 101L);
+        row.put("title", "BlogX");
+        row.put("content", "ContentX");
+        row.put("image", "imgX.jpg");
+        row.put("createdAt", LocalDateTime.now());
+        row.put("authorId", userId);
+        row.put("authorName", "UserX");
+        row.put("authorImage", "picX.jpg");
+        row.put("authorFound", true);
+        BlogFeedView blog = new SpelAwareProxyProjectionFactory().createProjection(BlogFeedView.class, row);
 
-        when(jwtUtil.validateToken(validToken)).thenReturn(true);
         when(userRepo.findById(userId)).thenReturn(Optional.of(user));
-        when(blogRepo.findByBlogAuthorId(userId)).thenReturn(List.of(blog));
+        when(blogRepo.findAuthorFeedPage(userId, PageRequest.of(0, 21))).thenReturn(List.of(blog));
 
-        ResponseEntity<?> response = profileController.getUserBlogList(userId, authHeader);
+        ResponseEntity<?> response = profileController.getUserBlogList(userId, null, null, null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        List<?> result = (List<?>) response.getBody();
+        List<?> result = (List<?>) ((Map<?, ?>) response.getBody()).get("items");
         assertEquals(1, result.size());
         Map<?, ?> blogMap = (Map<?, ?>) result.get(0);
         assertEquals("BlogX", blogMap.get("title"));
         assertEquals("UserX", blogMap.get("authorName"));
         assertEquals("picX.jpg", blogMap.get("authorImage"));
 
-        verify(jwtUtil).validateToken(validToken);
         verify(userRepo).findById(userId);
-        verify(blogRepo).findByBlogAuthorId(userId);
+        verify(blogRepo).findAuthorFeedPage(userId, PageRequest.of(0, 21));
         
         //ensure no unverified action on ()
-        verifyNoMoreInteractions(jwtUtil, blogRepo, userRepo);
+        verifyNoMoreInteractions(blogRepo, userRepo);
+    }
+
+    @Test
+    void getUserBlogList_unknownUser_returnsNotFound() {
+        when(userRepo.findById(5L)).thenReturn(Optional.empty());
+
+        ResponseEntity<?> response = profileController.getUserBlogList(5L, null, null, null, null);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verifyNoInteractions(blogRepo);
     }
 
     @Test
     void updateProfile_validUser_updatesProfile() {
-        String validToken = "valid.jwt.token";
-        String authHeader = "Bearer " + validToken;
         Long userId = 7L;
 
         UserModel user = new UserModel();
@@ -93,12 +144,11 @@ class ProfileControllerTest {
         updateBody.put("name", "New Name");
         updateBody.put("image", "new_pic.jpg");
 
-        when(jwtUtil.validateToken(validToken)).thenReturn(true);
-        when(jwtUtil.getUserIdFromToken(validToken)).thenReturn(userId);
+        JwtPrincipal principal = new JwtPrincipal(userId, "user7@email.com", null);
         when(userRepo.findById(userId)).thenReturn(Optional.of(user));
         when(userRepo.save(any(UserModel.class))).thenReturn(user);
 
-        ResponseEntity<?> response = profileController.updateProfile(userId, authHeader, updateBody);
+        ResponseEntity<?> response = profileController.updateProfile(userId, principal, updateBody);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         Map<?, ?> resp = (Map<?, ?>) response.getBody();
@@ -110,12 +160,188 @@ class ProfileControllerTest {
         assertEquals("New Name", user.getName());
         assertEquals("new_pic.jpg", user.getPicture());
 
-        verify(jwtUtil).validateToken(validToken);
-        verify(jwtUtil).getUserIdFromToken(validToken);
         verify(userRepo).findById(userId);
         verify(userRepo).save(user);
+        verify(feedCache).updateAuthor(userId, "New Name", "new_pic.jpg");
+        verify(readYourWrites).record(userId);
+        // Synced clients re-fetch the author's posts to pick up the new name and picture
+        verify(blogRepo).stampAuthorPosts(userId, 11L);
         
         //ensure no unverified action on ()
-        verifyNoMoreInteractions(jwtUtil, blogRepo, userRepo);
+        verifyNoMoreInteractions(blogRepo, userRepo);
+    }
+
+    @Test
+    void getProfile_repeatedViews_hitDatabaseOnce() {
+        UserModel user = new UserModel();
+        user.setId(3L);
+        user.setName("Cached");
+        user.setEmail("c@example.com");
+        when(userRepo.findById(3L)).thenReturn(Optional.of(user));
+
+        Object firstBody = profileController.getProfile(3L, null, null).getBody();
+        for (int i = 0; i < 5; i++) {
+            ResponseEntity<?> response = profileController.getProfile(3L, null, null);
+            assertEquals("Cached", json(response).get("name"));
+            // Serialized once and served as the same bytes
+            assertSame(firstBody, response.getBody());
+        }
+
+        verify(userRepo, times(1)).findById(3L);
+    }
+
+    @Test
+    void getProfile_unknownUser_returnsNotFound() {
+        when(userRepo.findById(8L)).thenReturn(Optional.empty());
+
+        ResponseEntity<?> response = profileController.getProfile(8L, "gzip", null);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("User not found", response.getBody());
+    }
+
+    @Test
+    void updateProfile_evictsCachedProfile() {
+        UserModel stored = new UserModel();
+        stored.setId(4L);
+        stored.setName("Before");
+        stored.setEmail("d@example.com");
+        when(userRepo.findById(4L)).thenAnswer(inv -> Optional.of(copyOf(stored)));
+        when(userRepo.save(any(UserModel.class))).thenAnswer(inv -> {
+            stored.setName(inv.<UserModel>getArgument(0).getName());
+            return stored;
+        });
+        profileController.getProfile(4L, null, null);
+
+        profileController.updateProfile(4L, new JwtPrincipal(4L, "d@example.com", null), Map.of("name", "After"));
+        ResponseEntity<?> response = profileController.getProfile(4L, null, null);
+
+        assertEquals("After", json(response).get("name"));
+    }
+
+    @Test
+    void getProfile_matchingETag_returns304WithoutQueries() {
+        UserModel user = new UserModel();
+        user.setId(6L);
+        user.setName("Tagged");
+        user.setEmail("t@example.com");
+        when(userRepo.findById(6L)).thenReturn(Optional.of(user));
+        String etag = profileController.getProfile(6L, null, null).getHeaders().getETag();
+        clearInvocations(userRepo);
+
+        ResponseEntity<?> response = profileController.getProfile(6L, null, etag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        verifyNoInteractions(userRepo, blogRepo);
+    }
+
+    @Test
+    void getProfile_afterUpdate_oldETagGetsNewBody() {
+        UserModel stored = new UserModel();
+        stored.setId(4L);
+        stored.setName("Before");
+        stored.setEmail("d@example.com");
+        when(userRepo.findById(4L)).thenAnswer(inv -> Optional.of(copyOf(stored)));
+        when(userRepo.save(any(UserModel.class))).thenAnswer(inv -> {
+            stored.setName(inv.<UserModel>getArgument(0).getName());
+            return stored;
+        });
+        String etag = profileController.getProfile(4L, null, null).getHeaders().getETag();
+
+        profileController.updateProfile(4L, new JwtPrincipal(4L, "d@example.com", null), Map.of("name", "After"));
+        ResponseEntity<?> response = profileController.getProfile(4L, null, etag);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotEquals(etag, response.getHeaders().getETag());
+        assertEquals("After", json(response).get("name"));
+    }
+
+    @Test
+    void getUserBlogList_matchingETag_returns304WithoutQueries() {
+        UserModel user = new UserModel();
+        user.setId(99L);
+        when(userRepo.findById(99L)).thenReturn(Optional.of(user));
+        when(blogRepo.findAuthorFeedPage(eq(99L), any())).thenReturn(List.of());
+        useCompleteSnapshot();
+        String etag = profileController.getUserBlogList(99L, null, null, null, null).getHeaders().getETag();
+        assertNotNull(etag);
+        clearInvocations(userRepo, blogRepo);
+
+        ResponseEntity<?> response = profileController.getUserBlogList(99L, null, null, null, etag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        verifyNoInteractions(userRepo, blogRepo);
+    }
+
+    @Test
+    void getUserBlogList_completeSnapshot_cutsPageFromItWithoutBlogQueries() {
+        UserModel user = new UserModel();
+        user.setId(99L);
+        when(userRepo.findById(99L)).thenReturn(Optional.of(user));
+        BlogFeedView mine = feedRow(2L, 99L);
+        BlogFeedView other = feedRow(1L, 5L);
+        useCompleteSnapshot(List.of(mine, other));
+
+        ResponseEntity<?> response = profileController.getUserBlogList(99L, null, null, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"" + FeedPage.feedTag(feedCache.current()) + "\"", response.getHeaders().getETag());
+        List<?> items = (List<?>) ((Map<?, ?>) response.getBody()).get("items");
+        assertEquals(1, items.size());
+        assertEquals(2L, ((Map<?, ?>) items.get(0)).get("id"));
+        verifyNoInteractions(blogRepo);
+    }
+
+    @Test
+    void getUserBlogList_noSnapshot_sendsNoETag() {
+        UserModel user = new UserModel();
+        user.setId(99L);
+        when(userRepo.findById(99L)).thenReturn(Optional.of(user));
+        when(blogRepo.findAuthorFeedPage(eq(99L), any())).thenReturn(List.of());
+
+        ResponseEntity<?> response = profileController.getUserBlogList(99L, null, null, null, "*");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getETag());
+    }
+
+    // An empty but complete feed snapshot, built by a real FeedCache over its own repository mock
+    private void useCompleteSnapshot() {
+        useCompleteSnapshot(List.of());
+    }
+
+    private void useCompleteSnapshot(List<BlogFeedView> rows) {
+        BlogRepository feedRepo = mock(BlogRepository.class);
+        when(feedRepo.findFeedPage(any())).thenReturn(rows);
+        FeedCache realCache = new FeedCache(feedRepo, 100);
+        realCache.rebuild();
+        when(feedCache.current()).thenReturn(realCache.current());
+    }
+
+    private static BlogFeedView feedRow(Long id, Long authorId) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("title", "Blog " + id);
+        row.put("createdAt", LocalDateTime.of(2025, 1, 1, 12, 0).plusMinutes(id));
+        row.put("authorId", authorId);
+        row.put("authorFound", true);
+        return new SpelAwareProxyProjectionFactory().createProjection(BlogFeedView.class, row);
+    }
+
+    private static Map<?, ?> json(ResponseEntity<?> response) {
+        try {
+            return JSON.readValue((byte[]) response.getBody(), Map.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static UserModel copyOf(UserModel user) {
+        UserModel copy = new UserModel();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setEmail(user.getEmail());
+        return copy;
     }
-}
\ No newline at end of file
+}
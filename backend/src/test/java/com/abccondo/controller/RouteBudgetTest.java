@@ -0,0 +1,213 @@
+package com.abccondo.controller;
+
+import com.abccondo.BackendApplication;
+import com.abccondo.search.SearchIndex;
+import com.abccondo.security.JwtUtil;
+import com.abccondo.support.RequestCost;
+import com.abccondo.support.RequestCostRecorder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Every BlogController and ProfileController route against the whole application, each with a budget
+// for the SQL statements it runs, the entities Hibernate loads for it and the bytes its thread
+// allocates (see RequestCostRecorder). Statement and entity counts must match exactly, so an extra
+// query or a per-row lookup fails the build; when a route gets cheaper, lower its budget with it.
+// Allocation moves with JIT state and payloads, so that budget is a ceiling with headroom. Reads are
+// measured on the last of several identical calls, once caches and the JIT have settled.
+class RouteBudgetTest {
+
+    private static final int POSTS = 30;
+    private static final int REPEATS = 5;
+
+    @TempDir
+    static Path imageDir;
+
+    private static ConfigurableApplicationContext context;
+    private static RequestCostRecorder recorder;
+    private static final HttpClient http = HttpClient.newHttpClient();
+    private static String baseUrl;
+    private static String ann;
+    private static String ben;
+    private static String image;
+
+    @BeforeAll
+    @SuppressWarnings("unchecked")
+    static void start() throws Exception {
+        context = new SpringApplicationBuilder(BackendApplication.class, RequestCostRecorder.Config.class)
+                .properties(Map.of(
+                        "spring.main.banner-mode", "off",
+                        "server.port", "0",
+                        "spring.datasource.url", "jdbc:h2:mem:route-budget;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.username", "sa",
+                        "jwt.secret", "0123456789012345678901234567890123456789012345678901234567890123",
+                        "google.client-id", "budget-test",
+                        "password.bcrypt.cost", "4",
+                        "image.store.dir", imageDir.toString()))
+                .run();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        recorder = ((FilterRegistrationBean<RequestCostRecorder>) context.getBean("requestCostRecorder")).getFilter();
+
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("INSERT INTO users (name, email) VALUES ('Ann', 'ann@example.com'), ('Ben', 'ben@example.com')");
+        JwtUtil jwtUtil = context.getBean(JwtUtil.class);
+        ann = jwtUtil.generateToken(1L, "ann@example.com");
+        ben = jwtUtil.generateToken(2L, "ben@example.com");
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB), "png", png);
+        image = "data:image/png;base64," + Base64.getEncoder().encodeToString(png.toByteArray());
+        // Enough posts by both users to fill a feed page and a profile page
+        for (int i = 0; i < POSTS; i++) {
+            send("POST", "/api/blog/post", i % 2 == 0 ? ann : ben, blog("Post " + i, i % 3 == 0 ? null : image), 200);
+        }
+        SearchIndex searchIndex = context.getBean(SearchIndex.class);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!searchIndex.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @Test
+    void blogList() throws Exception {
+        // Served from the feed snapshot and the encoded-page cache
+        assertBudget(steady("GET", "/api/blog/list", ann), 0, 0, 150);
+    }
+
+    @Test
+    void blogList_summaryView() throws Exception {
+        assertBudget(steady("GET", "/api/blog/list?view=summary", ann), 0, 0, 150);
+    }
+
+    @Test
+    void blogList_nextPage() throws Exception {
+        String first = send("GET", "/api/blog/list?limit=10", ann, null, 200);
+        String cursor = first.replaceAll(".*\"nextCursor\":\"([^\"]+)\".*", "$1");
+        assertBudget(steady("GET", "/api/blog/list?limit=10&after=" + cursor, ann), 0, 0, 150);
+    }
+
+    @Test
+    void blogChanges() throws Exception {
+        // Changed posts, tombstones, then the pruned-tombstone mark
+        assertBudget(steady("GET", "/api/blog/changes?since=0", ann), 3, 0, 800);
+    }
+
+    @Test
+    void blogSearch() throws Exception {
+        // The index finds the ids; one query loads the page of posts
+        assertBudget(steady("GET", "/api/blog/search?q=post", ann), 1, 0, 600);
+    }
+
+    @Test
+    void blog() throws Exception {
+        assertBudget(steady("GET", "/api/blog/2", ann), 1, 0, 200);
+    }
+
+    @Test
+    void postBlog() throws Exception {
+        // Next change version (read and bump), insert, and the feed row for the snapshot
+        assertBudget(steady("POST", "/api/blog/post", ben, blog("Budget post", image)), 4, 1, 300);
+    }
+
+    @Test
+    void editBlog() throws Exception {
+        // Load, next change version, update, and the feed row for the snapshot
+        assertBudget(steady("PUT", "/api/blog/1", ann, blog("Edited", image)), 5, 2, 400);
+    }
+
+    @Test
+    void deleteBlog() throws Exception {
+        RequestCost cost = null;
+        for (int i = 0; i < REPEATS; i++) {
+            send("POST", "/api/blog/post", ann, blog("To delete", null), 200);
+            long id = context.getBean(JdbcTemplate.class).queryForObject("SELECT MAX(blog_id) FROM blogs", Long.class);
+            cost = measure("DELETE", "/api/blog/" + id, ann, null);
+        }
+        // Load, next change version, tombstone (saved by merge, so looked up first), delete
+        assertBudget(cost, 6, 2, 250);
+    }
+
+    @Test
+    void profile() throws Exception {
+        // Served from the user cache and the encoded-profile cache
+        assertBudget(steady("GET", "/api/profile/2", ann), 0, 0, 150);
+    }
+
+    @Test
+    void updateProfile() throws Exception {
+        // Load (the name is unchanged, so no update), then stamp the author's posts with a change version
+        assertBudget(steady("PUT", "/api/profile/2", ben, "{\"name\":\"Ben\"}"), 4, 2, 450);
+    }
+
+    @Test
+    void userBlogList() throws Exception {
+        // Cut from the complete feed snapshot; the user check is served by the user cache
+        assertBudget(steady("GET", "/api/profile/blog/list/1", ben), 0, 0, 450);
+    }
+
+    // Statements and entity loads exactly, allocation as a ceiling. No entity maps a collection, so
+    // any collection fetch is lazy loading that should not be there.
+    private static void assertBudget(RequestCost cost, long statements, long entityLoads, long maxKilobytes) {
+        assertEquals(statements, cost.statements(), "SQL statements for " + cost);
+        assertEquals(entityLoads, cost.entityLoads(), "Hibernate entity loads for " + cost);
+        assertEquals(0, cost.collectionFetches(), "Hibernate collection fetches for " + cost);
+        assertTrue(cost.allocatedBytes() <= maxKilobytes * 1024, "bytes allocated for " + cost);
+    }
+
+    // The last of REPEATS identical requests
+    private static RequestCost steady(String method, String path, String token) throws Exception {
+        return steady(method, path, token, null);
+    }
+
+    private static RequestCost steady(String method, String path, String token, String json) throws Exception {
+        RequestCost cost = null;
+        for (int i = 0; i < REPEATS; i++) {
+            cost = measure(method, path, token, json);
+        }
+        return cost;
+    }
+
+    private static RequestCost measure(String method, String path, String token, String json) throws Exception {
+        recorder.clear();
+        send(method, path, token, json, 200);
+        return recorder.take();
+    }
+
+    private static String send(String method, String path, String token, String json, int expectedStatus) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .method(method, json == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token);
+        HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(expectedStatus, response.statusCode(), method + " " + path + ": " + response.body());
+        return response.body();
+    }
+
+    private static String blog(String title, String image) {
+        return "{\"title\":\"" + title + "\",\"content\":\"Budget test content\""
+                + (image == null ? "" : ",\"image\":\"" + image + "\"") + "}";
+    }
+}
@@ -0,0 +1,78 @@
+package com.abccondo.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaLagMonitorTest {
+
+    private final AtomicLong now = new AtomicLong(10_000);
+    private final AtomicLong primary = new AtomicLong(5);
+    private final AtomicLong replica = new AtomicLong(5);
+    // Up to 1 s behind is fine; a probe result older than 3 s is not trusted
+    private final ReplicaLagMonitor monitor =
+            new ReplicaLagMonitor(primary::get, replica::get, now::get, 1_000, 1_000, 3_000);
+
+    @Test
+    void notProbedYet_isOutsideTolerance() {
+        assertFalse(monitor.isWithinTolerance());
+        assertEquals(Long.MAX_VALUE, monitor.lagMillis());
+    }
+
+    @Test
+    void lag_isAgeOfOldestVersionReplicaHasNotReached() {
+        monitor.probe();
+        assertTrue(monitor.isWithinTolerance());
+        assertEquals(0, monitor.lagMillis());
+
+        primary.set(6);
+        monitor.probe();
+        now.addAndGet(500);
+        primary.set(7);
+        monitor.probe();
+        assertEquals(500, monitor.lagMillis());
+        assertTrue(monitor.isWithinTolerance());
+
+        now.addAndGet(700);
+        monitor.probe();
+        assertEquals(1_200, monitor.lagMillis());
+        assertFalse(monitor.isWithinTolerance());
+
+        // Caught up with 6 but not 7, which was first seen 700 ms ago
+        replica.set(6);
+        monitor.probe();
+        assertEquals(700, monitor.lagMillis());
+        assertTrue(monitor.isWithinTolerance());
+
+        replica.set(7);
+        monitor.probe();
+        assertEquals(0, monitor.lagMillis());
+    }
+
+    @Test
+    void behindOnFirstProbe_isOutsideToleranceUntilCaughtUp() {
+        replica.set(3);
+        monitor.probe();
+        assertFalse(monitor.isWithinTolerance());
+
+        replica.set(5);
+        monitor.probe();
+        assertTrue(monitor.isWithinTolerance());
+    }
+
+    @Test
+    void failedOrStaleProbe_isOutsideTolerance() {
+        monitor.probe();
+        now.addAndGet(3_001);
+        assertFalse(monitor.isWithinTolerance());
+
+        ReplicaLagMonitor unreachable = new ReplicaLagMonitor(primary::get, () -> {
+            throw new IllegalStateException("replica down");
+        }, now::get, 1_000, 1_000, 3_000);
+        unreachable.probe();
+        assertFalse(unreachable.isWithinTolerance());
+        assertEquals(Long.MAX_VALUE, unreachable.lagMillis());
+    }
+}
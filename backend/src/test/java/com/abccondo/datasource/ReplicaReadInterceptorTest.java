@@ -0,0 +1,66 @@
+package com.abccondo.datasource;
+
+import com.abccondo.security.JwtPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaReadInterceptorTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final ReadYourWrites readYourWrites = new ReadYourWrites(5_000, now::get);
+    private final ReplicaReadInterceptor interceptor = new ReplicaReadInterceptor(readYourWrites);
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingDataSource.clearReplicaReads();
+        SecurityContextHolder.clearContext();
+    }
+
+    private static void signIn(long userId) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new JwtPrincipal(userId, "user@example.com", null), null, List.of()));
+    }
+
+    @Test
+    void get_mayReadReplicaUntilCompletion() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/blog/list");
+
+        assertTrue(interceptor.preHandle(request, response, new Object()));
+        assertTrue(ReplicaRoutingDataSource.replicaReadsAllowed());
+
+        interceptor.afterCompletion(request, response, new Object(), null);
+        assertFalse(ReplicaRoutingDataSource.replicaReadsAllowed());
+    }
+
+    @Test
+    void writeRequests_stayOnPrimary() {
+        for (String method : List.of("POST", "PUT", "DELETE")) {
+            interceptor.preHandle(new MockHttpServletRequest(method, "/api/blog/post"), response, new Object());
+            assertFalse(ReplicaRoutingDataSource.replicaReadsAllowed(), method);
+        }
+    }
+
+    @Test
+    void recentWriter_readsPrimaryUntilWindowEnds() {
+        signIn(7L);
+        readYourWrites.record(7L);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/profile/7");
+
+        interceptor.preHandle(request, response, new Object());
+        assertFalse(ReplicaRoutingDataSource.replicaReadsAllowed());
+
+        now.addAndGet(5_000);
+        interceptor.preHandle(request, response, new Object());
+        assertTrue(ReplicaRoutingDataSource.replicaReadsAllowed());
+    }
+}
@@ -0,0 +1,202 @@
+package com.abccondo.datasource;
+
+import com.abccondo.cache.UserCache;
+import com.abccondo.controller.ProfileController;
+import com.abccondo.feed.FeedCache;
+import com.abccondo.model.BlogModel;
+import com.abccondo.repository.BlogRepository;
+import com.abccondo.repository.SchemaMigrationConfig;
+import com.abccondo.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two in-memory databases stand in for the MySQL primary and its replica. They are not replicated:
+// the same user row holds a different name in each, so every read shows which one served it.
+class ReplicaRoutingTest {
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static ConfigurableApplicationContext context;
+    private static UserRepository userRepo;
+    private static BlogRepository blogRepo;
+    private static PlatformTransactionManager transactions;
+    private static ReplicaLagMonitor lagMonitor;
+    private static JdbcTemplate primary;
+    private static JdbcTemplate replica;
+
+    // Not a @Configuration, so scanning the application package does not pick it up
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, FlywayAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class, TransactionAutoConfiguration.class})
+    @EnableJpaRepositories(basePackageClasses = UserRepository.class)
+    @EntityScan(basePackageClasses = BlogModel.class)
+    @Import({SchemaMigrationConfig.class, ReplicaRoutingConfig.class, ReadYourWrites.class})
+    static class RoutedJpa {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @BeforeAll
+    static void start() {
+        // Replication would bring the schema over; here the replica is migrated on its own
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate();
+        context = new SpringApplicationBuilder(RoutedJpa.class)
+                .web(WebApplicationType.NONE)
+                .properties(Map.of(
+                        "spring.main.banner-mode", "off",
+                        "spring.datasource.url", PRIMARY_URL,
+                        "spring.datasource.username", "sa",
+                        "spring.jpa.hibernate.ddl-auto", "validate",
+                        "datasource.replica.url", REPLICA_URL,
+                        "datasource.routing.max-lag-ms", "100",
+                        // Probed by the tests, not on a schedule
+                        "datasource.routing.probe-interval-ms", "3600000"))
+                .run();
+        userRepo = context.getBean(UserRepository.class);
+        blogRepo = context.getBean(BlogRepository.class);
+        transactions = context.getBean(PlatformTransactionManager.class);
+        lagMonitor = context.getBean(ReplicaLagMonitor.class);
+        primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+        replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        primary.update("INSERT INTO users (id, name, email) VALUES (1, 'On primary', 'a@example.com')");
+        replica.update("INSERT INTO users (id, name, email) VALUES (1, 'On replica', 'a@example.com')");
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @BeforeEach
+    void caughtUp() {
+        primary.update("UPDATE change_versions SET current_version = 0");
+        replica.update("UPDATE change_versions SET current_version = 0");
+        lagMonitor.probe();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingDataSource.clearReplicaReads();
+    }
+
+    private static String userName(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactions);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> userRepo.findById(1L).orElseThrow().getName());
+    }
+
+    // The author list as a replica-read GET runs it: a read-only transaction on a thread allowed the replica
+    private static ResponseEntity<?> authorList(FeedCache feedCache) {
+        ProfileController controller = new ProfileController();
+        ReflectionTestUtils.setField(controller, "userCache", new UserCache(userRepo, 60_000, 100, System::currentTimeMillis));
+        ReflectionTestUtils.setField(controller, "blogRepo", blogRepo);
+        ReflectionTestUtils.setField(controller, "feedCache", feedCache);
+        TransactionTemplate template = new TransactionTemplate(transactions);
+        template.setReadOnly(true);
+        return template.execute(status -> controller.getUserBlogList(1L, null, null, null, null));
+    }
+
+    private static List<?> itemIds(ResponseEntity<?> response) {
+        List<?> items = (List<?>) ((Map<?, ?>) response.getBody()).get("items");
+        return items.stream().map(item -> ((Map<?, ?>) item).get("id")).toList();
+    }
+
+    @Test
+    void readOnlyTransaction_onReplicaReadThread_readsReplica() {
+        ReplicaRoutingDataSource.allowReplicaReads();
+
+        assertEquals("On replica", userName(true));
+        // Repository reads are read-only transactions of their own
+        assertEquals("On replica", userRepo.findById(1L).orElseThrow().getName());
+    }
+
+    @Test
+    void readWriteTransaction_readsPrimary() {
+        ReplicaRoutingDataSource.allowReplicaReads();
+
+        assertEquals("On primary", userName(false));
+    }
+
+    @Test
+    void threadNotAllowedReplicaReads_readsPrimary() {
+        assertEquals("On primary", userName(true));
+        assertEquals("On primary", userRepo.findById(1L).orElseThrow().getName());
+    }
+
+    @Test
+    void replicaBehind_readsPrimaryUntilCaughtUp() throws InterruptedException {
+        ReplicaRoutingDataSource.allowReplicaReads();
+        primary.update("UPDATE change_versions SET current_version = 1");
+        lagMonitor.probe();
+        assertEquals("On replica", userName(true));
+
+        Thread.sleep(150);
+        lagMonitor.probe();
+        assertEquals("On primary", userName(true));
+
+        replica.update("UPDATE change_versions SET current_version = 1");
+        lagMonitor.probe();
+        assertEquals("On replica", userName(true));
+    }
+
+    @Test
+    void authorList_replicaMissingNewestPost_neverTaggedWithCurrentFeed() {
+        primary.update("INSERT INTO blogs (blog_id, blog_title, blog_author_id, blog_created_at) VALUES "
+                + "(10, 'Older', 1, '2025-01-01 12:00:00'), (11, 'Newer', 1, '2025-01-01 13:00:00')");
+        replica.update("INSERT INTO blogs (blog_id, blog_title, blog_author_id, blog_created_at) VALUES "
+                + "(10, 'Older', 1, '2025-01-01 12:00:00')");
+        try {
+            // Snapshots load on threads that never read the replica, so both hold the newest post
+            FeedCache complete = new FeedCache(blogRepo, 100);
+            complete.rebuild();
+            FeedCache truncated = new FeedCache(blogRepo, 1);
+            truncated.rebuild();
+            // Still within the lag tolerance, so replica reads are allowed
+            ReplicaRoutingDataSource.allowReplicaReads();
+
+            // Cut from the complete snapshot: the tag comes with the content it names
+            ResponseEntity<?> fromSnapshot = authorList(complete);
+            assertEquals(List.of(11L, 10L), itemIds(fromSnapshot));
+            assertEquals("\"feed-" + complete.current().tag() + "\"", fromSnapshot.getHeaders().getETag());
+
+            // Read from the replica, which has not seen post 11 yet: no tag at all
+            ResponseEntity<?> fromReplica = authorList(truncated);
+            assertEquals(List.of(10L), itemIds(fromReplica));
+            assertNull(fromReplica.getHeaders().getETag());
+        } finally {
+            primary.update("DELETE FROM blogs");
+            replica.update("DELETE FROM blogs");
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.abccondo.feed;
+
+import com.abccondo.model.BlogModel;
+import com.abccondo.model.BlogTombstone;
+import com.abccondo.model.ChangeVersion;
+import com.abccondo.repository.BlogChangeView;
+import com.abccondo.repository.BlogRepository;
+import com.abccondo.repository.BlogTombstoneRepository;
+import com.abccondo.repository.ChangeVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class BlogChangesTest {
+
+    private final BlogRepository blogRepo = mock(BlogRepository.class);
+    private final BlogTombstoneRepository tombstoneRepo = mock(BlogTombstoneRepository.class);
+    private final ChangeVersionRepository versionRepo = mock(ChangeVersionRepository.class);
+    private final BlogChanges changes = new BlogChanges(blogRepo, tombstoneRepo, new ChangeVersions(versionRepo));
+
+    private final List<BlogChangeView> posts = new ArrayList<>();
+    private final List<BlogTombstone> tombstones = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // The repositories honour since and the page size like the real queries
+        when(blogRepo.findChangesSince(anyLong(), any(Pageable.class))).thenAnswer(inv -> posts.stream()
+                .filter(p -> p.getVersion() > inv.<Long>getArgument(0))
+                .limit(inv.<Pageable>getArgument(1).getPageSize()).toList());
+        when(tombstoneRepo.findByVersionGreaterThanOrderByVersion(anyLong(), any(Pageable.class))).thenAnswer(inv ->
+                tombstones.stream().filter(t -> t.getVersion() > inv.<Long>getArgument(0))
+                        .limit(inv.<Pageable>getArgument(1).getPageSize()).toList());
+        when(blogRepo.findChangesAt(anyLong())).thenAnswer(inv -> posts.stream()
+                .filter(p -> p.getVersion().equals(inv.getArgument(0))).toList());
+    }
+
+    private static BlogChangeView post(long id, long version) {
+        return new SpelAwareProxyProjectionFactory().createProjection(BlogChangeView.class,
+                Map.of("id", id, "version", version));
+    }
+
+    private static List<Long> ids(List<BlogChangeView> rows) {
+        return rows.stream().map(BlogChangeView::getId).toList();
+    }
+
+    @Test
+    void save_stampsNextVersion() {
+        when(versionRepo.findForUpdate("blog")).thenReturn(Optional.of(new ChangeVersion("blog", 7)));
+        BlogModel blog = new BlogModel();
+
+        changes.save(blog);
+
+        assertEquals(8L, blog.getBlogVersion());
+        verify(blogRepo).save(blog);
+    }
+
+    @Test
+    void delete_recordsTombstoneAtNextVersion() {
+        when(versionRepo.findForUpdate("blog")).thenReturn(Optional.of(new ChangeVersion("blog", 0)));
+
+        assertEquals(1L, changes.delete(5L));
+
+        verify(blogRepo).deleteById(5L);
+        verify(tombstoneRepo).save(argThat(t -> t.getBlogId() == 5L && t.getVersion() == 1L));
+    }
+
+    @Test
+    void ensureCounter_createsMissingRowAndToleratesConcurrentInsert() {
+        ChangeVersions versions = new ChangeVersions(versionRepo);
+        when(versionRepo.existsById("blog")).thenReturn(false);
+        when(versionRepo.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        versions.ensureCounter();
+
+        verify(versionRepo).saveAndFlush(argThat(c -> c.getName().equals("blog") && c.getCurrentVersion() == 0));
+    }
+
+    @Test
+    void pruneTombstones_deletesThroughNewestExpiredAndRaisesMark() {
+        ChangeVersion mark = new ChangeVersion("blog_tombstones_pruned", 3);
+        when(versionRepo.findForUpdate("blog_tombstones_pruned")).thenReturn(Optional.of(mark));
+        when(tombstoneRepo.findNewestVersionBefore(any())).thenReturn(40L);
+        when(tombstoneRepo.deleteThroughVersion(40L)).thenReturn(6);
+
+        assertEquals(6, changes.pruneTombstones());
+
+        assertEquals(40, mark.getCurrentVersion());
+        // Cut off at the retention period
+        verify(tombstoneRepo).findNewestVersionBefore(argThat(cutoff ->
+                cutoff.isBefore(LocalDateTime.now().minusDays(BlogChanges.DEFAULT_TOMBSTONE_RETENTION_DAYS - 1))
+                        && cutoff.isAfter(LocalDateTime.now().minusDays(BlogChanges.DEFAULT_TOMBSTONE_RETENTION_DAYS + 1))));
+    }
+
+    @Test
+    void pruneTombstones_nothingExpired_leavesEverything() {
+        when(tombstoneRepo.findNewestVersionBefore(any())).thenReturn(null);
+
+        assertEquals(0, changes.pruneTombstones());
+
+        verify(tombstoneRepo, never()).deleteThroughVersion(anyLong());
+        verify(versionRepo, never()).findForUpdate(any());
+    }
+
+    @Test
+    void since_beforePrunedTombstones_isExpired() {
+        when(versionRepo.findVersion("blog_tombstones_pruned")).thenReturn(Optional.of(40L));
+        tombstones.add(new BlogTombstone(9L, 41L, null));
+
+        assertThrows(ChangesExpiredException.class, () -> changes.since(39, 10));
+        // A client that had synced through the pruned deletes misses nothing
+        assertEquals(List.of(9L), changes.since(40, 10).deleted());
+    }
+
+    @Test
+    void since_mergesPostsAndDeletionsInVersionOrder() {
+        posts.addAll(List.of(post(1, 2), post(2, 4)));
+        tombstones.addAll(List.of(new BlogTombstone(9L, 3L, null), new BlogTombstone(8L, 5L, null)));
+
+        BlogChanges.Changes result = changes.since(1, 10);
+
+        assertEquals(List.of(1L, 2L), ids(result.posts()));
+        assertEquals(List.of(9L, 8L), result.deleted());
+        assertEquals(5, result.version());
+        assertFalse(result.hasMore());
+    }
+
+    @Test
+    void since_nothingNew_keepsVersion() {
+        BlogChanges.Changes result = changes.since(12, 10);
+
+        assertTrue(result.posts().isEmpty());
+        assertEquals(12, result.version());
+        assertFalse(result.hasMore());
+    }
+
+    @Test
+    void since_pagesThroughEveryChangeOnce() {
+        for (long v = 1; v <= 25; v++) {
+            if (v % 5 == 0) {
+                tombstones.add(new BlogTombstone(100 + v, v, null));
+            } else {
+                posts.add(post(v, v));
+            }
+        }
+        List<Long> seenPosts = new ArrayList<>();
+        List<Long> seenDeleted = new ArrayList<>();
+        long since = 0;
+        BlogChanges.Changes page;
+        do {
+            page = changes.since(since, 4);
+            seenPosts.addAll(ids(page.posts()));
+            seenDeleted.addAll(page.deleted());
+            since = page.version();
+        } while (page.hasMore());
+
+        assertEquals(20, seenPosts.size());
+        assertEquals(List.of(105L, 110L, 115L, 120L, 125L), seenDeleted);
+        assertEquals(25, since);
+    }
+
+    @Test
+    void since_doesNotSplitOneVersionAcrossPages() {
+        // An author update stamped posts 2-4 with version 6
+        posts.addAll(List.of(post(1, 5), post(2, 6), post(3, 6), post(4, 6), post(5, 7)));
+
+        BlogChanges.Changes first = changes.since(0, 3);
+        BlogChanges.Changes second = changes.since(first.version(), 3);
+
+        assertEquals(List.of(1L), ids(first.posts()));
+        assertEquals(5, first.version());
+        assertTrue(first.hasMore());
+        assertEquals(List.of(2L, 3L, 4L), ids(second.posts()));
+        assertEquals(6, second.version());
+    }
+
+    @Test
+    void since_versionLargerThanPage_sentWhole() {
+        posts.addAll(List.of(post(1, 6), post(2, 6), post(3, 6), post(4, 6)));
+
+        BlogChanges.Changes page = changes.since(0, 2);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(page.posts()));
+        assertEquals(6, page.version());
+    }
+}
@@ -0,0 +1,162 @@
+package com.abccondo.feed;
+
+import com.abccondo.repository.BlogFeedView;
+import com.abccondo.repository.BlogRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class FeedCacheTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private final BlogRepository blogRepo = mock(BlogRepository.class);
+    private final List<BlogFeedView> rows = new ArrayList<>();
+
+    private FeedCache newCache(int maxEntries) {
+        when(blogRepo.findFeedPage(any(Pageable.class))).thenAnswer(inv -> {
+            int size = inv.<Pageable>getArgument(0).getPageSize();
+            return List.copyOf(rows.subList(0, Math.min(size, rows.size())));
+        });
+        return new FeedCache(blogRepo, maxEntries);
+    }
+
+    private static FeedEntry entry(long id, long minutes) {
+        return FeedSnapshotTest.entry(id, T0.plusMinutes(minutes), 1L);
+    }
+
+    @Test
+    void current_isNullUntilFirstBuild() {
+        FeedCache cache = newCache(100);
+
+        assertNull(cache.current());
+        cache.rebuild();
+
+        assertNotNull(cache.current());
+    }
+
+    @Test
+    void rebuild_largerFeedThanCap_keepsNewestAndMarksIncomplete() {
+        for (long id = 5; id >= 1; id--) {
+            rows.add(entry(id, id));
+        }
+        FeedCache cache = newCache(3);
+
+        cache.rebuild();
+
+        assertEquals(3, cache.current().entries().size());
+        assertFalse(cache.current().isComplete());
+    }
+
+    @Test
+    void upsertAndRemove_applyWithoutRebuilding() {
+        rows.add(entry(1, 1));
+        FeedCache cache = newCache(100);
+        cache.rebuild();
+        when(blogRepo.findFeedEntry(2L)).thenReturn(Optional.of(entry(2, 2)));
+
+        assertEquals(2L, cache.upsert(2L).orElseThrow().getId());
+        assertEquals(2L, cache.current().entries().get(0).getId());
+
+        cache.remove(1L);
+        assertEquals(1, cache.current().entries().size());
+        verify(blogRepo, times(1)).findFeedPage(any(Pageable.class));
+    }
+
+    @Test
+    void upsert_postGoneFromDatabase_removesIt() {
+        rows.add(entry(1, 1));
+        FeedCache cache = newCache(100);
+        cache.rebuild();
+        when(blogRepo.findFeedEntry(1L)).thenReturn(Optional.empty());
+
+        assertTrue(cache.upsert(1L).isEmpty());
+
+        assertTrue(cache.current().entries().isEmpty());
+    }
+
+    @Test
+    void rebuild_unchangedFeed_keepsVersion() {
+        rows.add(entry(1, 1));
+        FeedCache cache = newCache(100);
+        cache.rebuild();
+        long version = cache.current().version();
+
+        cache.rebuild();
+
+        assertEquals(version, cache.current().version());
+    }
+
+    @Test
+    void tag_differsBetweenCachesAtTheSameVersion() {
+        // Like two boots (or two instances) that each built their first snapshot from different data
+        rows.add(entry(1, 1));
+        FeedCache first = newCache(100);
+        first.rebuild();
+        rows.set(0, entry(2, 2));
+        FeedCache second = newCache(100);
+        second.rebuild();
+
+        assertEquals(first.current().version(), second.current().version());
+        assertNotEquals(first.current().tag(), second.current().tag());
+        // Within one cache the tag follows the version
+        String before = second.current().tag();
+        second.rebuild();
+        assertEquals(before, second.current().tag());
+        second.remove(2L);
+        assertNotEquals(before, second.current().tag());
+    }
+
+    @Test
+    void rebuild_repairsMissedChange() {
+        rows.add(entry(1, 1));
+        FeedCache cache = newCache(100);
+        cache.rebuild();
+        long version = cache.current().version();
+
+        // Written to the database without going through the controllers
+        rows.add(0, entry(2, 2));
+        cache.rebuild();
+
+        assertEquals(2, cache.current().entries().size());
+        assertTrue(cache.current().version() > version);
+    }
+
+    @Test
+    void rebuild_replaysWritesMadeWhileLoading() {
+        rows.add(entry(1, 1));
+        FeedCache cache = newCache(100);
+        cache.rebuild();
+        when(blogRepo.findFeedEntry(3L)).thenReturn(Optional.of(entry(3, 3)));
+        // The reload reads the database before post 3 is saved, and post 3 is applied meanwhile
+        when(blogRepo.findFeedPage(any(Pageable.class))).thenAnswer(inv -> {
+            List<BlogFeedView> before = List.copyOf(rows);
+            cache.upsert(3L);
+            return before;
+        });
+
+        cache.rebuild();
+
+        assertEquals(List.of(3L, 1L), cache.current().entries().stream().map(FeedEntry::getId).toList());
+    }
+
+    @Test
+    void rebuild_databaseDown_keepsServingCurrentSnapshot() {
+        rows.add(entry(1, 1));
+        FeedCache cache = newCache(100);
+        cache.rebuild();
+        when(blogRepo.findFeedPage(any(Pageable.class))).thenThrow(new IllegalStateException("down"));
+
+        cache.rebuild();
+
+        assertEquals(1, cache.current().entries().size());
+    }
+}
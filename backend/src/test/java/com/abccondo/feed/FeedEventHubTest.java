@@ -0,0 +1,256 @@
+package com.abccondo.feed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeedEventHubTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService senders = Executors.newFixedThreadPool(4);
+    private final FeedEventHub hub = new FeedEventHub(new ObjectMapper(), registry, 4, senders, 60_000);
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    // Records the text of every event it is sent
+    private static class RecordingSink implements FeedEventHub.EventSink {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch received;
+        volatile boolean closed;
+
+        RecordingSink(CountDownLatch received) {
+            this.received = received;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> event) throws IOException {
+            events.add(text(event));
+            received.countDown();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static void awaitEvents(RecordingSink sink, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sink.events.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static String text(Set<DataWithMediaType> event) {
+        return event.stream().map(d -> d.getData().toString()).collect(Collectors.joining());
+    }
+
+    @Test
+    void publish_encodesNamedEventWithVersionAsId() throws Exception {
+        CountDownLatch received = new CountDownLatch(1);
+        RecordingSink sink = new RecordingSink(received);
+        hub.register(sink);
+
+        hub.publish("delete", 42L, Map.of("id", 7));
+
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertEquals("id:42\nevent:delete\ndata:{\"id\":7}\n\n", sink.events.get(0));
+    }
+
+    @Test
+    void publish_reachesEverySubscriberInOrder() throws Exception {
+        int subscribers = 5000;
+        int events = 4;
+        CountDownLatch received = new CountDownLatch(subscribers * events);
+        List<RecordingSink> sinks = new ArrayList<>();
+        for (int i = 0; i < subscribers; i++) {
+            RecordingSink sink = new RecordingSink(received);
+            sinks.add(sink);
+            hub.register(sink);
+        }
+
+        for (long version = 1; version <= events; version++) {
+            hub.publish("post", version, Map.of("id", version));
+        }
+
+        assertTrue(received.await(30, TimeUnit.SECONDS));
+        for (RecordingSink sink : sinks) {
+            assertTrue(sink.events.get(0).startsWith("id:1\n"));
+            assertTrue(sink.events.get(events - 1).startsWith("id:" + events + "\n"));
+        }
+        assertEquals(subscribers, hub.subscriberCount());
+        assertEquals(subscribers, registry.get("feed.stream.subscribers").gauge().value());
+    }
+
+    @Test
+    void publish_afterLaterVersion_sendsResyncWithoutId() throws Exception {
+        CountDownLatch received = new CountDownLatch(2);
+        RecordingSink sink = new RecordingSink(received);
+        hub.register(sink);
+
+        hub.publish("post", 5L, Map.of("id", 1));
+        hub.publish("post", 4L, Map.of("id", 2));
+
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertTrue(sink.events.get(0).startsWith("id:5\n"));
+        assertEquals("event:resync\ndata:{\"since\":3}\n\n", sink.events.get(1));
+        assertEquals(1.0, registry.get("feed.stream.resyncs").counter().count());
+    }
+
+    @Test
+    void concurrentPublishers_everySubscriberSeesIncreasingIdsAndMissesNothing() throws Exception {
+        int threads = 8;
+        int perThread = 200;
+        int total = threads * perThread;
+        FeedEventHub roomy = new FeedEventHub(new ObjectMapper(), new SimpleMeterRegistry(), total, senders, 60_000);
+        CountDownLatch received = new CountDownLatch(3 * total);
+        List<RecordingSink> sinks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            RecordingSink sink = new RecordingSink(received);
+            sinks.add(sink);
+            roomy.register(sink);
+        }
+        // Thread t publishes versions t+1, t+1+threads, ...: each thread in order, interleaved at random
+        ExecutorService publishers = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int first = t + 1;
+            publishers.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (long version = first; version <= total; version += threads) {
+                    roomy.publish("post", version, Map.of());
+                }
+            });
+        }
+        start.countDown();
+        publishers.shutdown();
+        assertTrue(publishers.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertTrue(received.await(10, TimeUnit.SECONDS));
+        Pattern id = Pattern.compile("^id:(\\d+)\n");
+        Pattern resync = Pattern.compile("^event:resync\ndata:\\{\"since\":(\\d+)}");
+        for (RecordingSink sink : sinks) {
+            assertEquals(sinks.get(0).events, sink.events);
+            long last = 0;
+            Set<Long> covered = new HashSet<>();
+            for (String event : sink.events) {
+                Matcher m = id.matcher(event);
+                if (m.find()) {
+                    long version = Long.parseLong(m.group(1));
+                    assertTrue(version > last, "id " + version + " after " + last);
+                    last = version;
+                    covered.add(version);
+                } else {
+                    Matcher r = resync.matcher(event);
+                    assertTrue(r.find(), event);
+                    covered.add(Long.parseLong(r.group(1)) + 1);
+                }
+            }
+            assertEquals(total, covered.size());
+        }
+        roomy.shutdown();
+    }
+
+    @Test
+    void slowSubscriber_isDroppedWithoutHoldingUpOthers() throws Exception {
+        CountDownLatch stuck = new CountDownLatch(1);
+        CountDownLatch inSend = new CountDownLatch(1);
+        RecordingSink slow = new RecordingSink(new CountDownLatch(0)) {
+            @Override
+            public void send(Set<DataWithMediaType> event) {
+                inSend.countDown();
+                try {
+                    stuck.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        CountDownLatch received = new CountDownLatch(10);
+        RecordingSink fast = new RecordingSink(received);
+        FeedEventHub.Subscriber slowSubscriber = hub.register(slow);
+        hub.register(fast);
+
+        hub.publish("post", 1, Map.of());
+        assertTrue(inSend.await(5, TimeUnit.SECONDS));
+        // One event is being written and the buffer holds four more; the sixth overflows it.
+        // The fast subscriber is let catch up after each event, as a client on a healthy connection would.
+        for (long version = 2; version <= 10; version++) {
+            awaitEvents(fast, (int) version - 1);
+            hub.publish("post", version, Map.of());
+        }
+
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertTrue(slowSubscriber.isClosed());
+        assertTrue(slow.closed);
+        assertEquals(1, hub.subscriberCount());
+        assertEquals(1.0, registry.get("feed.stream.dropped").tag("reason", "slow").counter().count());
+        stuck.countDown();
+    }
+
+    @Test
+    void failingSubscriber_isRemoved() throws Exception {
+        CountDownLatch failed = new CountDownLatch(1);
+        RecordingSink broken = new RecordingSink(new CountDownLatch(0)) {
+            @Override
+            public void send(Set<DataWithMediaType> event) throws IOException {
+                failed.countDown();
+                throw new IOException("Broken pipe");
+            }
+        };
+        hub.register(broken);
+
+        hub.publish("post", 1, Map.of());
+
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (hub.subscriberCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, hub.subscriberCount());
+        assertTrue(broken.closed);
+        assertEquals(1.0, registry.get("feed.stream.dropped").tag("reason", "error").counter().count());
+    }
+
+    @Test
+    void heartbeat_sendsCommentToEverySubscriber() throws Exception {
+        CountDownLatch received = new CountDownLatch(2);
+        RecordingSink first = new RecordingSink(received);
+        RecordingSink second = new RecordingSink(received);
+        hub.register(first);
+        hub.register(second);
+
+        hub.heartbeat();
+
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertEquals(":keepalive\n\n", first.events.get(0));
+        assertEquals(":keepalive\n\n", second.events.get(0));
+    }
+}
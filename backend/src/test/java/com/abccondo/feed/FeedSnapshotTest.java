@@ -0,0 +1,127 @@
+package com.abccondo.feed;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeedSnapshotTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    static FeedEntry entry(long id, LocalDateTime createdAt, long authorId) {
+        return new FeedEntry(id, "title " + id, null, "content " + id, createdAt, authorId, "Author", null, true);
+    }
+
+    // ids 10..1, newest first, with 4 and 5 sharing a timestamp
+    private static FeedSnapshot tenPosts(boolean complete) {
+        List<FeedEntry> entries = new ArrayList<>();
+        for (long id = 10; id >= 1; id--) {
+            entries.add(entry(id, id == 4 ? T0.plusMinutes(5) : T0.plusMinutes(id), 1L));
+        }
+        entries.sort(FeedSnapshot.FEED_ORDER);
+        return new FeedSnapshot(entries, complete, 0, 1);
+    }
+
+    private static List<Long> ids(List<FeedEntry> entries) {
+        return entries.stream().map(FeedEntry::getId).toList();
+    }
+
+    @Test
+    void page_walksKeysetLikeTheDatabase() {
+        FeedSnapshot snapshot = tenPosts(true);
+
+        assertEquals(List.of(10L, 9L, 8L), ids(snapshot.page(null, null, 3)));
+        // After (T0+5, id 5) comes id 4 on the same timestamp, then 3
+        assertEquals(List.of(4L, 3L), ids(snapshot.page(T0.plusMinutes(5), 5L, 2)));
+        assertEquals(List.of(2L, 1L), ids(snapshot.page(T0.plusMinutes(3), 3L, 5)));
+        assertEquals(List.of(), snapshot.page(T0.plusMinutes(1), 1L, 5));
+    }
+
+    @Test
+    void page_pastTruncatedTail_returnsNull() {
+        FeedSnapshot snapshot = tenPosts(false);
+
+        assertNotNull(snapshot.page(null, null, 10));
+        assertNull(snapshot.page(null, null, 11));
+        assertNull(snapshot.page(T0.plusMinutes(3), 3L, 3));
+    }
+
+    @Test
+    void authorPage_walksOneAuthorsPosts_andNeedsCompleteSnapshot() {
+        List<FeedEntry> entries = new ArrayList<>();
+        for (long id = 6; id >= 1; id--) {
+            entries.add(entry(id, T0.plusMinutes(id), id % 2 == 0 ? 2L : 3L));
+        }
+        FeedSnapshot snapshot = new FeedSnapshot(entries, true, 0, 1);
+
+        assertEquals(List.of(6L, 4L), ids(snapshot.authorPage(2L, null, null, 2)));
+        assertEquals(List.of(2L), ids(snapshot.authorPage(2L, T0.plusMinutes(4), 4L, 2)));
+        assertEquals(List.of(5L, 3L, 1L), ids(snapshot.authorPage(3L, null, null, 5)));
+        assertEquals(List.of(), snapshot.authorPage(9L, null, null, 5));
+        assertNull(new FeedSnapshot(entries, false, 0, 1).authorPage(2L, null, null, 1));
+    }
+
+    @Test
+    void upsert_newPostGoesToTopAndCapTrimsTail() {
+        FeedSnapshot snapshot = tenPosts(true).upsert(entry(11, T0.plusHours(1), 1L), 10);
+
+        assertEquals(11L, snapshot.entries().get(0).getId());
+        assertEquals(10, snapshot.entries().size());
+        assertFalse(snapshot.isComplete());
+        assertEquals(2, snapshot.version());
+    }
+
+    @Test
+    void upsert_editReplacesInPlace() {
+        FeedEntry edited = new FeedEntry(6L, "edited", null, "c", T0.plusMinutes(6), 1L, "Author", null, true);
+
+        FeedSnapshot snapshot = tenPosts(true).upsert(edited, 100);
+
+        assertEquals(10, snapshot.entries().size());
+        assertEquals("edited", snapshot.entries().get(4).getTitle());
+    }
+
+    @Test
+    void upsert_olderThanTruncatedTail_isLeftOut() {
+        FeedSnapshot snapshot = tenPosts(false).upsert(entry(0, T0.minusYears(1), 1L), 100);
+
+        assertEquals(10, snapshot.entries().size());
+    }
+
+    @Test
+    void remove_dropsPostAndBumpsVersion() {
+        FeedSnapshot before = tenPosts(true);
+
+        FeedSnapshot after = before.remove(7L);
+
+        assertFalse(ids(after.entries()).contains(7L));
+        assertEquals(before.version() + 1, after.version());
+        assertSame(after, after.remove(7L));
+    }
+
+    @Test
+    void updateAuthor_rewritesOnlyThatAuthorsPosts() {
+        List<FeedEntry> entries = new ArrayList<>(List.of(entry(2, T0.plusMinutes(2), 1L), entry(1, T0, 2L)));
+        FeedSnapshot snapshot = new FeedSnapshot(entries, true, 0, 1).updateAuthor(2L, "Renamed", "/pic.png");
+
+        assertEquals("Author", snapshot.entries().get(0).getAuthorName());
+        assertEquals("Renamed", snapshot.entries().get(1).getAuthorName());
+        assertEquals("/pic.png", snapshot.entries().get(1).getAuthorImage());
+    }
+
+    @Test
+    void summary_matchesSummaryQuery() {
+        String longContent = "x".repeat(500);
+        FeedEntry entry = new FeedEntry(1L, "t", "data:image/png;base64,AAAA", longContent, T0, 1L, "A",
+                "data:image/png;base64,BBBB", true);
+
+        assertEquals(200, entry.summary().getExcerpt().length());
+        assertNull(entry.summary().getThumbnail());
+        assertTrue(entry.summary().getHasImage());
+        assertNull(entry.summary().getAuthorImage());
+    }
+}
@@ -0,0 +1,166 @@
+package com.abccondo.feed;
+
+import com.abccondo.controller.FeedStreamController;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 5,000 concurrent subscribers on real sockets against the stream endpoint alone (no security, no
+// database). Excluded from the default build; run with: mvn test -Dgroups=load -Dtest.excluded.groups=
+@Tag("load")
+class FeedStreamLoadTest {
+
+    private static final int SUBSCRIBERS = 5000;
+    private static final int EVENTS = 20;
+    // Connections being opened at once, so the accept backlog is never the bottleneck
+    private static final int CONNECTING = 200;
+
+    private ConfigurableApplicationContext context;
+
+    // Not a @Configuration, so scanning the application package does not pick it up
+    @ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class, JacksonAutoConfiguration.class})
+    @Import({FeedEventHub.class, FeedStreamController.class})
+    static class StreamOnly {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void fiveThousandSubscribers_allReceiveEveryEvent() throws Exception {
+        context = new SpringApplicationBuilder(StreamOnly.class)
+                .properties(Map.of("server.port", "0", "server.tomcat.max-connections", "10000",
+                        "spring.main.banner-mode", "off"))
+                .run();
+        int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+        FeedEventHub hub = context.getBean(FeedEventHub.class);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newFixedThreadPool(4, r -> {
+                    Thread thread = new Thread(r, "load-client");
+                    thread.setDaemon(true);
+                    return thread;
+                }))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/blog/stream"))
+                .header("Accept", "text/event-stream")
+                .build();
+
+        // received[v] counts subscribers that have seen the event with version v
+        AtomicInteger[] received = new AtomicInteger[EVENTS + 1];
+        Arrays.setAll(received, i -> new AtomicInteger());
+        AtomicInteger failed = new AtomicInteger();
+        Semaphore connecting = new Semaphore(CONNECTING);
+
+        long connectStart = System.nanoTime();
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            connecting.acquire();
+            client.sendAsync(request, HttpResponse.BodyHandlers.fromLineSubscriber(new EventCounter(received, connecting)))
+                    .whenComplete((response, error) -> {
+                        // Streams only end when the server shuts down; anything earlier is a failure
+                        if (error != null && context.isActive()) {
+                            failed.incrementAndGet();
+                            connecting.release();
+                        }
+                    });
+        }
+        awaitSubscribers(hub, SUBSCRIBERS, 60);
+        long connectMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart);
+
+        long[] fanOutMicros = new long[EVENTS];
+        for (int version = 1; version <= EVENTS; version++) {
+            long start = System.nanoTime();
+            hub.publish("post", version, Map.of("id", version, "title", "Load test post " + version));
+            long deadline = start + TimeUnit.SECONDS.toNanos(30);
+            while (received[version].get() < SUBSCRIBERS && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            fanOutMicros[version - 1] = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            assertEquals(SUBSCRIBERS, received[version].get(), "subscribers that received event " + version);
+        }
+
+        assertEquals(0, failed.get());
+        assertEquals(SUBSCRIBERS, hub.subscriberCount());
+        long[] sorted = fanOutMicros.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%d subscribers connected in %d ms; fan-out to all: median %.1f ms, max %.1f ms%n",
+                SUBSCRIBERS, connectMillis, sorted[EVENTS / 2] / 1000.0, sorted[EVENTS - 1] / 1000.0);
+    }
+
+    private static void awaitSubscribers(FeedEventHub hub, int count, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        while (hub.subscriberCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, hub.subscriberCount(), "connected subscribers");
+    }
+
+    // Counts the "id:" line of each event; the stream's first line frees a connect permit
+    private static final class EventCounter implements Flow.Subscriber<String> {
+        private final AtomicInteger[] received;
+        private final Semaphore connecting;
+
+        EventCounter(AtomicInteger[] received, Semaphore connecting) {
+            this.received = received;
+            this.connecting = connecting;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            connecting.release();
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (line.startsWith("id:")) {
+                received[Integer.parseInt(line.substring(3))].incrementAndGet();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
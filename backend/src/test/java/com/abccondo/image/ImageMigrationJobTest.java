@@ -0,0 +1,134 @@
+package com.abccondo.image;
+
+import com.abccondo.cache.UserCache;
+import com.abccondo.feed.BlogChanges;
+import com.abccondo.feed.FeedCache;
+import com.abccondo.model.BlogModel;
+import com.abccondo.model.UserModel;
+import com.abccondo.repository.BlogRepository;
+import com.abccondo.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ImageMigrationJobTest {
+
+    @InjectMocks
+    private ImageMigrationJob job;
+
+    @Mock
+    private BlogRepository blogRepo;
+    @Mock
+    private UserRepository userRepo;
+    @Mock
+    private ImageStore imageStore;
+    @Mock
+    private ImageVariantService imageVariants;
+    @Mock
+    private BlogChanges blogChanges;
+    @Mock
+    private FeedCache feedCache;
+    @Mock
+    private UserCache userCache;
+
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(job, "batchSize", 2);
+        when(imageStore.toReference("data:good")).thenReturn("/api/images/good.png");
+        when(imageStore.toReference("data:bad")).thenThrow(new InvalidImageException("Image data is not valid base64"));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    void migrateBlogs_versionsAndUpdatesFeed_andSkipsInvalidRows() {
+        BlogModel good = blog(1L, "data:good");
+        BlogModel bad = blog(2L, "data:bad");
+        when(blogRepo.findInlineImagesAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(good, bad));
+        when(blogRepo.findInlineImagesAfter(eq(2L), any(Pageable.class))).thenReturn(List.of());
+
+        assertEquals(1, job.migrateBlogs());
+
+        assertEquals("/api/images/good.png", good.getBlogImage());
+        verify(blogChanges).save(good);
+        verify(feedCache).upsert(1L);
+        verify(imageVariants).submit("/api/images/good.png");
+        // The bad row stays inline and the walk still moves past it
+        assertEquals("data:bad", bad.getBlogImage());
+        verify(blogChanges, never()).save(bad);
+        verify(feedCache, never()).upsert(2L);
+        verify(blogRepo, never()).saveAll(any());
+    }
+
+    @Test
+    void migrateUsers_evictsCachesAndRestampsPosts_andSkipsInvalidRows() {
+        UserModel good = user(7L, "data:good");
+        UserModel bad = user(8L, "data:bad");
+        when(userRepo.findInlinePicturesAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(good, bad));
+        when(userRepo.findInlinePicturesAfter(eq(8L), any(Pageable.class))).thenReturn(List.of());
+
+        assertEquals(1, job.migrateUsers());
+
+        verify(userRepo).saveAll(List.of(good));
+        verify(userCache).evict(good);
+        verify(feedCache).updateAuthor(7L, "User 7", "/api/images/good.png");
+        verify(blogChanges).authorChanged(7L);
+        verify(imageVariants).submit("/api/images/good.png");
+        verify(userCache, never()).evict(bad);
+        verify(blogChanges, never()).authorChanged(8L);
+    }
+
+    @Test
+    void run_unsupportedDataUrls_changeNothingOnAnyRun() throws Exception {
+        // The store hands back data URLs it does not take, such as SVG, unchanged
+        String svg = "data:image/svg+xml;base64,PHN2Zy8+";
+        when(imageStore.toReference(svg)).thenReturn(svg);
+        when(blogRepo.findInlineImagesAfter(anyLong(), any(Pageable.class)))
+                .thenAnswer(inv -> inv.<Long>getArgument(0) == 0 ? List.of(blog(1L, svg)) : List.of());
+        when(userRepo.findInlinePicturesAfter(anyLong(), any(Pageable.class)))
+                .thenAnswer(inv -> inv.<Long>getArgument(0) == 0 ? List.of(user(7L, svg)) : List.of());
+
+        job.run(null);
+        job.run(null);
+
+        assertEquals(0, job.migrateBlogs());
+        assertEquals(0, job.migrateUsers());
+        verify(blogRepo, never()).saveAll(any());
+        verify(userRepo, never()).saveAll(any());
+        verifyNoInteractions(blogChanges, feedCache, userCache, imageVariants);
+    }
+
+    private static BlogModel blog(Long id, String image) {
+        BlogModel blog = new BlogModel();
+        blog.setBlogId(id);
+        blog.setBlogImage(image);
+        return blog;
+    }
+
+    private static UserModel user(Long id, String picture) {
+        UserModel user = new UserModel();
+        user.setId(id);
+        user.setName("User " + id);
+        user.setPicture(picture);
+        return user;
+    }
+}
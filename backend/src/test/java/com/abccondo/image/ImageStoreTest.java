@@ -0,0 +1,81 @@
+package com.abccondo.image;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private ImageStore imageStore;
+
+    @BeforeEach
+    void setUp() {
+        imageStore = new ImageStore(dir.toString());
+    }
+
+    @Test
+    void toReference_dataUrl_storesBlobUnderContentHash() throws Exception {
+        byte[] bytes = {1, 2, 3, 4, 5};
+        String dataUrl = "data:image/png;base64," + Base64.getEncoder().encodeToString(bytes);
+
+        String ref = imageStore.toReference(dataUrl);
+
+        String name = ImageStore.sha256(bytes) + ".png";
+        assertEquals(ImageStore.URL_PREFIX + name, ref);
+        Path stored = imageStore.find(name).orElseThrow();
+        assertArrayEquals(bytes, Files.readAllBytes(stored));
+    }
+
+    @Test
+    void toReference_sameContentTwice_writesOneBlob() throws Exception {
+        String dataUrl = "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(new byte[]{9, 9, 9});
+
+        assertEquals(imageStore.toReference(dataUrl), imageStore.toReference(dataUrl));
+        try (Stream<Path> files = Files.walk(dir)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void toReference_overMaxBytes_throwsBeforeDecodingOrWriting() throws Exception {
+        ImageStore small = new ImageStore(dir.toString(), 16);
+        String dataUrl = "data:image/png;base64," + Base64.getEncoder().encodeToString(new byte[64]);
+
+        assertThrows(InvalidImageException.class, () -> small.toReference(dataUrl));
+        try (Stream<Path> files = Files.walk(dir)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void toReference_badBase64_throwsInvalidImage() {
+        assertThrows(InvalidImageException.class, () -> imageStore.toReference("data:image/png;base64,QQ=Q"));
+    }
+
+    @Test
+    void toReference_nonDataValues_passThrough() {
+        assertNull(imageStore.toReference(null));
+        assertEquals("https://example.com/a.png", imageStore.toReference("https://example.com/a.png"));
+        assertEquals("/api/images/abc.png", imageStore.toReference("/api/images/abc.png"));
+        // SVG is not accepted into the store since it can carry script
+        String svg = "data:image/svg+xml;base64," + Base64.getEncoder().encodeToString("<svg/>".getBytes());
+        assertEquals(svg, imageStore.toReference(svg));
+    }
+
+    @Test
+    void find_rejectsMalformedNames() {
+        assertTrue(imageStore.find("../../etc/passwd").isEmpty());
+        assertTrue(imageStore.find("abc.png").isEmpty());
+        assertTrue(imageStore.find("0".repeat(64) + ".png").isEmpty());
+    }
+}
@@ -0,0 +1,154 @@
+package com.abccondo.image;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageVariantServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private ImageStore imageStore;
+    private SimpleMeterRegistry registry;
+    private ThreadPoolExecutor executor;
+    private ImageVariantService variants;
+
+    @BeforeEach
+    void setUp() {
+        imageStore = new ImageStore(dir.toString());
+        registry = new SimpleMeterRegistry();
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        variants = new ImageVariantService(imageStore, registry, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void generate_writesEveryVariantWithinItsBounds() throws Exception {
+        String ref = storePng(2000, 1000);
+        String name = ImageStore.nameOf(ref);
+        String hash = name.substring(0, 64);
+
+        variants.generate(name);
+
+        BufferedImage thumb = ImageIO.read(imageStore.find(ImageVariant.THUMB.nameFor(hash)).orElseThrow().toFile());
+        assertEquals(160, thumb.getWidth());
+        assertEquals(80, thumb.getHeight());
+        BufferedImage card = ImageIO.read(imageStore.find(ImageVariant.CARD.nameFor(hash)).orElseThrow().toFile());
+        assertEquals(640, card.getWidth());
+        BufferedImage full = ImageIO.read(imageStore.find(ImageVariant.FULL.nameFor(hash)).orElseThrow().toFile());
+        assertEquals(1280, full.getWidth());
+    }
+
+    @Test
+    void generate_neverUpscales() throws Exception {
+        String name = ImageStore.nameOf(storePng(100, 50));
+
+        variants.generate(name);
+
+        BufferedImage full = ImageIO.read(imageStore.find(ImageVariant.FULL.nameFor(name.substring(0, 64)))
+                .orElseThrow().toFile());
+        assertEquals(100, full.getWidth());
+    }
+
+    @Test
+    void generate_overMaxPixels_skipsWithoutDecoding() throws Exception {
+        ImageVariantService limited = new ImageVariantService(imageStore, new SimpleMeterRegistry(), executor, 10_000);
+        String name = ImageStore.nameOf(storePng(200, 100));
+        String hash = name.substring(0, 64);
+
+        limited.generate(name);
+
+        for (ImageVariant variant : ImageVariant.values()) {
+            assertTrue(imageStore.find(variant.nameFor(hash)).isEmpty());
+        }
+        // Right at the limit is still decoded
+        String small = ImageStore.nameOf(storePng(100, 100));
+        limited.generate(small);
+        assertTrue(imageStore.find(ImageVariant.THUMB.nameFor(small.substring(0, 64))).isPresent());
+    }
+
+    @Test
+    void submit_runsInBackgroundAndRecordsLatency() throws Exception {
+        String ref = storePng(800, 600);
+
+        assertTrue(variants.submit(ref));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        String hash = ImageStore.nameOf(ref).substring(0, 64);
+        assertTrue(imageStore.find(ImageVariant.CARD.nameFor(hash)).isPresent());
+        assertEquals(1, registry.get("image.variants.latency").timer().count());
+    }
+
+    @Test
+    void submit_fullQueue_dropsWithoutBlocking() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> awaitQuietly(release));  // occupies the only worker
+        executor.execute(() -> awaitQuietly(release));  // fills the only queue slot
+
+        long start = System.nanoTime();
+        assertFalse(variants.submit(storePng(10, 10)));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(1, registry.get("image.variants.rejected").counter().count());
+        assertEquals(1, registry.get("image.variants.queue.depth").gauge().value());
+        release.countDown();
+    }
+
+    @Test
+    void submit_ignoresValuesOutsideTheStore() {
+        assertFalse(variants.submit(null));
+        assertFalse(variants.submit("https://example.com/a.png"));
+        assertFalse(variants.submit(ImageStore.URL_PREFIX + "a".repeat(64) + "_card.jpg"));
+    }
+
+    @Test
+    void variantUrl_mapsStoreReferencesOnly() {
+        String ref = ImageStore.URL_PREFIX + "a".repeat(64) + ".png";
+        assertEquals(ImageStore.URL_PREFIX + "a".repeat(64) + "_thumb.jpg", ImageVariant.THUMB.url(ref));
+        assertEquals("https://example.com/a.png", ImageVariant.CARD.url("https://example.com/a.png"));
+        assertNull(ImageVariant.CARD.url(null));
+    }
+
+    @Test
+    void toReference_variantUrl_mapsBackToOriginal() throws Exception {
+        String ref = storePng(20, 20);
+
+        assertEquals(ref, imageStore.toReference(ImageVariant.CARD.url(ref)));
+    }
+
+    private String storePng(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, (int) System.nanoTime());  // distinct content per call
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", bytes);
+        return imageStore.toReference("data:image/png;base64," + Base64.getEncoder().encodeToString(bytes.toByteArray()));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
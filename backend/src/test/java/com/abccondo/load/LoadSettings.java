@@ -0,0 +1,59 @@
+package com.abccondo.load;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Knobs for MixedTrafficLoadTest, read from -Dload.* system properties so a run can be resized
+// without editing the test, e.g. -Dload.posts=100000 -Dload.rate=200 -Dload.duration-seconds=300
+record LoadSettings(int users,
+                    int posts,
+                    int photos,
+                    int photoWidth,
+                    int photoHeight,
+                    double postsWithImages,
+                    double ratePerSecond,
+                    Duration warmup,
+                    Duration duration,
+                    int maxInFlight,
+                    Map<String, Integer> mix,
+                    int bcryptCost,
+                    long providerDelayMs,
+                    double maxErrorRate,
+                    long seed) {
+
+    static LoadSettings fromSystemProperties() {
+        return new LoadSettings(
+                Integer.getInteger("load.users", 1_000),
+                Integer.getInteger("load.posts", 10_000),
+                Integer.getInteger("load.photos", 16),
+                Integer.getInteger("load.photo-width", 1024),
+                Integer.getInteger("load.photo-height", 768),
+                Double.parseDouble(System.getProperty("load.posts-with-images", "0.75")),
+                Double.parseDouble(System.getProperty("load.rate", "40")),
+                Duration.ofSeconds(Long.getLong("load.warmup-seconds", 10)),
+                Duration.ofSeconds(Long.getLong("load.duration-seconds", 60)),
+                Integer.getInteger("load.max-in-flight", 2_000),
+                mix(System.getProperty("load.mix", "list:50,profile:20,post:5,edit:5,login:10,google:5,facebook:5")),
+                Integer.getInteger("load.bcrypt-cost", 10),
+                Long.getLong("load.provider-delay-ms", 100),
+                Double.parseDouble(System.getProperty("load.max-error-rate", "0.01")),
+                Long.getLong("load.seed", 42));
+    }
+
+    // "list:50,profile:20" -> {list=50, profile=20}, weights relative to their sum
+    static Map<String, Integer> mix(String spec) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight in load.mix, got " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(pair[0].trim(), weight);
+            }
+        }
+        return weights;
+    }
+}
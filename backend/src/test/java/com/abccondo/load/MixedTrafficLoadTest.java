@@ -0,0 +1,186 @@
+package com.abccondo.load;
+
+import com.abccondo.BackendApplication;
+import com.abccondo.security.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The whole application against a seeded database (SeededDatabase), under the traffic of an ordinary
+// day: signed-in users reading the feed and profiles, some posting or editing with a photo upload,
+// and password, Google and Facebook logins, the last two against local stand-ins for the providers
+// (StubProviders). The requests come from OpenLoop at a fixed average rate, so a slow server shows
+// up as latency. Prints requests, errors, throughput and latency percentiles per operation and fails
+// if more than load.max-error-rate of the measured requests fail.
+// Sizes, rate, duration and mix are -Dload.* properties (see LoadSettings); -Dload.app.<name>=<value>
+// sets an application property, e.g. -Dload.app.spring.threads.virtual.enabled=true.
+// Excluded from the default build; run with: mvn test -Dgroups=load -Dtest.excluded.groups= -Dtest=MixedTrafficLoadTest
+@Tag("load")
+class MixedTrafficLoadTest {
+
+    private static final String APP_PROPERTY = "load.app.";
+
+    @TempDir
+    static Path imageDir;
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final Map<Long, String> bearerTokens = new ConcurrentHashMap<>();
+
+    private LoadSettings settings;
+    private SeededDatabase db;
+    private StubProviders providers;
+    private JwtUtil jwtUtil;
+    private String baseUrl;
+
+    @Test
+    void mixedTraffic_seededDatabase_staysWithinErrorBudget() throws Exception {
+        settings = LoadSettings.fromSystemProperties();
+        long seedStart = System.nanoTime();
+        db = SeededDatabase.create("mixed-load", imageDir, settings);
+        System.out.printf("seeded %,d users and %,d posts in %,d ms%n", settings.users(), settings.posts(),
+                Duration.ofNanos(System.nanoTime() - seedStart).toMillis());
+
+        try (StubProviders stubs = new StubProviders(settings.providerDelayMs(), db::email)) {
+            providers = stubs;
+            long bootStart = System.nanoTime();
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+                    .properties(applicationProperties())
+                    .run()) {
+                System.out.printf("application started in %,d ms%n",
+                        Duration.ofNanos(System.nanoTime() - bootStart).toMillis());
+                jwtUtil = context.getBean(JwtUtil.class);
+                baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+                System.out.printf("%.0f requests/s for %d s after %d s warm-up, mix %s%n", settings.ratePerSecond(),
+                        settings.duration().toSeconds(), settings.warmup().toSeconds(), settings.mix());
+                OpenLoop.Results results = OpenLoop.run(settings, Map.of(
+                        "list", this::list,
+                        "profile", this::profile,
+                        "post", this::post,
+                        "edit", this::edit,
+                        "login", this::login,
+                        "google", this::google,
+                        "facebook", this::facebook));
+                System.out.print(results.report());
+
+                assertTrue(results.requests() > 0, "measured requests");
+                assertTrue(results.errorRate() <= settings.maxErrorRate(),
+                        String.format("error rate %.2f%% is over %.2f%%",
+                                100 * results.errorRate(), 100 * settings.maxErrorRate()));
+            }
+        }
+    }
+
+    private Map<String, Object> applicationProperties() {
+        Map<String, Object> properties = new HashMap<>(Map.ofEntries(
+                Map.entry("spring.main.banner-mode", "off"),
+                Map.entry("server.port", "0"),
+                Map.entry("spring.datasource.url", db.url),
+                Map.entry("spring.datasource.username", "sa"),
+                Map.entry("jwt.secret", "0123456789012345678901234567890123456789012345678901234567890123"),
+                Map.entry("google.client-id", StubProviders.GOOGLE_CLIENT_ID),
+                Map.entry("google.certs-url", providers.certsUrl()),
+                Map.entry("facebook.graph-url", providers.graphUrl()),
+                Map.entry("password.bcrypt.cost", String.valueOf(settings.bcryptCost())),
+                Map.entry("image.store.dir", imageDir.toString()),
+                // Every login comes from this one address; the per-address limit would turn most away
+                Map.entry("login.rate-limit.ip.capacity", "1000000"),
+                Map.entry("login.rate-limit.ip.per-minute", "1000000")));
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith(APP_PROPERTY))
+                .forEach(name -> properties.put(name.substring(APP_PROPERTY.length()), System.getProperty(name)));
+        return properties;
+    }
+
+    private int list() throws Exception {
+        return send(authorized("/api/blog/list", randomUser()).GET());
+    }
+
+    private int profile() throws Exception {
+        return send(authorized("/api/profile/" + randomUser(), randomUser()).GET());
+    }
+
+    private int post() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String image = random.nextDouble() < settings.postsWithImages() ? db.uploadDataUrl(random) : null;
+        return send(authorized("/api/blog/post", randomUser()).POST(body(blog(random, image))));
+    }
+
+    // Half the edits keep the post's image, sending back its reference as the edit form does;
+    // the others upload a new photo
+    private int edit() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long post = 1 + random.nextLong(settings.posts());
+        String image = random.nextBoolean() ? db.imageOf(post) : db.uploadDataUrl(random);
+        return send(authorized("/api/blog/" + post, db.authorOf(post)).PUT(body(blog(random, image))));
+    }
+
+    private int login() throws Exception {
+        return send(anonymous("/api/auth/login")
+                .POST(body(Map.of("email", db.email(randomUser()), "password", SeededDatabase.PASSWORD))));
+    }
+
+    private int google() throws Exception {
+        return send(anonymous("/api/auth/google")
+                .POST(body(Map.of("idToken", providers.googleIdToken(randomUser())))));
+    }
+
+    private int facebook() throws Exception {
+        return send(anonymous("/api/auth/facebook")
+                .POST(body(Map.of("accessToken", StubProviders.facebookAccessToken(randomUser())))));
+    }
+
+    private long randomUser() {
+        return 1 + ThreadLocalRandom.current().nextLong(settings.users());
+    }
+
+    private static Map<String, Object> blog(ThreadLocalRandom random, String image) {
+        Map<String, Object> blog = new HashMap<>();
+        blog.put("title", SeededDatabase.sentence(random, 3, 8));
+        blog.put("content", SeededDatabase.sentence(random, 20, 250));
+        blog.put("image", image);
+        return blog;
+    }
+
+    // Reads the whole body, as a browser would, before the request counts as done
+    private int send(HttpRequest.Builder request) throws Exception {
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray()).statusCode();
+    }
+
+    private HttpRequest.Builder authorized(String path, long user) {
+        String token = bearerTokens.computeIfAbsent(user, id -> jwtUtil.generateToken(id, db.email(id)));
+        return anonymous(path)
+                .header("Authorization", "Bearer " + token)
+                .header("Accept-Encoding", "gzip");
+    }
+
+    private HttpRequest.Builder anonymous(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json");
+    }
+
+    private HttpRequest.BodyPublisher body(Map<String, ?> fields) throws Exception {
+        return HttpRequest.BodyPublishers.ofString(json.writeValueAsString(fields));
+    }
+}
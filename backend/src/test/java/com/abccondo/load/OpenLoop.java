@@ -0,0 +1,163 @@
+package com.abccondo.load;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-model load: requests arrive as a Poisson process at the configured average rate whether or
+// not earlier ones have finished, as they do from many independent users, and each runs on its own
+// virtual thread. Latency is measured from when a request was due rather than from when it got to
+// run, so a stalled server shows up as latency instead of quietly lowering the offered load. Nothing
+// from the warm-up is recorded; arrivals past maxInFlight are dropped and counted as errors.
+final class OpenLoop {
+
+    // One request; returns the HTTP status
+    interface Operation {
+        int call() throws Exception;
+    }
+
+    record Sample(String operation, long latencyNanos, String error) {
+    }
+
+    static Results run(LoadSettings settings, Map<String, Operation> operations) {
+        List<String> names = new ArrayList<>(settings.mix().keySet());
+        int[] cumulative = new int[names.size()];
+        int total = 0;
+        for (int i = 0; i < names.size(); i++) {
+            if (!operations.containsKey(names.get(i))) {
+                throw new IllegalArgumentException("No operation named " + names.get(i) + " in load.mix");
+            }
+            total += settings.mix().get(names.get(i));
+            cumulative[i] = total;
+        }
+
+        Random arrivals = new Random(settings.seed());
+        Semaphore inFlight = new Semaphore(settings.maxInFlight());
+        ConcurrentLinkedQueue<Sample> samples = new ConcurrentLinkedQueue<>();
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / settings.ratePerSecond();
+        long warmupEnd = System.nanoTime() + settings.warmup().toNanos();
+        long end = warmupEnd + settings.duration().toNanos();
+        long due = System.nanoTime();
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                due += (long) (-Math.log(1 - arrivals.nextDouble()) * meanGapNanos);
+                if (due >= end) {
+                    break;
+                }
+                String name = names.get(pick(cumulative, arrivals.nextInt(total)));
+                Operation operation = operations.get(name);
+                boolean measured = due >= warmupEnd;
+                sleepUntil(due);
+                if (!inFlight.tryAcquire()) {
+                    if (measured) {
+                        samples.add(new Sample(name, 0, "dropped"));
+                    }
+                    continue;
+                }
+                long dueAt = due;
+                threads.execute(() -> {
+                    String error = null;
+                    try {
+                        int status = operation.call();
+                        if (status >= 300) {
+                            error = "HTTP " + status;
+                        }
+                    } catch (Exception e) {
+                        error = e.getClass().getSimpleName();
+                    } finally {
+                        inFlight.release();
+                    }
+                    if (measured) {
+                        samples.add(new Sample(name, System.nanoTime() - dueAt, error));
+                    }
+                });
+            }
+        }
+        return new Results(List.copyOf(samples), settings.duration().toMillis() / 1000.0);
+    }
+
+    private static int pick(int[] cumulative, int ticket) {
+        int i = 0;
+        while (ticket >= cumulative[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static void sleepUntil(long nanoTime) {
+        for (long wait = nanoTime - System.nanoTime(); wait > 0; wait = nanoTime - System.nanoTime()) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    // The measured window's samples; dropped arrivals count as errors but have no latency
+    record Results(List<Sample> samples, double seconds) {
+
+        long requests() {
+            return samples.size();
+        }
+
+        long errors() {
+            return samples.stream().filter(sample -> sample.error() != null).count();
+        }
+
+        double errorRate() {
+            return samples.isEmpty() ? 0 : (double) errors() / samples.size();
+        }
+
+        long requests(String operation) {
+            return samples.stream().filter(sample -> sample.operation().equals(operation)).count();
+        }
+
+        String report() {
+            Map<String, List<Sample>> byOperation = new TreeMap<>();
+            for (Sample sample : samples) {
+                byOperation.computeIfAbsent(sample.operation(), name -> new ArrayList<>()).add(sample);
+            }
+            StringBuilder report = new StringBuilder(String.format("%-10s %9s %7s %8s %9s %9s %9s %9s %9s%n",
+                    "operation", "requests", "errors", "error %", "ok/s", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+            byOperation.forEach((name, list) -> line(report, name, list));
+            line(report, "all", samples);
+
+            Map<String, Long> errors = new TreeMap<>();
+            for (Sample sample : samples) {
+                if (sample.error() != null) {
+                    errors.merge(sample.operation() + " " + sample.error(), 1L, Long::sum);
+                }
+            }
+            errors.forEach((error, count) -> report.append(String.format("  %,d x %s%n", count, error)));
+            return report.toString();
+        }
+
+        private void line(StringBuilder report, String name, List<Sample> list) {
+            long failed = list.stream().filter(sample -> sample.error() != null).count();
+            long[] latencies = list.stream()
+                    .filter(sample -> !"dropped".equals(sample.error()))
+                    .sorted(Comparator.comparingLong(Sample::latencyNanos))
+                    .mapToLong(Sample::latencyNanos)
+                    .toArray();
+            report.append(String.format("%-10s %,9d %,7d %7.2f%% %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    name, list.size(), failed, list.isEmpty() ? 0 : 100.0 * failed / list.size(),
+                    (list.size() - failed) / seconds, millis(latencies, 0.50), millis(latencies, 0.90),
+                    millis(latencies, 0.99), millis(latencies, 1.0)));
+        }
+
+        // Nearest-rank percentile
+        private static double millis(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(quantile * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.abccondo.load;
+
+import com.abccondo.image.ImageStore;
+import org.flywaydb.core.Flyway;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+// An in-memory H2 database (MySQL mode) with the Flyway schema and the users and posts of a busy
+// community, filled before the application starts so the feed snapshot and search index load them
+// the way they would from production. Photos are real JPEGs, turned into base64 data URLs and stored
+// through ImageStore just as POST /api/blog/post stores them; user N is userN@load.test with
+// PASSWORD, and post N belongs to authorOf(N).
+final class SeededDatabase {
+
+    static final String PASSWORD = "load-test-password";
+
+    private static final int BATCH = 1_000;
+    private static final int AVATARS = 8;
+    private static final String[] WORDS = ("the a our building lift parking lobby pool gym garden tonight tomorrow "
+            + "weekend residents committee meeting notice water supply repair schedule please reminder parcel "
+            + "delivery security guard visitor block level unit renovation noise hours thanks everyone lost found "
+            + "cat dog key card barbecue pit booking playground cleaning contractor fee payment management "
+            + "office closed open Monday Friday morning evening update photo shared neighbours welcome new")
+            .split(" ");
+
+    final String url;
+    private final LoadSettings settings;
+    private final List<byte[]> photos = new ArrayList<>();
+    private final String[] postImages;
+    private final AtomicLong uploads = new AtomicLong();
+
+    private SeededDatabase(String url, LoadSettings settings) {
+        this.url = url;
+        this.settings = settings;
+        this.postImages = new String[settings.posts()];
+    }
+
+    static SeededDatabase create(String name, Path imageDir, LoadSettings settings) throws SQLException {
+        SeededDatabase db = new SeededDatabase(
+                "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", settings);
+        Random random = new Random(settings.seed());
+        for (int i = 0; i < settings.photos(); i++) {
+            db.photos.add(jpeg(random, settings.photoWidth(), settings.photoHeight()));
+        }
+        ImageStore store = new ImageStore(imageDir.toString());
+        List<String> avatars = new ArrayList<>();
+        for (int i = 0; i < AVATARS; i++) {
+            avatars.add(store.toReference(dataUrl(jpeg(random, 256, 256))));
+        }
+        List<String> photoReferences = new ArrayList<>();
+        for (byte[] photo : db.photos) {
+            photoReferences.add(store.toReference(dataUrl(photo)));
+        }
+
+        // Same schema and baseline as SchemaMigrationConfig gives the application
+        Flyway.configure()
+                .dataSource(db.url, "sa", "")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+        try (Connection connection = DriverManager.getConnection(db.url, "sa", "")) {
+            connection.setAutoCommit(false);
+            db.insertUsers(connection, avatars);
+            db.insertPosts(connection, random, photoReferences);
+            connection.commit();
+        }
+        return db;
+    }
+
+    String email(long userId) {
+        return "user" + userId + "@load.test";
+    }
+
+    long authorOf(long postId) {
+        return 1 + (postId - 1) % settings.users();
+    }
+
+    // The stored reference of a seeded post's image, or null if it was seeded without one
+    String imageOf(long postId) {
+        return postImages[(int) (postId - 1)];
+    }
+
+    // A photo as the frontend uploads it. Each call appends a different trailer after the JPEG's
+    // end marker: decoders ignore it, but it gives every upload its own hash, so the image store
+    // writes a new blob instead of finding the pooled photo already on disk.
+    String uploadDataUrl(Random random) {
+        byte[] photo = photos.get(random.nextInt(photos.size()));
+        return dataUrl(ByteBuffer.allocate(photo.length + Long.BYTES)
+                .put(photo)
+                .putLong(uploads.incrementAndGet())
+                .array());
+    }
+
+    static String dataUrl(byte[] jpeg) {
+        return "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(jpeg);
+    }
+
+    static String sentence(Random random, int minWords, int maxWords) {
+        int words = minWords + random.nextInt(maxWords - minWords + 1);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private void insertUsers(Connection connection, List<String> avatars) throws SQLException {
+        // Hashed once: the cost is what logins pay, and every user can share the hash
+        String hash = new BCryptPasswordEncoder(settings.bcryptCost()).encode(PASSWORD);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO users (name, email, password, provider, picture) VALUES (?, ?, ?, NULL, ?)")) {
+            for (long id = 1; id <= settings.users(); id++) {
+                insert.setString(1, "User " + id);
+                insert.setString(2, email(id));
+                insert.setString(3, hash);
+                insert.setString(4, avatars.get((int) (id % avatars.size())));
+                insert.addBatch();
+                if (id % BATCH == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        expectMaxId(connection, "SELECT MAX(id) FROM users", settings.users());
+    }
+
+    // Oldest first, so post ids follow their creation times across the past year
+    private void insertPosts(Connection connection, Random random, List<String> photoReferences) throws SQLException {
+        LocalDateTime newest = LocalDateTime.now().minusMinutes(1);
+        long spacingSeconds = Math.max(1, Duration.ofDays(365).toSeconds() / Math.max(1, settings.posts()));
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO blogs (blog_title, blog_image, "
+                + "blog_content, blog_author_id, blog_created_at, blog_version) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (long id = 1; id <= settings.posts(); id++) {
+                String image = random.nextDouble() < settings.postsWithImages()
+                        ? photoReferences.get(random.nextInt(photoReferences.size()))
+                        : null;
+                postImages[(int) (id - 1)] = image;
+                insert.setString(1, sentence(random, 3, 8));
+                insert.setString(2, image);
+                insert.setString(3, sentence(random, 20, 250));
+                insert.setLong(4, authorOf(id));
+                insert.setObject(5, newest.minusSeconds((settings.posts() - id) * spacingSeconds));
+                insert.setLong(6, id);
+                insert.addBatch();
+                if (id % BATCH == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        expectMaxId(connection, "SELECT MAX(blog_id) FROM blogs", settings.posts());
+        try (Statement update = connection.createStatement()) {
+            update.executeUpdate("UPDATE change_versions SET current_version = " + settings.posts()
+                    + " WHERE counter_name = 'blog'");
+        }
+    }
+
+    // Ids are left to the database; the mapping above assumes they came out as 1..count
+    private static void expectMaxId(Connection connection, String query, long count) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet max = statement.executeQuery(query)) {
+            max.next();
+            if (count > 0 && max.getLong(1) != count) {
+                throw new IllegalStateException(query + " returned " + max.getLong(1) + ", expected " + count);
+            }
+        }
+    }
+
+    // Something like a phone photo: soft gradients, a few shapes and sensor noise, at JPEG's default
+    // quality, so it compresses (and later resizes) about as a real one does
+    private static byte[] jpeg(Random random, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, new Color(random.nextInt(0xFFFFFF)),
+                width, height, new Color(random.nextInt(0xFFFFFF))));
+        g.fillRect(0, 0, width, height);
+        for (int i = 0; i < 24; i++) {
+            g.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256), 96));
+            g.fillOval(random.nextInt(width), random.nextInt(height), 20 + random.nextInt(width / 3),
+                    20 + random.nextInt(height / 3));
+        }
+        g.dispose();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb = image.getRGB(x, y);
+                int noise = random.nextInt(17) - 8;
+                image.setRGB(x, y, (clamp((rgb >> 16 & 0xFF) + noise) << 16)
+                        | (clamp((rgb >> 8 & 0xFF) + noise) << 8) | clamp((rgb & 0xFF) + noise));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "jpg", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static int clamp(int channel) {
+        return Math.max(0, Math.min(255, channel));
+    }
+}
@@ -0,0 +1,153 @@
+package com.abccondo.load;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.json.webtoken.JsonWebSignature;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongFunction;
+
+// Local stand-ins for the two login providers, so the load test never leaves the machine:
+// Google's JWKS endpoint serving the key that googleIdToken signs with, and the Graph API's /me,
+// which answers access token "tok-N" with user N's profile. Both wait delayMs first, about what a
+// round trip to the real services costs; each request gets its own virtual thread for that.
+final class StubProviders implements AutoCloseable {
+
+    static final String GOOGLE_CLIENT_ID = "load-test.apps.googleusercontent.com";
+    private static final String KEY_ID = "load-test-key";
+
+    private final HttpServer server;
+    private final ExecutorService handlers = Executors.newVirtualThreadPerTaskExecutor();
+    private final KeyPair key;
+    private final long delayMs;
+    private final LongFunction<String> emailOf;
+    private final Map<Long, String> idTokens = new ConcurrentHashMap<>();
+
+    StubProviders(long delayMs, LongFunction<String> emailOf) throws IOException, NoSuchAlgorithmException {
+        this.delayMs = delayMs;
+        this.emailOf = emailOf;
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        this.key = generator.generateKeyPair();
+
+        byte[] jwks = jwks((RSAPublicKey) key.getPublic()).getBytes(StandardCharsets.UTF_8);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1_000);
+        server.setExecutor(handlers);
+        server.createContext("/certs", exchange -> respond(exchange, 200, jwks, "public, max-age=3600"));
+        server.createContext("/me", exchange -> {
+            String token = queryParameter(exchange, "access_token");
+            if (token == null || !token.startsWith("tok-")) {
+                respond(exchange, 400, json("{\"error\":{\"message\":\"Invalid OAuth access token\"}}"), null);
+                return;
+            }
+            long user = Long.parseLong(token.substring("tok-".length()));
+            respond(exchange, 200, json("{\"id\":\"fb-" + user + "\",\"name\":\"User " + user
+                    + "\",\"email\":\"" + emailOf.apply(user) + "\"}"), null);
+        });
+        server.start();
+    }
+
+    String certsUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/certs";
+    }
+
+    String graphUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    // A Google ID token for user N, signed once and reused as a browser would within its hour
+    String googleIdToken(long user) {
+        return idTokens.computeIfAbsent(user, this::sign);
+    }
+
+    static String facebookAccessToken(long user) {
+        return "tok-" + user;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    private String sign(long user) {
+        JsonWebSignature.Header header = new JsonWebSignature.Header();
+        header.setAlgorithm("RS256");
+        header.setKeyId(KEY_ID);
+        GoogleIdToken.Payload payload = new GoogleIdToken.Payload();
+        long nowSeconds = System.currentTimeMillis() / 1000;
+        payload.setIssuer("https://accounts.google.com");
+        payload.setAudience(GOOGLE_CLIENT_ID);
+        payload.setIssuedAtTimeSeconds(nowSeconds);
+        payload.setExpirationTimeSeconds(nowSeconds + 3600);
+        payload.setEmail(emailOf.apply(user));
+        payload.set("name", "User " + user);
+        try {
+            return JsonWebSignature.signUsingRsaSha256(key.getPrivate(), GsonFactory.getDefaultInstance(), header, payload);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new IllegalStateException("Could not sign a Google ID token", e);
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, byte[] json, String cacheControl) throws IOException {
+        try (exchange) {
+            Thread.sleep(delayMs);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if (cacheControl != null) {
+                exchange.getResponseHeaders().set("Cache-Control", cacheControl);
+            }
+            exchange.sendResponseHeaders(status, json.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(json);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] json(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                return URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static String jwks(RSAPublicKey key) {
+        Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+        return "{\"keys\":[{\"kty\":\"RSA\",\"alg\":\"RS256\",\"use\":\"sig\",\"kid\":\"" + KEY_ID
+                + "\",\"n\":\"" + base64.encodeToString(unsigned(key.getModulus().toByteArray()))
+                + "\",\"e\":\"" + base64.encodeToString(unsigned(key.getPublicExponent().toByteArray())) + "\"}]}";
+    }
+
+    private static byte[] unsigned(byte[] bytes) {
+        return bytes.length > 1 && bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    }
+}
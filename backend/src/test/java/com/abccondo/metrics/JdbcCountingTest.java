@@ -0,0 +1,76 @@
+package com.abccondo.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcCountingTest {
+
+    private final JdbcTemplate jdbc = new JdbcTemplate(JdbcCounting.wrap(new DriverManagerDataSource(
+            "jdbc:h2:mem:jdbc-counting;DB_CLOSE_DELAY=-1", "sa", "")));
+
+    @BeforeEach
+    void setUp() {
+        jdbc.execute("CREATE TABLE IF NOT EXISTS posts (id INT PRIMARY KEY, title VARCHAR(50))");
+        jdbc.update("DELETE FROM posts");
+        jdbc.batchUpdate("INSERT INTO posts VALUES (?, ?)",
+                List.of(new Object[]{1, "a"}, new Object[]{2, "b"}, new Object[]{3, "c"}));
+    }
+
+    @AfterEach
+    void tearDown() {
+        JdbcCounting.stop();
+    }
+
+    @Test
+    void countsStatementsAndRowsRead() {
+        JdbcCounting.Counts counts = JdbcCounting.start();
+
+        assertEquals(3, jdbc.queryForList("SELECT title FROM posts", String.class).size());
+        assertEquals("b", jdbc.queryForObject("SELECT title FROM posts WHERE id = ?", String.class, 2));
+        jdbc.update("UPDATE posts SET title = ? WHERE id = ?", "d", 3);
+        // A batch is one round trip however many rows it carries
+        jdbc.batchUpdate("INSERT INTO posts VALUES (?, ?)", List.of(new Object[]{4, "e"}, new Object[]{5, "f"}));
+
+        assertEquals(4, counts.statements());
+        assertEquals(4, counts.rows());
+    }
+
+    @Test
+    void plainStatementResultSet_isCounted() throws Exception {
+        JdbcCounting.Counts counts = JdbcCounting.start();
+
+        try (Connection connection = jdbc.getDataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            assertTrue(statement.execute("SELECT id FROM posts"));
+            try (ResultSet rows = statement.getResultSet()) {
+                while (rows.next()) {
+                    assertTrue(rows.getInt(1) > 0);
+                }
+            }
+        }
+
+        assertEquals(1, counts.statements());
+        assertEquals(3, counts.rows());
+    }
+
+    @Test
+    void notCounting_passesCallsThrough() {
+        JdbcCounting.Counts counts = JdbcCounting.start();
+        JdbcCounting.stop();
+
+        assertEquals(3, jdbc.queryForList("SELECT title FROM posts", String.class).size());
+
+        assertEquals(0, counts.statements());
+        assertEquals(0, counts.rows());
+    }
+}
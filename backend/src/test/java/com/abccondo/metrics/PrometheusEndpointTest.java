@@ -0,0 +1,106 @@
+package com.abccondo.metrics;
+
+import com.abccondo.BackendApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The whole application on an in-memory database: a few real requests, then one scrape
+class PrometheusEndpointTest {
+
+    private static ConfigurableApplicationContext context;
+    private static final HttpClient http = HttpClient.newHttpClient();
+    private static String baseUrl;
+
+    @BeforeAll
+    static void start() {
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .properties(Map.of(
+                        "spring.main.banner-mode", "off",
+                        "server.port", "0",
+                        "spring.datasource.url", "jdbc:h2:mem:prometheus;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.username", "sa",
+                        "jwt.secret", "0123456789012345678901234567890123456789012345678901234567890123",
+                        "google.client-id", "metrics-test",
+                        "password.bcrypt.cost", "4"))
+                .run();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    private static HttpResponse<String> send(String method, String path, String token, String json) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .method(method, json == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json");
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // Value of the first sample whose line starts with the metric name and contains every label given
+    private static double sample(String scrape, String name, String... labels) {
+        for (String line : scrape.split("\n")) {
+            if (!line.startsWith(name + "{") && !line.startsWith(name + " ")) {
+                continue;
+            }
+            boolean matches = true;
+            for (String label : labels) {
+                matches &= line.contains(label);
+            }
+            if (matches) {
+                return Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+            }
+        }
+        return fail("no " + name + " sample with " + String.join(", ", labels) + " in:\n" + scrape);
+    }
+
+    @Test
+    void scrape_coversRoutesQueriesAndAuthPaths() throws Exception {
+        assertEquals(200, send("POST", "/api/auth/register", null,
+                "{\"name\":\"Ann\",\"email\":\"ann@example.com\",\"password\":\"secret\"}").statusCode());
+        HttpResponse<String> login = send("POST", "/api/auth/login", null,
+                "{\"email\":\"ann@example.com\",\"password\":\"secret\"}");
+        assertEquals(200, login.statusCode());
+        String token = login.body().replaceAll(".*\"token\":\"([^\"]+)\".*", "$1");
+        assertEquals(200, send("GET", "/api/blog/list", token, null).statusCode());
+
+        HttpResponse<String> scrape = send("GET", "/actuator/prometheus", null, null);
+
+        assertEquals(200, scrape.statusCode());
+        String body = scrape.body();
+        String list = "uri=\"/api/blog/list\"";
+        assertEquals(1, sample(body, "http_server_requests_seconds_count", list));
+        assertEquals(1, sample(body, "http_server_requests_seconds_bucket", list, "le=\"10.0\""));
+        assertTrue(sample(body, "http_server_requests_jdbc_statements_bucket", list, "le=\"1.0\"") >= 1);
+        // Registration looks the email up and inserts the user
+        assertTrue(sample(body, "http_server_requests_jdbc_statements_sum", "uri=\"/api/auth/register\"") >= 2);
+        assertTrue(sample(body, "http_server_requests_jdbc_rows_sum", "uri=\"/api/auth/login\"") >= 1);
+        assertEquals(1, sample(body, "password_hashing_seconds_count", "operation=\"encode\""));
+        assertEquals(1, sample(body, "password_hashing_seconds_count", "operation=\"matches\""));
+        assertEquals(1, sample(body, "jwt_parse_seconds_count"));
+        sample(body, "jwt_parse_seconds", "quantile=\"0.99\"");
+        assertEquals(0, sample(body, "hikaricp_connections_pending"));
+    }
+
+    @Test
+    void onlyHealthAndPrometheus_areOpen() throws Exception {
+        assertEquals(200, send("GET", "/actuator/health", null, null).statusCode());
+        assertNotEquals(200, send("GET", "/actuator/env", null, null).statusCode());
+        assertNotEquals(200, send("GET", "/actuator/metrics", null, null).statusCode());
+    }
+}
@@ -0,0 +1,230 @@
+package com.abccondo.repository;
+
+import com.abccondo.model.BlogModel;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Applies the Flyway migrations to an in-memory H2 database in MySQL mode, then checks with EXPLAIN
+// that the SQL Hibernate generates for the hot repository queries is served from an index. A query
+// that falls back to a table scan, or an index that goes missing, fails here.
+class SchemaMigrationTest {
+
+    private static final int AUTHORS = 40;
+    private static final int POSTS = 2000;
+
+    private static ConfigurableApplicationContext context;
+    private static BlogRepository blogRepo;
+    private static BlogTombstoneRepository tombstoneRepo;
+    private static JdbcTemplate jdbc;
+
+    // Not a @Configuration, so scanning the application package does not pick it up
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, FlywayAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class, TransactionAutoConfiguration.class})
+    @EnableJpaRepositories(basePackageClasses = BlogRepository.class)
+    @EntityScan(basePackageClasses = BlogModel.class)
+    @Import(SchemaMigrationConfig.class)
+    static class JpaOnly {
+    }
+
+    // Records every statement Hibernate sends, so the tests EXPLAIN exactly what runs
+    public static class CapturingInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeAll
+    static void migrate() {
+        context = new SpringApplicationBuilder(JpaOnly.class)
+                .web(WebApplicationType.NONE)
+                .properties(Map.of(
+                        "spring.main.banner-mode", "off",
+                        "spring.datasource.url", "jdbc:h2:mem:migrations;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto", "validate",
+                        "spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                        CapturingInspector.class.getName()))
+                .run();
+        blogRepo = context.getBean(BlogRepository.class);
+        tombstoneRepo = context.getBean(BlogTombstoneRepository.class);
+        jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+
+        // Enough rows, spread over enough authors, that a scan is never the cheaper plan
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Object[]> users = new ArrayList<>();
+        for (long id = 1; id <= AUTHORS; id++) {
+            users.add(new Object[]{id, "User " + id, "user" + id + "@example.com"});
+        }
+        jdbc.batchUpdate("INSERT INTO users (id, name, email) VALUES (?, ?, ?)", users);
+        List<Object[]> posts = new ArrayList<>();
+        for (long id = 1; id <= POSTS; id++) {
+            posts.add(new Object[]{id, "Post " + id, "Content", id % AUTHORS + 1, start.plusMinutes(id), id});
+        }
+        jdbc.batchUpdate("INSERT INTO blogs (blog_id, blog_title, blog_content, blog_author_id, blog_created_at, "
+                + "blog_version) VALUES (?, ?, ?, ?, ?, ?)", posts);
+        jdbc.execute("ANALYZE");
+    }
+
+    @AfterAll
+    static void close() {
+        context.close();
+    }
+
+    @BeforeEach
+    void clearStatements() {
+        CapturingInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void migrations_allApplied() {
+        assertEquals(List.of("1", "2", "3", "4"), versions(context.getBean(Flyway.class)));
+        assertEquals(0L, jdbc.queryForObject(
+                "SELECT current_version FROM change_versions WHERE counter_name = 'blog'", Long.class));
+        assertEquals(0L, jdbc.queryForObject(
+                "SELECT current_version FROM change_versions WHERE counter_name = 'blog_tombstones_pruned'", Long.class));
+    }
+
+    @Test
+    void findByBlogAuthorId_usesAuthorIndex() {
+        blogRepo.findByBlogAuthorId(7L);
+
+        assertIndexed(lastSelect(), "idx_blogs_author_created");
+    }
+
+    @Test
+    void feedPages_readCreatedIndexInOrder() {
+        blogRepo.findFeedPage(PageRequest.of(0, 21));
+        assertSortedByIndex(lastSelect(), "idx_blogs_created_id");
+
+        blogRepo.findSummaryPage(PageRequest.of(0, 21));
+        assertSortedByIndex(lastSelect(), "idx_blogs_created_id");
+    }
+
+    @Test
+    void authorFeedPage_usesAuthorIndex() {
+        blogRepo.findAuthorFeedPage(7L, PageRequest.of(0, 21));
+        assertIndexed(lastSelect(), "idx_blogs_author_created");
+
+        blogRepo.findAuthorFeedPageAfter(7L, LocalDateTime.of(2025, 1, 1, 12, 0), 500L, PageRequest.of(0, 21));
+        assertIndexed(lastSelect(), "idx_blogs_author_created");
+    }
+
+    @Test
+    void changesSince_useVersionIndexes() {
+        blogRepo.findChangesSince(1990L, PageRequest.of(0, 101));
+        assertIndexed(lastSelect(), "idx_blogs_version");
+
+        tombstoneRepo.findByVersionGreaterThanOrderByVersion(1990L, PageRequest.of(0, 101));
+        assertIndexed(lastSelect(), "idx_blog_tombstones_version");
+    }
+
+    @Test
+    void tombstonePruning_findsAndDeletesThroughNewestExpired() {
+        LocalDateTime cutoff = LocalDateTime.of(2025, 3, 1, 0, 0);
+        jdbc.update("INSERT INTO blog_tombstones (blog_id, tombstone_version, deleted_at) VALUES (9001, 5, ?)",
+                cutoff.minusDays(1));
+        jdbc.update("INSERT INTO blog_tombstones (blog_id, tombstone_version, deleted_at) VALUES (9002, 6, ?)",
+                cutoff.plusDays(1));
+        try {
+            assertEquals(5L, tombstoneRepo.findNewestVersionBefore(cutoff));
+            assertNull(tombstoneRepo.findNewestVersionBefore(cutoff.minusDays(2)));
+
+            Integer deleted = new TransactionTemplate(context.getBean(PlatformTransactionManager.class))
+                    .execute(status -> tombstoneRepo.deleteThroughVersion(5L));
+
+            assertEquals(1, deleted);
+            assertEquals(List.of(9002L), jdbc.queryForList("SELECT blog_id FROM blog_tombstones", Long.class));
+        } finally {
+            jdbc.update("DELETE FROM blog_tombstones");
+        }
+    }
+
+    @Test
+    void existingDdlAutoSchema_isBaselinedAndMigratedFromV2() {
+        String url = "jdbc:h2:mem:baseline;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        JdbcTemplate legacy = new JdbcTemplate(new DriverManagerDataSource(url));
+        // What ddl-auto left behind: the V1 tables with data, and no migration history
+        legacy.execute("CREATE TABLE users (id BIGINT NOT NULL AUTO_INCREMENT, name VARCHAR(255), "
+                + "email VARCHAR(255), password VARCHAR(255), provider VARCHAR(255), picture TEXT, PRIMARY KEY (id))");
+        legacy.execute("CREATE TABLE blogs (blog_id BIGINT NOT NULL AUTO_INCREMENT, blog_title VARCHAR(255), "
+                + "blog_image VARCHAR(255), blog_content TEXT, blog_author_id BIGINT, blog_created_at DATETIME(6), "
+                + "PRIMARY KEY (blog_id))");
+        legacy.update("INSERT INTO blogs (blog_title, blog_author_id) VALUES ('Kept', 1)");
+
+        FluentConfiguration configuration = Flyway.configure().dataSource(url, null, null);
+        new SchemaMigrationConfig().baselineExistingSchema().customize(configuration);
+        Flyway flyway = configuration.load();
+        flyway.migrate();
+
+        assertEquals(List.of("1", "2", "3", "4"), versions(flyway));
+        assertEquals("Kept", legacy.queryForObject("SELECT blog_title FROM blogs", String.class));
+        assertNull(legacy.queryForObject("SELECT blog_version FROM blogs", Long.class));
+    }
+
+    private static List<String> versions(Flyway flyway) {
+        return Arrays.stream(flyway.info().applied()).map(m -> m.getVersion().getVersion()).toList();
+    }
+
+    private static String lastSelect() {
+        List<String> statements = CapturingInspector.STATEMENTS;
+        for (int i = statements.size() - 1; i >= 0; i--) {
+            if (statements.get(i).trim().toLowerCase().startsWith("select")) {
+                return statements.get(i);
+            }
+        }
+        throw new AssertionError("No query was run");
+    }
+
+    private static String explain(String sql) {
+        // Parameters are bound as NULL; H2 still plans the statement for the indexed columns
+        int parameters = sql.length() - sql.replace("?", "").length();
+        return String.join("\n", jdbc.queryForList("EXPLAIN " + sql, String.class, new Object[parameters]));
+    }
+
+    private static void assertIndexed(String sql, String index) {
+        String plan = explain(sql).toLowerCase();
+        assertTrue(plan.contains(index), () -> "Expected " + index + " in plan:\n" + plan);
+        assertFalse(plan.contains("blogs.tablescan") || plan.contains("blog_tombstones.tablescan"),
+                () -> "Table scan in plan:\n" + plan);
+    }
+
+    private static void assertSortedByIndex(String sql, String index) {
+        assertIndexed(sql, index);
+        String plan = explain(sql).toLowerCase();
+        assertTrue(plan.contains("index sorted"), () -> "Expected the index to provide the order:\n" + plan);
+    }
+}
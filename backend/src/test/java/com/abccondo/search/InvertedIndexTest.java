@@ -0,0 +1,209 @@
+package com.abccondo.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+    private final InvertedIndex index = new InvertedIndex();
+
+    private void add(long id, String title, String content) {
+        index.add(InvertedIndex.analyze(id, title, content));
+    }
+
+    @Test
+    void search_ranksTitleMatchesAndMoreMatchedWordsFirst() {
+        add(1, "Weekly notes", "The garden party is on Sunday");
+        add(2, "Garden party", "Bring a dish to share");
+        add(3, "Lost cat", "Seen near the garden");
+
+        assertEquals(List.of(2L, 1L, 3L), index.search("garden party", 10));
+        assertEquals(List.of(2L), index.search("garden party", 1));
+    }
+
+    @Test
+    void search_unknownOrEmptyQuery_returnsNothing() {
+        add(1, "Garden party", "Sunday");
+
+        assertTrue(index.search("barbecue", 10).isEmpty());
+        assertTrue(index.search("  !! ", 10).isEmpty());
+    }
+
+    @Test
+    void search_prefixMatchesEveryWordStartingWithIt() {
+        add(1, "Parking", "Visitor parking rules");
+        add(2, "Park", "Dog walking in the park");
+        add(3, "Party", "Rooftop");
+
+        List<Long> hits = index.search("park*", 10);
+
+        assertEquals(2, hits.size());
+        assertTrue(hits.containsAll(List.of(1L, 2L)));
+        // A single letter is too short to expand, and without * the word must match exactly
+        assertTrue(index.search("p*", 10).isEmpty());
+        assertEquals(List.of(2L), index.search("park", 10));
+    }
+
+    @Test
+    void add_samePostAgain_replacesItsWords() {
+        add(1, "Lift broken", "Use the stairs");
+        add(1, "Lift fixed", "Back in service");
+
+        assertTrue(index.search("broken", 10).isEmpty());
+        assertEquals(List.of(1L), index.search("fixed", 10));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void remove_dropsPostAndUnusedWords() {
+        add(1, "Lift broken", "Use the stairs");
+        add(2, "Stairs", "Repainted");
+
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+
+        assertTrue(index.search("lift", 10).isEmpty());
+        assertEquals(List.of(2L), index.search("stairs", 10));
+        assertEquals(2, index.termCount());
+    }
+
+    @Test
+    void search_equalScores_preferMoreRecentlyWrittenPost() {
+        add(5, "Notice", "Water off");
+        add(3, "Notice", "Water off");
+
+        assertEquals(List.of(3L, 5L), index.search("water", 10));
+    }
+
+    @Test
+    void add_manyEdits_reclaimsDeadDocNumbersAndKeepsOrder() {
+        add(1, "Notice", "Water off");
+        add(2, "Notice", "Water off");
+        for (int i = 0; i < 10 * InvertedIndex.MIN_DEAD_SLOTS; i++) {
+            add(3 + i % 5, "Edited " + i, "Lift update");
+        }
+
+        assertTrue(index.docSlots() <= 2 * InvertedIndex.MIN_DEAD_SLOTS + 7, "slots " + index.docSlots());
+        assertEquals(7, index.size());
+        // Post 2 was written after post 1, and stays ahead of it on a tie across renumbering
+        assertEquals(List.of(2L, 1L), index.search("water", 10));
+        assertEquals(5, index.search("lift", 10).size());
+        assertEquals(List.of(3 + (10 * InvertedIndex.MIN_DEAD_SLOTS - 1) % 5L),
+                index.search("edited " + (10 * InvertedIndex.MIN_DEAD_SLOTS - 1), 1));
+    }
+
+    // The pruned ranking must pick posts with the same scores as scoring every post in full
+    @Test
+    void search_matchesExhaustiveBm25() {
+        Random random = new Random(7);
+        String[] words = new String[300];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = "w" + i;
+        }
+        Map<Long, InvertedIndex.Analyzed> posts = new HashMap<>();
+        for (long id = 1; id <= 3000; id++) {
+            InvertedIndex.Analyzed post = InvertedIndex.analyze(id, sentence(words, random, 1 + random.nextInt(5)),
+                    sentence(words, random, 5 + random.nextInt(60)));
+            posts.put(id, post);
+            index.add(post);
+        }
+
+        for (int q = 0; q < 200; q++) {
+            List<String> query = new ArrayList<>();
+            for (int i = 0, n = 1 + random.nextInt(4); i < n; i++) {
+                query.add(words[skewed(random, words.length)]);
+            }
+            Map<Long, Double> expected = exhaustive(posts, query);
+            List<Double> best = expected.values().stream().sorted(Comparator.reverseOrder()).limit(10).toList();
+
+            List<Long> hits = index.search(String.join(" ", query), 10);
+
+            assertEquals(best.size(), hits.size(), "hits for " + query);
+            for (int i = 0; i < hits.size(); i++) {
+                assertEquals(best.get(i), expected.get(hits.get(i)), 1e-4, "rank " + i + " for " + query);
+            }
+        }
+    }
+
+    // Concurrent queries share the pooled score accumulators; each must still get its own results
+    @Test
+    void search_concurrentMultiWordQueries_matchSequentialResults() throws Exception {
+        Random random = new Random(11);
+        String[] words = new String[50];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = "w" + i;
+        }
+        for (long id = 1; id <= 2000; id++) {
+            add(id, sentence(words, random, 3), sentence(words, random, 20));
+        }
+        List<String> queries = new ArrayList<>();
+        for (int q = 0; q < 100; q++) {
+            queries.add(words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]);
+        }
+        Map<String, List<Long>> expected = new HashMap<>();
+        for (String query : queries) {
+            expected.put(query, index.search(query, 10));
+        }
+
+        List<Future<?>> results = new ArrayList<>();
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int round = 0; round < 20; round++) {
+                for (String query : queries) {
+                    results.add(threads.submit(() -> assertEquals(expected.get(query), index.search(query, 10), query)));
+                }
+            }
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+    }
+
+    private static Map<Long, Double> exhaustive(Map<Long, InvertedIndex.Analyzed> posts, List<String> query) {
+        double averageLength = posts.values().stream().mapToInt(InvertedIndex.Analyzed::length).average().orElse(0);
+        Map<String, Integer> df = new HashMap<>();
+        for (String word : query) {
+            df.put(word, (int) posts.values().stream().filter(p -> List.of(p.terms()).contains(word)).count());
+        }
+        Map<Long, Double> scores = new HashMap<>();
+        for (InvertedIndex.Analyzed post : posts.values()) {
+            double score = 0;
+            for (String word : df.keySet()) {
+                int i = List.of(post.terms()).indexOf(word);
+                if (i >= 0) {
+                    int tf = post.freqs()[i];
+                    double idf = Math.log(1 + (posts.size() - df.get(word) + 0.5) / (df.get(word) + 0.5));
+                    double norm = InvertedIndex.K1 * (1 - InvertedIndex.B + InvertedIndex.B * post.length() / averageLength);
+                    score += idf * tf * (InvertedIndex.K1 + 1) / (tf + norm);
+                }
+            }
+            if (score > 0) {
+                scores.put(post.blogId(), score);
+            }
+        }
+        return scores;
+    }
+
+    private static String sentence(String[] words, Random random, int length) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sentence.append(words[skewed(random, words.length)]).append(' ');
+        }
+        return sentence.toString();
+    }
+
+    // Low indexes far more often, so some words are in most posts and others in only a few
+    private static int skewed(Random random, int bound) {
+        return (int) (bound * Math.pow(random.nextDouble(), 3));
+    }
+}
@@ -0,0 +1,102 @@
+package com.abccondo.search;
+
+import com.abccondo.repository.BlogRepository;
+import com.abccondo.repository.BlogTextView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SearchIndexTest {
+
+    private static final ProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
+    private final BlogRepository blogRepo = mock(BlogRepository.class);
+    private final List<BlogTextView> rows = new ArrayList<>();
+    // Batches of two, tokenized on two threads, so a handful of rows covers the read-ahead
+    private final SearchIndex search = new SearchIndex(blogRepo, new SimpleMeterRegistry(), 2, 2);
+
+    private static BlogTextView row(long id, String title, String content) {
+        return PROJECTIONS.createProjection(BlogTextView.class, Map.of("id", id, "title", title, "content", content));
+    }
+
+    private void servePages() {
+        when(blogRepo.findTextAfter(anyLong(), any(Pageable.class))).thenAnswer(inv -> {
+            long after = inv.getArgument(0);
+            int size = inv.<Pageable>getArgument(1).getPageSize();
+            return rows.stream().filter(r -> r.getId() > after).limit(size).toList();
+        });
+    }
+
+    @Test
+    void rebuild_loadsEveryPostInPages() {
+        for (long id = 1; id <= 9; id++) {
+            rows.add(row(id, "Notice " + id, id % 2 == 0 ? "Pool maintenance" : "Lift maintenance"));
+        }
+        servePages();
+        assertFalse(search.isReady());
+
+        search.rebuild();
+
+        assertTrue(search.isReady());
+        assertEquals(9, search.size());
+        assertEquals(4, search.search("pool", 20).size());
+        assertEquals(9, search.search("maintenance", 20).size());
+        // Keyset pages: 1-2, 3-4, 5-6, 7-8, then 9 alone ends the scan
+        verify(blogRepo).findTextAfter(eq(0L), any(Pageable.class));
+        verify(blogRepo).findTextAfter(eq(8L), any(Pageable.class));
+        verify(blogRepo, times(5)).findTextAfter(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void rebuild_replaysWritesMadeWhileLoading() {
+        rows.add(row(1, "Garden party", "Sunday"));
+        rows.add(row(2, "Lost cat", "Grey tabby"));
+        rows.add(row(3, "Bike room", "New racks"));
+        when(blogRepo.findTextAfter(anyLong(), any(Pageable.class))).thenAnswer(inv -> {
+            long after = inv.getArgument(0);
+            if (after == 0) {
+                // Saved by a request while the loader is between pages
+                search.index(4L, "Garden tools", "Shared shed");
+                search.remove(2L);
+                search.index(1L, "Garden party moved", "Saturday");
+            }
+            return rows.stream().filter(r -> r.getId() > after).limit(2).toList();
+        });
+
+        search.rebuild();
+
+        assertEquals(List.of(1L), search.search("saturday", 20));
+        assertTrue(search.search("sunday", 20).isEmpty());
+        assertTrue(search.search("cat", 20).isEmpty());
+        assertEquals(List.of(4L), search.search("tools", 20));
+        assertEquals(3, search.size());
+    }
+
+    @Test
+    void rebuild_failure_keepsCurrentIndex() {
+        rows.add(row(1, "Garden party", "Sunday"));
+        servePages();
+        search.rebuild();
+
+        when(blogRepo.findTextAfter(anyLong(), any(Pageable.class))).thenThrow(new IllegalStateException("db down"));
+        search.rebuild();
+
+        assertTrue(search.isReady());
+        assertEquals(List.of(1L), search.search("garden", 20));
+        // Writes after the failed load no longer queue up for a replay
+        search.index(2L, "Garden tools", "Shed");
+        assertEquals(2, search.search("garden", 20).size());
+    }
+}
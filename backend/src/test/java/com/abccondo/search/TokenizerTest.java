@@ -0,0 +1,29 @@
+package com.abccondo.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenizerTest {
+
+    @Test
+    void tokens_splitsOnNonWordCharactersAndLowerCases() {
+        assertEquals(List.of("pool", "closed", "on", "3rd", "floor"),
+                Tokenizer.tokens("Pool CLOSED on 3rd-floor!"));
+    }
+
+    @Test
+    void tokens_foldsAccentsAndDropsApostrophes() {
+        assertEquals(List.of("cafe", "dont", "naive"), Tokenizer.tokens("Café don't naïve"));
+        assertEquals(List.of("its"), Tokenizer.tokens("it’s"));
+    }
+
+    @Test
+    void tokens_skipsOverlongWordsAndEmptyText() {
+        assertEquals(List.of("see", "here"), Tokenizer.tokens("see " + "a".repeat(41) + " here"));
+        assertTrue(Tokenizer.tokens(null).isEmpty());
+        assertTrue(Tokenizer.tokens(" -- ").isEmpty());
+    }
+}
@@ -0,0 +1,35 @@
+package com.abccondo.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BCryptCostCalibratorTest {
+
+    private static final long MS = 1_000_000;
+
+    @Test
+    void calibrate_picksHighestCostWithinTarget() {
+        // 50 ms at cost 10 -> 100 ms at 11, 200 ms at 12, 400 ms at 13
+        assertEquals(12, BCryptCostCalibrator.calibrate(250, cost -> 50 * MS));
+        assertEquals(13, BCryptCostCalibrator.calibrate(400, cost -> 50 * MS));
+    }
+
+    @Test
+    void calibrate_slowMachine_staysAtMinimum() {
+        assertEquals(BCryptCostCalibrator.MIN_COST, BCryptCostCalibrator.calibrate(250, cost -> 400 * MS));
+    }
+
+    @Test
+    void calibrate_fastMachine_isCapped() {
+        assertEquals(BCryptCostCalibrator.MAX_COST, BCryptCostCalibrator.calibrate(250, cost -> MS / 10));
+    }
+
+    @Test
+    void calibrate_usesMedianSample() {
+        long[] samples = {50 * MS, 900 * MS, 50 * MS};
+        int[] call = {0};
+
+        assertEquals(12, BCryptCostCalibrator.calibrate(250, cost -> samples[call[0]++]));
+    }
+}
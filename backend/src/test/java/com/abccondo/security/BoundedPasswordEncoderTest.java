@@ -0,0 +1,102 @@
+package com.abccondo.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ThreadPoolExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private BoundedPasswordEncoder newEncoder(PasswordEncoder delegate, int threads, int queueCapacity) {
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity));
+        return new BoundedPasswordEncoder(delegate, registry, executor);
+    }
+
+    @Test
+    void encodeAndMatches_runOffTheCallerThread() {
+        Thread caller = Thread.currentThread();
+        PasswordEncoder delegate = spy(new BCryptPasswordEncoder(4));
+        doAnswer(inv -> {
+            assertNotSame(caller, Thread.currentThread());
+            return inv.callRealMethod();
+        }).when(delegate).encode(any());
+        BoundedPasswordEncoder encoder = newEncoder(delegate, 2, 4);
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("wrong", hash));
+        verify(delegate).encode("secret");
+        assertEquals(1, registry.get("password.hashing").tag("operation", "encode").timer().count());
+        assertEquals(2, registry.get("password.hashing").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void upgradeEncoding_delegates() {
+        BoundedPasswordEncoder encoder = newEncoder(new BCryptPasswordEncoder(5), 1, 1);
+
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret")));
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(5).encode("secret")));
+    }
+
+    @Test
+    void saturated_failsFastWithBusy() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = mock(PasswordEncoder.class);
+        when(slow.encode(any())).thenAnswer(inv -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "hash";
+        });
+        BoundedPasswordEncoder encoder = newEncoder(slow, 1, 1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> running = callers.submit(() -> encoder.encode("a"));
+            started.await(5, TimeUnit.SECONDS);
+            Future<String> queued = callers.submit(() -> encoder.encode("b"));
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (executor.getQueue().isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+
+            PasswordHashingBusyException e = assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("c"));
+            assertEquals(BoundedPasswordEncoder.RETRY_AFTER_SECONDS, e.getRetryAfterSeconds());
+            assertEquals(1, registry.get("password.hashing.rejected").counter().count());
+
+            release.countDown();
+            assertEquals("hash", running.get(5, TimeUnit.SECONDS));
+            assertEquals("hash", queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void delegateFailure_isRethrownAsIs() {
+        PasswordEncoder failing = mock(PasswordEncoder.class);
+        when(failing.matches(any(), any())).thenThrow(new IllegalArgumentException("bad hash"));
+        BoundedPasswordEncoder encoder = newEncoder(failing, 1, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> encoder.matches("a", "b"));
+    }
+}
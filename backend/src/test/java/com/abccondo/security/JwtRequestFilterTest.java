@@ -0,0 +1,94 @@
+package com.abccondo.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtRequestFilterTest {
+
+    @InjectMocks
+    private JwtRequestFilter filter;
+
+    @Mock
+    private VerifiedTokenCache tokenCache;
+
+    private final CurrentUserArgumentResolver resolver = new CurrentUserArgumentResolver();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        SecurityContextHolder.clearContext();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void validToken_parsedOnceAndExposedAsPrincipal() throws Exception {
+        JwtPrincipal principal = new JwtPrincipal(9L, "c@example.com", null);
+        when(tokenCache.verify("tok")).thenReturn(Optional.of(principal));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer tok");
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertSame(principal, authentication.getPrincipal());
+        assertSame(principal, resolver.resolveArgument(currentUserParameter(), null, null, null));
+        // One verification per request, and no second parse for the user id
+        verify(tokenCache, times(1)).verify("tok");
+        verifyNoMoreInteractions(tokenCache);
+    }
+
+    @Test
+    void invalidToken_leavesContextUnauthenticated() throws Exception {
+        when(tokenCache.verify("bad")).thenReturn(Optional.empty());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer bad");
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertThrows(ResponseStatusException.class,
+                () -> resolver.resolveArgument(currentUserParameter(), null, null, null));
+    }
+
+    @Test
+    void resolver_supportsOnlyAnnotatedPrincipalParameters() throws Exception {
+        assertTrue(resolver.supportsParameter(currentUserParameter()));
+        Method plain = Handlers.class.getDeclaredMethod("plain", JwtPrincipal.class);
+        assertFalse(resolver.supportsParameter(new MethodParameter(plain, 0)));
+    }
+
+    private static MethodParameter currentUserParameter() throws NoSuchMethodException {
+        Method method = Handlers.class.getDeclaredMethod("annotated", JwtPrincipal.class);
+        return new MethodParameter(method, 0);
+    }
+
+    @SuppressWarnings("unused")
+    private static class Handlers {
+        void annotated(@CurrentUser JwtPrincipal principal) {
+        }
+
+        void plain(JwtPrincipal principal) {
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.abccondo.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-0123";
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = newJwtUtil(SECRET);
+    }
+
+    @Test
+    void parse_validToken_returnsClaims() {
+        String token = jwtUtil.generateToken(42L, "a@example.com");
+
+        Optional<JwtPrincipal> principal = jwtUtil.parse(token);
+
+        assertTrue(principal.isPresent());
+        assertEquals(42L, principal.get().userId());
+        assertEquals("a@example.com", principal.get().email());
+        assertTrue(principal.get().expiresAt().isAfter(Instant.now()));
+    }
+
+    @Test
+    void parse_tokenSignedWithOtherKey_isEmpty() {
+        String token = newJwtUtil("another-secret-another-secret-another-01").generateToken(42L, "a@example.com");
+
+        assertTrue(jwtUtil.parse(token).isEmpty());
+        assertFalse(jwtUtil.validateToken(token));
+    }
+
+    @Test
+    void parse_garbage_isEmpty() {
+        assertTrue(jwtUtil.parse("not.a.jwt").isEmpty());
+        assertTrue(jwtUtil.parse("").isEmpty());
+    }
+
+    @Test
+    void getUserIdFromToken_reusesSameParser() {
+        String token = jwtUtil.generateToken(7L, "b@example.com");
+
+        assertEquals(7L, jwtUtil.getUserIdFromToken(token));
+        assertEquals(7L, jwtUtil.getUserIdFromToken(token));
+    }
+
+    static JwtUtil newJwtUtil(String secret) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "secret", secret);
+        util.init();
+        return util;
+    }
+}
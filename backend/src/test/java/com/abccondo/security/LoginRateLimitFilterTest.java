@@ -0,0 +1,134 @@
+package com.abccondo.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LoginRateLimitFilterTest {
+
+    private final AtomicLong now = new AtomicLong(0);
+    // 3 attempts per address, 2 per email, no refill within the test
+    private final LoginRateLimitFilter filter = new LoginRateLimitFilter(
+            new TokenBucketLimiter(3, 1, 1_000, now::get),
+            new TokenBucketLimiter(2, 1, 1_000, now::get));
+
+    private static MockHttpServletRequest login(String address, String email) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setServletPath("/api/auth/login");
+        request.setRemoteAddr(address);
+        request.setContentType("application/json");
+        request.setContent(("{\"email\":\"" + email + "\",\"password\":\"pw\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    @Test
+    void allowedAttempt_reachesControllerWithBodyIntact() throws Exception {
+        AtomicReference<String> seenBody = new AtomicReference<>();
+        FilterChain chain = (req, res) -> seenBody.set(new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+
+        filter.doFilter(login("1.1.1.1", "a@example.com"), new MockHttpServletResponse(), chain);
+
+        assertEquals("{\"email\":\"a@example.com\",\"password\":\"pw\"}", seenBody.get());
+    }
+
+    @Test
+    void allowedAttempt_replayedBodySupportsReadListener() throws Exception {
+        AtomicReference<String> seenBody = new AtomicReference<>();
+        AtomicBoolean allRead = new AtomicBoolean();
+        FilterChain chain = (req, res) -> {
+            ServletInputStream in = req.getInputStream();
+            in.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    seenBody.set(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    allRead.set(true);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    fail(t);
+                }
+            });
+        };
+
+        filter.doFilter(login("1.1.1.1", "a@example.com"), new MockHttpServletResponse(), chain);
+
+        assertEquals("{\"email\":\"a@example.com\",\"password\":\"pw\"}", seenBody.get());
+        assertTrue(allRead.get());
+    }
+
+    @Test
+    void overEmailLimit_rejectedWithoutReachingChain() throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+        // Same account from different addresses, with case and whitespace variations
+        filter.doFilter(login("1.1.1.1", "a@example.com"), new MockHttpServletResponse(), chain);
+        filter.doFilter(login("2.2.2.2", " A@Example.com"), new MockHttpServletResponse(), chain);
+        verify(chain, times(2)).doFilter(any(), any());
+
+        FilterChain rejected = mock(FilterChain.class);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(login("3.3.3.3", "a@example.com"), response, rejected);
+
+        assertEquals(429, response.getStatus());
+        assertNotNull(response.getHeader("Retry-After"));
+        verifyNoInteractions(rejected);
+    }
+
+    @Test
+    void overAddressLimit_rejectedAcrossEmails() throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+        for (int i = 0; i < 3; i++) {
+            filter.doFilter(login("9.9.9.9", "user" + i + "@example.com"), new MockHttpServletResponse(), chain);
+        }
+
+        FilterChain rejected = mock(FilterChain.class);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(login("9.9.9.9", "fresh@example.com"), response, rejected);
+
+        assertEquals(429, response.getStatus());
+        assertEquals("60", response.getHeader("Retry-After"));
+        verifyNoInteractions(rejected);
+    }
+
+    @Test
+    void otherEndpoints_areNotThrottled() throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/register");
+            request.setServletPath("/api/auth/register");
+            request.setRemoteAddr("9.9.9.9");
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+        }
+
+        verify(chain, times(10)).doFilter(any(), any());
+    }
+
+    @Test
+    void oversizedBody_rejected() throws Exception {
+        MockHttpServletRequest request = login("1.1.1.1", "a@example.com");
+        request.setContent(new byte[9 * 1024]);
+        FilterChain chain = mock(FilterChain.class);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(413, response.getStatus());
+        verifyNoInteractions(chain);
+    }
+}
@@ -0,0 +1,138 @@
+package com.abccondo.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(0);
+
+    @Test
+    void tryAcquire_grantsCapacityThenRefillsOverTime() {
+        // 3 tokens, one every 10 seconds
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, 6, 100, now::get);
+
+        assertEquals(0, limiter.tryAcquire("k"));
+        assertEquals(0, limiter.tryAcquire("k"));
+        assertEquals(0, limiter.tryAcquire("k"));
+        long wait = limiter.tryAcquire("k");
+        assertEquals(10 * SECOND, wait, SECOND / 1000);
+
+        now.addAndGet(10 * SECOND);
+        assertEquals(0, limiter.tryAcquire("k"));
+        assertTrue(limiter.tryAcquire("k") > 0);
+    }
+
+    @Test
+    void tryAcquire_keysAreIndependent() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 1, 100, now::get);
+
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("a") > 0);
+        assertEquals(0, limiter.tryAcquire("b"));
+    }
+
+    @Test
+    void concurrentCallers_sameKey_neverExceedCapacity() throws Exception {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(50, 60, 1_000, now::get);
+        AtomicInteger granted = new AtomicInteger();
+
+        runConcurrently(16, 2_000, (thread, i) -> {
+            if (limiter.tryAcquire("victim@example.com") == 0) {
+                granted.incrementAndGet();
+            }
+        });
+        assertEquals(50, granted.get());
+
+        // One second at 60/min refills exactly one token, whatever the contention
+        now.addAndGet(SECOND);
+        granted.set(0);
+        runConcurrently(16, 500, (thread, i) -> {
+            if (limiter.tryAcquire("victim@example.com") == 0) {
+                granted.incrementAndGet();
+            }
+        });
+        assertEquals(1, granted.get());
+    }
+
+    @Test
+    void addressChurn_memoryStaysBounded() throws Exception {
+        int maxEntries = 5_000;
+        int threads = 8;
+        TokenBucketLimiter limiter = new TokenBucketLimiter(20, 10, maxEntries, now::get);
+        AtomicInteger peak = new AtomicInteger();
+
+        // 160k distinct addresses with no time passing, so nothing is idle and the hard cap has to hold
+        runConcurrently(threads, 20_000, (thread, i) -> {
+            limiter.tryAcquire("10." + thread + "." + (i >> 8) + "." + (i & 0xff));
+            peak.accumulateAndGet(limiter.size(), Math::max);
+        });
+
+        assertTrue(peak.get() <= maxEntries + threads, "peak " + peak.get());
+    }
+
+    @Test
+    void idleBuckets_areSwept() throws Exception {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(5, 60, 100_000, now::get);
+        for (int i = 0; i < 1_000; i++) {
+            limiter.tryAcquire("old-" + i);
+        }
+
+        // Long enough for every bucket to refill completely
+        now.addAndGet(10 * SECOND);
+        for (int i = 0; i < 5_000; i++) {
+            limiter.tryAcquire("new");
+        }
+
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void hardCap_keepsBucketsThatAreStillLimiting() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, 1, 3, now::get);
+        limiter.tryAcquire("attacked");
+        limiter.tryAcquire("attacked");
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("churn-" + i);
+        }
+
+        // The emptied bucket survives eviction, so the limit still applies
+        assertTrue(limiter.tryAcquire("attacked") > 0);
+    }
+
+    private interface Body {
+        void run(int thread, int i);
+    }
+
+    private static void runConcurrently(int threads, int perThread, Body body) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CyclicBarrier start = new CyclicBarrier(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        body.run(thread, i);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.abccondo.security;
+
+import com.abccondo.cache.ExpiringCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class VerifiedTokenCacheTest {
+
+    private final AtomicLong now = new AtomicLong(Instant.parse("2025-01-01T00:00:00Z").toEpochMilli());
+    private final JwtUtil jwtUtil = mock(JwtUtil.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final VerifiedTokenCache tokenCache = new VerifiedTokenCache(jwtUtil, registry, new ExpiringCache<>(100, now::get));
+
+    @Test
+    void verify_sameTokenTwice_parsesOnce() {
+        JwtPrincipal principal = new JwtPrincipal(1L, "a@example.com", Instant.ofEpochMilli(now.get() + 60_000));
+        when(jwtUtil.parse("tok")).thenReturn(Optional.of(principal));
+
+        assertEquals(principal, tokenCache.verify("tok").orElseThrow());
+        assertEquals(principal, tokenCache.verify("tok").orElseThrow());
+
+        verify(jwtUtil, times(1)).parse("tok");
+        assertEquals(1, tokenCache.hitCount());
+        assertEquals(1, tokenCache.missCount());
+        assertEquals(1, registry.get("jwt.parse").timer().count());
+    }
+
+    @Test
+    void verify_afterExp_reparses() {
+        JwtPrincipal principal = new JwtPrincipal(1L, "a@example.com", Instant.ofEpochMilli(now.get() + 60_000));
+        when(jwtUtil.parse("tok")).thenReturn(Optional.of(principal), Optional.empty());
+
+        tokenCache.verify("tok");
+        now.addAndGet(60_000);
+
+        assertTrue(tokenCache.verify("tok").isEmpty());
+        verify(jwtUtil, times(2)).parse("tok");
+    }
+
+    @Test
+    void verify_invalidToken_isNotCached() {
+        when(jwtUtil.parse("bad")).thenReturn(Optional.empty());
+
+        assertTrue(tokenCache.verify("bad").isEmpty());
+        assertTrue(tokenCache.verify("bad").isEmpty());
+
+        verify(jwtUtil, times(2)).parse("bad");
+    }
+}
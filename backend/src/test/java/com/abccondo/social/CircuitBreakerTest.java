@@ -0,0 +1,48 @@
+package com.abccondo.social;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(0);
+    private final CircuitBreaker breaker = new CircuitBreaker(2, 5_000, now::get);
+
+    @Test
+    void successResetsConsecutiveFailures() {
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void halfOpen_letsOnlyOneTrialThrough() {
+        breaker.onFailure();
+        breaker.onFailure();
+        assertFalse(breaker.tryAcquire());
+
+        now.set(5_000);
+
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+    }
+
+    @Test
+    void failedTrial_opensAgain() {
+        breaker.onFailure();
+        breaker.onFailure();
+        now.set(5_000);
+        breaker.tryAcquire();
+
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(5, breaker.retryAfterSeconds());
+    }
+}
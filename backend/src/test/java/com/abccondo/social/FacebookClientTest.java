@@ -0,0 +1,190 @@
+package com.abccondo.social;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the client against a local fake Graph API that can be told to slow down or fail
+class FacebookClientTest {
+
+    private static final String ME = "{\"id\":\"fb-1\",\"name\":\"Test User\",\"email\":\"test@example.com\","
+            + "\"picture\":{\"data\":{\"url\":\"http://example.com/p.jpg\"}}}";
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicLong delayMs = new AtomicLong();
+    private final AtomicReference<String> lastQuery = new AtomicReference<>();
+    private volatile CountDownLatch hold;
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/me", exchange -> {
+            hits.incrementAndGet();
+            lastQuery.set(exchange.getRequestURI().getRawQuery());
+            try {
+                if (hold != null) {
+                    hold.await(5, TimeUnit.SECONDS);
+                }
+                Thread.sleep(delayMs.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = (status.get() == 200 ? ME : "{\"error\":{\"message\":\"nope\"}}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status.get(), body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            } catch (Exception ignored) {
+                // the client gave up (timeout)
+            }
+        });
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (hold != null) {
+            hold.countDown();
+        }
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    private FacebookClient newClient(long readTimeoutMs, int maxConcurrent) {
+        return new FacebookClient(HttpClient.newHttpClient(), registry,
+                "http://127.0.0.1:" + server.getAddress().getPort(), readTimeoutMs, maxConcurrent,
+                new CircuitBreaker(3, 10_000, now::get));
+    }
+
+    @Test
+    void me_returnsGraphFields_andEncodesToken() {
+        Optional<Map<String, Object>> me = newClient(2_000, 4).me("tok en&x=1");
+
+        assertEquals("test@example.com", me.orElseThrow().get("email"));
+        assertTrue(lastQuery.get().contains("fields=id,name,email,picture"));
+        assertTrue(lastQuery.get().contains("access_token=tok%20en%26x%3D1"), lastQuery.get());
+    }
+
+    @Test
+    void me_recordsIntoTimersRegisteredUpFront() {
+        FacebookClient client = newClient(2_000, 4);
+        int meters = registry.getMeters().size();
+        assertEquals(0, registry.get("social.provider.calls").tag("outcome", "error").timer().count());
+
+        client.me("tok");
+        client.me("tok");
+
+        assertEquals(meters, registry.getMeters().size());
+        assertEquals(2, registry.get("social.provider.calls").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void me_rejectedToken_returnsEmptyAndKeepsBreakerClosed() {
+        status.set(400);
+        FacebookClient client = newClient(2_000, 4);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(client.me("bad").isEmpty());
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, client.breaker().state());
+        assertEquals(5, hits.get());
+    }
+
+    @Test
+    void me_slowGraph_timesOut() {
+        delayMs.set(2_000);
+        FacebookClient client = newClient(200, 4);
+
+        long start = System.nanoTime();
+        assertThrows(ProviderUnavailableException.class, () -> client.me("tok"));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_500);
+    }
+
+    @Test
+    void me_repeatedServerErrors_openBreakerAndFailFast() {
+        status.set(500);
+        FacebookClient client = newClient(2_000, 4);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(ProviderUnavailableException.class, () -> client.me("tok"));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, client.breaker().state());
+
+        ProviderUnavailableException e = assertThrows(ProviderUnavailableException.class, () -> client.me("tok"));
+        assertEquals(3, hits.get());
+        assertEquals(10, e.getRetryAfterSeconds());
+    }
+
+    @Test
+    void me_afterOpenPeriod_trialCallClosesBreaker() {
+        status.set(500);
+        FacebookClient client = newClient(2_000, 4);
+        for (int i = 0; i < 3; i++) {
+            assertThrows(ProviderUnavailableException.class, () -> client.me("tok"));
+        }
+
+        status.set(200);
+        now.addAndGet(10_000);
+
+        assertTrue(client.me("tok").isPresent());
+        assertEquals(CircuitBreaker.State.CLOSED, client.breaker().state());
+    }
+
+    @Test
+    void me_rateLimited_countsAsFailure() {
+        status.set(429);
+        FacebookClient client = newClient(2_000, 4);
+
+        assertThrows(ProviderUnavailableException.class, () -> client.me("tok"));
+    }
+
+    @Test
+    void me_bulkheadFull_rejectsWithoutCallingGraph() throws Exception {
+        hold = new CountDownLatch(1);
+        FacebookClient client = newClient(5_000, 2);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = callers.submit(() -> client.me("tok"));
+            Future<?> second = callers.submit(() -> client.me("tok"));
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (hits.get() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertThrows(ProviderUnavailableException.class, () -> client.me("tok"));
+            assertEquals(2, hits.get());
+
+            hold.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+            assertTrue(client.me("tok").isPresent());
+            assertEquals(1, registry.get("social.provider.calls").tag("outcome", "rejected").timer().count());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
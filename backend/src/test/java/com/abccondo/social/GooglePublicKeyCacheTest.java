@@ -0,0 +1,250 @@
+package com.abccondo.social;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.json.webtoken.JsonWebSignature;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs the cache against a local stand-in for Google's JWKS endpoint
+class GooglePublicKeyCacheTest {
+
+    private static final String CLIENT_ID = "client-id.apps.googleusercontent.com";
+
+    private HttpServer server;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicReference<String> cacheControl = new AtomicReference<>("public, max-age=3600");
+    private final AtomicReference<String> jwks = new AtomicReference<>();
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ScheduledExecutorService refresher;
+
+    private KeyPair first;
+    private KeyPair second;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        first = generator.generateKeyPair();
+        second = generator.generateKeyPair();
+        jwks.set(jwks(Map.of("k1", first)));
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/certs", exchange -> {
+            hits.incrementAndGet();
+            byte[] body = jwks.get().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("Cache-Control", cacheControl.get());
+            exchange.sendResponseHeaders(status.get(), body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        refresher = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        refresher.shutdownNow();
+    }
+
+    private GooglePublicKeyCache newCache(long maxStaleMs) {
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/certs");
+        return new GooglePublicKeyCache(uri, HttpClient.newHttpClient(), maxStaleMs, now::get, refresher);
+    }
+
+    @Test
+    void getPublicKeys_withinMaxAge_fetchesOnce() throws Exception {
+        GooglePublicKeyCache cache = newCache(0);
+
+        Map<String, PublicKey> keys = cache.getPublicKeys();
+        now.addAndGet(3_599_000);
+        cache.getPublicKeys();
+
+        assertEquals(first.getPublic(), keys.get("k1"));
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    void getPublicKeys_afterMaxAge_fetchesAgain() throws Exception {
+        GooglePublicKeyCache cache = newCache(0);
+        cache.getPublicKeys();
+
+        jwks.set(jwks(Map.of("k2", second)));
+        now.addAndGet(3_600_000);
+
+        assertEquals(second.getPublic(), cache.getPublicKeys().get("k2"));
+        assertEquals(2, hits.get());
+    }
+
+    @Test
+    void refreshInBackground_replacesKeysWithoutCaller() throws Exception {
+        GooglePublicKeyCache cache = newCache(0);
+        cache.getPublicKeys();
+
+        jwks.set(jwks(Map.of("k2", second)));
+        now.addAndGet(3_000_000);
+        cache.refreshInBackground();
+
+        // Served from the refreshed set with no further fetch by the caller
+        assertEquals(second.getPublic(), cache.getPublicKeys().get("k2"));
+        assertEquals(2, hits.get());
+    }
+
+    @Test
+    void getPublicKeys_refreshesAheadOfExpiryOnItsOwn() throws Exception {
+        cacheControl.set("public, max-age=1");
+        GooglePublicKeyCache cache = new GooglePublicKeyCache(
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/certs"),
+                HttpClient.newHttpClient(), 0, System::currentTimeMillis, refresher);
+
+        cache.getPublicKeys();
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (hits.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(hits.get() >= 2, "expected a background refresh before the 1s max-age ran out");
+    }
+
+    @Test
+    void getPublicKeys_endpointDown_servesStaleKeysWithinMaxStale() throws Exception {
+        GooglePublicKeyCache cache = newCache(600_000);
+        cache.getPublicKeys();
+
+        status.set(503);
+        now.addAndGet(3_600_000);
+        assertEquals(first.getPublic(), cache.getPublicKeys().get("k1"));
+
+        // The failure is not retried on every call, only after the retry delay
+        cache.getPublicKeys();
+        assertEquals(2, hits.get());
+    }
+
+    @Test
+    void getPublicKeys_endpointDownPastMaxStale_throws() throws Exception {
+        GooglePublicKeyCache cache = newCache(600_000);
+        cache.getPublicKeys();
+
+        status.set(503);
+        now.addAndGet(3_600_000 + 600_000);
+
+        assertThrows(IOException.class, cache::getPublicKeys);
+    }
+
+    @Test
+    void getPublicKeys_noKeysYetAndEndpointDown_throws() {
+        status.set(500);
+
+        assertThrows(IOException.class, () -> newCache(600_000).getPublicKeys());
+    }
+
+    @Test
+    void maxAgeMillis_readsCacheControl() {
+        assertEquals(19_606_000, GooglePublicKeyCache.maxAgeMillis("public, max-age=19606, must-revalidate, no-transform"));
+        assertEquals(GooglePublicKeyCache.DEFAULT_MAX_AGE_MS, GooglePublicKeyCache.maxAgeMillis("no-cache"));
+    }
+
+    @Test
+    void verifier_acceptsTokenSignedByServedKey() throws Exception {
+        CachedKeysGoogleIdTokenVerifier verifier = newVerifier(newCache(0));
+
+        GoogleIdToken idToken = verifier.verify(sign(first, "k1", CLIENT_ID));
+
+        assertNotNull(idToken);
+        assertEquals("user@example.com", idToken.getPayload().getEmail());
+    }
+
+    @Test
+    void verifier_rejectsUnknownSignerAndWrongAudience() throws Exception {
+        CachedKeysGoogleIdTokenVerifier verifier = newVerifier(newCache(0));
+
+        assertNull(verifier.verify(sign(second, "k1", CLIENT_ID)));
+        assertNull(verifier.verify(sign(first, "k1", "someone-else")));
+        assertEquals(2, registry.get("social.provider.calls")
+                .tag("provider", "google").tag("outcome", "rejected_token").timer().count());
+    }
+
+    @Test
+    void verifier_manyLogins_fetchKeysOnce() throws Exception {
+        CachedKeysGoogleIdTokenVerifier verifier = newVerifier(newCache(0));
+        String token = sign(first, "k1", CLIENT_ID);
+
+        for (int i = 0; i < 50; i++) {
+            assertNotNull(verifier.verify(token));
+        }
+
+        assertEquals(1, hits.get());
+    }
+
+    private CachedKeysGoogleIdTokenVerifier newVerifier(GooglePublicKeyCache cache) {
+        GoogleIdTokenVerifier.Builder builder = new GoogleIdTokenVerifier.Builder(new NetHttpTransport(),
+                GsonFactory.getDefaultInstance()).setAudience(List.of(CLIENT_ID));
+        return new CachedKeysGoogleIdTokenVerifier(builder, cache, registry);
+    }
+
+    // The token's own times use the wall clock, since the library checks them with its default clock
+    private static String sign(KeyPair keyPair, String kid, String audience) throws Exception {
+        JsonWebSignature.Header header = new JsonWebSignature.Header();
+        header.setAlgorithm("RS256");
+        header.setKeyId(kid);
+        GoogleIdToken.Payload payload = new GoogleIdToken.Payload();
+        long nowSeconds = System.currentTimeMillis() / 1000;
+        payload.setIssuer("https://accounts.google.com");
+        payload.setAudience(audience);
+        payload.setIssuedAtTimeSeconds(nowSeconds);
+        payload.setExpirationTimeSeconds(nowSeconds + 3600);
+        payload.setEmail("user@example.com");
+        return JsonWebSignature.signUsingRsaSha256(keyPair.getPrivate(), GsonFactory.getDefaultInstance(), header, payload);
+    }
+
+    private static String jwks(Map<String, KeyPair> keys) {
+        Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+        StringBuilder json = new StringBuilder("{\"keys\":[");
+        keys.forEach((kid, pair) -> {
+            RSAPublicKey key = (RSAPublicKey) pair.getPublic();
+            if (json.charAt(json.length() - 1) == '}') {
+                json.append(',');
+            }
+            json.append("{\"kty\":\"RSA\",\"alg\":\"RS256\",\"use\":\"sig\",\"kid\":\"").append(kid)
+                    .append("\",\"n\":\"").append(base64.encodeToString(unsigned(key.getModulus().toByteArray())))
+                    .append("\",\"e\":\"").append(base64.encodeToString(unsigned(key.getPublicExponent().toByteArray())))
+                    .append("\"}");
+        });
+        return json.append("]}").toString();
+    }
+
+    private static byte[] unsigned(byte[] bytes) {
+        return bytes.length > 1 && bytes[0] == 0 ? java.util.Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    }
+}
@@ -0,0 +1,299 @@
+package com.abccondo.social;
+
+import com.abccondo.BackendApplication;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.coyote.http2.Http2Protocol;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.lang.management.ManagementFactory;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 10,000 concurrent Facebook logins against the whole application, once on Tomcat's platform-thread
+// pool and once in virtual-thread mode, with a stub Graph API that takes five seconds to answer each call:
+// slow enough that the thread pool, not the CPU, is what limits the platform-thread run.
+// The logins come from a separate JVM, one connection each, so neither process needs more than about
+// 10,000 file descriptors; the Graph calls are multiplexed over one HTTP/2 (h2c) connection, as they
+// are over TLS in production.
+// Excluded from the default build; run with: mvn test -Dgroups=load -Dtest.excluded.groups=
+@Tag("load")
+class SlowProviderLoginLoadTest {
+
+    private static final int LOGINS = 10_000;
+    private static final long GRAPH_DELAY_MS = 5_000;
+
+    @TempDir
+    static Path tomcatDir;
+
+    private static Tomcat graph;
+    private static ScheduledExecutorService graphScheduler;
+    private static int graphPort;
+
+    // Answers /me?access_token=tok-N for user N after GRAPH_DELAY_MS, without holding a thread meanwhile
+    static class SlowGraph extends HttpServlet {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) {
+            String user = request.getParameter("access_token").substring("tok-".length());
+            AsyncContext async = request.startAsync();
+            async.setTimeout(0);
+            graphScheduler.schedule(() -> async.start(() -> {
+                try {
+                    HttpServletResponse delayed = (HttpServletResponse) async.getResponse();
+                    delayed.setContentType("application/json");
+                    delayed.getOutputStream().write(("{\"id\":\"" + user + "\",\"name\":\"User " + user
+                            + "\",\"email\":\"user" + user + "@example.com\"}").getBytes(StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    // the app gave up on the call; nothing to answer
+                } finally {
+                    async.complete();
+                }
+            }), GRAPH_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Opens every connection first, then sends all logins at once, each on its own virtual thread.
+    // Prints "RESULT <succeeded> <millis> <p50> <p99> <max>" with latencies in milliseconds.
+    static final class LoginClient {
+        public static void main(String[] args) throws Exception {
+            int port = Integer.parseInt(args[0]);
+            int logins = Integer.parseInt(args[1]);
+            Socket[] sockets = new Socket[logins];
+            for (int i = 0; i < logins; i++) {
+                sockets[i] = new Socket("localhost", port);
+                sockets[i].setSoTimeout(600_000);
+            }
+
+            CountDownLatch go = new CountDownLatch(1);
+            long[] latencies = new long[logins];
+            AtomicInteger succeeded = new AtomicInteger();
+            Map<String, Integer> failures = new ConcurrentHashMap<>();
+            long start;
+            try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < logins; i++) {
+                    int n = i;
+                    threads.execute(() -> {
+                        String failure;
+                        try (Socket socket = sockets[n]) {
+                            go.await();
+                            byte[] body = ("{\"accessToken\":\"tok-" + n + "\"}").getBytes(StandardCharsets.UTF_8);
+                            OutputStream out = socket.getOutputStream();
+                            out.write(("POST /api/auth/facebook HTTP/1.1\r\nHost: localhost\r\n"
+                                    + "Content-Type: application/json\r\nContent-Length: " + body.length
+                                    + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                            out.write(body);
+                            out.flush();
+                            String response = new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                            failure = response.startsWith("HTTP/1.1 200") && response.contains("\"token\"") ? null
+                                    : response.isEmpty() ? "closed" : response.substring(0, Math.min(12, response.length()));
+                        } catch (Exception e) {
+                            failure = e.getClass().getSimpleName();
+                        }
+                        latencies[n] = System.nanoTime();
+                        if (failure == null) {
+                            succeeded.incrementAndGet();
+                        } else {
+                            failures.merge(failure, 1, Integer::sum);
+                        }
+                    });
+                }
+                start = System.nanoTime();
+                go.countDown();
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            for (int i = 0; i < logins; i++) {
+                latencies[i] = TimeUnit.NANOSECONDS.toMillis(latencies[i] - start);
+            }
+            Arrays.sort(latencies);
+            if (!failures.isEmpty()) {
+                System.out.println("failed logins: " + failures);
+            }
+            System.out.printf("RESULT %d %d %d %d %d%n", succeeded.get(), millis, latencies[logins / 2],
+                    latencies[logins * 99 / 100], latencies[logins - 1]);
+        }
+    }
+
+    private record Run(int succeeded, long millis, long p50, long p99, long max, long cpuMillis, List<String> pinned) {
+        double perSecond() {
+            return succeeded * 1000.0 / millis;
+        }
+    }
+
+    @BeforeAll
+    static void startGraph() throws Exception {
+        graphScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "slow-graph");
+            thread.setDaemon(true);
+            return thread;
+        });
+        graph = new Tomcat();
+        graph.setBaseDir(tomcatDir.toString());
+        Connector connector = new Connector();
+        connector.setPort(0);
+        // Lets the one connection carry every Graph call at once; Tomcat's defaults are sized for browsers
+        Http2Protocol http2 = new Http2Protocol();
+        http2.setMaxConcurrentStreams(2 * LOGINS);
+        http2.setMaxConcurrentStreamExecution(2 * LOGINS);
+        http2.setOverheadCountFactor(0);
+        http2.setKeepAliveTimeout(600_000);
+        connector.addUpgradeProtocol(http2);
+        graph.setConnector(connector);
+        Context context = graph.addContext("", tomcatDir.toString());
+        Tomcat.addServlet(context, "graph", new SlowGraph()).setAsyncSupported(true);
+        context.addServletMappingDecoded("/me", "graph");
+        graph.start();
+        graphPort = connector.getLocalPort();
+    }
+
+    @AfterAll
+    static void stopGraph() throws Exception {
+        graph.stop();
+        graph.destroy();
+        graphScheduler.shutdownNow();
+    }
+
+    @Test
+    void tenThousandSlowProviderLogins_platformVersusVirtualThreads() throws Exception {
+        Run virtual = run(true);
+        Run platform = run(false);
+
+        report("platform threads", platform);
+        report("virtual threads", virtual);
+        assertEquals(LOGINS, platform.succeeded(), "platform-thread logins that got a token");
+        assertEquals(LOGINS, virtual.succeeded(), "virtual-thread logins that got a token");
+        // Tomcat's 200 request threads can have at most 200 Graph calls waiting at once
+        assertTrue(platform.perSecond() <= 200 * 1000.0 / GRAPH_DELAY_MS * 1.1, "platform-thread logins per second");
+        // Without that cap only the CPU limits throughput. On a single core that is barely above the cap
+        // (44 against 39 per second); with spare cores the virtual-thread run is well clear of it.
+        assertTrue(virtual.perSecond() >= platform.perSecond(), "virtual-thread logins per second");
+        assertEquals(List.of(), virtual.pinned(), "virtual threads pinned to their carrier while blocked");
+    }
+
+    private Run run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        Map<String, Object> properties = Map.ofEntries(
+                Map.entry("spring.main.banner-mode", "off"),
+                Map.entry("server.port", "0"),
+                Map.entry("server.tomcat.max-connections", String.valueOf(LOGINS + 100)),
+                Map.entry("server.tomcat.accept-count", "1000"),
+                Map.entry("spring.datasource.url",
+                        "jdbc:h2:mem:login-load-" + mode + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"),
+                Map.entry("spring.datasource.username", "sa"),
+                Map.entry("jwt.secret", "0123456789012345678901234567890123456789012345678901234567890123"),
+                Map.entry("google.client-id", "load-test"),
+                Map.entry("facebook.graph-url", "http://localhost:" + graphPort),
+                // Only the request threads should limit how many Graph calls are in flight
+                Map.entry("facebook.max-concurrent-calls", String.valueOf(2 * LOGINS)),
+                Map.entry("facebook.read-timeout-ms", "300000"),
+                Map.entry("spring.threads.virtual.enabled", String.valueOf(virtualThreads)));
+
+        List<String> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream();
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+                     .properties(properties)
+                     .run()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(20)).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinned.add(describe(event)));
+            recording.startAsync();
+
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            // Also upgrades the app's connection to the Graph stub to h2c before the calls pile up on it
+            HttpResponse<String> warmup = HttpClient.newHttpClient().send(HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + port + "/api/auth/facebook"))
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"accessToken\":\"tok-warmup\"}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, warmup.statusCode(), warmup.body());
+
+            long cpuStart = cpuNanos();
+            String java = ProcessHandle.current().info().command().orElse("java");
+            Process client = new ProcessBuilder(java, "-Xmx256m", "-cp", System.getProperty("java.class.path"),
+                    LoginClient.class.getName(), String.valueOf(port), String.valueOf(LOGINS))
+                    .redirectErrorStream(true)
+                    .start();
+            String[] result = null;
+            try (BufferedReader output = new BufferedReader(new InputStreamReader(client.getInputStream()))) {
+                for (String line = output.readLine(); line != null; line = output.readLine()) {
+                    if (line.startsWith("RESULT ")) {
+                        result = line.split(" ");
+                    } else {
+                        System.out.println(mode + " client: " + line);
+                    }
+                }
+            }
+            assertTrue(client.waitFor(1, TimeUnit.MINUTES), "login client exited");
+            assertNotNull(result, "login client result");
+            recording.stop();
+            long cpuMillis = TimeUnit.NANOSECONDS.toMillis(cpuNanos() - cpuStart);
+            return new Run(Integer.parseInt(result[1]), Long.parseLong(result[2]), Long.parseLong(result[3]),
+                    Long.parseLong(result[4]), Long.parseLong(result[5]), cpuMillis, List.copyOf(pinned));
+        }
+    }
+
+    // CPU time of this JVM: the application and the Graph stub, not the login client
+    private static long cpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    // Where a virtual thread blocked while pinned, as its innermost frames
+    private static String describe(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return event.getThread().getJavaName();
+        }
+        return event.getStackTrace().getFrames().stream()
+                .limit(8)
+                .map(SlowProviderLoginLoadTest::frame)
+                .reduce((a, b) -> a + " <- " + b)
+                .orElse("");
+    }
+
+    private static String frame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    private static void report(String mode, Run run) {
+        System.out.printf("%-16s %,d logins in %,d ms = %,.0f/s; latency p50 %,d ms, p99 %,d ms, max %,d ms; "
+                        + "CPU %.1f ms per login; pinned while blocked: %d%n",
+                mode, run.succeeded(), run.millis(), run.perSecond(), run.p50(), run.p99(), run.max(),
+                (double) run.cpuMillis() / run.succeeded(), run.pinned().size());
+        run.pinned().stream().distinct().limit(5).forEach(trace -> System.out.println("  pinned at " + trace));
+    }
+}
@@ -0,0 +1,21 @@
+package com.abccondo.support;
+
+// What one request cost on the thread that handled it (see RequestCostRecorder).
+// statements and rows come from the JDBC proxy (JdbcCounting), so they include SQL that does not go
+// through Hibernate; entityLoads and collectionFetches are Hibernate's, the numbers an N+1 lookup
+// inflates; allocatedBytes is the handling thread's heap allocation from the thread MXBean.
+public record RequestCost(String method,
+                          String route,
+                          int status,
+                          long statements,
+                          long rows,
+                          long entityLoads,
+                          long collectionFetches,
+                          long allocatedBytes) {
+
+    @Override
+    public String toString() {
+        return String.format("%s %s -> %d: %d statements, %d rows, %d entity loads, %d collection fetches, %,d bytes",
+                method, route, status, statements, rows, entityLoads, collectionFetches, allocatedBytes);
+    }
+}
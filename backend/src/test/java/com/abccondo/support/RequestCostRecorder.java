@@ -0,0 +1,96 @@
+package com.abccondo.support;
+
+import com.abccondo.metrics.JdbcCounting;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Measures every request the application handles and queues a RequestCost for the test to take().
+// Add Config to the application's sources; it also switches Hibernate's statistics on. Runs just
+// inside JdbcMetricsFilter and reads the JDBC counts it keeps for the request (or keeps its own with
+// metrics.jdbc.enabled=false, though then nothing wraps the DataSource and they stay zero).
+// Hibernate's statistics are for the whole application, so send one request at a time. Allocation is
+// per platform thread; the MXBean does not report it for virtual threads.
+public class RequestCostRecorder extends OncePerRequestFilter {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final Statistics statistics;
+    private final BlockingQueue<RequestCost> costs = new LinkedBlockingQueue<>();
+
+    public RequestCostRecorder(Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    // Not a @Configuration, so scanning the application package does not pick it up
+    public static class Config {
+        @Bean
+        public FilterRegistrationBean<RequestCostRecorder> requestCostRecorder(EntityManagerFactory entityManagerFactory) {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.setStatisticsEnabled(true);
+            FilterRegistrationBean<RequestCostRecorder> registration =
+                    new FilterRegistrationBean<>(new RequestCostRecorder(statistics));
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 3);
+            return registration;
+        }
+    }
+
+    // The cost of the next request to finish. The client can have the whole response before the
+    // filter chain has unwound, so this waits for it.
+    public RequestCost take() throws InterruptedException {
+        RequestCost cost = costs.poll(10, TimeUnit.SECONDS);
+        if (cost == null) {
+            throw new IllegalStateException("No request finished within 10 seconds");
+        }
+        return cost;
+    }
+
+    // Forgets requests nobody took, e.g. those that set up the data
+    public void clear() {
+        costs.clear();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        JdbcCounting.Counts counts = JdbcCounting.current();
+        boolean ownCounts = counts == null;
+        if (ownCounts) {
+            counts = JdbcCounting.start();
+        }
+        long statements = counts.statements();
+        long rows = counts.rows();
+        long entityLoads = statistics.getEntityLoadCount();
+        long collectionFetches = statistics.getCollectionFetchCount();
+        long allocated = THREADS.getCurrentThreadAllocatedBytes();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            allocated = THREADS.getCurrentThreadAllocatedBytes() - allocated;
+            if (ownCounts) {
+                JdbcCounting.stop();
+            }
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            costs.add(new RequestCost(request.getMethod(), pattern == null ? request.getRequestURI() : pattern.toString(),
+                    response.getStatus(), counts.statements() - statements, counts.rows() - rows,
+                    statistics.getEntityLoadCount() - entityLoads,
+                    statistics.getCollectionFetchCount() - collectionFetches, allocated));
+        }
+    }
+}
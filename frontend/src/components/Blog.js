@@ -84,6 +84,7 @@ const BlogModal = ({ show, initialData = {}, onSubmit, onCancel }) => {
 
 function Blog() {
     const [posts, setPosts] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null);
     const [condoLatLng, setCondoLatLng] = useState(null);
     const [condoWeather, setCondoWeather] = useState(null);
     const [userLatLng, setUserLatLng] = useState(null);
@@ -126,6 +127,8 @@ function Blog() {
     }, [openMenuId]);
 
     const API_URL = process.env.REACT_APP_API_URL;
+    // Stored images come back as server-relative "/api/images/..." references
+    const imageSrc = (src) => (src && src.startsWith("/api/") ? `${API_URL}${src}` : src);
     const CONDO_ADDRESS = process.env.REACT_APP_CONDO_LOCATION;
     const GOOGLE_API_KEY = process.env.REACT_APP_GOOGLE_API_KEY;
 
@@ -136,9 +139,27 @@ function Blog() {
             const resp = await axios.get(`${API_URL}/api/blog/list`, {
                 headers: { Authorization: `Bearer ${token}` },
             });
-            setPosts(resp.data);
+            setPosts(resp.data.items);
+            setNextCursor(resp.data.nextCursor);
         } catch (e) {
             setPosts([]);
+            setNextCursor(null);
+        }
+    };
+
+    // Fetch the page after the last loaded post
+    const loadMorePosts = async () => {
+        if (!nextCursor) return;
+        const token = localStorage.getItem("token");
+        try {
+            const resp = await axios.get(`${API_URL}/api/blog/list`, {
+                headers: { Authorization: `Bearer ${token}` },
+                params: { after: nextCursor },
+            });
+            setPosts((prev) => [...prev, ...resp.data.items]);
+            setNextCursor(resp.data.nextCursor);
+        } catch (e) {
+            setNextCursor(null);
         }
     };
 
@@ -463,7 +484,7 @@ function Blog() {
                                 <div className="card-header">
                                     <div className="row d-flex align-items-center">
                                         <div className="col-2">
-                                            <img src={post.authorImage} alt={post.authorName} style={{ width: 50, height: 50, objectFit: "cover" }} />
+                                            <img src={imageSrc(post.authorImage)} alt={post.authorName} style={{ width: 50, height: 50, objectFit: "cover" }} />
                                         </div>
                                         <div className="col-7 p-0">
                                             <h5>{post.authorName}</h5>
@@ -558,12 +579,17 @@ function Blog() {
                                     <p className="card-title">{post.title}</p>
                                     <p className="card-text" style={{ whiteSpace: 'pre-line' }}>{post.content}</p>                                </div>
                                 {post.image &&
-                                    <img src={post.image} className="card-img-middle" alt={post.title} style={{ maxHeight: 1080, objectFit: "cover" }} />}
+                                    <img src={imageSrc(post.image)} className="card-img-middle" alt={post.title} style={{ maxHeight: 1080, objectFit: "cover" }} />}
                                 <div className="card-body">
                                 </div>
                             </div>
                         ))
                     )}
+                    {nextCursor && (
+                        <button className="btn btn-outline-secondary w-100 mb-3" onClick={loadMorePosts}>
+                            Load more
+                        </button>
+                    )}
                 </div>
             </div>
         </div>
@@ -78,6 +78,7 @@ const BlogModal = ({ show, initialData = {}, onSubmit, onCancel }) => {
 
 function Profile() {
     const [posts, setPosts] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null);
     const [profile, setProfile] = useState(null);
     const [editMode, setEditMode] = useState(false);
     const [editProfile, setEditProfile] = useState({});
@@ -89,6 +90,8 @@ function Profile() {
     const menuRefs = useRef({});
 
     const API_URL = process.env.REACT_APP_API_URL;
+    // Stored images come back as server-relative "/api/images/..." references
+    const imageSrc = (src) => (src && src.startsWith("/api/") ? `${API_URL}${src}` : src);
 
     // Get userId from JWT
     const token = localStorage.getItem("token");
@@ -124,9 +127,26 @@ function Profile() {
             const resp = await axios.get(`${API_URL}/api/profile/blog/list/${userId}`, {
                 headers: { Authorization: `Bearer ${token}` },
             });
-            setPosts(resp.data);
+            setPosts(resp.data.items);
+            setNextCursor(resp.data.nextCursor);
         } catch (e) {
             setPosts([]);
+            setNextCursor(null);
+        }
+    };
+
+    // Fetch the page after the last loaded post
+    const loadMorePosts = async () => {
+        if (!nextCursor) return;
+        try {
+            const resp = await axios.get(`${API_URL}/api/profile/blog/list/${userId}`, {
+                headers: { Authorization: `Bearer ${token}` },
+                params: { after: nextCursor },
+            });
+            setPosts((prev) => [...prev, ...resp.data.items]);
+            setNextCursor(resp.data.nextCursor);
+        } catch (e) {
+            setNextCursor(null);
         }
     };
 
@@ -246,7 +266,7 @@ function Profile() {
                         {profile && !editMode ? (
                             <div>
                                 <div className="mb-3 text-center">
-                                    <img src={profile.image || "https://ui-avatars.com/api/?name=" + encodeURIComponent(profile.name || profile.email)} alt="Profile" className="rounded-circle" style={{ width: 80, height: 80, objectFit: "cover" }} />
+                                    <img src={imageSrc(profile.image) || "https://ui-avatars.com/api/?name=" + encodeURIComponent(profile.name || profile.email)} alt="Profile" className="rounded-circle" style={{ width: 80, height: 80, objectFit: "cover" }} />
                                 </div>
                                 <div className="mb-2">
                                     <strong>Name:</strong> {profile.name}
@@ -258,7 +278,7 @@ function Profile() {
                         ) : (
                             <form onSubmit={handleProfileSave}>
                                 <div className="mb-3 text-center">
-                                    <img src={editProfile.image || "https://ui-avatars.com/api/?name=" + encodeURIComponent(editProfile.name || editProfile.email)} alt="Profile" className="rounded-circle" style={{ width: 80, height: 80, objectFit: "cover" }} />
+                                    <img src={imageSrc(editProfile.image) || "https://ui-avatars.com/api/?name=" + encodeURIComponent(editProfile.name || editProfile.email)} alt="Profile" className="rounded-circle" style={{ width: 80, height: 80, objectFit: "cover" }} />
                                 </div>
                                 <div className="mb-3">
                                     <label className="form-label">Name</label>
@@ -343,7 +363,7 @@ function Profile() {
                                 <div className="card-header">
                                     <div className="row d-flex align-items-center">
                                         <div className="col-2">
-                                            <img src={post.authorImage || "https://ui-avatars.com/api/?name=" + encodeURIComponent(post.authorName)} alt={post.authorName} style={{ width: 50, height: 50, objectFit: "cover" }} />
+                                            <img src={imageSrc(post.authorImage) || "https://ui-avatars.com/api/?name=" + encodeURIComponent(post.authorName)} alt={post.authorName} style={{ width: 50, height: 50, objectFit: "cover" }} />
                                         </div>
                                         <div className="col-7 p-0">
                                             <h5>{post.authorName}</h5>
@@ -439,11 +459,16 @@ function Profile() {
                                     <p className="card-text" style={{ whiteSpace: 'pre-line' }}>{post.content}</p>
                                 </div>
                                 {post.image &&
-                                    <img src={post.image} className="card-img-middle" alt={post.title} style={{ maxHeight: 1080, objectFit: "cover" }} />}
+                                    <img src={imageSrc(post.image)} className="card-img-middle" alt={post.title} style={{ maxHeight: 1080, objectFit: "cover" }} />}
                                 <div className="card-body"></div>
                             </div>
                         ))
                     )}
+                    {nextCursor && (
+                        <button className="btn btn-outline-secondary w-100 mb-3" onClick={loadMorePosts}>
+                            Load more
+                        </button>
+                    )}
                 </div>
             </div>
         </div>